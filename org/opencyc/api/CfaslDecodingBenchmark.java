@@ -0,0 +1,271 @@
+package org.opencyc.api;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.opencyc.cycobject.CycList;
+
+/**
+ * Measures the time and the heap allocation of decoding a large CFASL reply, with and without
+ * the compact decoding mode of CfaslInputStream.<p>
+ *
+ * The reply is either read from the recorded CFASL payload file given as the first argument, or
+ * synthesized to resemble the answer to a large KB query: a list of rows each holding a guid,
+ * small and large integers, a double, strings, symbols and keywords, with the values repeating
+ * as they do in real query results.<p>
+ *
+ * Usage: java org.opencyc.api.CfaslDecodingBenchmark [payload-file | nbr-rows] [nbr-iterations]
+ *
+ * @version $Id$
+ *
+ * <p>Copyright 2001 Cycorp, Inc., license is open source GNU LGPL.
+ * <p><a href="http://www.opencyc.org/license.txt">the license</a>
+ * <p><a href="http://www.opencyc.org">www.opencyc.org</a>
+ * <p><a href="http://www.sourceforge.net/projects/opencyc">OpenCyc at SourceForge</a>
+ * <p>
+ * THIS SOFTWARE AND KNOWLEDGE BASE CONTENT ARE PROVIDED ``AS IS'' AND
+ * ANY EXPRESSED OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE OPENCYC
+ * ORGANIZATION OR ITS CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE AND KNOWLEDGE
+ * BASE CONTENT, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+public class CfaslDecodingBenchmark {
+
+  /**
+   * the default number of rows in the synthesized reply
+   */
+  public static final int DEFAULT_NBR_ROWS = 20000;
+
+  /**
+   * the default number of timed decoding iterations for each mode
+   */
+  public static final int DEFAULT_NBR_ITERATIONS = 20;
+
+  /**
+   * the number of untimed warm up decoding iterations for each mode
+   */
+  public static final int NBR_WARM_UP_ITERATIONS = 5;
+
+  /**
+   * the encoded reply
+   */
+  protected byte[] payload;
+
+  /**
+   * the number of timed decoding iterations for each mode
+   */
+  protected int nbrIterations = DEFAULT_NBR_ITERATIONS;
+
+  /**
+   * Constructs a new CfaslDecodingBenchmark object for the given encoded reply.
+   *
+   * @param payload the encoded reply
+   */
+  public CfaslDecodingBenchmark(byte[] payload) {
+    this.payload = payload;
+  }
+
+  /**
+   * Main method to run the CFASL decoding benchmark.
+   *
+   * @param args the optional payload file or number of rows, and the optional number of
+   *        iterations
+   */
+  public static void main(String[] args) {
+    try {
+      byte[] payload;
+
+      if ((args.length > 0) && (!(Character.isDigit(args[0].charAt(0))))) {
+        payload = readPayloadFile(args[0]);
+      }
+      else {
+        int nbrRows = (args.length > 0) ? Integer.parseInt(args[0]) : DEFAULT_NBR_ROWS;
+        payload = synthesizePayload(nbrRows);
+      }
+
+      CfaslDecodingBenchmark cfaslDecodingBenchmark = new CfaslDecodingBenchmark(payload);
+
+      if (args.length > 1) {
+        cfaslDecodingBenchmark.nbrIterations = Integer.parseInt(args[1]);
+      }
+
+      cfaslDecodingBenchmark.execute();
+    }
+    catch (Exception e) {
+      System.err.println(e.getMessage());
+      e.printStackTrace();
+      System.exit(1);
+    }
+
+    System.exit(0);
+  }
+
+  /**
+   * Runs the benchmark in the legacy and compact decoding modes, reporting the results on
+   * standard output.
+   *
+   * @throws IOException if the payload cannot be decoded
+   */
+  public void execute()
+               throws IOException {
+    System.out.println("CFASL payload " + payload.length + " bytes, " + nbrIterations +
+                       " iterations per mode");
+    measure(false);
+    measure(true);
+  }
+
+  /**
+   * Decodes the payload repeatedly in the given mode and reports the mean time and the
+   * approximate heap allocation per decoded reply.
+   *
+   * @param compactDecoding the decoding mode
+   *
+   * @throws IOException if the payload cannot be decoded
+   */
+  protected void measure(boolean compactDecoding)
+                  throws IOException {
+    for (int i = 0; i < NBR_WARM_UP_ITERATIONS; i++) {
+      decode(compactDecoding);
+    }
+
+    Runtime runtime = Runtime.getRuntime();
+    long totalMillis = 0;
+    long totalAllocatedBytes = 0;
+    long nbrAllocationSamples = 0;
+    long nbrInternedHits = 0;
+
+    for (int i = 0; i < nbrIterations; i++) {
+      System.gc();
+
+      long freeMemoryBefore = runtime.freeMemory();
+      long totalMemoryBefore = runtime.totalMemory();
+      long startMillis = System.currentTimeMillis();
+      CfaslInputStream cfaslInputStream = decode(compactDecoding);
+      totalMillis += (System.currentTimeMillis() - startMillis);
+
+      // A collection during the iteration spoils the sample, which is then discarded.
+      long allocatedBytes = freeMemoryBefore - runtime.freeMemory();
+
+      if ((allocatedBytes > 0) && (runtime.totalMemory() == totalMemoryBefore)) {
+        totalAllocatedBytes += allocatedBytes;
+        nbrAllocationSamples++;
+      }
+
+      nbrInternedHits = cfaslInputStream.getNbrInternedHits();
+    }
+
+    StringBuffer stringBuffer = new StringBuffer();
+    stringBuffer.append(compactDecoding ? "compact decoding: " : "legacy decoding:  ");
+    stringBuffer.append((double) totalMillis / nbrIterations);
+    stringBuffer.append(" ms/op, ");
+
+    if (nbrAllocationSamples > 0) {
+      stringBuffer.append(totalAllocatedBytes / nbrAllocationSamples);
+      stringBuffer.append(" allocated bytes/op");
+    }
+    else {
+      stringBuffer.append("allocated bytes/op not sampled");
+    }
+
+    if (compactDecoding) {
+      stringBuffer.append(", ");
+      stringBuffer.append(nbrInternedHits);
+      stringBuffer.append(" interned hits/op");
+    }
+
+    System.out.println(stringBuffer.toString());
+  }
+
+  /**
+   * Decodes the payload once in the given mode.
+   *
+   * @param compactDecoding the decoding mode
+   *
+   * @return the CfaslInputStream used to decode the payload
+   *
+   * @throws IOException if the payload cannot be decoded
+   */
+  protected CfaslInputStream decode(boolean compactDecoding)
+                             throws IOException {
+    CfaslInputStream cfaslInputStream = new CfaslInputStream(new ByteArrayInputStream(payload));
+    cfaslInputStream.compactDecoding = compactDecoding;
+    cfaslInputStream.readObject();
+
+    return cfaslInputStream;
+  }
+
+  /**
+   * Reads a recorded CFASL payload from the given file.
+   *
+   * @param fileName the payload file name
+   *
+   * @return the encoded reply
+   *
+   * @throws IOException if the file cannot be read
+   */
+  protected static byte[] readPayloadFile(String fileName)
+                                   throws IOException {
+    InputStream inputStream = new FileInputStream(fileName);
+    ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+
+    try {
+      byte[] buffer = new byte[8192];
+      int nbrRead;
+
+      while ((nbrRead = inputStream.read(buffer)) != -1) {
+        byteArrayOutputStream.write(buffer, 0, nbrRead);
+      }
+    }
+    finally {
+      inputStream.close();
+    }
+
+    return byteArrayOutputStream.toByteArray();
+  }
+
+  /**
+   * Synthesizes a reply resembling the answer to a large KB query.
+   *
+   * @param nbrRows the number of rows in the reply
+   *
+   * @return the encoded reply
+   *
+   * @throws IOException if the reply cannot be encoded
+   */
+  protected static byte[] synthesizePayload(int nbrRows)
+                                     throws IOException {
+    CycList reply = new CycList();
+
+    for (int i = 0; i < nbrRows; i++) {
+      CycList row = new CycList();
+      row.add(CycObjectFactory.makeGuid("bd58" + Integer.toHexString(0x1000 + (i % 4096)) +
+                                        "-9c29-11b1-9dad-c379636f7270"));
+      row.add(new Integer(i % 100));
+      row.add(new Integer(100000 + i));
+      row.add(new Double(i / 8.0));
+      row.add("Row comment " + (i % 50));
+      row.add("A unique row comment for row number " + i);
+      row.add(CycObjectFactory.makeCycSymbol("CONSTANT-INFO-" + (i % 20)));
+      row.add(CycObjectFactory.makeCycSymbol(":KEYWORD-" + (i % 10)));
+      row.add(CycObjectFactory.makeCycVariable("?VAR" + (i % 5)));
+      reply.add(row);
+    }
+
+    ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+    CfaslOutputStream cfaslOutputStream = new CfaslOutputStream(byteArrayOutputStream);
+    cfaslOutputStream.writeObject(reply);
+    cfaslOutputStream.flush();
+
+    return byteArrayOutputStream.toByteArray();
+  }
+}
@@ -191,6 +191,87 @@ public class CfaslInputStream
   protected static final int DEFAULT_READ_LIMIT = 8192;
   static HashMap cfaslOpcodeDescriptions = null;
 
+  /**
+   * The default compact decoding mode of new CfaslInputStream objects, which is off unless the
+   * system property org.opencyc.api.compactCfaslDecoding is true.
+   */
+  public static final boolean DEFAULT_COMPACT_DECODING =
+    "true".equals(System.getProperty("org.opencyc.api.compactCfaslDecoding", "false"));
+
+  /**
+   * Parameter that when set true, shares the boxed values of small integers, decodes string and
+   * guid bodies through a reusable scratch buffer, and interns repeated strings, symbols and
+   * keywords within one reply, so that large replies create far fewer short-lived objects.
+   */
+  public boolean compactDecoding = DEFAULT_COMPACT_DECODING;
+
+  /** the least integer value whose boxed value is shared */
+  protected static final int SMALL_INTEGER_CACHE_LOW = -128;
+
+  /** the greatest integer value whose boxed value is shared */
+  protected static final int SMALL_INTEGER_CACHE_HIGH = 1023;
+
+  /** the shared boxed values of small integers */
+  protected static final Integer[] smallIntegerCache = 
+    new Integer[SMALL_INTEGER_CACHE_HIGH - SMALL_INTEGER_CACHE_LOW + 1];
+
+  static {
+    for (int i = 0; i < smallIntegerCache.length; i++) {
+      smallIntegerCache[i] = new Integer(i + SMALL_INTEGER_CACHE_LOW);
+    }
+  }
+
+  /** the number of slots in the interning table, which must be a power of two */
+  protected static final int INTERNING_TABLE_SIZE = 1024;
+
+  /** the longest encoded string body that is interned */
+  protected static final int MAX_INTERNED_LENGTH = 64;
+
+  /** the interning table kind for strings */
+  protected static final int INTERNED_STRING = 0;
+
+  /** the interning table kind for symbols and EL variables */
+  protected static final int INTERNED_SYMBOL = 1;
+
+  /** the interning table kind for keywords */
+  protected static final int INTERNED_KEYWORD = 2;
+
+  /** the reusable scratch buffer for string and guid bodies */
+  protected byte[] scratchBytes = new byte[MAX_INTERNED_LENGTH];
+
+  /** the reusable scratch buffer for decoding 7-bit ascii string bodies */
+  protected char[] scratchChars = new char[MAX_INTERNED_LENGTH];
+
+  /** the interning table slot hash codes */
+  protected int[] internedHashCodes;
+
+  /** the interning table slot reply generations, a slot being valid only for the current reply */
+  protected int[] internedGenerations;
+
+  /** the interning table slot kinds */
+  protected int[] internedKinds;
+
+  /** the interning table slot encoded body lengths */
+  protected int[] internedLengths;
+
+  /** the interning table slot encoded bodies */
+  protected byte[][] internedBodies;
+
+  /** the interning table slot decoded objects */
+  protected Object[] internedObjects;
+
+  /** the current reply generation, incremented as each top level object is read */
+  protected int replyGeneration = 1;
+
+  /** the nesting depth of readObject calls */
+  protected int readDepth = 0;
+
+  /** the number of string bodies answered from the interning table */
+  protected long nbrInternedHits = 0;
+
+  /** the number of string bodies decoded */
+  protected long nbrInternedMisses = 0;
+
   /**
    * Initializes the opcode descriptions used in trace output.
    */
@@ -360,6 +441,30 @@ public class CfaslInputStream
    */
   public Object readObject()
                     throws IOException {
+    if (readDepth == 0) {
+      replyGeneration++;
+    }
+
+    readDepth++;
+
+    try {
+      return readObjectBody();
+    }
+    finally {
+      readDepth--;
+    }
+  }
+
+  /**
+   * Reads an Object from this CfaslInputStream, within the reply begun by the outermost
+   * readObject call.
+   * 
+   * @return the object read from the binary OpenCyc input stream
+   * 
+   * @throws IOException if a communications error occurs
+   */
+  protected Object readObjectBody()
+                           throws IOException {
     int cfaslOpcode = read();
 
     if (cfaslOpcode == CFASL_EXTERNALIZATION) {
@@ -381,7 +486,7 @@ public class CfaslInputStream
     }
 
     if (cfaslOpcode >= CFASL_IMMEDIATE_FIXNUM_OFFSET) {
-      o = new Integer(cfaslOpcode - CFASL_IMMEDIATE_FIXNUM_OFFSET);
+      o = makeFixnum(cfaslOpcode - CFASL_IMMEDIATE_FIXNUM_OFFSET);
 
       if (trace == API_TRACE_DETAILED) {
         Log.current.println("Reading Immediate Fixnum: " + o);
@@ -390,50 +495,50 @@ public class CfaslInputStream
     else {
       switch (cfaslOpcode) {
       case CFASL_P_8BIT_INT:
-        o = new Integer(readFixnumBody(1, 
-                                       1));
+        o = makeFixnum(readFixnumBody(1, 
+                                      1));
 
         break;
 
       case CFASL_N_8BIT_INT:
-        o = new Integer(readFixnumBody(1, 
-                                       -1));
+        o = makeFixnum(readFixnumBody(1, 
+                                      -1));
 
         break;
 
       case CFASL_P_16BIT_INT:
-        o = new Integer(readFixnumBody(2, 
-                                       1));
+        o = makeFixnum(readFixnumBody(2, 
+                                      1));
 
         break;
 
       case CFASL_N_16BIT_INT:
-        o = new Integer(readFixnumBody(2, 
-                                       -1));
+        o = makeFixnum(readFixnumBody(2, 
+                                      -1));
 
         break;
 
       case CFASL_P_24BIT_INT:
-        o = new Integer(readFixnumBody(3, 
-                                       1));
+        o = makeFixnum(readFixnumBody(3, 
+                                      1));
 
         break;
 
       case CFASL_N_24BIT_INT:
-        o = new Integer(readFixnumBody(3, 
-                                       -1));
+        o = makeFixnum(readFixnumBody(3, 
+                                      -1));
 
         break;
 
       case CFASL_P_32BIT_INT:
-        o = new Integer(readFixnumBody(4, 
-                                       1));
+        o = makeFixnum(readFixnumBody(4, 
+                                      1));
 
         break;
 
       case CFASL_N_32BIT_INT:
-        o = new Integer(readFixnumBody(4, 
-                                       -1));
+        o = makeFixnum(readFixnumBody(4, 
+                                      -1));
 
         break;
 
@@ -488,6 +593,11 @@ public class CfaslInputStream
         return reportUnhandledCfaslOpcode(cfaslOpcode);
 
       case CFASL_STRING:
+        if (compactDecoding) {
+          o = readInternedBody(INTERNED_STRING);
+
+          break;
+        }
 
         int off = 0;
         int len = readInt();
@@ -643,6 +753,254 @@ public class CfaslInputStream
     }
   }
 
+  /**
+   * Returns the boxed value of the given fixnum, which is shared for small values in compact
+   * decoding mode.
+   * 
+   * @param i the given fixnum
+   * 
+   * @return the boxed value of the given fixnum
+   */
+  protected Integer makeFixnum(int i) {
+    if (compactDecoding) {
+      return makeInteger(i);
+    }
+
+    return new Integer(i);
+  }
+
+  /**
+   * Returns the boxed value of the given int, sharing the boxed values of small integers.
+   * 
+   * @param i the given int
+   * 
+   * @return the boxed value of the given int
+   */
+  public static Integer makeInteger(int i) {
+    if ((i >= SMALL_INTEGER_CACHE_LOW) && (i <= SMALL_INTEGER_CACHE_HIGH)) {
+      return smallIntegerCache[i - SMALL_INTEGER_CACHE_LOW];
+    }
+
+    return new Integer(i);
+  }
+
+  /**
+   * Reads the length and body of a string from this CfaslInputStream into the scratch buffer and
+   * returns the decoded string, symbol or keyword, answering short bodies already decoded within
+   * the current reply from the interning table.
+   * 
+   * @param kind the interning table kind of the decoded object
+   * 
+   * @return the decoded string, symbol or keyword
+   * 
+   * @throws IOException if a communications error occurs
+   */
+  protected Object readInternedBody(int kind)
+                             throws IOException {
+    int len = readInt();
+    readScratchBytes(len);
+
+    byte[] bytes = scratchBytes;
+
+    if (len > MAX_INTERNED_LENGTH) {
+      nbrInternedMisses++;
+
+      return makeInternedObject(kind, 
+                                decodeScratchBytes(len));
+    }
+
+    if (internedObjects == null) {
+      internedHashCodes = new int[INTERNING_TABLE_SIZE];
+      internedGenerations = new int[INTERNING_TABLE_SIZE];
+      internedKinds = new int[INTERNING_TABLE_SIZE];
+      internedLengths = new int[INTERNING_TABLE_SIZE];
+      internedBodies = new byte[INTERNING_TABLE_SIZE][];
+      internedObjects = new Object[INTERNING_TABLE_SIZE];
+    }
+
+    int hashCode = kind;
+
+    for (int i = 0; i < len; i++) {
+      hashCode = (31 * hashCode) + bytes[i];
+    }
+
+    int slot = (hashCode ^ (hashCode >>> 16)) & (INTERNING_TABLE_SIZE - 1);
+
+    if ((internedGenerations[slot] == replyGeneration) && 
+        (internedHashCodes[slot] == hashCode) && 
+        (internedKinds[slot] == kind) && 
+        (internedLengths[slot] == len)) {
+      byte[] body = internedBodies[slot];
+      int i = 0;
+
+      while ((i < len) && (body[i] == bytes[i])) {
+        i++;
+      }
+
+      if (i == len) {
+        nbrInternedHits++;
+
+        return internedObjects[slot];
+      }
+    }
+
+    nbrInternedMisses++;
+
+    Object object = makeInternedObject(kind, 
+                                       decodeScratchBytes(len));
+
+    if (internedBodies[slot] == null) {
+      internedBodies[slot] = new byte[MAX_INTERNED_LENGTH];
+    }
+
+    System.arraycopy(bytes, 
+                     0, 
+                     internedBodies[slot], 
+                     0, 
+                     len);
+    internedGenerations[slot] = replyGeneration;
+    internedHashCodes[slot] = hashCode;
+    internedKinds[slot] = kind;
+    internedLengths[slot] = len;
+    internedObjects[slot] = object;
+
+    return object;
+  }
+
+  /**
+   * Reads the given number of bytes from this CfaslInputStream into the scratch buffer, growing
+   * the scratch buffer when needed.
+   * 
+   * @param len the number of bytes
+   * 
+   * @throws IOException if a communications error occurs
+   */
+  private void readScratchBytes(int len)
+                         throws IOException {
+    if (scratchBytes.length < len) {
+      scratchBytes = new byte[Math.max(len, scratchBytes.length * 2)];
+    }
+
+    int off = 0;
+
+    while (off < len) {
+      int nbrRead = read(scratchBytes, 
+                         off, 
+                         len - off);
+
+      if (nbrRead < 0) {
+        throw new CfaslInputStreamClosedException("Cfasl connection closed by peer");
+      }
+
+      off += nbrRead;
+    }
+  }
+
+  /**
+   * Decodes the UTF-8 string body held in the scratch buffer, copying 7-bit ascii bodies
+   * directly.
+   * 
+   * @param len the length of the string body
+   * 
+   * @return the decoded string
+   * 
+   * @throws IOException if the UTF-8 encoding is not supported
+   */
+  private String decodeScratchBytes(int len)
+                             throws IOException {
+    if (scratchChars.length < len) {
+      scratchChars = new char[Math.max(len, scratchChars.length * 2)];
+    }
+
+    for (int i = 0; i < len; i++) {
+      int b = scratchBytes[i];
+
+      if (b < 0) {
+        return new String(scratchBytes, 
+                          0, 
+                          len, 
+                          "UTF-8");
+      }
+
+      scratchChars[i] = (char) b;
+    }
+
+    return new String(scratchChars, 
+                      0, 
+                      len);
+  }
+
+  /**
+   * Makes the object of the given interning table kind from the given decoded string.
+   * 
+   * @param kind the interning table kind
+   * @param name the decoded string
+   * 
+   * @return the string, symbol, EL variable or keyword
+   */
+  private Object makeInternedObject(int kind, 
+                                    String name) {
+    if (kind == INTERNED_STRING) {
+      return name;
+    }
+    else if (kind == INTERNED_KEYWORD) {
+      if (!(name.startsWith(":"))) {
+        name = ":" + name;
+      }
+
+      return CycObjectFactory.makeCycSymbol(name);
+    }
+    else if (name.startsWith("?")) {
+      return CycObjectFactory.makeCycVariable(name);
+    }
+    else {
+      return CycObjectFactory.makeCycSymbol(name);
+    }
+  }
+
+  /**
+   * Reads the string which names a symbol or keyword as an interned object when the string has
+   * the expected opcode, otherwise leaves the input stream unchanged and returns null.
+   * 
+   * @param kind the interning table kind
+   * 
+   * @return the interned object, or null when the next item is not a string
+   * 
+   * @throws IOException if a communications error occurs
+   */
+  private Object readInternedName(int kind)
+                           throws IOException {
+    mark(DEFAULT_READ_LIMIT);
+
+    int cfaslOpcode = read();
+
+    if ((cfaslOpcode == CFASL_STRING) || (cfaslOpcode == CFASL_UNICODE_STRING)) {
+      return readInternedBody(kind);
+    }
+
+    reset();
+
+    return null;
+  }
+
+  /**
+   * Returns the number of string bodies answered from the interning table.
+   * 
+   * @return the number of string bodies answered from the interning table
+   */
+  public long getNbrInternedHits() {
+    return nbrInternedHits;
+  }
+
+  /**
+   * Returns the number of string bodies decoded in compact decoding mode.
+   * 
+   * @return the number of string bodies decoded in compact decoding mode
+   */
+  public long getNbrInternedMisses() {
+    return nbrInternedMisses;
+  }
+
   /**
    * Reads an char from this CfaslInputStream.  If the next item on the stream is not a char, throw
    * an exception, and leave that object on the input stream.
@@ -886,6 +1244,14 @@ public class CfaslInputStream
    */
   public CycSymbol readKeyword()
                         throws IOException {
+    if (compactDecoding) {
+      Object keyword = readInternedName(INTERNED_KEYWORD);
+
+      if (keyword != null) {
+        return (CycSymbol) keyword;
+      }
+    }
+
     String keywordString = (String) readObject();
 
     if (!(keywordString.startsWith(":"))) {
@@ -905,6 +1271,14 @@ public class CfaslInputStream
    */
   public Object readSymbol()
                     throws IOException {
+    if (compactDecoding) {
+      Object symbol = readInternedName(INTERNED_SYMBOL);
+
+      if (symbol != null) {
+        return symbol;
+      }
+    }
+
     String name = (String) readObject();
 
     if (name.startsWith("?")) {
@@ -925,7 +1299,20 @@ public class CfaslInputStream
    */
   public Guid readGuid()
                 throws IOException {
-    Guid guid = CycObjectFactory.makeGuid((String) readObject());
+    Guid guid;
+    mark(DEFAULT_READ_LIMIT);
+
+    if (read() == CFASL_STRING) {
+      // parse the guid directly from its ascii bytes
+      int len = readInt();
+      readScratchBytes(len);
+      guid = CycObjectFactory.makeGuid(scratchBytes, 
+                                       len);
+    }
+    else {
+      reset();
+      guid = CycObjectFactory.makeGuid((String) readObject());
+    }
 
     if (trace == API_TRACE_DETAILED) {
       Log.current.println("readGuid: " + guid);
@@ -966,7 +1353,7 @@ public class CfaslInputStream
       Log.current.println("readUnicodeChar: 0x" + Integer.toHexString(retval));
     }
 
-    return new Integer(retval);
+    return makeFixnum(retval);
   }
 
   /**
@@ -980,6 +1367,15 @@ public class CfaslInputStream
    */
   public String readUnicodeString()
                 throws IOException {
+    if (compactDecoding) {
+      String retval = (String) readInternedBody(INTERNED_STRING);
+      if (trace == API_TRACE_DETAILED) {
+        Log.current.println("readUnicodeString: " + retval);
+      }
+
+      return retval;
+    }
+
     int off = 0;
     int len = readInt();
     byte[] s = new byte[len];
@@ -1163,7 +1559,7 @@ public class CfaslInputStream
   public CycVariable readVariable()
                            throws IOException {
     CycVariable cycVariable = new CycVariable();
-    cycVariable.hlVariableId = new Integer(readInt());
+    cycVariable.hlVariableId = makeFixnum(readInt());
 
     if (trace == API_TRACE_DETAILED) {
       Log.current.println("readVariable: " + cycVariable.safeToString());
@@ -1196,7 +1592,7 @@ public class CfaslInputStream
       reset();
       cycNart = new CycNart();
       try {
-        cycNart.setId(new Integer(readInt()));
+        cycNart.setId(makeFixnum(readInt()));
       }
       catch (RuntimeException e) {
         if (cfaslOpcode == CFASL_NIL) {
@@ -195,6 +195,9 @@ public class CfaslOutputStream
   /** CFASL code */
   protected static final int CFASL_SERVER_DEATH = -1;
 
+  /** the reusable buffer for the ascii bytes of a guid */
+  private byte[] guidBytes = new byte[Guid.GUID_STRING_LENGTH];
+
   /**
    * Creates a new CfaslOutputStream to write data to the specified underlying output stream with
    * the default buffer size.
@@ -707,7 +710,18 @@ public class CfaslOutputStream
     }
 
     write(CFASL_GUID);
-    writeString(guid.toString());
+
+    if (guid.isParsed()) {
+      // format the guid directly as ascii bytes
+      write(CFASL_STRING);
+      writeInt(Guid.GUID_STRING_LENGTH);
+      guid.writeBytes(guidBytes, 
+                      0);
+      write(guidBytes);
+    }
+    else {
+      writeString(guid.toString());
+    }
   }
 
   /**
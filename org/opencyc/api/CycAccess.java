@@ -23,12 +23,14 @@ import org.opencyc.cycobject.CycNart;
 import org.opencyc.cycobject.CycObject;
 import org.opencyc.cycobject.CycSymbol;
 import org.opencyc.cycobject.CycVariable;
+import org.opencyc.cycobject.DefaultCycObject;
 import org.opencyc.cycobject.ELMt;
 import org.opencyc.cycobject.ELMtConstant;
 import org.opencyc.cycobject.ELMtCycList;
 import org.opencyc.cycobject.ELMtNart;
 import org.opencyc.cycobject.Guid;
 import org.opencyc.util.Log;
+import org.opencyc.util.Timer;
 
 
 /**
@@ -67,16 +69,32 @@ public class CycAccess {
   public boolean eagerlyObtainConstantNames = true;
   
   /**
-   * the threshold above which constant names are automatically obtained for constants returned
-   * from the api
+   * the threshold at which the incomplete constants returned from the api are completed in one
+   * batched request, the default of one completing every reply before it reaches the caller
    */
-  public int eagerlyObtainConstantNamesThreshold = 10;
+  public int eagerlyObtainConstantNamesThreshold = 1;
   
   /**
    * the list of constants returned from the api that currently have no constant name
    */
   public CycList constantsHavingNoName = new CycList();
   
+  /**
+   * the list of constants returned from the api that currently have no guid
+   */
+  public CycList constantsHavingNoGuid = new CycList();
+
+  /**
+   * the number of constant names and guids obtained by batched requests, each of which would
+   * otherwise have cost a separate api request when first accessed
+   */
+  protected long nbrLazyConstantFetchesAvoided = 0;
+
+  /**
+   * the number of batched constant completion requests
+   */
+  protected long nbrConstantCompletionRequests = 0;
+  
   /**
    * Stack to prevent tracing of recursive api calls whose sole purpose is to obtain names for
    * traceWithNames.
@@ -92,6 +110,12 @@ public class CycAccess {
   /** Value indicating that the OpenCyc api should use one TCP socket for the entire session. */
   public static final int XML_SOAP_CONNECTION = 3;
 
+  /**
+   * Value indicating that the OpenCyc api should lease one of a pool of TCP sockets for each api
+   * call.
+   */
+  public static final int POOLED_CONNECTION = 4;
+
   /**
    * Default value indicating that the OpenCyc api should use one TCP socket for the entire
    * session.
@@ -132,6 +156,35 @@ public class CycAccess {
   /** the Cyc server OK response code */
   protected static final Integer OK_RESPONSE_CODE = new Integer(200);
 
+  /** the precompiled isa-in-any-mt? command */
+  protected static final SubLCommandTemplate ISA_IN_ANY_MT_TEMPLATE =
+    new SubLCommandTemplate("(isa-in-any-mt? ?TERM ?COLLECTION)",
+                            new String[] {"?TERM", "?COLLECTION"},
+                            new Class[] {CycObject.class, CycFort.class});
+
+  /** the precompiled all-mts genls command */
+  protected static final SubLCommandTemplate ALL_MTS_GENLS_TEMPLATE =
+    new SubLCommandTemplate("(remove-duplicates (with-all-mts (genls ?COLLECTION)))",
+                            new String[] {"?COLLECTION"},
+                            new Class[] {CycObject.class});
+
+  /** the precompiled genls command */
+  protected static final SubLCommandTemplate GENLS_TEMPLATE =
+    new SubLCommandTemplate("(genls ?COLLECTION ?MT)",
+                            new String[] {"?COLLECTION", "?MT"},
+                            new Class[] {CycFort.class, CycObject.class});
+
+  /** the precompiled ask-template command for a query with a single unbound variable */
+  protected static final SubLCommandTemplate ASK_TEMPLATE_TEMPLATE =
+    new SubLCommandTemplate("(clet ((*cache-inference-results* nil) " +
+                            "       (*compute-inference-results* nil) " +
+                            "       (*unique-inference-result-bindings* t) " +
+                            "       (*generate-readable-fi-results* nil)) " +
+                            "  (without-wff-semantics " +
+                            "    (ask-template ?VARIABLE ?QUERY ?MT 0 nil nil nil)))",
+                            new String[] {"?VARIABLE", "?QUERY", "?MT"},
+                            new Class[] {CycVariable.class, CycList.class, CycObject.class});
+
   /**
    * Parameter that, when true, causes a trace of the messages to and from the server. This
    * variable preserves the value of the CycConnection trace between instantiations when the
@@ -287,6 +340,10 @@ public class CycAccess {
     persistentConnection = XML_SOAP_CONNECTION;
     persistentConnection = PERSISTENT_CONNECTION;
     
+    if (conn instanceof CycConnectionPool) {
+      persistentConnection = POOLED_CONNECTION;
+      ((CycConnectionPool) conn).setCycAccess(this);
+    }
     cycConnection = conn;
     commonInitialization();
   }
@@ -420,6 +477,15 @@ public class CycAccess {
                                         communicationMode, 
                                         this);
     }
+    else if (persistentConnection == CycAccess.POOLED_CONNECTION) {
+      if (communicationMode != CycConnection.BINARY_MODE) {
+        throw new CycApiException("Pooled Connections require Binary Mode");
+      }
+      cycConnection = new CycConnectionPool(hostName, 
+                                            port, 
+                                            messagingMode, 
+                                            this);
+    }
 
     commonInitialization();
   }
@@ -449,7 +515,8 @@ public class CycAccess {
     this.port = basePort;
 
     if (messagingMode == CycConnection.CONCURRENT_MESSAGING_MODE) {
-      if (persistentConnection != PERSISTENT_CONNECTION) {
+      if ((persistentConnection != PERSISTENT_CONNECTION) && 
+          (persistentConnection != POOLED_CONNECTION)) {
         throw new CycApiException("Concurrent Messaging requires Persistent Connections");
       }
     }
@@ -465,6 +532,15 @@ public class CycAccess {
                                         messagingMode, 
                                         this);
     }
+    else if (persistentConnection == this.POOLED_CONNECTION) {
+      if (communicationMode != CycConnection.BINARY_MODE) {
+        throw new CycApiException("Pooled Connections require Binary Mode");
+      }
+      cycConnection = new CycConnectionPool(hostName, 
+                                            port, 
+                                            messagingMode, 
+                                            this);
+    }
 
     commonInitialization();
   }
@@ -599,9 +675,7 @@ public class CycAccess {
    * @return the hostname of the connection
    */
   public String getHostName() {
-    // @hack: we dont actually know if this is a CycConnection object,
-    // so this cast may fail woefully -> fix later
-    return ((CycConnection) cycConnection).getHostName();
+    return cycConnection.getHostName();
   }
 
   /**
@@ -610,9 +684,7 @@ public class CycAccess {
    * @return the baseport of the connection
    */
   public int getBasePort() {
-    // @hack: we dont actually know if this is a CycConnection object,
-    // so this cast may fail woefully -> fix later
-    return ((CycConnection) cycConnection).getBasePort();
+    return cycConnection.getBasePort();
   }
 
   /**
@@ -780,24 +852,27 @@ public class CycAccess {
     }
 
     if (eagerlyObtainConstantNames  && (! isWithinConverse)) {
-      if (response[1] instanceof CycList) {
-        CycList constantNames = ((CycList) response[1]).treeConstants();
-        Iterator iter = constantNames.iterator();
-        while (iter.hasNext()) { 
-          CycConstant cycConstant = (CycConstant) iter.next();
-          if (cycConstant.safeGetName() == null)
-            constantsHavingNoName.add(cycConstant);
+      CycList constantsHavingNoName1 = null;
+      CycList constantsHavingNoGuid1 = null;
+      synchronized (constantsHavingNoName) {
+        collectIncompleteConstants(response[1], constantsHavingNoName, constantsHavingNoGuid);
+        if (constantsHavingNoName.size() + constantsHavingNoGuid.size() >= 
+            eagerlyObtainConstantNamesThreshold) {
+          constantsHavingNoName1 = (CycList) constantsHavingNoName.clone();
+          constantsHavingNoName.clear();
+          constantsHavingNoGuid1 = (CycList) constantsHavingNoGuid.clone();
+          constantsHavingNoGuid.clear();
         }
       }
-      else if (response[1] instanceof CycConstant &&
-               ((CycConstant) response[1]).safeGetName() == null)
-        constantsHavingNoName.add(response[1]);
-      if (constantsHavingNoName.size() >= eagerlyObtainConstantNamesThreshold) {
-        CycList constantsHavingNoName1 = (CycList) constantsHavingNoName.clone();
-        constantsHavingNoName = new CycList();
+      if (constantsHavingNoName1 != null) {
         isWithinConverse = true;
-        obtainConstantNames(constantsHavingNoName1);
-        isWithinConverse = false;
+        try {
+          obtainConstantNames(constantsHavingNoName1);
+          obtainConstantGuids(constantsHavingNoGuid1);
+        }
+        finally {
+          isWithinConverse = false;
+        }
       }
     }
         
@@ -805,44 +880,191 @@ public class CycAccess {
   }
 
   /**
-   * Obtains constant names for a list of constants
+   * Collects the constants referenced by the given api response which have no name or no guid,
+   * without making api requests.  Constants having neither a name nor a guid are left to be
+   * completed individually by id.
+   *
+   * @param object the given api response
+   * @param constantsHavingNoName the list to which constants having a guid but no name are added
+   * @param constantsHavingNoGuid the list to which constants having a name but no guid are added
+   */
+  protected static void collectIncompleteConstants(Object object, 
+                                                   List constantsHavingNoName, 
+                                                   List constantsHavingNoGuid) {
+    List constants;
+    if (object instanceof CycConstant)
+      constants = ((CycConstant) object).getReferencedConstants();
+    else if (object instanceof CycList)
+      constants = ((CycList) object).treeConstants();
+    else if (object instanceof CycNart)
+      constants = DefaultCycObject.getReferencedConstants(object);
+    else
+      return;
+    Iterator iter = constants.iterator();
+    while (iter.hasNext()) { 
+      CycConstant cycConstant = (CycConstant) iter.next();
+      if (cycConstant.safeGetGuid() == null) {
+        if (cycConstant.safeGetName() != null)
+          constantsHavingNoGuid.add(cycConstant);
+      }
+      else if (cycConstant.safeGetName() == null)
+        constantsHavingNoName.add(cycConstant);
+    }
+  }
+
+  /**
+   * Completes all the constants referenced by the given object which have no name or no guid,
+   * using at most one batched api request for the names and one for the guids.
+   *
+   * @param object the given object
+   * 
+   * @return the number of constants completed
+   * 
+   * @throws UnknownHostException if cyc server host not found on the network
+   * @throws IOException if a data communication error occurs
+   * @throws CycApiException if the api request results in a cyc server error
+   */
+  public int completeConstants (Object object)
+                         throws IOException, UnknownHostException, CycApiException {
+    CycList constantsHavingNoName1 = new CycList();
+    CycList constantsHavingNoGuid1 = new CycList();
+    collectIncompleteConstants(object, constantsHavingNoName1, constantsHavingNoGuid1);
+    return obtainConstantNames(constantsHavingNoName1) + obtainConstantGuids(constantsHavingNoGuid1);
+  }
+
+  /**
+   * Returns true if the given list contains the given object itself, as distinct from an object
+   * equal to it.
+   *
+   * @param list the given list
+   * @param object the given object
+   *
+   * @return true if the given list contains the given object itself
+   */
+  private static boolean containsIdentical(List list, Object object) {
+    for (int i = 0; i < list.size(); i++) {
+      if (list.get(i) == object)
+        return true;
+    }
+    return false;
+  }
+
+  /**
+   * Returns the number of constant names and guids obtained by batched requests, each of which
+   * would otherwise have cost a separate api request when first accessed.
+   *
+   * @return the number of lazy constant fetches avoided
+   */
+  public long getNbrLazyConstantFetchesAvoided() {
+    return nbrLazyConstantFetchesAvoided;
+  }
+
+  /**
+   * Returns the number of batched constant completion requests.
+   *
+   * @return the number of batched constant completion requests
+   */
+  public long getNbrConstantCompletionRequests() {
+    return nbrConstantCompletionRequests;
+  }
+
+  /**
+   * Sends the given api command to Cyc without waiting for the reply, and returns a future which
+   * receives the reply.  Over a concurrent messaging mode connection, a single thread may keep
+   * many commands in flight, their replies being completed by the connection's response handler
+   * thread.  Constants in the reply are not eagerly completed; see <tt>completeConstants</tt>.
+   * 
+   * @param command the command string or CycList
+   * 
+   * @return the future which receives the reply
+   * 
+   * @throws UnknownHostException if cyc server host not found on the network
+   * @throws IOException if a data communication error occurs
+   * @throws CycApiException if the api request results in a cyc server error
+   */
+  public SubLWorkerFuture converseAsync(Object command)
+                                 throws IOException, UnknownHostException, CycApiException {
+    if (communicationMode != CycConnection.BINARY_MODE)
+      throw new CycApiException("Asynchronous requests require binary mode");
+    if (persistentConnection == TRANSIENT_CONNECTION)
+      throw new CycApiException("Asynchronous requests require a persistent connection");
+    CycList commandCycList;
+    if (command instanceof String)
+      commandCycList = makeCycList((String) command);
+    else
+      commandCycList = (CycList) command;
+    commandCycList = CycConnection.substituteForBackquote(cycConnection, 
+                                                          commandCycList, 
+                                                          new Timer());
+    SubLWorkerFuture future = new SubLWorkerFuture(commandCycList, this);
+    future.start();
+    return future;
+  }
+
+  /**
+   * Obtains constant names for a list of constants in one batched api request.  Constants having
+   * neither a name nor a guid are skipped.
    *
    * @param constants the given list of constants having no name yet
    * 
+   * @return the number of constants named
+   * 
    * @throws UnknownHostException if cyc server host not found on the network
    * @throws IOException if a data communication error occurs
    * @throws CycApiException if the api request results in a cyc server error
    */
-  public void obtainConstantNames (List constants)
+  public int obtainConstantNames (List constants)
                             throws IOException, UnknownHostException, CycApiException {
     CycList guidStrings = new CycList();
+    HashMap constantsByGuidString = new HashMap();
     Iterator iter = constants.iterator();
     while (iter.hasNext()) {
       CycConstant cycConstant = (CycConstant) iter.next();
-      if (cycConstant.safeGetName() == null)
-        guidStrings.add(cycConstant.getGuid().toString());
+      if (cycConstant.safeGetName() == null && cycConstant.safeGetGuid() != null) {
+        String guidString = cycConstant.safeGetGuid().toString();
+        List sameGuidConstants = (List) constantsByGuidString.get(guidString);
+        if (sameGuidConstants == null) {
+          sameGuidConstants = new ArrayList(1);
+          constantsByGuidString.put(guidString, sameGuidConstants);
+          guidStrings.add(guidString);
+        }
+        if (! containsIdentical(sameGuidConstants, cycConstant))
+          sameGuidConstants.add(cycConstant);
+      }
     }
     if (guidStrings.size() == 0)
-      return;
+      return 0;
     CycList command = new CycList();
     command.add(CycObjectFactory.makeCycSymbol("constant-info-from-guid-strings"));
     command.addQuoted(guidStrings);
     CycList constantInfos = converseList(command);
+    int nbrNamed = 0;
     iter = constantInfos.iterator();
     while (iter.hasNext()) {
       Object constantInfoObject = iter.next();
 
       if (constantInfoObject instanceof CycList) {
         CycList constantInfo = (CycList) constantInfoObject;
-        Guid guid = CycObjectFactory.makeGuid((String) constantInfo.first());
-        CycConstant cycConstant = CycObjectFactory.getCycConstantCacheByGuid(guid);
+        String guidString = (String) constantInfo.first();
+        String name = (String) constantInfo.second();
+        List sameGuidConstants = (List) constantsByGuidString.get(guidString);
+        if (sameGuidConstants != null) {
+          for (int i = 0; i < sameGuidConstants.size(); i++) {
+            ((CycConstant) sameGuidConstants.get(i)).setName(name);
+            nbrNamed++;
+          }
+        }
+        CycConstant cycConstant = 
+          CycObjectFactory.getCycConstantCacheByGuid(CycObjectFactory.makeGuid(guidString));
         if (cycConstant != null) {
-          String name = (String) constantInfo.second();
           cycConstant.setName(name);
           CycObjectFactory.addCycConstantCacheByName(cycConstant);
         }
       }
     }
+    nbrConstantCompletionRequests++;
+    nbrLazyConstantFetchesAvoided += nbrNamed;
+    return nbrNamed;
   }
   
   /**
@@ -850,26 +1072,39 @@ public class CycAccess {
    *
    * @param constants the given list of constants having no Guid yet
    * 
+   * @return the number of constants given a guid
+   * 
    * @throws UnknownHostException if cyc server host not found on the network
    * @throws IOException if a data communication error occurs
    * @throws CycApiException if the api request results in a cyc server error
    */
-  public void obtainConstantGuids (List constants)
+  public int obtainConstantGuids (List constants)
                             throws IOException, UnknownHostException, CycApiException {
     CycList guidStrings = new CycList();
+    HashMap constantsByName = new HashMap();
     Iterator iter = constants.iterator();
     while (iter.hasNext()) {
       CycConstant cycConstant = (CycConstant) iter.next();
-      if (cycConstant.safeGetGuid() == null)
-        guidStrings.add(cycConstant.getName());
+      if (cycConstant.safeGetGuid() == null && cycConstant.safeGetName() != null) {
+        String name = cycConstant.safeGetName();
+        List sameNameConstants = (List) constantsByName.get(name);
+        if (sameNameConstants == null) {
+          sameNameConstants = new ArrayList(1);
+          constantsByName.put(name, sameNameConstants);
+          guidStrings.add(name);
+        }
+        if (! containsIdentical(sameNameConstants, cycConstant))
+          sameNameConstants.add(cycConstant);
+      }
     }
     if (guidStrings.size() == 0)
-      return;
+      return 0;
     CycList command = new CycList();
     command.add(CycObjectFactory.makeCycSymbol("constant-info-from-name-strings"));
     command.addQuoted(guidStrings);
     //System.out.println("Calling: " + command);
     CycList constantInfos = converseList(command);
+    int nbrGuidsObtained = 0;
     iter = constantInfos.iterator();
     while (iter.hasNext()) {
       Object constantInfoObject = iter.next();
@@ -877,15 +1112,24 @@ public class CycAccess {
       if (constantInfoObject instanceof CycList) {
         CycList constantInfo = (CycList) constantInfoObject;
         String name = (String) constantInfo.second();
-        //Guid guid = CycObjectFactory.makeGuid((String) constantInfo.first());
+        Guid guid = (Guid)constantInfo.first();
+        List sameNameConstants = (List) constantsByName.get(name);
+        if (sameNameConstants != null) {
+          for (int i = 0; i < sameNameConstants.size(); i++) {
+            ((CycConstant) sameNameConstants.get(i)).setGuid(guid);
+            nbrGuidsObtained++;
+          }
+        }
         CycConstant cycConstant = CycObjectFactory.getCycConstantCacheByName(name);
         if (cycConstant != null) {
-          Guid guid = (Guid)constantInfo.first();
           cycConstant.setGuid(guid);
           CycObjectFactory.addCycConstantCacheByGuid(cycConstant);
         }
       }
     }
+    nbrConstantCompletionRequests++;
+    nbrLazyConstantFetchesAvoided += nbrGuidsObtained;
+    return nbrGuidsObtained;
   }
     
   /**
@@ -2556,8 +2800,7 @@ public class CycAccess {
            cycObject instanceof CycNart || 
            cycObject instanceof CycList : cycObject.cyclify() + " must be a CycConstant, CycNart or CycList";
             
-    return converseList("(remove-duplicates (with-all-mts (genls " + cycObject.stringApiValue() + 
-                        ")))");
+    return converseList(ALL_MTS_GENLS_TEMPLATE.bind(new Object[] {cycObject}));
   }
 
   /**
@@ -2575,8 +2818,7 @@ public class CycAccess {
   public CycList getGenls(CycFort cycFort, 
                           CycObject mt)
                    throws IOException, UnknownHostException, CycApiException {
-    return converseList("(genls " + cycFort.stringApiValue() + " " + 
-                        makeELMt(mt).stringApiValue() + ")");
+    return converseList(GENLS_TEMPLATE.bind(new Object[] {cycFort, makeELMt(mt)}));
   }
 
   /**
@@ -4056,6 +4298,42 @@ public class CycAccess {
                         makeELMt(mt).stringApiValue() + ")");
   }
 
+  /**
+   * Gets an iterator over all the direct and indirect instances (across all microtheories) for
+   * the given collection, which pulls the instances from the server in chunks so that client
+   * memory stays bounded however many instances there are.
+   * 
+   * @param cycFort the collection for which all the direct and indirect instances are sought
+   * 
+   * @return the iterator over all the direct and indirect instances for the given collection
+   */
+  public CycResultIterator getAllInstancesIterator(CycFort cycFort) {
+    return new CycResultIterator(this, 
+                                 "(all-instances-in-all-mts " + cycFort.stringApiValue() + ")");
+  }
+
+  /**
+   * Gets an iterator over all the direct and indirect instances for a CycFort collection in the
+   * given microtheory, which pulls the instances from the server in chunks so that client memory
+   * stays bounded however many instances there are.
+   * 
+   * @param cycFort the collection for which all the direct and indirect instances are sought
+   * @param mt the relevant mt
+   * 
+   * @return the iterator over all the direct and indirect instances for the given collection
+   * 
+   * @throws UnknownHostException if cyc server host not found on the network
+   * @throws IOException if a data communication error occurs
+   * @throws CycApiException if the api request results in a cyc server error
+   */
+  public CycResultIterator getAllInstancesIterator(CycFort cycFort, 
+                                                   CycObject mt)
+                                            throws IOException, UnknownHostException, CycApiException {
+    return new CycResultIterator(this, 
+                                 "(all-instances " + cycFort.stringApiValue() + " " + 
+                                 makeELMt(mt).stringApiValue() + ")");
+  }
+
   /**
    * Gets a list of all the direct and indirect quoted instances for a CycFort collection in
    * the given microtheory.
@@ -4158,8 +4436,7 @@ public class CycAccess {
   public boolean isa(CycObject term, 
                      CycFort collection)
               throws IOException, UnknownHostException, CycApiException {
-    return converseBoolean("(isa-in-any-mt? " + term.stringApiValue() + " " + 
-                           collection.stringApiValue() + ")");
+    return converseBoolean(ISA_IN_ANY_MT_TEMPLATE.bind(new Object[] {term, collection}));
   }
 
   /**
@@ -5504,6 +5781,25 @@ public class CycAccess {
     return canonicalizeList(answer);
   }
 
+  /**
+   * Gets an iterator over the KB subset collection's term members, which pulls the terms from
+   * the server in chunks so that client memory stays bounded however many terms there are.
+   * 
+   * @param cycKbSubsetCollection the given KB subset collection
+   * 
+   * @return the iterator over the KB subset collection's term members
+   */
+  public CycResultIterator getKbSubsetIterator(CycFort cycKbSubsetCollection) {
+    return new CycResultIterator(this, 
+                                 "(ask-template '?X '(#$isa ?X " + 
+                                 cycKbSubsetCollection.stringApiValue() + ") #$EverythingPSC)") {
+      protected CycList transformChunk(CycList rawChunk)
+                                throws IOException {
+        return canonicalizeList(rawChunk);
+      }
+    };
+  }
+
   /**
    * Renames the given constant.
    * 
@@ -6173,6 +6469,26 @@ public class CycAccess {
                          final CycObject mt,
                          final CycSymbol strength)
                  throws IOException, UnknownHostException, CycApiException {
+    converseCycObject(makeAssertHLGafCommand(gaf, mt, strength));
+  }
+
+  /**
+   * Returns the api command which asserts the given ground atomic formula (gaf) at the HL level, as performed by
+   * <tt>assertHLGaf</tt>.  Callers may send several such commands in one <tt>progn</tt> request.
+   * 
+   * @param gaf the gaf in the form of a CycList
+   * @param mt the microtheory in which the assertion is made
+   * @param strength the assertion strength (e.g. :default or :monotonic)
+   * @return the api command which asserts the given gaf at the HL level
+   * 
+   * @throws UnknownHostException if cyc server host not found on the network
+   * @throws IOException if a data communication error occurs
+   * @throws CycApiException if the api request results in a cyc server error
+   */
+  public CycList makeAssertHLGafCommand(final CycList gaf, 
+                                        final CycObject mt,
+                                        final CycSymbol strength)
+                 throws IOException, UnknownHostException, CycApiException {
     // (HL-ADD-ARGUMENT '(:ASSERTED-ARGUMENT <strength>) '(NIL ((<gaf>)) <mt> :FORWARD NIL)
     final CycList command = new CycList();
     command.add(CycObjectFactory.makeCycSymbol("hl-add-argument"));
@@ -6198,7 +6514,7 @@ public class CycAccess {
     command.add(mt);
     command.add(CycObjectFactory.makeCycSymbol(":forward"));
     command.add(CycObjectFactory.nil);
-    converseCycObject(command);
+    return command;
   }
 
   /**
@@ -7467,19 +7783,8 @@ public class CycAccess {
                                final CycVariable variable, 
                                final CycObject mt)
                           throws IOException, UnknownHostException, CycApiException {
-    StringBuffer queryBuffer = new StringBuffer();
-    queryBuffer.append("(clet ((*cache-inference-results* nil) ");
-    queryBuffer.append("       (*compute-inference-results* nil) ");
-    queryBuffer.append("       (*unique-inference-result-bindings* t) ");
-    queryBuffer.append("       (*generate-readable-fi-results* nil)) ");
-    queryBuffer.append("  (without-wff-semantics ");
-    queryBuffer.append("    (ask-template " + variable.stringApiValue() + " ");
-    queryBuffer.append("                  " + query.stringApiValue() + " ");
-    queryBuffer.append("                  " + makeELMt(
-                                                    mt).stringApiValue() + " ");
-    queryBuffer.append("                  0 nil nil nil)))");
-
-    CycList answer = converseList(queryBuffer.toString());
+    CycList answer = converseList(ASK_TEMPLATE_TEMPLATE.bind(
+                                    new Object[] {variable, query, makeELMt(mt)}));
 
     return canonicalizeList(answer);
   }
@@ -7502,19 +7807,8 @@ public class CycAccess {
                                  CycVariable variable, 
                                  CycObject mt)
                           throws IOException, UnknownHostException, CycApiException {
-    StringBuffer queryBuffer = new StringBuffer();
-    queryBuffer.append("(clet ((*cache-inference-results* nil) ");
-    queryBuffer.append("       (*compute-inference-results* nil) ");
-    queryBuffer.append("       (*unique-inference-result-bindings* t) ");
-    queryBuffer.append("       (*generate-readable-fi-results* nil)) ");
-    queryBuffer.append("  (without-wff-semantics ");
-    queryBuffer.append("    (ask-template " + variable.stringApiValue() + " ");
-    queryBuffer.append("                  " + query.stringApiValue() + " ");
-    queryBuffer.append("                  " + makeELMt(
-                                                    mt).stringApiValue() + " ");
-    queryBuffer.append("                  0 nil nil nil)))");
-
-    CycList answer = converseList(queryBuffer.toString());
+    CycList answer = converseList(ASK_TEMPLATE_TEMPLATE.bind(
+                                    new Object[] {variable, query, makeELMt(mt)}));
 
     return canonicalizeList(answer);
   }
@@ -7607,8 +7901,11 @@ public class CycAccess {
                                     CycObject mt)
                              throws IOException, CycApiException {
     boolean answer;
-    Boolean isQueryTrue = (Boolean) askCache.getElement(
-                                query);
+    Boolean isQueryTrue;
+
+    synchronized (askCache) {
+      isQueryTrue = (Boolean) askCache.getElement(query);
+    }
 
     if (isQueryTrue != null) {
       answer = isQueryTrue.booleanValue();
@@ -7618,12 +7915,71 @@ public class CycAccess {
 
     answer = isQueryTrue(query, 
                          makeELMt(mt));
-    askCache.addElement(query, 
-                        new Boolean(answer));
+
+    synchronized (askCache) {
+      askCache.addElement(query, 
+                          new Boolean(answer));
+    }
 
     return answer;
   }
 
+  /**
+   * Returns whether each of the given queries is true in the knowledge base, asking all of them
+   * in a single api request.
+   * 
+   * @param queries the list of queries to be asked in the knowledge base
+   * @param mt the microtheory in which the queries are asked
+   * 
+   * @return an array whose elements are <tt>true</tt> iff the corresponding query is true in the
+   *         knowledge base
+   * 
+   * @throws UnknownHostException if cyc server host not found on the network
+   * @throws IOException if a data communication error occurs
+   * @throws CycApiException if the api request results in a cyc server error
+   */
+  public boolean[] areQueriesTrue(List queries, 
+                                  CycObject mt)
+                           throws IOException, UnknownHostException, CycApiException {
+    boolean[] answers = new boolean[queries.size()];
+
+    if (queries.isEmpty()) {
+      return answers;
+    }
+
+    CycSymbol cycQuery = CycObjectFactory.makeCycSymbol("cyc-query");
+    CycSymbol pif = CycObjectFactory.makeCycSymbol("pif");
+    CycObject elMt = makeELMt(mt);
+    CycList command = new CycList();
+    command.add(CycObjectFactory.makeCycSymbol("list"));
+
+    for (int i = 0; i < queries.size(); i++) {
+      CycList quotedQuery = new CycList();
+      quotedQuery.add(CycObjectFactory.quote);
+      quotedQuery.add(canonicalizeList((CycList) queries.get(i)));
+
+      CycList queryCommand = new CycList();
+      queryCommand.add(cycQuery);
+      queryCommand.add(quotedQuery);
+      queryCommand.add(elMt);
+
+      CycList pifCommand = new CycList();
+      pifCommand.add(pif);
+      pifCommand.add(queryCommand);
+      pifCommand.add(CycObjectFactory.t);
+      pifCommand.add(CycObjectFactory.nil);
+      command.add(pifCommand);
+    }
+
+    CycList response = converseList(command);
+
+    for (int i = 0; i < answers.length; i++) {
+      answers[i] = ! response.get(i).equals(CycObjectFactory.nil);
+    }
+
+    return answers;
+  }
+
   /**
    * Returns the count of the instances of the given collection.
    * 
@@ -9496,6 +9852,48 @@ public class CycAccess {
     return gafs;
   }
 
+  /**
+   * Returns an iterator over the gafs in which the predicate is the given predicate and in which
+   * the given term appears in the first argument position, which pulls the gafs from the server
+   * in chunks so that client memory stays bounded however many gafs there are.
+   * 
+   * @param cycFort the given term
+   * @param predicate the given predicate
+   * @param mt the relevant inference microtheory
+   * 
+   * @return the iterator over the gafs in which the predicate is the given predicate and in which
+   *         the given term appears in the first argument position
+   * 
+   * @throws IOException if a communications error occurs
+   * @throws UnknownHostException if the Cyc server cannot be found
+   * @throws CycApiException if the Cyc server returns an error
+   */
+  public CycResultIterator getGafsIterator(final CycFort cycFort, 
+                                           final CycFort predicate, 
+                                           CycObject mt)
+                                    throws IOException, UnknownHostException, CycApiException {
+    String command = "(with-mt " + makeELMt(mt).stringApiValue() + "\n" + 
+                     "  (pred-values-in-relevant-mts " + cycFort.stringApiValue() + " " + 
+                     predicate.stringApiValue() + "))";
+
+    return new CycResultIterator(this, 
+                                 command) {
+      protected CycList transformChunk(CycList rawChunk) {
+        CycList gafs = new CycList(rawChunk.size());
+
+        for (int i = 0; i < rawChunk.size(); i++) {
+          CycList gaf = new CycList();
+          gaf.add(predicate);
+          gaf.add(cycFort);
+          gaf.add(rawChunk.get(i));
+          gafs.add(gaf);
+        }
+
+        return gafs;
+      }
+    };
+  }
+
   /**
    * Returns the list of gafs in which the predicate is a element of the given list of predicates
    * and in which the given term appears in the first argument position.
@@ -10309,6 +10707,25 @@ public class CycAccess {
     return converseList(command);
   }
 
+  /**
+   * Returns an iterator over the assertions contained in the given mt, which pulls the
+   * assertions from the server in chunks so that client memory stays bounded however many
+   * assertions the mt contains.
+   * 
+   * @param mt the given microtheory
+   * 
+   * @return the iterator over the assertions contained in the given mt
+   * 
+   * @throws IOException if a communications error occurs
+   * @throws UnknownHostException if the Cyc server cannot be found
+   * @throws CycApiException if the Cyc server returns an error
+   */
+  public CycResultIterator getAllAssertionsInMtIterator(CycObject mt)
+                                                 throws IOException, UnknownHostException, CycApiException {
+    return new CycResultIterator(this, 
+                                 "(gather-mt-index " + makeELMt(mt).stringApiValue() + ")");
+  }
+
   /**
    * Unasserts all assertions from the given mt, with a transcript record of the unassert
    * operation.
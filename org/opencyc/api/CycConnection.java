@@ -776,9 +776,7 @@ public class CycConnection implements CycConnectionInterface {
 						+ message);
 			}
 
-			String messageString = messageCycList.cyclifyWithEscapeChars();
-
-			return converseAscii(messageString, timeout);
+			return converseAscii(messageCycList, timeout);
 		} else { // Binary (CFASL) mode
 
 			CycList messageCycList;
@@ -824,13 +822,43 @@ public class CycConnection implements CycConnectionInterface {
 	 */
 	protected CycList substituteForBackquote(CycList messageCycList,
 			Timer timeout) throws IOException, CycApiException {
+		return substituteForBackquote(this, messageCycList, timeout);
+	}
+
+	/**
+	 * Substitute a READ-FROM-STRING expression for expressions directly
+	 * containing a backquote symbol, using the given connection to evaluate
+	 * the READ-FROM-STRING expression. Shared with the connection
+	 * implementations that delegate to CycConnection objects.
+	 * 
+	 * @param connection
+	 *            the connection which evaluates the READ-FROM-STRING
+	 *            expression
+	 * @param messageCycList
+	 *            the given expression
+	 * @param timeout
+	 *            a <tt>Timer</tt> object giving the time limit for the api
+	 *            call
+	 * 
+	 * @return the expression with a READ-FROM-STRING expression substituted for
+	 *         expressions directly containing a backquote symbol
+	 * 
+	 * @throws IOException
+	 *             when a communication error occurs
+	 * @throws CycApiException
+	 *             when a Cyc api error occurs
+	 */
+	static CycList substituteForBackquote(CycConnectionInterface connection,
+			CycList messageCycList, Timer timeout) throws IOException,
+			CycApiException {
 		if (messageCycList.treeContains(CycObjectFactory.backquote)) {
 			CycList substituteCycList = new CycList();
 			substituteCycList.add(CycObjectFactory
 					.makeCycSymbol("read-from-string"));
 			substituteCycList.add(messageCycList.cyclify());
 
-			Object[] response = converseBinary(substituteCycList, timeout);
+			Object[] response = connection.converseBinary(substituteCycList,
+					timeout);
 
 			if ((response[0].equals(Boolean.TRUE))
 					&& (response[1] instanceof CycList)) {
@@ -1210,7 +1238,7 @@ public class CycConnection implements CycConnectionInterface {
 	 *             if CycAccess is not present
 	 */
 
-	synchronized protected Object[] converseAscii(String message, Timer timeout)
+	synchronized protected Object[] converseAscii(Object message, Timer timeout)
 			throws IOException, TimeOutException, CycApiException {
 		isSymbolicExpression = false;
 
@@ -1310,7 +1338,8 @@ public class CycConnection implements CycConnectionInterface {
 	 * of a object array, and the Cyc response string as the second element.
 	 * 
 	 * @param message
-	 *            the given ascii message
+	 *            the given ascii message string, or the CycList which is
+	 *            cyclified directly to the socket
 	 * @param timeout
 	 *            the given time limit
 	 * 
@@ -1324,16 +1353,29 @@ public class CycConnection implements CycConnectionInterface {
 	 * @throws TimeOutException
 	 *             when the time limit is exceeded
 	 */
-	protected Object[] converseUsingAsciiStrings(String message, Timer timeout)
+	protected Object[] converseUsingAsciiStrings(Object message, Timer timeout)
 			throws IOException, CycApiException, TimeOutException {
-		if (trace > API_TRACE_NONE) {
-			Log.current.println(message + " --> cyc");
-		}
-
-		out.write(message);
+		if (message instanceof CycList) {
+			if (trace > API_TRACE_NONE) {
+				Log.current.println(((CycList) message).cyclifyWithEscapeChars()
+						+ " --> cyc");
+			}
 
-		if (!message.endsWith("\n")) {
+			// Stream the cyclified command straight to the socket.
+			((CycList) message).cyclifyWithEscapeChars(out);
 			out.newLine();
+		} else {
+			String messageString = (String) message;
+
+			if (trace > API_TRACE_NONE) {
+				Log.current.println(messageString + " --> cyc");
+			}
+
+			out.write(messageString);
+
+			if (!messageString.endsWith("\n")) {
+				out.newLine();
+			}
 		}
 
 		out.flush();
@@ -2171,9 +2213,24 @@ public class CycConnection implements CycConnectionInterface {
 
 	}
 
+	/**
+	 * Sends the worker's SubL command to Cyc. In concurrent messaging mode
+	 * this returns as soon as the request is written, and the reply is given
+	 * to the worker's listeners by the response handler thread.
+	 * 
+	 * @param worker
+	 *            the worker whose SubL command is sent
+	 * 
+	 * @throws IOException
+	 *             when a communication error occurs
+	 * @throws TimeOutException
+	 *             when the time limit is exceeded
+	 * @throws CycApiException
+	 *             when a Cyc api error occurs
+	 */
 	public void converseBinary(SubLWorker worker) throws IOException,
 			TimeOutException, CycApiException {
-		converseBinary(worker.getSubLCommand(),new Timer(300));
+		converseBinary(worker.getSubLCommand(), notimeout, worker);
 	}
 
 }
@@ -0,0 +1,703 @@
+package org.opencyc.api;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Hashtable;
+import java.util.Iterator;
+import java.util.LinkedList;
+
+import org.opencyc.cycobject.CycList;
+import org.opencyc.util.Log;
+import org.opencyc.util.TimeOutException;
+import org.opencyc.util.Timer;
+import org.opencyc.util.UUID;
+
+/**
+ * Provides a pool of binary (cfasl) connections to the same OpenCyc server.
+ *
+ * <p>
+ * Each api request leases one <tt>CycConnection</tt> from the pool for the
+ * duration of the request, so that a slow request on one socket does not
+ * stall the requests of other threads sharing the parent <tt>CycAccess</tt>
+ * object. A lease is held from the time the request is sent until its
+ * <tt>SubLWorker</tt> terminates. When every connection is leased, a caller
+ * waits at most <tt>leaseTimeoutMillis</tt> for a connection to be released.
+ * Connections found to be dead are closed, evicted from the pool and replaced
+ * by new connections on demand.
+ * </p>
+ *
+ * <p>
+ * The pool is plugged into <tt>CycAccess</tt> either by constructing the
+ * CycAccess object with the <tt>POOLED_CONNECTION</tt> connection type, or by
+ * passing an instance of this class to the
+ * <tt>CycAccess(CycConnectionInterface)</tt> constructor.
+ * </p>
+ *
+ * @version $Id$
+ *
+ * <p>Copyright 2001 Cycorp, Inc., license is open source GNU LGPL.
+ * <p><a href="http://www.opencyc.org/license.txt">the license</a>
+ * <p><a href="http://www.opencyc.org">www.opencyc.org</a>
+ * <p><a href="http://www.sourceforge.net/projects/opencyc">OpenCyc at SourceForge</a>
+ * <p>
+ * THIS SOFTWARE AND KNOWLEDGE BASE CONTENT ARE PROVIDED ``AS IS'' AND
+ * ANY EXPRESSED OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE OPENCYC
+ * ORGANIZATION OR ITS CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE AND KNOWLEDGE
+ * BASE CONTENT, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+public class CycConnectionPool implements CycConnectionInterface {
+
+  /** Default number of connections in the pool. */
+  public static final int DEFAULT_POOL_SIZE = 4;
+
+  /** Default time in milliseconds that a caller waits for a free connection. */
+  public static final long DEFAULT_LEASE_TIMEOUT_MILLIS = 60000;
+
+  /** The name of the computer hosting the OpenCyc server. */
+  protected String hostName;
+
+  /** The tcp port from which the cfasl port is derived. */
+  protected int basePort;
+
+  /** either SERIAL_MESSAGING_MODE or CONCURRENT_MESSAGING_MODE */
+  protected int messagingMode;
+
+  /** the maximum number of open connections */
+  protected int poolSize;
+
+  /** the time in milliseconds that a caller waits for a free connection */
+  protected long leaseTimeoutMillis = DEFAULT_LEASE_TIMEOUT_MILLIS;
+
+  /** the parent CycAccess object */
+  protected CycAccess cycAccess;
+
+  /** the diagnostic trace value applied to each pooled connection */
+  protected int trace = CycConnection.API_TRACE_NONE;
+
+  /** the open connections, whether leased or idle */
+  protected final ArrayList connections = new ArrayList();
+
+  /** the idle connections, most recently released first */
+  protected final LinkedList idleConnections = new LinkedList();
+
+  /** the number of connections currently being opened */
+  protected int nbrConnectionsOpening = 0;
+
+  /** SubLWorker --> the connection leased for its request */
+  protected final Hashtable leasedConnections = new Hashtable();
+
+  /** the connection whose UUID identifies this pool to the Cyc server */
+  protected CycConnection primaryConnection;
+
+  /** indicates that the pool is closed */
+  protected boolean isClosed = false;
+
+  /** the number of leases granted */
+  protected long nbrLeases = 0;
+
+  /** the number of leases that had to wait for a connection to be released */
+  protected long nbrLeaseWaits = 0;
+
+  /** the number of dead connections evicted from the pool */
+  protected long nbrEvictions = 0;
+
+  /** the number of connections opened over the life of the pool */
+  protected long nbrConnectionsOpened = 0;
+
+  /**
+   * Constructs a new CycConnectionPool object having the default pool size.
+   *
+   * @param hostName the cyc server host name
+   * @param basePort the base tcp port on which the OpenCyc server is listening for connections
+   * @param messagingMode either SERIAL_MESSAGING_MODE or CONCURRENT_MESSAGING_MODE
+   * @param cycAccess the given CycAccess object which provides api services over this pool,
+   * or null when the CycAccess object is later given by <tt>setCycAccess</tt>
+   *
+   * @throws IOException when a communications error occurs
+   * @throws UnknownHostException when the cyc server cannot be found
+   * @throws CycApiException when a Cyc API error occurs
+   */
+  public CycConnectionPool(String hostName,
+                           int basePort,
+                           int messagingMode,
+                           CycAccess cycAccess)
+    throws IOException, UnknownHostException, CycApiException {
+    this(hostName, basePort, messagingMode, DEFAULT_POOL_SIZE, cycAccess);
+  }
+
+  /**
+   * Constructs a new CycConnectionPool object and opens its connections.
+   *
+   * @param hostName the cyc server host name
+   * @param basePort the base tcp port on which the OpenCyc server is listening for connections
+   * @param messagingMode either SERIAL_MESSAGING_MODE or CONCURRENT_MESSAGING_MODE
+   * @param poolSize the number of cfasl connections to open
+   * @param cycAccess the given CycAccess object which provides api services over this pool,
+   * or null when the CycAccess object is later given by <tt>setCycAccess</tt>
+   *
+   * @throws IOException when a communications error occurs
+   * @throws UnknownHostException when the cyc server cannot be found
+   * @throws CycApiException when a Cyc API error occurs
+   */
+  public CycConnectionPool(String hostName,
+                           int basePort,
+                           int messagingMode,
+                           int poolSize,
+                           CycAccess cycAccess)
+    throws IOException, UnknownHostException, CycApiException {
+    if (poolSize < 1) {
+      throw new CycApiException("Invalid connection pool size " + poolSize);
+    }
+    this.hostName = hostName;
+    this.basePort = basePort;
+    this.messagingMode = messagingMode;
+    this.poolSize = poolSize;
+    this.cycAccess = cycAccess;
+    for (int i = 0; i < poolSize; i++) {
+      CycConnection cycConnection = openConnection();
+      synchronized (this) {
+        connections.add(cycConnection);
+        idleConnections.addLast(cycConnection);
+      }
+    }
+    primaryConnection = (CycConnection) connections.get(0);
+  }
+
+  /**
+   * Sets the parent CycAccess object of this pool and of each pooled connection.
+   *
+   * @param cycAccess the parent CycAccess object
+   */
+  public synchronized void setCycAccess(CycAccess cycAccess) {
+    this.cycAccess = cycAccess;
+    for (int i = 0; i < connections.size(); i++) {
+      ((CycConnection) connections.get(i)).cycAccess = cycAccess;
+    }
+  }
+
+  /**
+   * Sets the time in milliseconds that a caller waits for a free connection.
+   *
+   * @param leaseTimeoutMillis the time in milliseconds that a caller waits for a free connection
+   */
+  public void setLeaseTimeoutMillis(long leaseTimeoutMillis) {
+    this.leaseTimeoutMillis = leaseTimeoutMillis;
+  }
+
+  /**
+   * Returns the time in milliseconds that a caller waits for a free connection.
+   *
+   * @return the time in milliseconds that a caller waits for a free connection
+   */
+  public long getLeaseTimeoutMillis() {
+    return leaseTimeoutMillis;
+  }
+
+  /**
+   * Sends a message to Cyc and returns the <tt>Boolean</tt> true as the first
+   * element of an object array, and the cyc response Symbolic Expression as
+   * the second element.  If an error occurs the first element is <tt>Boolean</tt>
+   * false and the second element is the error message string.
+   *
+   * @param message the api command
+   * @return an array of two objects, the first is a Boolean response code, and the second is the
+   * response object or error string.
+   *
+   * @throws IOException when a communications error occurs
+   * @throws CycApiException when a Cyc API error occurs
+   */
+  public Object[] converse(Object message) throws IOException, CycApiException {
+    return converse(message, CycConnection.notimeout);
+  }
+
+  /**
+   * Sends a message to Cyc over a leased connection and returns the response code as the
+   * first element of an object array, and the cyc response Symbolic Expression as the
+   * second element.
+   *
+   * @param message the api command which must be a String or a CycList
+   * @param timeout a <tt>Timer</tt> object giving the time limit for the api call
+   * @return an array of two objects, the first is a Boolean response code, and the second is the
+   * response object or error string.
+   *
+   * @throws IOException when a communications error occurs
+   * @throws TimeOutException when the time limit is exceeded
+   * @throws CycApiException when a Cyc API error occurs
+   */
+  public Object[] converse(Object message, Timer timeout)
+    throws IOException, TimeOutException, CycApiException {
+    CycList messageCycList;
+    if (message instanceof CycList) {
+      messageCycList = (CycList) message;
+    }
+    else if (message instanceof String) {
+      if (cycAccess == null) {
+        throw new RuntimeException("CycAccess is required to process commands in string form");
+      }
+      messageCycList = cycAccess.makeCycList((String) message);
+    }
+    else {
+      throw new CycApiException("Invalid class for message " + message);
+    }
+    messageCycList = CycConnection.substituteForBackquote(this, messageCycList, timeout);
+    return converseBinary(messageCycList, timeout);
+  }
+
+  /**
+   * Sends a message to Cyc over a leased connection and returns the response code as the
+   * first element of an object array, and the cyc response Symbolic Expression as the
+   * second element.
+   *
+   * @param message the api command
+   * @param timeout a <tt>Timer</tt> object giving the time limit for the api call
+   * @return an array of two objects, the first is a Boolean response code, and the second is the
+   * response object or error string.
+   *
+   * @throws IOException when a communications error occurs
+   * @throws TimeOutException when the time limit is exceeded
+   * @throws CycApiException when a Cyc API error occurs
+   */
+  public Object[] converseBinary(CycList message, Timer timeout)
+    throws IOException, TimeOutException, CycApiException {
+    DefaultSubLWorkerSynch worker = new DefaultSubLWorkerSynch(message, cycAccess);
+    Object[] result = new Object[2];
+    try {
+      result[1] = worker.getWork();
+    }
+    catch (IOException xcpt) {
+      throw xcpt;
+    }
+    catch (TimeOutException xcpt) {
+      throw xcpt;
+    }
+    catch (CycApiServerSideException xcpt) {
+      // @note: this implements a legacy API of converseBinary()
+      result[0] = Boolean.FALSE;
+      result[1] = xcpt.getMessage();
+      return result;
+    }
+    catch (CycApiException xcpt) {
+      throw xcpt;
+    }
+    catch (Exception xcpt) {
+      throw new RuntimeException(xcpt);
+    }
+    result[0] = worker.getStatus() == SubLWorkerStatus.FINISHED_STATUS ? Boolean.TRUE : Boolean.FALSE;
+    return result;
+  }
+
+  /**
+   * Leases a connection for the given worker and sends the worker's SubL command over it.
+   * The lease is released when the worker terminates.
+   *
+   * @param worker a <tt>SubLWorker</tt> object that notifies the caller when work is done
+   *
+   * @throws IOException when a communication error occurs
+   * @throws TimeOutException when no connection is released within the lease timeout
+   * @throws CycApiException when a Cyc api error occurs
+   */
+  public void converseBinary(SubLWorker worker)
+    throws IOException, TimeOutException, CycApiException {
+    final CycConnection cycConnection = leaseConnection();
+    leasedConnections.put(worker, cycConnection);
+    worker.addListener(new LeaseReleaser(cycConnection));
+    try {
+      cycConnection.converseBinary(worker.getSubLCommand(), CycConnection.notimeout, worker);
+    }
+    catch (IOException e) {
+      leasedConnections.remove(worker);
+      evictConnection(cycConnection);
+      throw e;
+    }
+    catch (RuntimeException e) {
+      if (! worker.isDone()) {
+        leasedConnections.remove(worker);
+        releaseConnection(cycConnection);
+      }
+      throw e;
+    }
+  }
+
+  /** Cancels the communication associated with the given SubLWorker.
+   *
+   * @param worker the given SubLWorker
+   */
+  public void cancelCommunication(SubLWorker worker) throws IOException {
+    CycConnection cycConnection = (CycConnection) leasedConnections.get(worker);
+    if (cycConnection != null) {
+      cycConnection.cancelCommunication(worker);
+    }
+  }
+
+  /** Aborts the communication associated with the given SubLWorker.
+   *
+   * @param worker the given SubLWorker
+   */
+  public void abortCommunication(SubLWorker worker) throws IOException {
+    CycConnection cycConnection = (CycConnection) leasedConnections.get(worker);
+    if (cycConnection != null) {
+      cycConnection.abortCommunication(worker);
+    }
+  }
+
+  /**
+   * Leases an idle healthy connection, opening a new connection when the pool has been
+   * depleted by evictions, and otherwise waiting for a connection to be released.
+   *
+   * @return the leased connection
+   *
+   * @throws IOException when a communication error occurs while opening a connection
+   * @throws TimeOutException when no connection is released within the lease timeout
+   * @throws CycApiException when the pool is closed
+   */
+  protected CycConnection leaseConnection()
+    throws IOException, TimeOutException, CycApiException {
+    final long deadline = System.currentTimeMillis() + leaseTimeoutMillis;
+    boolean hasWaited = false;
+    synchronized (this) {
+      while (true) {
+        if (isClosed) {
+          throw new CycApiException("The connection pool is closed");
+        }
+        while (! idleConnections.isEmpty()) {
+          CycConnection cycConnection = (CycConnection) idleConnections.removeFirst();
+          if (isHealthy(cycConnection)) {
+            nbrLeases++;
+            if (hasWaited) {
+              nbrLeaseWaits++;
+            }
+            return cycConnection;
+          }
+          removeConnection(cycConnection);
+        }
+        if ((connections.size() + nbrConnectionsOpening) < poolSize) {
+          nbrConnectionsOpening++;
+          break;
+        }
+        final long remainingMillis = deadline - System.currentTimeMillis();
+        if (remainingMillis <= 0) {
+          throw new TimeOutException("No pooled connection was released within " +
+                                     leaseTimeoutMillis + " milliseconds");
+        }
+        hasWaited = true;
+        try {
+          wait(remainingMillis);
+        }
+        catch (InterruptedException e) {
+          throw new TimeOutException("Interrupted while awaiting a pooled connection", e);
+        }
+      }
+    }
+    // replace an evicted connection outside of the pool lock
+    CycConnection cycConnection = null;
+    try {
+      cycConnection = openConnection();
+    }
+    finally {
+      synchronized (this) {
+        nbrConnectionsOpening--;
+        if (cycConnection != null) {
+          connections.add(cycConnection);
+          nbrLeases++;
+        }
+        notifyAll();
+      }
+    }
+    return cycConnection;
+  }
+
+  /**
+   * Returns the given leased connection to the pool, or evicts it if it is no longer healthy.
+   *
+   * @param cycConnection the leased connection
+   */
+  protected void releaseConnection(CycConnection cycConnection) {
+    synchronized (this) {
+      if ((! isClosed) && isHealthy(cycConnection)) {
+        idleConnections.addFirst(cycConnection);
+        notifyAll();
+        return;
+      }
+    }
+    evictConnection(cycConnection);
+  }
+
+  /**
+   * Closes the given connection and removes it from the pool.
+   *
+   * @param cycConnection the given connection
+   */
+  protected void evictConnection(CycConnection cycConnection) {
+    synchronized (this) {
+      removeConnection(cycConnection);
+    }
+  }
+
+  /**
+   * Closes the given connection and removes it from the pool, the caller holding the pool lock.
+   *
+   * @param cycConnection the given connection
+   */
+  private void removeConnection(CycConnection cycConnection) {
+    if (connections.remove(cycConnection)) {
+      if (! isClosed) {
+        nbrEvictions++;
+        if (trace > CycConnection.API_TRACE_NONE) {
+          Log.current.println("Evicting pooled connection " + cycConnection.getUuid());
+        }
+      }
+      try {
+        cycConnection.close();
+      }
+      catch (Exception e) {
+      }
+      if ((primaryConnection == cycConnection) && (! connections.isEmpty())) {
+        primaryConnection = (CycConnection) connections.get(0);
+      }
+    }
+    notifyAll();
+  }
+
+  /**
+   * Returns true if the given connection can carry another request, which requires its socket
+   * to be connected and neither closed nor shut down.  A concurrent mode connection additionally
+   * requires a live task processor response handler.
+   *
+   * @param cycConnection the given connection
+   * @return true if the given connection can carry another request
+   */
+  protected boolean isHealthy(CycConnection cycConnection) {
+    if (messagingMode == CycConnection.CONCURRENT_MESSAGING_MODE) {
+      return cycConnection.isValidBinaryConnection() &&
+             (! cycConnection.taskProcessingThreadDead);
+    }
+    Socket cfaslSocket = cycConnection.cfaslSocket;
+    return (cfaslSocket != null) &&
+           cfaslSocket.isConnected() &&
+           (! cfaslSocket.isClosed()) &&
+           (! cfaslSocket.isInputShutdown()) &&
+           (! cfaslSocket.isOutputShutdown());
+  }
+
+  /**
+   * Opens a new binary connection to the Cyc server.
+   *
+   * @return the new connection
+   *
+   * @throws IOException when a communications error occurs
+   * @throws UnknownHostException when the cyc server cannot be found
+   * @throws CycApiException when a Cyc API error occurs
+   */
+  protected CycConnection openConnection()
+    throws IOException, UnknownHostException, CycApiException {
+    CycConnection cycConnection = new CycConnection(hostName,
+                                                    basePort,
+                                                    CycConnection.BINARY_MODE,
+                                                    messagingMode,
+                                                    cycAccess);
+    if (trace > CycConnection.API_TRACE_NONE) {
+      cycConnection.setTrace(trace);
+    }
+    synchronized (this) {
+      nbrConnectionsOpened++;
+    }
+    return cycConnection;
+  }
+
+  /**
+   * Returns connection information, suitable for diagnostics.
+   *
+   * @return connection information, suitable for diagnostics
+   */
+  public synchronized String connectionInfo() {
+    return "host " + hostName + ", cfaslPort " + (basePort + CycConnection.CFASL_PORT_OFFSET) +
+      ", pool size " + poolSize + ", open " + connections.size() +
+      ", idle " + idleConnections.size() + ", leases " + nbrLeases +
+      ", lease waits " + nbrLeaseWaits + ", evictions " + nbrEvictions;
+  }
+
+  /** Closes every pooled connection, including those currently leased. */
+  public void close() {
+    ArrayList connectionsToClose;
+    synchronized (this) {
+      if (isClosed) {
+        return;
+      }
+      isClosed = true;
+      connectionsToClose = new ArrayList(connections);
+      connections.clear();
+      idleConnections.clear();
+      notifyAll();
+    }
+    Iterator iter = connectionsToClose.iterator();
+    while (iter.hasNext()) {
+      ((CycConnection) iter.next()).close();
+    }
+  }
+
+  /**
+   * Returns the trace value.
+   *
+   * @return the trace value
+   */
+  public int getTrace() {
+    return trace;
+  }
+
+  /**
+   * Returns the connection type of the parent CycAccess object.
+   *
+   * @return the connection type of the parent CycAccess object
+   */
+  public int getConnectionType() {
+    return CycAccess.POOLED_CONNECTION;
+  }
+
+  /**
+   * Sets the trace value of this pool and of each pooled connection.
+   *
+   * @param trace the trace value
+   */
+  public synchronized void setTrace(int trace) {
+    this.trace = trace;
+    for (int i = 0; i < connections.size(); i++) {
+      ((CycConnection) connections.get(i)).setTrace(trace);
+    }
+  }
+
+  /** Turns off the diagnostic trace of socket messages. */
+  public void traceOff() {
+    setTrace(CycConnection.API_TRACE_NONE);
+  }
+
+  /** Turns on the diagnostic trace of socket messages. */
+  public void traceOn() {
+    setTrace(CycConnection.API_TRACE_MESSAGES);
+  }
+
+  /** Turns on the detailed diagnostic trace of socket messages. */
+  public void traceOnDetailed() {
+    setTrace(CycConnection.API_TRACE_DETAILED);
+  }
+
+  /** Returns the UUID that identifies this java api client to the Cyc server, which is
+   * the UUID of the primary pooled connection.
+   *
+   * @return the UUID that identifies this java api client connection
+   */
+  public synchronized UUID getUuid() {
+    return primaryConnection.getUuid();
+  }
+
+  /** Returns the hostname of this connection.
+   *
+   * @return <code>String</code> denoting this hostname.
+   */
+  public String getHostName() {
+    return hostName;
+  }
+
+  /** Returns the base port of this connection.
+   *
+   * @return <code>int</code> of this connection's base port.
+   */
+  public int getBasePort() {
+    return basePort;
+  }
+
+  /**
+   * Returns the maximum number of open connections.
+   *
+   * @return the maximum number of open connections
+   */
+  public int getPoolSize() {
+    return poolSize;
+  }
+
+  /**
+   * Returns the number of idle connections.
+   *
+   * @return the number of idle connections
+   */
+  public synchronized int getNbrIdleConnections() {
+    return idleConnections.size();
+  }
+
+  /**
+   * Returns the number of leases granted.
+   *
+   * @return the number of leases granted
+   */
+  public synchronized long getNbrLeases() {
+    return nbrLeases;
+  }
+
+  /**
+   * Returns the number of leases that had to wait for a connection to be released.
+   *
+   * @return the number of leases that had to wait for a connection to be released
+   */
+  public synchronized long getNbrLeaseWaits() {
+    return nbrLeaseWaits;
+  }
+
+  /**
+   * Returns the number of dead connections evicted from the pool.
+   *
+   * @return the number of dead connections evicted from the pool
+   */
+  public synchronized long getNbrEvictions() {
+    return nbrEvictions;
+  }
+
+  /**
+   * Returns the number of connections opened over the life of the pool.
+   *
+   * @return the number of connections opened over the life of the pool
+   */
+  public synchronized long getNbrConnectionsOpened() {
+    return nbrConnectionsOpened;
+  }
+
+  /**
+   * Releases the leased connection when its worker terminates.
+   */
+  protected class LeaseReleaser implements SubLWorkerListener {
+
+    /** the leased connection */
+    private final CycConnection cycConnection;
+
+    /**
+     * Constructs a new LeaseReleaser object.
+     *
+     * @param cycConnection the leased connection
+     */
+    LeaseReleaser(CycConnection cycConnection) {
+      this.cycConnection = cycConnection;
+    }
+
+    public void notifySubLWorkerStarted(SubLWorkerEvent event) {
+    }
+
+    public void notifySubLWorkerDataAvailable(SubLWorkerEvent event) {
+    }
+
+    public void notifySubLWorkerTerminated(SubLWorkerEvent event) {
+      SubLWorker worker = event.getWorker();
+      worker.removeListener(this);
+      if (leasedConnections.remove(worker) != null) {
+        releaseConnection(cycConnection);
+      }
+    }
+  }
+}
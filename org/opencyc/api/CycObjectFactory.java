@@ -5,8 +5,6 @@ import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.List;
 
-import org.apache.oro.util.Cache;
-import org.apache.oro.util.CacheLRU;
 import org.jdom.Document;
 import org.jdom.Element;
 import org.jdom.JDOMException;
@@ -52,11 +50,22 @@ import org.opencyc.xml.TextUtil;
  */
 public class CycObjectFactory {
 
+    /**
+     * The factory which makes the caches, an instance of the class named by the system property
+     * org.opencyc.api.cache.factory, by default <tt>StripedLruObjectCache.Factory</tt>.
+     */
+    protected static ObjectCacheFactory objectCacheFactory = makeObjectCacheFactory();
+
+    /**
+     * the default size of the symbol cache
+     */
+    public static final int SYMBOL_CACHE_SIZE = 500;
+
     /**
      * Least Recently Used Cache of CycSymbols, so that a reference to an existing <tt>CycSymbol</tt>
      * is returned instead of constructing a duplicate.
      */
-    protected static Cache cycSymbolCache = new CacheLRU(500);
+    protected static ObjectCache cycSymbolCache = makeObjectCache("cycSymbol", SYMBOL_CACHE_SIZE);
 
     /**
      * Built in CycSymbols.
@@ -84,7 +93,7 @@ public class CycObjectFactory {
      * Least Recently Used Cache of CycConstants, so that a reference to an existing <tt>CycConstant</tt>
      * is returned instead of constructing a duplicate.  Indexed via the name, so is optimised for the ascii api.
      */
-    protected static Cache cycConstantCacheByName = new CacheLRU(CONSTANT_CACHE_BY_NAME_SIZE);
+    protected static ObjectCache cycConstantCacheByName = makeObjectCache("cycConstantByName", CONSTANT_CACHE_BY_NAME_SIZE);
 
     /**
      * the default size of the constant cache by ID
@@ -95,7 +104,7 @@ public class CycObjectFactory {
      * Least Recently Used Cache of CycConstants, so that a reference to an existing <tt>CycConstant</tt>
      * is returned instead of constructing a duplicate.  Indexed via the id, so is optimised for the binary api.
      */
-    protected static Cache cycConstantCacheById = new CacheLRU(CONSTANT_CACHE_BY_ID_SIZE);
+    protected static ObjectCache cycConstantCacheById = makeObjectCache("cycConstantById", CONSTANT_CACHE_BY_ID_SIZE);
 
     /**
      * the default size of the constant cache by GUID
@@ -106,7 +115,7 @@ public class CycObjectFactory {
      * Least Recently Used Cache of CycConstants, so that a reference to an existing <tt>CycConstant</tt>
      * is returned instead of constructing a duplicate.  Indexed via the guid.
      */
-    protected static Cache cycConstantCacheByGuid = new CacheLRU(CONSTANT_CACHE_BY_GUID_SIZE);
+    protected static ObjectCache cycConstantCacheByGuid = makeObjectCache("cycConstantByGuid", CONSTANT_CACHE_BY_GUID_SIZE);
 
     /**
      * the default size of the NART cache
@@ -117,7 +126,7 @@ public class CycObjectFactory {
      * Least Recently Used Cache of CycNarts, so that a reference to an existing <tt>CycNart</tt>
      * is returned instead of constructing a duplicate.
      */
-    protected static Cache cycNartCache = new CacheLRU(NART_CACHE_SIZE);
+    protected static ObjectCache cycNartCache = makeObjectCache("cycNart", NART_CACHE_SIZE);
 
     /**
      * the default size of the variable cache
@@ -128,18 +137,107 @@ public class CycObjectFactory {
      * Least Recently Used Cache of CycVariables, so that a reference to an existing <tt>CycVariable</tt>
      * is returned instead of constructing a duplicate.
      */
-    protected static Cache cycVariableCache = new CacheLRU(VARIABLE_CACHE_SIZE);
+    protected static ObjectCache cycVariableCache = makeObjectCache("cycVariable", VARIABLE_CACHE_SIZE);
 
     /**
      * A variable name suffix used to make unique names.
      */
     protected static int suffix = 1;
 
+    /**
+     * the default size of the guid cache
+     */
+    public static final int GUID_CACHE_SIZE = 500;
+
     /**
      * Least Recently Used Cache of guids, so that a reference to an existing <tt>Guid</tt>
      * is returned instead of constructing a duplicate.
      */
-    protected static Cache guidCache = new CacheLRU(500);
+    protected static ObjectCache guidCache = makeObjectCache("guid", GUID_CACHE_SIZE);
+
+    /**
+     * Makes the cache factory named by the system property org.opencyc.api.cache.factory, or
+     * the default cache factory.
+     *
+     * @return the cache factory
+     */
+    protected static ObjectCacheFactory makeObjectCacheFactory() {
+        String className = System.getProperty("org.opencyc.api.cache.factory");
+        if (className == null)
+            return new StripedLruObjectCache.Factory();
+        try {
+            return (ObjectCacheFactory) Class.forName(className).newInstance();
+        }
+        catch (Exception e) {
+            throw new RuntimeException("Cannot make the cache factory " + className + "\n" + e);
+        }
+    }
+
+    /**
+     * Makes a new empty cache whose capacity is given by the system property
+     * org.opencyc.api.cache.&lt;cacheName&gt;.size, for example
+     * org.opencyc.api.cache.cycConstantByGuid.size, or else by the given default capacity.
+     *
+     * @param cacheName the cache name
+     * @param defaultCapacity the default capacity
+     * @return the new empty cache
+     */
+    protected static ObjectCache makeObjectCache(String cacheName, int defaultCapacity) {
+        int capacity = Integer.getInteger("org.opencyc.api.cache." + cacheName + ".size",
+                                          defaultCapacity).intValue();
+        return objectCacheFactory.makeObjectCache(cacheName, capacity);
+    }
+
+    /**
+     * Sets the factory which makes the caches, and resets all the caches.
+     *
+     * @param newObjectCacheFactory the factory which makes the caches
+     */
+    public static void setObjectCacheFactory(ObjectCacheFactory newObjectCacheFactory) {
+        objectCacheFactory = newObjectCacheFactory;
+        resetCaches();
+    }
+
+    /**
+     * Returns the size, capacity, hit, miss and eviction counts of each cache.
+     *
+     * @return the size, capacity, hit, miss and eviction counts of each cache
+     */
+    public static String getCacheStatistics() {
+        StringBuffer stringBuffer = new StringBuffer();
+        appendCacheStatistics(stringBuffer, "cycSymbol", cycSymbolCache);
+        appendCacheStatistics(stringBuffer, "cycConstantByName", cycConstantCacheByName);
+        appendCacheStatistics(stringBuffer, "cycConstantById", cycConstantCacheById);
+        appendCacheStatistics(stringBuffer, "cycConstantByGuid", cycConstantCacheByGuid);
+        appendCacheStatistics(stringBuffer, "cycNart", cycNartCache);
+        appendCacheStatistics(stringBuffer, "cycVariable", cycVariableCache);
+        appendCacheStatistics(stringBuffer, "guid", guidCache);
+        return stringBuffer.toString();
+    }
+
+    /**
+     * Appends a line of statistics for the given cache.
+     *
+     * @param stringBuffer the buffer to which the line is appended
+     * @param cacheName the cache name
+     * @param objectCache the cache
+     */
+    private static void appendCacheStatistics(StringBuffer stringBuffer,
+                                              String cacheName,
+                                              ObjectCache objectCache) {
+        stringBuffer.append(cacheName);
+        stringBuffer.append(" size: ");
+        stringBuffer.append(objectCache.size());
+        stringBuffer.append(" capacity: ");
+        stringBuffer.append(objectCache.capacity());
+        stringBuffer.append(" hits: ");
+        stringBuffer.append(objectCache.getNbrHits());
+        stringBuffer.append(" misses: ");
+        stringBuffer.append(objectCache.getNbrMisses());
+        stringBuffer.append(" evictions: ");
+        stringBuffer.append(objectCache.getNbrEvictions());
+        stringBuffer.append("\n");
+    }
 
     /**
      * Constructs a new <tt>CycSymbol</tt> object.
@@ -148,10 +246,10 @@ public class CycObjectFactory {
      */
     public static CycSymbol makeCycSymbol(String symbolNameAnyCase) {
         String symbolName = symbolNameAnyCase.toUpperCase();
-        CycSymbol cycSymbol = (CycSymbol) cycSymbolCache.getElement(symbolName);
+        CycSymbol cycSymbol = (CycSymbol) cycSymbolCache.get(symbolName);
         if (cycSymbol == null) {
             cycSymbol = new CycSymbol(symbolName);
-            cycSymbolCache.addElement(symbolName, cycSymbol);
+            cycSymbolCache.put(symbolName, cycSymbol);
         }
         return cycSymbol;
     }
@@ -163,10 +261,10 @@ public class CycObjectFactory {
      */
     public static CycSymbol makeCycSymbol(String symbolNameAnyCase, boolean shouldQuote) {
         String symbolName = symbolNameAnyCase.toUpperCase();
-        CycSymbol cycSymbol = (CycSymbol) cycSymbolCache.getElement(symbolName);
+        CycSymbol cycSymbol = (CycSymbol) cycSymbolCache.get(symbolName);
         if (cycSymbol == null) {
             cycSymbol = new CycSymbol(symbolName, shouldQuote);
-            cycSymbolCache.addElement(symbolName, cycSymbol);
+            cycSymbolCache.put(symbolName, cycSymbol);
         }
         return cycSymbol;
     }
@@ -175,7 +273,7 @@ public class CycObjectFactory {
      * Resets the <tt>CycSymbol</tt> cache.
      */
     public static void resetCycSymbolCache() {
-        cycSymbolCache = new CacheLRU(500);
+        cycSymbolCache = makeObjectCache("cycSymbol", SYMBOL_CACHE_SIZE);
         nil = makeCycSymbol("NIL");
         quote = makeCycSymbol("QUOTE");
         cons = makeCycSymbol("CONS");
@@ -189,16 +287,14 @@ public class CycObjectFactory {
      * @return a <tt>CycSymbol</tt> if found in the cache, otherwise <tt>null</tt>
      */
     public static CycSymbol getCycSymbolCache(String symbolName) {
-        return (CycSymbol) cycSymbolCache.getElement(symbolName);
+        return (CycSymbol) cycSymbolCache.get(symbolName);
     }
 
     /**
      * Removes the <tt>CycSymbol</tt> from the cache if it is contained within.
      */
     public static void removeCycSymbolCache(CycSymbol cycSymbol) {
-        Object element = cycSymbolCache.getElement(cycSymbol.symbolName);
-        if (element != null)
-            cycSymbolCache.addElement(cycSymbol.symbolName, null);
+        cycSymbolCache.remove(cycSymbol.symbolName);
     }
 
     /**
@@ -225,9 +321,9 @@ public class CycObjectFactory {
      * Resets the Cyc constant caches.
      */
     public static void resetCycConstantCaches() {
-        cycConstantCacheById = new CacheLRU(CONSTANT_CACHE_BY_ID_SIZE);
-        cycConstantCacheByName = new CacheLRU(CONSTANT_CACHE_BY_NAME_SIZE);
-        cycConstantCacheByGuid = new CacheLRU(CONSTANT_CACHE_BY_GUID_SIZE);
+        cycConstantCacheById = makeObjectCache("cycConstantById", CONSTANT_CACHE_BY_ID_SIZE);
+        cycConstantCacheByName = makeObjectCache("cycConstantByName", CONSTANT_CACHE_BY_NAME_SIZE);
+        cycConstantCacheByGuid = makeObjectCache("cycConstantByGuid", CONSTANT_CACHE_BY_GUID_SIZE);
     }
 
     /**
@@ -236,7 +332,7 @@ public class CycObjectFactory {
     public static void addCycConstantCacheById(CycConstant cycConstant) {
         if (((CycFort) cycConstant).getId() == null)
             throw new RuntimeException("Invalid constant for caching " + cycConstant);
-        cycConstantCacheById.addElement(cycConstant.getId(), cycConstant);
+        cycConstantCacheById.put(cycConstant.getId(), cycConstant);
     }
 
     /**
@@ -245,7 +341,7 @@ public class CycObjectFactory {
     public static void addCycConstantCacheByName(CycConstant cycConstant) {
         if (cycConstant.name == null)
             throw new RuntimeException("Invalid constant for caching " + cycConstant);
-        cycConstantCacheByName.addElement(cycConstant.getName(), cycConstant);
+        cycConstantCacheByName.put(cycConstant.getName(), cycConstant);
     }
 
     /**
@@ -254,28 +350,28 @@ public class CycObjectFactory {
     public static void addCycConstantCacheByGuid(CycConstant cycConstant) {
         if (cycConstant.guid == null)
             throw new RuntimeException("Invalid constant for caching " + cycConstant);
-        cycConstantCacheByGuid.addElement(cycConstant.getGuid().toString(), cycConstant);
+        cycConstantCacheByGuid.put(cycConstant.getGuid(), cycConstant);
     }
 
     /**
      * Retrieves the <tt>CycConstant<tt> with id, returning null if not found in the cache.
      */
     public static CycConstant getCycConstantCacheById(Integer id) {
-        return (CycConstant) cycConstantCacheById.getElement(id);
+        return (CycConstant) cycConstantCacheById.get(id);
     }
 
     /**
      * Retrieves the <tt>CycConstant<tt> with name, returning null if not found in the cache.
      */
     public static CycConstant getCycConstantCacheByName(String name) {
-        return (CycConstant) cycConstantCacheByName.getElement(name);
+        return (CycConstant) cycConstantCacheByName.get(name);
     }
 
     /**
      * Retrieves the <tt>CycConstant<tt> with guid, returning null if not found in the cache.
      */
     public static CycConstant getCycConstantCacheByGuid(Guid guid) {
-        return (CycConstant) cycConstantCacheByGuid.getElement(guid.toString());
+        return (CycConstant) cycConstantCacheByGuid.get(guid);
     }
 
     /**
@@ -283,19 +379,13 @@ public class CycObjectFactory {
      */
     public static void removeCaches(CycConstant cycConstant) {
         if (cycConstant.name != null) {
-            Object element = cycConstantCacheByName.getElement(cycConstant.name);
-            if (element != null)
-                cycConstantCacheByName.addElement(cycConstant.name, null);
+            cycConstantCacheByName.remove(cycConstant.name);
         }
         if (cycConstant.safeGetId() != null) {
-            Object element = cycConstantCacheById.getElement(cycConstant.getId());
-            if (element != null)
-                cycConstantCacheById.addElement(cycConstant.getId(), null);
+            cycConstantCacheById.remove(cycConstant.getId());
         }
         if (cycConstant.guid != null) {
-            Object element = cycConstantCacheByGuid.getElement(cycConstant.guid);
-            if (element != null)
-                cycConstantCacheByGuid.addElement(cycConstant.guid, null);
+            cycConstantCacheByGuid.remove(cycConstant.guid);
         }
     }
 
@@ -321,30 +411,28 @@ public class CycObjectFactory {
      * Resets the <tt>CycNart</tt> cache.
      */
     public static void resetCycNartCache() {
-        cycNartCache = new CacheLRU(NART_CACHE_SIZE);
+        cycNartCache = makeObjectCache("cycNart", NART_CACHE_SIZE);
     }
 
     /**
      * Adds the <tt>CycNart</tt> to the cache.
      */
     public static void addCycNartCache(CycNart cycNart) {
-        cycNartCache.addElement(cycNart.getId(), cycNart);
+        cycNartCache.put(cycNart.getId(), cycNart);
     }
 
     /**
      * Retrieves the <tt>CycNart</tt> with name, returning null if not found in the cache.
      */
     public static CycNart getCycNartCache(Integer id) {
-        return (CycNart) cycNartCache.getElement(id);
+        return (CycNart) cycNartCache.get(id);
     }
 
     /**
      * Removes the <tt>CycNart</tt> from the cache if it is contained within.
      */
     public static void removeCycNartCache(CycNart cycNart) {
-        Object element = cycNartCache.getElement(cycNart.getId());
-        if (element != null)
-            cycNartCache.addElement(cycNart.getId(), null);
+        cycNartCache.remove(cycNart.getId());
     }
 
     /**
@@ -364,10 +452,10 @@ public class CycObjectFactory {
     public static CycVariable makeCycVariable(String name) {
         /*if (name.startsWith("?"))
             name = name.substring(1);*/
-        CycVariable cycVariable = (CycVariable) cycVariableCache.getElement(name);
+        CycVariable cycVariable = (CycVariable) cycVariableCache.get(name);
         if (cycVariable == null) {
             cycVariable = new CycVariable(name);
-            cycVariableCache.addElement(name, cycVariable);
+            cycVariableCache.put(name, cycVariable);
         }
         return cycVariable;
     }
@@ -379,10 +467,10 @@ public class CycObjectFactory {
      */
     public static CycVariable makeUniqueCycVariable(CycVariable modelCycVariable) {
         String name = modelCycVariable.name + "_" + suffix++;
-        CycVariable cycVariable = (CycVariable) cycVariableCache.getElement(name);
+        CycVariable cycVariable = (CycVariable) cycVariableCache.get(name);
         if (cycVariable == null) {
             cycVariable = new CycVariable(name);
-            cycVariableCache.addElement(name, cycVariable);
+            cycVariableCache.put(name, cycVariable);
         }
         return cycVariable;
     }
@@ -391,7 +479,7 @@ public class CycObjectFactory {
      * Resets the <tt>CycVariable</tt> cache.
      */
     public static void resetCycVariableCache() {
-        cycVariableCache = new CacheLRU(VARIABLE_CACHE_SIZE);
+        cycVariableCache = makeObjectCache("cycVariable", VARIABLE_CACHE_SIZE);
     }
 
     /**
@@ -400,7 +488,7 @@ public class CycObjectFactory {
     public static void addCycVariableCache(CycVariable cycVariable) {
         if (cycVariable.name == null)
             throw new RuntimeException("Invalid variable for caching " + cycVariable);
-        cycVariableCache.addElement(cycVariable.name, cycVariable);
+        cycVariableCache.put(cycVariable.name, cycVariable);
     }
 
     /**
@@ -411,16 +499,14 @@ public class CycObjectFactory {
      * <tt>null</tt>
      */
     public static CycVariable getCycVariableCache(String name) {
-        return (CycVariable) cycVariableCache.getElement(name);
+        return (CycVariable) cycVariableCache.get(name);
     }
 
     /**
      * Removes the <tt>CycVariable</tt> from the cache if it is contained within.
      */
     public static void removeCycVariableCache(CycVariable cycVariable) {
-        Object element = cycVariableCache.getElement(cycVariable.name);
-        if (element != null)
-            cycVariableCache.addElement(cycVariable.name, null);
+        cycVariableCache.remove(cycVariable.name);
     }
 
     /**
@@ -439,11 +525,35 @@ public class CycObjectFactory {
      * @param guid a <tt>String</tt> form of a GUID.
      */
     public static Guid makeGuid(String guidString) {
-        Guid guid = (Guid) guidCache.getElement(guidString);
-        if (guid == null ) {
-            guid = new Guid(guidString);
-            guidCache.addElement(guidString, guid);
-        }
+        return makeGuid(new Guid(guidString));
+    }
+
+    /**
+     * Returns a cached <tt>Guid</tt> object or construct a new
+     * Guid object from the ascii bytes of a guid string if the guid is not found in the cache,
+     * without creating an intermediate string.
+     *
+     * @param bytes the ascii bytes of the <tt>String</tt> form of a GUID
+     * @param length the number of bytes
+     */
+    public static Guid makeGuid(byte[] bytes, int length) {
+        Guid guid = Guid.parseGuid(bytes, length);
+        if (guid == null)
+            guid = new Guid(new String(bytes, 0, length));
+        return makeGuid(guid);
+    }
+
+    /**
+     * Returns the cached <tt>Guid</tt> object equal to the given guid, or caches the given guid
+     * if none is found.
+     *
+     * @param guid the given guid
+     */
+    public static Guid makeGuid(Guid guid) {
+        Guid cachedGuid = (Guid) guidCache.get(guid);
+        if (cachedGuid != null)
+            return cachedGuid;
+        guidCache.put(guid, guid);
         return guid;
     }
 
@@ -451,14 +561,14 @@ public class CycObjectFactory {
      * Adds the <tt>Guid</tt> to the cache.
      */
     public static void addGuidCache(Guid guid) {
-        guidCache.addElement(guid.guidString, guid);
+        guidCache.put(guid, guid);
     }
 
     /**
      * Resets the <tt>Guid</tt> cache.
      */
     public static void resetGuidCache() {
-        guidCache = new CacheLRU(500);
+        guidCache = makeObjectCache("guid", GUID_CACHE_SIZE);
     }
 
     /**
@@ -469,16 +579,14 @@ public class CycObjectFactory {
      * <tt>null</tt>
      */
     public static Guid getGuidCache(String guidName) {
-        return (Guid) guidCache.getElement(guidName);
+        return (Guid) guidCache.get(new Guid(guidName));
     }
 
     /**
      * Removes the <tt>Guid</tt> from the cache if it is contained within.
      */
     public static void removeGuidCache(Guid guid) {
-        Object element = guidCache.getElement(guid.guidString);
-        if (element != null)
-            guidCache.addElement(guid.guidString, null);
+        guidCache.remove(guid);
     }
 
     /**
@@ -0,0 +1,295 @@
+package org.opencyc.api;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.opencyc.cycobject.CycList;
+
+/**
+ * Provides an iterator over a large result list that is computed once at the Cyc server and then
+ * pulled to the client in chunks, so that client memory stays bounded by the chunk size no matter
+ * how large the result is.<p>
+ *
+ * The result list is held by a uniquely named global symbol at the server until it has been
+ * completely pulled or the iterator is closed. Callers that abandon an iteration early should
+ * call close to release the server side list.<p>
+ *
+ * Communications errors are reported as CycIOException because the Iterator methods cannot throw
+ * checked exceptions.
+ *
+ * @version $Id$
+ *
+ * <p>Copyright 2001 Cycorp, Inc., license is open source GNU LGPL.
+ * <p><a href="http://www.opencyc.org/license.txt">the license</a>
+ * <p><a href="http://www.opencyc.org">www.opencyc.org</a>
+ * <p><a href="http://www.sourceforge.net/projects/opencyc">OpenCyc at SourceForge</a>
+ * <p>
+ * THIS SOFTWARE AND KNOWLEDGE BASE CONTENT ARE PROVIDED ``AS IS'' AND
+ * ANY EXPRESSED OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE OPENCYC
+ * ORGANIZATION OR ITS CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE AND KNOWLEDGE
+ * BASE CONTENT, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+public class CycResultIterator implements Iterator {
+
+  /**
+   * the default number of result elements pulled from the server in each chunk
+   */
+  public static int DEFAULT_CHUNK_SIZE =
+    Integer.getInteger("org.opencyc.api.resultChunkSize", 500).intValue();
+
+  /**
+   * the counter used to make unique server side result symbol names
+   */
+  private static long resultSymbolCounter = 0;
+
+  /**
+   * the CycAccess object which manages the api connection
+   */
+  protected CycAccess cycAccess;
+
+  /**
+   * the SubL expression which computes the result list at the server
+   */
+  protected String resultExpression;
+
+  /**
+   * the number of result elements pulled from the server in each chunk
+   */
+  protected int chunkSize;
+
+  /**
+   * the name of the server side global symbol which holds the elements not yet pulled
+   */
+  protected String resultSymbolName;
+
+  /**
+   * the current chunk of result elements
+   */
+  protected CycList chunk = null;
+
+  /**
+   * the index of the next element of the current chunk
+   */
+  protected int chunkIndex = 0;
+
+  /**
+   * the number of result elements not yet pulled from the server, or -1 before the result is
+   * computed
+   */
+  protected int nbrRemaining = -1;
+
+  /**
+   * indicates whether the server side result list has been released
+   */
+  protected boolean isClosed = false;
+
+  /**
+   * Constructs a new CycResultIterator object with the default chunk size.
+   *
+   * @param cycAccess the CycAccess object which manages the api connection
+   * @param resultExpression the SubL expression which computes the result list at the server
+   */
+  public CycResultIterator(CycAccess cycAccess,
+                           String resultExpression) {
+    this(cycAccess,
+         resultExpression,
+         DEFAULT_CHUNK_SIZE);
+  }
+
+  /**
+   * Constructs a new CycResultIterator object.
+   *
+   * @param cycAccess the CycAccess object which manages the api connection
+   * @param resultExpression the SubL expression which computes the result list at the server
+   * @param chunkSize the number of result elements pulled from the server in each chunk
+   */
+  public CycResultIterator(CycAccess cycAccess,
+                           String resultExpression,
+                           int chunkSize) {
+    if (chunkSize < 1) {
+      throw new IllegalArgumentException("chunkSize must be positive " + chunkSize);
+    }
+
+    this.cycAccess = cycAccess;
+    this.resultExpression = resultExpression;
+    this.chunkSize = chunkSize;
+    resultSymbolName = makeResultSymbolName(cycAccess);
+  }
+
+  /**
+   * Returns true if the iteration has more elements, pulling the next chunk from the server when
+   * the current chunk is used up.
+   *
+   * @return true if the iteration has more elements
+   */
+  public boolean hasNext() {
+    if ((chunk != null) && (chunkIndex < chunk.size())) {
+      return true;
+    }
+
+    if (isClosed) {
+      return false;
+    }
+
+    try {
+      if (nbrRemaining == -1) {
+        nbrRemaining = cycAccess.converseInt("(progn (csetq " + resultSymbolName + " " +
+                                             resultExpression + ") (length " +
+                                             resultSymbolName + "))");
+      }
+
+      if (nbrRemaining == 0) {
+        close();
+
+        return false;
+      }
+
+      CycList rawChunk = cycAccess.converseList(
+                               "(clet ((chunk nil)) (cdotimes (i " + chunkSize + ") (pwhen " +
+                               resultSymbolName + " (cpush (car " + resultSymbolName +
+                               ") chunk) (csetq " + resultSymbolName + " (cdr " +
+                               resultSymbolName + ")))) (nreverse chunk))");
+      nbrRemaining -= rawChunk.size();
+
+      if ((nbrRemaining <= 0) || rawChunk.isEmpty()) {
+        nbrRemaining = 0;
+        close();
+      }
+
+      chunk = transformChunk(rawChunk);
+      chunkIndex = 0;
+    }
+     catch (IOException e) {
+      throw new CycIOException(e);
+    }
+
+    return chunkIndex < chunk.size();
+  }
+
+  /**
+   * Returns the next element in the iteration.
+   *
+   * @return the next element in the iteration
+   *
+   * @throws NoSuchElementException if the iteration has no more elements
+   */
+  public Object next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+
+    Object element = chunk.get(chunkIndex);
+    chunk.set(chunkIndex++,
+              null);
+
+    return element;
+  }
+
+  /**
+   * Not supported, the result is read only.
+   *
+   * @throws UnsupportedOperationException always
+   */
+  public void remove() {
+    throw new UnsupportedOperationException();
+  }
+
+  /**
+   * Releases the server side result list.  Elements of the current chunk which have been pulled
+   * but not yet returned remain available.
+   */
+  public void close() {
+    if (isClosed) {
+      return;
+    }
+
+    isClosed = true;
+
+    if (nbrRemaining == -1) {
+      return;
+    }
+
+    try {
+      cycAccess.converseVoid("(csetq " + resultSymbolName + " nil)");
+    }
+     catch (IOException e) {
+      throw new CycIOException(e);
+    }
+  }
+
+  /**
+   * Returns the number of result elements not yet pulled from the server, or -1 if the result has
+   * not yet been computed.
+   *
+   * @return the number of result elements not yet pulled from the server
+   */
+  public int getNbrRemaining() {
+    return nbrRemaining;
+  }
+
+  /**
+   * Returns the number of result elements pulled from the server in each chunk.
+   *
+   * @return the number of result elements pulled from the server in each chunk
+   */
+  public int getChunkSize() {
+    return chunkSize;
+  }
+
+  /**
+   * Transforms a chunk of result elements as pulled from the server into the elements returned
+   * by this iterator.  The default implementation returns the chunk unchanged; subclasses
+   * override it, for example to canonicalize EL narts or to wrap values into gafs.
+   *
+   * @param rawChunk the chunk of result elements as pulled from the server
+   *
+   * @return the transformed chunk of result elements
+   *
+   * @throws IOException if a communications error occurs
+   */
+  protected CycList transformChunk(CycList rawChunk)
+                            throws IOException {
+    return rawChunk;
+  }
+
+  /**
+   * Makes a server side result symbol name which is unique among the clients of the Cyc server.
+   *
+   * @param cycAccess the CycAccess object which manages the api connection
+   *
+   * @return the unique result symbol name
+   */
+  private static String makeResultSymbolName(CycAccess cycAccess) {
+    long resultSymbolNbr;
+
+    synchronized (CycResultIterator.class) {
+      resultSymbolNbr = ++resultSymbolCounter;
+    }
+
+    StringBuffer stringBuffer = new StringBuffer("*opencyc-result-");
+
+    if ((cycAccess.getCycConnection() != null) &&
+        (cycAccess.getCycConnection().getUuid() != null)) {
+      stringBuffer.append(cycAccess.getCycConnection().getUuid().toString());
+      stringBuffer.append('-');
+    }
+    else {
+      stringBuffer.append(System.identityHashCode(cycAccess));
+      stringBuffer.append('-');
+    }
+
+    stringBuffer.append(resultSymbolNbr);
+    stringBuffer.append('*');
+
+    return stringBuffer.toString();
+  }
+}
@@ -0,0 +1,95 @@
+package org.opencyc.api;
+
+/**
+ * Provides a size-bounded cache of objects, such as the <tt>CycObjectFactory</tt> caches of
+ * symbols, constants, narts, variables and guids.<p>
+ *
+ * Implementations must be safe for concurrent use by multiple threads and must keep hit, miss
+ * and eviction counts.
+ *
+ * @version $Id$
+ *
+ * <p>Copyright 2001 Cycorp, Inc., license is open source GNU LGPL.
+ * <p><a href="http://www.opencyc.org/license.txt">the license</a>
+ * <p><a href="http://www.opencyc.org">www.opencyc.org</a>
+ * <p><a href="http://www.sourceforge.net/projects/opencyc">OpenCyc at SourceForge</a>
+ * <p>
+ * THIS SOFTWARE AND KNOWLEDGE BASE CONTENT ARE PROVIDED ``AS IS'' AND
+ * ANY EXPRESSED OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE OPENCYC
+ * ORGANIZATION OR ITS CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE AND KNOWLEDGE
+ * BASE CONTENT, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+public interface ObjectCache {
+
+  /**
+   * Returns the object cached with the given key, or null if not found in the cache.
+   *
+   * @param key the given key
+   *
+   * @return the object cached with the given key, or null if not found in the cache
+   */
+  public Object get(Object key);
+
+  /**
+   * Caches the given object with the given key, evicting other objects when the cache is full.
+   *
+   * @param key the given key
+   * @param value the given object
+   */
+  public void put(Object key, Object value);
+
+  /**
+   * Removes the object cached with the given key, if any.
+   *
+   * @param key the given key
+   */
+  public void remove(Object key);
+
+  /**
+   * Removes all the objects from the cache.
+   */
+  public void clear();
+
+  /**
+   * Returns the number of objects in the cache.
+   *
+   * @return the number of objects in the cache
+   */
+  public int size();
+
+  /**
+   * Returns the maximum number of objects held by the cache.
+   *
+   * @return the maximum number of objects held by the cache
+   */
+  public int capacity();
+
+  /**
+   * Returns the number of get requests answered from the cache.
+   *
+   * @return the number of get requests answered from the cache
+   */
+  public long getNbrHits();
+
+  /**
+   * Returns the number of get requests not found in the cache.
+   *
+   * @return the number of get requests not found in the cache
+   */
+  public long getNbrMisses();
+
+  /**
+   * Returns the number of objects evicted to keep the cache within its capacity.
+   *
+   * @return the number of objects evicted to keep the cache within its capacity
+   */
+  public long getNbrEvictions();
+}
@@ -0,0 +1,295 @@
+package org.opencyc.api;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Provides the default <tt>ObjectCache</tt>, a least recently used cache whose entries are
+ * divided among independently locked segments, so that lookups from many threads seldom contend
+ * for the same lock.  Each segment evicts its own least recently used entry when it exceeds its
+ * share of the capacity.
+ *
+ * @version $Id$
+ *
+ * <p>Copyright 2001 Cycorp, Inc., license is open source GNU LGPL.
+ * <p><a href="http://www.opencyc.org/license.txt">the license</a>
+ * <p><a href="http://www.opencyc.org">www.opencyc.org</a>
+ * <p><a href="http://www.sourceforge.net/projects/opencyc">OpenCyc at SourceForge</a>
+ * <p>
+ * THIS SOFTWARE AND KNOWLEDGE BASE CONTENT ARE PROVIDED ``AS IS'' AND
+ * ANY EXPRESSED OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE OPENCYC
+ * ORGANIZATION OR ITS CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE AND KNOWLEDGE
+ * BASE CONTENT, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+public class StripedLruObjectCache implements ObjectCache {
+
+  /**
+   * the maximum number of segments
+   */
+  public static final int MAX_NBR_SEGMENTS = 16;
+
+  /**
+   * the least capacity of each segment when the cache is divided into segments
+   */
+  public static final int MIN_SEGMENT_CAPACITY = 64;
+
+  /**
+   * the segments, whose number is a power of two
+   */
+  protected final Segment[] segments;
+
+  /**
+   * the maximum number of objects held by the cache
+   */
+  protected final int capacity;
+
+  /**
+   * Constructs a new StripedLruObjectCache object.
+   *
+   * @param capacity the maximum number of objects held by the cache
+   */
+  public StripedLruObjectCache(int capacity) {
+    if (capacity < 1)
+      throw new IllegalArgumentException("capacity must be positive " + capacity);
+    this.capacity = capacity;
+    int nbrSegments = 1;
+    while (nbrSegments < MAX_NBR_SEGMENTS && 
+           capacity / (nbrSegments * 2) >= MIN_SEGMENT_CAPACITY)
+      nbrSegments *= 2;
+    segments = new Segment[nbrSegments];
+    int segmentCapacity = (capacity + nbrSegments - 1) / nbrSegments;
+    for (int i = 0; i < nbrSegments; i++)
+      segments[i] = new Segment(segmentCapacity);
+  }
+
+  /**
+   * Returns the object cached with the given key, or null if not found in the cache.
+   *
+   * @param key the given key
+   *
+   * @return the object cached with the given key, or null if not found in the cache
+   */
+  public Object get(Object key) {
+    Segment segment = segmentFor(key);
+    synchronized (segment) {
+      Object value = segment.get(key);
+      if (value == null)
+        segment.nbrMisses++;
+      else
+        segment.nbrHits++;
+      return value;
+    }
+  }
+
+  /**
+   * Caches the given object with the given key, evicting the least recently used object of its
+   * segment when the segment is full.  Caching a null object removes the key.
+   *
+   * @param key the given key
+   * @param value the given object
+   */
+  public void put(Object key, Object value) {
+    if (value == null) {
+      remove(key);
+      return;
+    }
+    Segment segment = segmentFor(key);
+    synchronized (segment) {
+      segment.put(key, value);
+    }
+  }
+
+  /**
+   * Removes the object cached with the given key, if any.
+   *
+   * @param key the given key
+   */
+  public void remove(Object key) {
+    Segment segment = segmentFor(key);
+    synchronized (segment) {
+      segment.remove(key);
+    }
+  }
+
+  /**
+   * Removes all the objects from the cache.
+   */
+  public void clear() {
+    for (int i = 0; i < segments.length; i++) {
+      synchronized (segments[i]) {
+        segments[i].clear();
+      }
+    }
+  }
+
+  /**
+   * Returns the number of objects in the cache.
+   *
+   * @return the number of objects in the cache
+   */
+  public int size() {
+    int size = 0;
+    for (int i = 0; i < segments.length; i++) {
+      synchronized (segments[i]) {
+        size += segments[i].size();
+      }
+    }
+    return size;
+  }
+
+  /**
+   * Returns the maximum number of objects held by the cache.
+   *
+   * @return the maximum number of objects held by the cache
+   */
+  public int capacity() {
+    return capacity;
+  }
+
+  /**
+   * Returns the number of get requests answered from the cache.
+   *
+   * @return the number of get requests answered from the cache
+   */
+  public long getNbrHits() {
+    long nbrHits = 0;
+    for (int i = 0; i < segments.length; i++) {
+      synchronized (segments[i]) {
+        nbrHits += segments[i].nbrHits;
+      }
+    }
+    return nbrHits;
+  }
+
+  /**
+   * Returns the number of get requests not found in the cache.
+   *
+   * @return the number of get requests not found in the cache
+   */
+  public long getNbrMisses() {
+    long nbrMisses = 0;
+    for (int i = 0; i < segments.length; i++) {
+      synchronized (segments[i]) {
+        nbrMisses += segments[i].nbrMisses;
+      }
+    }
+    return nbrMisses;
+  }
+
+  /**
+   * Returns the number of objects evicted to keep the cache within its capacity.
+   *
+   * @return the number of objects evicted to keep the cache within its capacity
+   */
+  public long getNbrEvictions() {
+    long nbrEvictions = 0;
+    for (int i = 0; i < segments.length; i++) {
+      synchronized (segments[i]) {
+        nbrEvictions += segments[i].nbrEvictions;
+      }
+    }
+    return nbrEvictions;
+  }
+
+  /**
+   * Returns a string representation of this object.
+   *
+   * @return a string representation of this object
+   */
+  public String toString() {
+    return "[StripedLruObjectCache size: " + size() + " capacity: " + capacity + 
+           " segments: " + segments.length + " hits: " + getNbrHits() + 
+           " misses: " + getNbrMisses() + " evictions: " + getNbrEvictions() + "]";
+  }
+
+  /**
+   * Returns the segment which holds the given key.
+   *
+   * @param key the given key
+   *
+   * @return the segment which holds the given key
+   */
+  protected Segment segmentFor(Object key) {
+    int hashCode = key.hashCode();
+    hashCode ^= (hashCode >>> 20) ^ (hashCode >>> 12);
+    hashCode ^= (hashCode >>> 7) ^ (hashCode >>> 4);
+    return segments[hashCode & (segments.length - 1)];
+  }
+
+  /**
+   * Holds one segment of the cache in access order, guarded by its own lock.
+   */
+  protected static class Segment extends LinkedHashMap {
+
+    /**
+     * the maximum number of objects held by this segment
+     */
+    protected final int segmentCapacity;
+
+    /**
+     * the number of get requests answered from this segment
+     */
+    protected long nbrHits = 0;
+
+    /**
+     * the number of get requests not found in this segment
+     */
+    protected long nbrMisses = 0;
+
+    /**
+     * the number of objects evicted from this segment
+     */
+    protected long nbrEvictions = 0;
+
+    /**
+     * Constructs a new Segment object.
+     *
+     * @param segmentCapacity the maximum number of objects held by this segment
+     */
+    protected Segment(int segmentCapacity) {
+      super(Math.min(segmentCapacity, 1024), 0.75f, true);
+      this.segmentCapacity = segmentCapacity;
+    }
+
+    /**
+     * Returns true, counting an eviction, when this segment exceeds its capacity.
+     *
+     * @param eldest the least recently used entry
+     *
+     * @return true when this segment exceeds its capacity
+     */
+    protected boolean removeEldestEntry(Map.Entry eldest) {
+      if (size() > segmentCapacity) {
+        nbrEvictions++;
+        return true;
+      }
+      return false;
+    }
+  }
+
+  /**
+   * Makes the default caches for <tt>CycObjectFactory</tt>.
+   */
+  public static class Factory implements ObjectCacheFactory {
+
+    /**
+     * Makes a new empty StripedLruObjectCache.
+     *
+     * @param cacheName the name of the cache
+     * @param capacity the maximum number of objects held by the cache
+     *
+     * @return the new empty cache
+     */
+    public ObjectCache makeObjectCache(String cacheName, int capacity) {
+      return new StripedLruObjectCache(capacity);
+    }
+  }
+}
@@ -0,0 +1,272 @@
+package org.opencyc.api;
+
+import java.util.IdentityHashMap;
+
+import org.opencyc.cycobject.CycList;
+import org.opencyc.cycobject.CycListParser;
+import org.opencyc.cycobject.CycObject;
+import org.opencyc.cycobject.CycSymbol;
+import org.opencyc.cycobject.CycVariable;
+
+/**
+ * Provides a SubL command form which is parsed once into a <tt>CycList</tt> skeleton, and
+ * which is thereafter instantiated for each api request by binding its typed parameter
+ * slots to the argument objects.  The instantiated command is sent to the Cyc server as
+ * CFASL objects, without building a command string, reparsing it or looking up its
+ * constants by name.<p>
+ *
+ * The parameter slots are written in the template form as variables, for example<p>
+ *
+ * <pre>
+ *   new SubLCommandTemplate("(genls ?COLLECTION ?MT)",
+ *                           new String[] {"?COLLECTION", "?MT"},
+ *                           new Class[] {CycFort.class, CycObject.class});
+ * </pre>
+ *
+ * Only the lists on the paths to the slots are copied when the template is bound; the
+ * remainder of the skeleton is shared by every instantiated command, and so must not be
+ * modified by the caller.<p>
+ *
+ * @version $Id$
+ *
+ * <p>Copyright 2001 Cycorp, Inc., license is open source GNU LGPL.
+ * <p><a href="http://www.opencyc.org/license.txt">the license</a>
+ * <p><a href="http://www.opencyc.org">www.opencyc.org</a>
+ * <p><a href="http://www.sourceforge.net/projects/opencyc">OpenCyc at SourceForge</a>
+ * <p>
+ * THIS SOFTWARE AND KNOWLEDGE BASE CONTENT ARE PROVIDED ``AS IS'' AND
+ * ANY EXPRESSED OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE OPENCYC
+ * ORGANIZATION OR ITS CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE AND KNOWLEDGE
+ * BASE CONTENT, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * @see CycAccess
+ */
+public class SubLCommandTemplate {
+
+  //// Public Area
+
+  /**
+   * Constructs a new SubLCommandTemplate object by parsing the given SubL form.  The form
+   * must not contain constants, so that no Cyc server is needed to parse it.
+   *
+   * @param subLForm the SubL form, in which the parameter slots are written as variables
+   * @param parameterNames the names of the parameter slot variables, in the order of the
+   *        arguments given to <tt>bind</tt>
+   * @param parameterTypes the type required of each argument
+   *
+   * @throws IllegalArgumentException if a parameter slot does not occur in the form
+   */
+  public SubLCommandTemplate(String subLForm,
+                             String[] parameterNames,
+                             Class[] parameterTypes) {
+    if (parameterNames.length != parameterTypes.length) {
+      throw new IllegalArgumentException("each of the parameters " + parameterNames.length +
+                                         " must have a type " + parameterTypes.length);
+    }
+    this.subLForm = subLForm;
+    this.parameterTypes = parameterTypes;
+    nbrOccurrences = new int[parameterNames.length];
+    slots = new Slot[parameterNames.length];
+    for (int i = 0; i < parameterNames.length; i++) {
+      slots[i] = new Slot(i);
+    }
+    skeleton = (CycList) makeSkeleton((new CycListParser(null)).read(subLForm), parameterNames);
+    for (int i = 0; i < parameterNames.length; i++) {
+      if (nbrOccurrences[i] == 0) {
+        throw new IllegalArgumentException(parameterNames[i] + " does not occur in " + subLForm);
+      }
+    }
+  }
+
+  /**
+   * Returns a new SubL command in which each parameter slot is replaced by the api value of
+   * the corresponding argument.  Lists, variables and symbols are quoted so that they are not
+   * evaluated by the Cyc server, other <tt>CycObject</tt> arguments are given by their
+   * <tt>cycListApiValue</tt>, and keywords, strings and numbers are given as themselves.
+   *
+   * @param arguments the arguments, in the order of the parameter names
+   *
+   * @return the new SubL command
+   *
+   * @throws IllegalArgumentException if an argument is missing or has the wrong type
+   */
+  public CycList bind(Object[] arguments) {
+    if (arguments.length != slots.length) {
+      throw new IllegalArgumentException(subLForm + " requires " + slots.length +
+                                         " arguments, not " + arguments.length);
+    }
+    Object[] apiValues = new Object[arguments.length];
+    for (int i = 0; i < arguments.length; i++) {
+      if (! parameterTypes[i].isInstance(arguments[i])) {
+        throw new IllegalArgumentException(arguments[i] + " is not a " +
+                                           parameterTypes[i].getName() + " for " + subLForm);
+      }
+      apiValues[i] = apiValue(arguments[i]);
+    }
+    return (CycList) instantiate(skeleton, apiValues);
+  }
+
+  /**
+   * Returns the given object in a form suitable for use as an argument in a <tt>CycList</tt>
+   * SubL command.
+   *
+   * @param object the given object
+   *
+   * @return the given object in a form suitable for use as an argument in a <tt>CycList</tt>
+   *         SubL command
+   */
+  public static Object apiValue(Object object) {
+    if ((object instanceof CycList) ||
+        (object instanceof CycVariable) ||
+        ((object instanceof CycSymbol) && (! ((CycSymbol) object).isKeyword()))) {
+      CycList quotedObject = new CycList(2);
+      quotedObject.add(CycObjectFactory.quote);
+      quotedObject.add(object);
+      return quotedObject;
+    }
+    if (object instanceof CycSymbol) {
+      return object;
+    }
+    if (object instanceof CycObject) {
+      return ((CycObject) object).cycListApiValue();
+    }
+    return object;
+  }
+
+  /**
+   * Returns the SubL form from which this template was parsed.
+   *
+   * @return the SubL form from which this template was parsed
+   */
+  public String getSubLForm() {
+    return subLForm;
+  }
+
+  /**
+   * Returns a <tt>String</tt> representation of this object.
+   *
+   * @return a <tt>String</tt> representation of this object
+   */
+  public String toString() {
+    return "[SubLCommandTemplate " + subLForm + "]";
+  }
+
+  //// Protected Area
+
+  /**
+   * Returns the given parsed object with its parameter slot variables replaced by slots,
+   * recording the lists which contain a slot.
+   *
+   * @param object the parsed object
+   * @param parameterNames the names of the parameter slot variables
+   *
+   * @return the given parsed object with its parameter slot variables replaced by slots
+   */
+  protected Object makeSkeleton(Object object,
+                                String[] parameterNames) {
+    if (object instanceof CycVariable) {
+      String name = object.toString();
+      for (int i = 0; i < parameterNames.length; i++) {
+        if (parameterNames[i].equalsIgnoreCase(name)) {
+          nbrOccurrences[i]++;
+          return slots[i];
+        }
+      }
+      return object;
+    }
+    if (! (object instanceof CycList)) {
+      return object;
+    }
+    CycList cycList = (CycList) object;
+    boolean hasSlot = false;
+    for (int i = 0; i < cycList.size(); i++) {
+      Object element = makeSkeleton(cycList.get(i), parameterNames);
+      cycList.set(i, element);
+      hasSlot = hasSlot || (element instanceof Slot) || slotLists.containsKey(element);
+    }
+    if (! cycList.isProperList()) {
+      Object dottedElement = makeSkeleton(cycList.getDottedElement(), parameterNames);
+      cycList.setDottedElement(dottedElement);
+      hasSlot = hasSlot || (dottedElement instanceof Slot) || slotLists.containsKey(dottedElement);
+    }
+    if (hasSlot) {
+      slotLists.put(cycList, cycList);
+    }
+    return cycList;
+  }
+
+  /**
+   * Returns the given skeleton object with its slots replaced by the given api values,
+   * copying only the lists which contain a slot.
+   *
+   * @param object the skeleton object
+   * @param apiValues the api values of the arguments
+   *
+   * @return the given skeleton object with its slots replaced by the given api values
+   */
+  protected Object instantiate(Object object,
+                               Object[] apiValues) {
+    if (object instanceof Slot) {
+      return apiValues[((Slot) object).index];
+    }
+    if (! slotLists.containsKey(object)) {
+      return object;
+    }
+    CycList cycList = (CycList) object;
+    CycList command = new CycList(cycList.size());
+    for (int i = 0; i < cycList.size(); i++) {
+      command.add(instantiate(cycList.get(i), apiValues));
+    }
+    if (! cycList.isProperList()) {
+      command.setDottedElement(instantiate(cycList.getDottedElement(), apiValues));
+    }
+    return command;
+  }
+
+  /**
+   * Marks the position of a parameter in the skeleton.
+   */
+  protected static class Slot {
+
+    /** the index of the parameter */
+    protected final int index;
+
+    /**
+     * Constructs a new Slot object.
+     *
+     * @param index the index of the parameter
+     */
+    protected Slot(int index) {
+      this.index = index;
+    }
+  }
+
+  //// Internal Rep
+
+  /** the SubL form from which this template was parsed */
+  protected final String subLForm;
+
+  /** the parsed form, in which each parameter slot variable is replaced by its slot */
+  protected final CycList skeleton;
+
+  /** the slots, in the order of the parameters */
+  protected final Slot[] slots;
+
+  /** the type required of each argument */
+  protected final Class[] parameterTypes;
+
+  /** the number of occurrences of each parameter in the form */
+  protected final int[] nbrOccurrences;
+
+  /** the lists of the skeleton which contain a slot, list --> list, compared by identity */
+  protected final IdentityHashMap slotLists = new IdentityHashMap();
+
+}
@@ -0,0 +1,243 @@
+package org.opencyc.api;
+
+import java.io.IOException;
+
+import org.opencyc.cycobject.CycFort;
+import org.opencyc.cycobject.CycList;
+import org.opencyc.cycobject.CycVariable;
+import org.opencyc.cycobject.ELMt;
+
+/**
+ * Compares the precompiled SubL command templates of CycAccess with the command strings which
+ * they replace, for the isa, getGenls and askWithVariable api requests.  For each request the
+ * mean time to make the command, including the parsing of a command string into the
+ * <tt>CycList</tt> which is sent in the binary api, and the mean time of the complete round
+ * trip to the Cyc server, are reported for each form of the command.<p>
+ *
+ * @version $Id$
+ *
+ * <p>Copyright 2001 Cycorp, Inc., license is open source GNU LGPL.
+ * <p><a href="http://www.opencyc.org/license.txt">the license</a>
+ * <p><a href="http://www.opencyc.org">www.opencyc.org</a>
+ * <p><a href="http://www.sourceforge.net/projects/opencyc">OpenCyc at SourceForge</a>
+ * <p>
+ * THIS SOFTWARE AND KNOWLEDGE BASE CONTENT ARE PROVIDED ``AS IS'' AND
+ * ANY EXPRESSED OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE OPENCYC
+ * ORGANIZATION OR ITS CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE AND KNOWLEDGE
+ * BASE CONTENT, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+public class SubLCommandTemplateBenchmark {
+
+  /**
+   * the default number of timed iterations for each command form
+   */
+  public static final int DEFAULT_NBR_ITERATIONS = 1000;
+
+  /**
+   * the number of untimed warm up iterations for each command form
+   */
+  public static final int NBR_WARM_UP_ITERATIONS = 100;
+
+  /**
+   * the names of the benchmarked api requests
+   */
+  public static final String[] REQUEST_NAMES = { "isa", "getGenls", "askWithVariable" };
+
+  /**
+   * the CycAccess object which manages the api connection
+   */
+  protected CycAccess cycAccess;
+
+  /**
+   * the number of timed iterations for each command form
+   */
+  protected int nbrIterations = DEFAULT_NBR_ITERATIONS;
+
+  /**
+   * the term of the benchmarked requests
+   */
+  protected CycFort term;
+
+  /**
+   * the collection of the benchmarked requests
+   */
+  protected CycFort collection;
+
+  /**
+   * the microtheory of the benchmarked ask
+   */
+  protected ELMt mt;
+
+  /**
+   * the query of the benchmarked ask
+   */
+  protected CycList query;
+
+  /**
+   * the unbound variable of the benchmarked ask
+   */
+  protected CycVariable variable;
+
+  /**
+   * Constructs a new SubLCommandTemplateBenchmark object.
+   *
+   * @param cycAccess the CycAccess object which manages the api connection
+   *
+   * @throws IOException if a data communication error occurs
+   * @throws CycApiException if the api request results in a cyc server error
+   */
+  public SubLCommandTemplateBenchmark(CycAccess cycAccess)
+                               throws IOException, CycApiException {
+    this.cycAccess = cycAccess;
+    term = cycAccess.getKnownConstantByName("Dog");
+    collection = cycAccess.getKnownConstantByName("Collection");
+    mt = cycAccess.makeELMt(cycAccess.getKnownConstantByName("BaseKB"));
+    variable = CycObjectFactory.makeCycVariable("?COLLECTION");
+    query = new CycList();
+    query.add(cycAccess.getKnownConstantByName("genls"));
+    query.add(term);
+    query.add(variable);
+  }
+
+  /**
+   * Main method to run the SubL command template benchmark.
+   *
+   * @param args the optional number of iterations
+   */
+  public static void main(String[] args) {
+    try {
+      CycAccess cycAccess = new CycAccess();
+      SubLCommandTemplateBenchmark subLCommandTemplateBenchmark =
+        new SubLCommandTemplateBenchmark(cycAccess);
+
+      if (args.length > 0) {
+        subLCommandTemplateBenchmark.nbrIterations = Integer.parseInt(args[0]);
+      }
+
+      subLCommandTemplateBenchmark.execute();
+      cycAccess.close();
+    }
+    catch (Exception e) {
+      System.err.println(e.getMessage());
+      e.printStackTrace();
+      System.exit(1);
+    }
+
+    System.exit(0);
+  }
+
+  /**
+   * Runs the benchmark for each api request, reporting the results on standard output.
+   *
+   * @throws IOException if a data communication error occurs
+   * @throws CycApiException if the api request results in a cyc server error
+   */
+  public void execute()
+               throws IOException, CycApiException {
+    System.out.println(nbrIterations + " iterations per command form");
+
+    for (int i = 0; i < REQUEST_NAMES.length; i++) {
+      measure(i, false);
+      measure(i, true);
+    }
+  }
+
+  /**
+   * Makes and sends the given request repeatedly in the given command form, and reports the
+   * mean times to make the command and to complete the round trip.
+   *
+   * @param request the index of the api request
+   * @param isTemplate the command form, a bound template when true and a parsed string
+   *        otherwise
+   *
+   * @throws IOException if a data communication error occurs
+   * @throws CycApiException if the api request results in a cyc server error
+   */
+  protected void measure(int request,
+                         boolean isTemplate)
+                  throws IOException, CycApiException {
+    for (int i = 0; i < NBR_WARM_UP_ITERATIONS; i++) {
+      cycAccess.converseObject(makeCommand(request, isTemplate));
+    }
+
+    long startMillis = System.currentTimeMillis();
+
+    for (int i = 0; i < nbrIterations; i++) {
+      makeCommand(request, isTemplate);
+    }
+
+    long makeMillis = System.currentTimeMillis() - startMillis;
+    startMillis = System.currentTimeMillis();
+
+    for (int i = 0; i < nbrIterations; i++) {
+      cycAccess.converseObject(makeCommand(request, isTemplate));
+    }
+
+    long totalMillis = System.currentTimeMillis() - startMillis;
+
+    StringBuffer stringBuffer = new StringBuffer();
+    stringBuffer.append(REQUEST_NAMES[request]);
+    stringBuffer.append(isTemplate ? " template: " : " string:   ");
+    stringBuffer.append((double) makeMillis * 1000 / nbrIterations);
+    stringBuffer.append(" us/make, ");
+    stringBuffer.append((double) totalMillis / nbrIterations);
+    stringBuffer.append(" ms/round trip");
+    System.out.println(stringBuffer.toString());
+  }
+
+  /**
+   * Makes the command for the given request in the given form.
+   *
+   * @param request the index of the api request
+   * @param isTemplate the command form, a bound template when true and a parsed string
+   *        otherwise
+   *
+   * @return the command
+   *
+   * @throws IOException if a data communication error occurs
+   * @throws CycApiException if the api request results in a cyc server error
+   */
+  protected CycList makeCommand(int request,
+                                boolean isTemplate)
+                         throws IOException, CycApiException {
+    switch (request) {
+      case 0:
+        if (isTemplate) {
+          return CycAccess.ISA_IN_ANY_MT_TEMPLATE.bind(new Object[] { term, collection });
+        }
+        return cycAccess.makeCycList("(isa-in-any-mt? " + term.stringApiValue() + " " +
+                                     collection.stringApiValue() + ")");
+
+      case 1:
+        if (isTemplate) {
+          return CycAccess.ALL_MTS_GENLS_TEMPLATE.bind(new Object[] { term });
+        }
+        return cycAccess.makeCycList("(remove-duplicates (with-all-mts (genls " +
+                                     term.stringApiValue() + ")))");
+
+      default:
+        if (isTemplate) {
+          return CycAccess.ASK_TEMPLATE_TEMPLATE.bind(new Object[] { variable, query, mt });
+        }
+        StringBuffer queryBuffer = new StringBuffer();
+        queryBuffer.append("(clet ((*cache-inference-results* nil) ");
+        queryBuffer.append("       (*compute-inference-results* nil) ");
+        queryBuffer.append("       (*unique-inference-result-bindings* t) ");
+        queryBuffer.append("       (*generate-readable-fi-results* nil)) ");
+        queryBuffer.append("  (without-wff-semantics ");
+        queryBuffer.append("    (ask-template " + variable.stringApiValue() + " ");
+        queryBuffer.append("                  " + query.stringApiValue() + " ");
+        queryBuffer.append("                  " + mt.stringApiValue() + " ");
+        queryBuffer.append("                  0 nil nil nil)))");
+        return cycAccess.makeCycList(queryBuffer.toString());
+    }
+  }
+}
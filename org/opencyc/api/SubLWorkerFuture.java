@@ -0,0 +1,217 @@
+package org.opencyc.api;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.opencyc.cycobject.CycList;
+import org.opencyc.util.TimeOutException;
+
+/**
+ * Provides a handle on the pending result of a SubL command sent without waiting for the reply,
+ * so that a single client thread can keep many commands in flight on one concurrent mode
+ * connection.<p>
+ *
+ * The reply is recorded from the connection's response handler thread as the worker terminates,
+ * and <tt>get</tt> then returns it.  Listeners added with <tt>addListener</tt> are called on the
+ * response handler thread, and so must hand any significant work to another thread.<p>
+ *
+ * Example usage: <code>
+ *   SubLWorkerFuture[] futures = new SubLWorkerFuture[100];
+ *   for (int i = 0; i < futures.length; i++)
+ *     futures[i] = cycAccess.converseAsync("(+ 1 " + i + ")");
+ *   for (int i = 0; i < futures.length; i++)
+ *     System.out.println(futures[i].get());
+ * </code>
+ *
+ * @version $Id$
+ *
+ * <p>Copyright 2001 Cycorp, Inc., license is open source GNU LGPL.
+ * <p><a href="http://www.opencyc.org/license.txt">the license</a>
+ * <p><a href="http://www.opencyc.org">www.opencyc.org</a>
+ * <p><a href="http://www.sourceforge.net/projects/opencyc">OpenCyc at SourceForge</a>
+ * <p>
+ * THIS SOFTWARE AND KNOWLEDGE BASE CONTENT ARE PROVIDED ``AS IS'' AND
+ * ANY EXPRESSED OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE OPENCYC
+ * ORGANIZATION OR ITS CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE AND KNOWLEDGE
+ * BASE CONTENT, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+public class SubLWorkerFuture extends DefaultSubLWorker implements SubLWorkerListener {
+
+  /** Creates a new instance of SubLWorkerFuture.
+   * @param subLCommand the SubL command that does the work as a CycList
+   * @param access the Cyc server that should process the SubL command
+   */  
+  public SubLWorkerFuture(CycList subLCommand, CycAccess access) {
+    this(subLCommand, access, false);
+  }
+  
+  /** Creates a new instance of SubLWorkerFuture.
+   * @param subLCommand the SubL command that does the work as a CycList
+   * @param access the Cyc server that should process the SubL command
+   * @param expectIncrementalResults boolean indicating wether to expect
+   * incremental results
+   */  
+  public SubLWorkerFuture(CycList subLCommand, CycAccess access, 
+      boolean expectIncrementalResults) {
+    super(subLCommand, access, expectIncrementalResults, 0);
+    addListener(this);
+  }
+  
+  //// Public Area
+  
+  /** Waits as long as needed for the work to be performed, starting the
+   * communications with the Cyc server if not yet started, then returns
+   * the resultant work.
+   * @throws IOException thown when there is a problem with the communications
+   * protocol with the CycServer
+   * @throws TimeOutException never, as there is no time limit
+   * @throws CycApiException thrown if any other error occurs, including
+   * a Cyc server side error
+   * @return the work produced by this SubLWorkerFuture
+   */
+  public Object get() 
+  throws IOException, TimeOutException, CycApiException {
+    return get(0);
+  }
+  
+  /** Waits at most the given time for the work to be performed, starting the
+   * communications with the Cyc server if not yet started, then returns
+   * the resultant work. Unlike SubLWorkerSynch, the work is not aborted when 
+   * the time limit is exceeded, so the caller may wait again or cancel it.
+   * @param timeoutMsecs the max time to wait in msecs (0 means to wait forever)
+   * @throws IOException thown when there is a problem with the communications
+   * protocol with the CycServer
+   * @throws TimeOutException thrown if the work is not done within the time limit
+   * @throws CycApiException thrown if any other error occurs, including
+   * a Cyc server side error
+   * @return the work produced by this SubLWorkerFuture
+   */
+  public Object get(long timeoutMsecs) 
+  throws IOException, TimeOutException, CycApiException {
+    if (getStatus() == SubLWorkerStatus.NOT_STARTED_STATUS) {
+      start();
+    }
+    synchronized (lock) {
+      long deadline = System.currentTimeMillis() + timeoutMsecs;
+      while (! isTerminated) {
+        long waitMsecs = 0;
+        if (timeoutMsecs > 0) {
+          waitMsecs = deadline - System.currentTimeMillis();
+          if (waitMsecs <= 0) {
+            throw new TimeOutException("Communications took more than: " 
+              + timeoutMsecs + " msecs.\nWhile trying to execute: \n" 
+              + getSubLCommand().stringApiValue());
+          }
+        }
+        try {
+          lock.wait(waitMsecs);
+        } catch (InterruptedException xcpt) {
+          throw new CycApiException("Interrupted while waiting for: \n" 
+            + getSubLCommand().stringApiValue());
+        }
+      }
+    }
+    if (e != null) { 
+      try {
+        throw e; 
+      } catch (IOException ioe) {
+        throw ioe; 
+      } catch (TimeOutException toe) {
+        throw toe;
+      } catch (CycApiException cae) {
+        throw cae;
+      } catch (Exception xcpt) {
+        throw new RuntimeException(xcpt);
+      }
+    }
+    return work;
+  }
+  
+  /** Returns true if the work has terminated, whether finished, 
+   * canceled, aborted or failed.
+   * @return true if the work has terminated
+   */
+  public boolean isTerminated() {
+    synchronized (lock) {
+      return isTerminated;
+    }
+  }
+  
+  /** Returns true if the work was canceled or aborted before finishing.
+   * @return true if the work was canceled or aborted before finishing
+   */
+  public boolean isCancelled() {
+    return getStatus() == SubLWorkerStatus.CANCELED_STATUS 
+      || getStatus() == SubLWorkerStatus.ABORTED_STATUS;
+  }
+  
+  /** Ignore.
+   * @param event the event object with details about this event
+   */  
+  public void notifySubLWorkerStarted(SubLWorkerEvent event) {}
+  
+  /** Saves any  available work.
+   * @param event the event object with details about this event
+   */  
+  public void notifySubLWorkerDataAvailable(SubLWorkerEvent event) {
+    appendWork(event.getWork());
+  }  
+  
+  /** Saves any applicable exception and releases the waiting threads.
+   * @param event the event object with details about this event
+   */  
+  public void notifySubLWorkerTerminated(SubLWorkerEvent event) {
+    synchronized (lock) {
+      e = event.getException();
+      isTerminated = true;
+      lock.notifyAll();
+    }
+  }
+  
+  /** Returns the exception thrown in the process of doing the work.
+   * The value will be null if now exception has been thrown.
+   * @return the exception thrown in the process of doing the work
+   */  
+  public Exception getException() {
+    synchronized (lock) {
+      return e;
+    }
+  }
+  
+  //// Protected Area
+  
+  /** Make sure to keep track of the resulting work, especially in the
+   * case if incremental return results.
+   * @param newWork The lastest batch of work.
+   */  
+  protected void appendWork(Object newWork) {
+    synchronized (lock) {
+      if (expectIncrementalResults()) {
+        if (work == null) {
+          work = new CycList();
+        }
+        if (newWork != CycObjectFactory.nil) {
+          ((List)work).addAll((List)newWork);
+        }
+      }
+      else {
+        work = newWork;
+      }
+    }
+  }
+  
+  //// Internal Rep
+  
+  private final Object lock = new Object();
+  private Object work = null;
+  private Exception e = null;
+  private boolean isTerminated = false;
+}
@@ -158,6 +158,12 @@ public class UnitTest extends TestCase {
     testSuite.addTest(new UnitTest("testAssertWithTranscriptAndBookkeeping")); 
     testSuite.addTest(new UnitTest("testGetArg2"));
     testSuite.addTest(new UnitTest("testUnicodeCFASL"));
+    testSuite.addTest(new UnitTest("testCycConnectionPool"));
+    testSuite.addTest(new UnitTest("testCompactCfaslDecoding"));
+    testSuite.addTest(new UnitTest("testCycResultIterator"));
+    testSuite.addTest(new UnitTest("testStripedLruObjectCache"));
+    testSuite.addTest(new UnitTest("testSubLCommandTemplate"));
+    testSuite.addTest(new UnitTest("testConverseAsync"));
 
     return testSuite;
   }
@@ -5914,6 +5920,18 @@ public class UnitTest extends TestCase {
         Assert.assertNotNull(((CycConstant) constants.first()).name);
       if (constants.size() > 1 && constants.second() instanceof CycConstant)
         Assert.assertNotNull(((CycConstant) constants.second()).name);
+
+      // completeConstants
+      CycConstant namelessPhysicalDevice = new CycConstant();
+      namelessPhysicalDevice.setGuid(CycObjectFactory.makeGuid(physicalDeviceGuidString));
+      CycList namelessConstants = new CycList();
+      namelessConstants.add(namelessPhysicalDevice);
+      namelessConstants.add(new CycList(namelessPhysicalDevice));
+      long nbrLazyConstantFetchesAvoided = cycAccess.getNbrLazyConstantFetchesAvoided();
+      Assert.assertEquals(1, cycAccess.completeConstants(namelessConstants));
+      Assert.assertEquals("PhysicalDevice", namelessPhysicalDevice.safeGetName());
+      Assert.assertEquals(nbrLazyConstantFetchesAvoided + 1, 
+                          cycAccess.getNbrLazyConstantFetchesAvoided());
     }
      catch (Exception e) {
       e.printStackTrace();
@@ -6257,4 +6275,372 @@ public class UnitTest extends TestCase {
   }
 
 
+  /**
+   * Tests that the compact CFASL decoding mode reads the same objects as the legacy mode.
+   */
+  public void testCompactCfaslDecoding() {
+    System.out.println("\n**** testCompactCfaslDecoding ****");
+    try {
+      CycList reply = new CycList();
+      StringBuffer sb = new StringBuffer();
+      sb.append("a");
+      sb.append((char) 0x401);
+      for (int i = 0; i < 200; i++) {
+        CycList row = new CycList();
+        row.add(new Integer(i % 10));
+        row.add(new Integer(-i));
+        row.add(new Integer(100000 + i));
+        row.add(new Double(i / 4.0));
+        row.add("row " + (i % 7));
+        row.add(sb.toString());
+        row.add("");
+        row.add(CycObjectFactory.makeCycSymbol("SYMBOL-" + (i % 3)));
+        row.add(CycObjectFactory.makeCycSymbol(":KEYWORD-" + (i % 3)));
+        row.add(CycObjectFactory.makeCycVariable("?VAR" + (i % 3)));
+        row.add(CycObjectFactory.makeGuid("bd58c19d-9c29-11b1-9dad-c379636f727" + (i % 10)));
+        reply.add(row);
+      }
+      ByteArrayOutputStream baos = new ByteArrayOutputStream(4096);
+      CfaslOutputStream cos = new CfaslOutputStream(baos);
+      cos.writeObject(reply);
+      cos.writeObject(reply);
+      cos.flush();
+      byte[] ba = baos.toByteArray();
+
+      CfaslInputStream legacyCis = new CfaslInputStream(new ByteArrayInputStream(ba));
+      legacyCis.compactDecoding = false;
+      Object legacyReply = legacyCis.readObject();
+      Assert.assertEquals(reply, legacyReply);
+
+      CfaslInputStream compactCis = new CfaslInputStream(new ByteArrayInputStream(ba));
+      compactCis.compactDecoding = true;
+      Object compactReply = compactCis.readObject();
+      Assert.assertEquals(legacyReply, compactReply);
+      Assert.assertTrue(compactCis.getNbrInternedHits() > 0);
+      Assert.assertEquals(legacyReply, compactCis.readObject());
+      Assert.assertSame(CfaslInputStream.makeInteger(7), CfaslInputStream.makeInteger(7));
+    } catch(IOException e){
+      Assert.fail("IOException testCompactCfaslDecoding: " + e.getMessage());
+    }
+    System.out.println("**** testCompactCfaslDecoding OK ****");
+  }
+
+  /**
+   * Tests the chunked result iterators, which must return the same elements as the
+   * corresponding list methods.
+   */
+  public void testCycResultIterator() {
+    System.out.println("\n**** testCycResultIterator ****");
+    CycAccess cycAccess = null;
+    try {
+      if (connectionMode == LOCAL_CYC_CONNECTION)
+        cycAccess = new CycAccess(testHostName, testBasePort);
+      else if (connectionMode == SOAP_CYC_CONNECTION)
+        cycAccess = new CycAccess(endpointURL, testHostName, testBasePort);
+      else
+        Assert.fail("Invalid connection mode " + connectionMode);
+    }
+     catch (Exception e) {
+      Assert.fail(e.toString());
+    }
+
+    try {
+      CycConstant binaryPredicate = cycAccess.getKnownConstantByName("BinaryPredicate");
+      CycList allInstances = cycAccess.getAllInstances(binaryPredicate, 
+                                                       cycAccess.universalVocabularyMt);
+      CycResultIterator iter = new CycResultIterator(
+                                     cycAccess, 
+                                     "(all-instances " + binaryPredicate.stringApiValue() + " " + 
+                                     cycAccess.universalVocabularyMt.stringApiValue() + ")", 
+                                     50);
+      HashSet iteratedInstances = new HashSet();
+      while (iter.hasNext())
+        iteratedInstances.add(iter.next());
+      Assert.assertEquals(0, iter.getNbrRemaining());
+      Assert.assertEquals(new HashSet(allInstances), iteratedInstances);
+
+      iter = cycAccess.getAllInstancesIterator(binaryPredicate, cycAccess.universalVocabularyMt);
+      Assert.assertTrue(iter.hasNext());
+      Assert.assertTrue(allInstances.contains(iter.next()));
+      iter.close();
+
+      CycConstant dog = cycAccess.getKnownConstantByName("Dog");
+      CycConstant genls = cycAccess.getKnownConstantByName("genls");
+      CycList gafs = cycAccess.getGafs(dog, genls, cycAccess.inferencePSC);
+      iter = cycAccess.getGafsIterator(dog, genls, cycAccess.inferencePSC);
+      CycList iteratedGafs = new CycList();
+      while (iter.hasNext())
+        iteratedGafs.add(iter.next());
+      Assert.assertEquals(gafs, iteratedGafs);
+    }
+     catch (Exception e) {
+      e.printStackTrace();
+      Assert.fail(e.toString());
+    }
+    finally {
+      cycAccess.close();
+    }
+    System.out.println("**** testCycResultIterator OK ****");
+  }
+
+  /**
+   * Tests the default object cache, which must stay within its capacity and count its hits,
+   * misses and evictions when shared by several threads.
+   */
+  public void testStripedLruObjectCache() {
+    System.out.println("\n**** testStripedLruObjectCache ****");
+    final ObjectCache objectCache = new StripedLruObjectCache(1000);
+    Assert.assertEquals(1000, objectCache.capacity());
+    objectCache.put("a", "A");
+    Assert.assertEquals("A", objectCache.get("a"));
+    Assert.assertNull(objectCache.get("b"));
+    Assert.assertEquals(1, objectCache.getNbrHits());
+    Assert.assertEquals(1, objectCache.getNbrMisses());
+    objectCache.remove("a");
+    Assert.assertEquals(0, objectCache.size());
+
+    final int nbrThreads = 8;
+    final int nbrKeys = 5000;
+    final ArrayList errors = new ArrayList();
+    Thread[] threads = new Thread[nbrThreads];
+    for (int i = 0; i < nbrThreads; i++) {
+      threads[i] = new Thread() {
+        public void run() {
+          try {
+            for (int j = 0; j < nbrKeys; j++) {
+              Integer key = new Integer(j);
+              Object value = objectCache.get(key);
+              if (value == null)
+                objectCache.put(key, "value " + j);
+              else if (! value.equals("value " + j))
+                throw new RuntimeException("wrong value " + value + " for " + key);
+            }
+          }
+          catch (Throwable e) {
+            synchronized (errors) {
+              errors.add(e);
+            }
+          }
+        }
+      };
+      threads[i].start();
+    }
+    for (int i = 0; i < nbrThreads; i++) {
+      try {
+        threads[i].join();
+      }
+      catch (InterruptedException e) {
+        Assert.fail(e.toString());
+      }
+    }
+    Assert.assertTrue(errors.toString(), errors.isEmpty());
+    Assert.assertTrue(objectCache.size() <= objectCache.capacity());
+    Assert.assertEquals(nbrThreads * nbrKeys + 2, 
+                        objectCache.getNbrHits() + objectCache.getNbrMisses());
+    Assert.assertTrue(objectCache.getNbrEvictions() >= nbrKeys - objectCache.capacity());
+    Assert.assertTrue(CycObjectFactory.getCacheStatistics().indexOf("cycConstantByGuid") > -1);
+    System.out.println("**** testStripedLruObjectCache OK ****");
+  }
+
+  /**
+   * Tests the precompiled SubL command templates, whose bound commands must be those formerly
+   * built as strings.  No Cyc server is needed.
+   */
+  public void testSubLCommandTemplate() {
+    System.out.println("\n**** testSubLCommandTemplate ****");
+    CycConstant isa = 
+      new CycConstant("isa", CycObjectFactory.makeGuid("bd588104-9c29-11b1-9dad-c379636f7270"));
+    CycConstant dog = 
+      new CycConstant("Dog", CycObjectFactory.makeGuid("bd58daa0-9c29-11b1-9dad-c379636f7270"));
+    CycConstant animal = 
+      new CycConstant("Animal", CycObjectFactory.makeGuid("bd58b031-9c29-11b1-9dad-c379636f7270"));
+    CycConstant baseKB = 
+      new CycConstant("BaseKB", CycObjectFactory.makeGuid("bd588111-9c29-11b1-9dad-c379636f7270"));
+    CycVariable x = CycObjectFactory.makeCycVariable("?X");
+    CycList query = CycList.makeCycList(isa, x, dog);
+
+    CycList command = CycAccess.ISA_IN_ANY_MT_TEMPLATE.bind(new Object[] {dog, animal});
+    Assert.assertTrue(command.cyclify().equalsIgnoreCase(
+      "(isa-in-any-mt? " + dog.stringApiValue() + " " + animal.stringApiValue() + ")"));
+    command = CycAccess.ALL_MTS_GENLS_TEMPLATE.bind(new Object[] {dog});
+    Assert.assertTrue(command.cyclify().equalsIgnoreCase(
+      "(remove-duplicates (with-all-mts (genls " + dog.stringApiValue() + ")))"));
+    command = CycAccess.GENLS_TEMPLATE.bind(new Object[] {dog, baseKB});
+    Assert.assertTrue(command.cyclify().equalsIgnoreCase(
+      "(genls " + dog.stringApiValue() + " " + baseKB.stringApiValue() + ")"));
+
+    // The string form gave the variable as '?X and the query as (list #$isa '?X #$Dog), which the
+    // Cyc server evaluates as the quoted forms given by the template.
+    Assert.assertEquals("'" + x.cyclify(), x.stringApiValue());
+    Assert.assertEquals("(list #$isa '?X #$Dog)", query.stringApiValue());
+    command = CycAccess.ASK_TEMPLATE_TEMPLATE.bind(new Object[] {x, query, baseKB});
+    Assert.assertTrue(command.cyclify().equalsIgnoreCase(
+      "(clet ((*cache-inference-results* nil) " +
+      "(*compute-inference-results* nil) " +
+      "(*unique-inference-result-bindings* t) " +
+      "(*generate-readable-fi-results* nil)) " +
+      "(without-wff-semantics " +
+      "(ask-template (quote " + x.cyclify() + ") " +
+      "(quote " + query.cyclify() + ") " +
+      baseKB.stringApiValue() + " " +
+      "0 nil nil nil)))"));
+
+    // Binding again does not disturb the previously bound command.
+    CycList command2 = CycAccess.ASK_TEMPLATE_TEMPLATE.bind(new Object[] {x, query, dog});
+    Assert.assertTrue(! command.equals(command2));
+    Assert.assertTrue(command.cyclify().indexOf("#$BaseKB") > -1);
+    Assert.assertTrue(command2.cyclify().indexOf("#$Dog 0 NIL") > -1);
+
+    // Keywords, strings and numbers are not quoted.
+    SubLCommandTemplate template = 
+      new SubLCommandTemplate("(list ?A ?B ?C)",
+                              new String[] {"?A", "?B", "?C"},
+                              new Class[] {CycSymbol.class, String.class, Integer.class});
+    command = template.bind(new Object[] {CycObjectFactory.makeCycSymbol(":all"), "a b", new Integer(3)});
+    Assert.assertEquals("(LIST :ALL \"a b\" 3)", command.cyclify());
+
+    try {
+      CycAccess.GENLS_TEMPLATE.bind(new Object[] {query, baseKB});
+      Assert.fail("IllegalArgumentException expected for the wrong argument type");
+    }
+    catch (IllegalArgumentException e) {
+    }
+    try {
+      CycAccess.GENLS_TEMPLATE.bind(new Object[] {dog});
+      Assert.fail("IllegalArgumentException expected for a missing argument");
+    }
+    catch (IllegalArgumentException e) {
+    }
+    try {
+      new SubLCommandTemplate("(genls ?COLLECTION)", 
+                              new String[] {"?COLLECTION", "?MT"},
+                              new Class[] {CycFort.class, CycObject.class});
+      Assert.fail("IllegalArgumentException expected for a parameter not in the form");
+    }
+    catch (IllegalArgumentException e) {
+    }
+    System.out.println("**** testSubLCommandTemplate OK ****");
+  }
+
+  /**
+   * Tests the pooled connections, sharing one CycAccess object among several request threads.
+   */
+  public void testCycConnectionPool() {
+    System.out.println("\n**** testCycConnectionPool ****");
+    if (connectionMode == SOAP_CYC_CONNECTION) {
+      System.out.println("\n**** bypassing testCycConnectionPool in XML SOAP usage ****");
+      return;
+    }
+
+    CycAccess cycAccess = null;
+
+    try {
+      cycAccess = new CycAccess(testHostName, 
+                                testBasePort, 
+                                CycConnection.BINARY_MODE, 
+                                CycAccess.POOLED_CONNECTION);
+    }
+     catch (Exception e) {
+      Assert.fail(e.toString());
+    }
+
+    Assert.assertTrue(cycAccess.getCycConnection() instanceof CycConnectionPool);
+    final CycConnectionPool pool = (CycConnectionPool) cycAccess.getCycConnection();
+    Assert.assertEquals(CycConnectionPool.DEFAULT_POOL_SIZE, pool.getNbrIdleConnections());
+    final CycAccess sharedCycAccess = cycAccess;
+    final int nbrThreads = pool.getPoolSize() * 2;
+    final ArrayList errors = new ArrayList();
+    Thread[] threads = new Thread[nbrThreads];
+    for (int i = 0; i < nbrThreads; i++) {
+      threads[i] = new Thread() {
+        public void run() {
+          try {
+            for (int j = 0; j < 10; j++) {
+              Object answer = sharedCycAccess.converseObject("(+ 1 " + j + ")");
+              if (! answer.equals(new Integer(1 + j))) {
+                errors.add("expected " + (1 + j) + " found " + answer);
+              }
+            }
+            Assert.assertTrue(sharedCycAccess.isa(sharedCycAccess.collection, 
+                                                  sharedCycAccess.collection));
+          }
+           catch (Throwable e) {
+            errors.add(e.toString());
+          }
+        }
+      };
+      threads[i].start();
+    }
+    try {
+      for (int i = 0; i < nbrThreads; i++) {
+        threads[i].join();
+      }
+    }
+     catch (InterruptedException e) {
+      Assert.fail(e.toString());
+    }
+    Assert.assertTrue(errors.toString(), errors.isEmpty());
+    Assert.assertTrue(pool.getNbrLeases() >= nbrThreads * 10);
+    Assert.assertEquals(0, pool.getNbrEvictions());
+    Assert.assertEquals(pool.getPoolSize(), pool.getNbrIdleConnections());
+    System.out.println(pool.connectionInfo());
+
+    cycAccess.close();
+    System.out.println("**** testCycConnectionPool OK ****");
+  }
+
+  /**
+   * Tests pipelined asynchronous api requests.
+   */
+  public void testConverseAsync() {
+    System.out.println("\n**** testConverseAsync ****");
+    if (connectionMode == SOAP_CYC_CONNECTION) {
+      System.out.println("\n**** bypassing testConverseAsync in XML SOAP usage ****");
+      return;
+    }
+
+    CycAccess cycAccess = null;
+
+    try {
+      cycAccess = new CycAccess(testHostName, 
+                                testBasePort, 
+                                CycConnection.BINARY_MODE, 
+                                CycAccess.PERSISTENT_CONNECTION);
+    }
+     catch (Exception e) {
+      Assert.fail(e.toString());
+    }
+
+    try {
+      final int nbrRequests = 100;
+      SubLWorkerFuture[] futures = new SubLWorkerFuture[nbrRequests];
+      for (int i = 0; i < nbrRequests; i++) {
+        futures[i] = cycAccess.converseAsync("(+ 1 " + i + ")");
+      }
+      for (int i = nbrRequests - 1; i >= 0; i--) {
+        Assert.assertEquals(new Integer(1 + i), futures[i].get(30000));
+        Assert.assertTrue(futures[i].isTerminated());
+        Assert.assertTrue(! futures[i].isCancelled());
+      }
+
+      SubLWorkerFuture future = cycAccess.converseAsync("(isa? #$Collection #$Collection)");
+      Assert.assertEquals(CycObjectFactory.t, future.get());
+
+      future = cycAccess.converseAsync("(an-undefined-function-for-testConverseAsync)");
+      try {
+        future.get(30000);
+        Assert.fail("CycApiException expected");
+      }
+       catch (CycApiException e) {
+        Assert.assertNotNull(future.getException());
+      }
+    }
+     catch (Throwable e) {
+      Assert.fail(e.toString());
+    }
+
+    cycAccess.close();
+    System.out.println("**** testConverseAsync OK ****");
+  }
+
 }
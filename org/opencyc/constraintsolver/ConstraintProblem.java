@@ -49,10 +49,18 @@ public class ConstraintProblem {
      */
     CycAccess cycAccess;
 
+    /**
+     * Indicates whether new constraint problems keep their variable value domains in an
+     * <tt>IndexedValueDomains</tt> object, whose domain value marks are primitive arrays.
+     */
+    public static boolean useIndexedValueDomains =
+        Boolean.getBoolean("org.opencyc.constraintsolver.indexedValueDomains");
+
     /**
      * <tt>ValueDomains</tt> object for this <tt>ConstraintProblem</tt>.
      */
-    protected ValueDomains valueDomains = new ValueDomains(this);
+    protected ValueDomains valueDomains =
+        useIndexedValueDomains ? new IndexedValueDomains(this) : new ValueDomains(this);
 
     /**
      * <tt>NodeConsistencyAchiever</tt> for this <tt>ConstraintProblem</tt>.
@@ -96,6 +104,13 @@ public class ConstraintProblem {
      */
     public Integer nbrSolutionsRequested = new Integer(1);
 
+    /**
+     * The number of threads which search the solution space.  When greater than one, the
+     * top levels of the search tree are split into branches which are searched in parallel.
+     */
+    public int nbrSearchThreads =
+        Integer.getInteger("org.opencyc.constraintsolver.nbrSearchThreads", 1).intValue();
+
     /**
      * The default verbosity of this object's output.  0 --> quiet ... 9 -> maximum
      * diagnostic input.
@@ -450,5 +465,21 @@ public class ConstraintProblem {
             solution.setVerbosity(verbosity);
     }
 
+    /**
+     * Selects the variable value domain store for this constraint problem, which must not
+     * yet be solved.
+     *
+     * @param useIndexedValueDomains when <tt>true</tt> the domain value marks are kept in
+     * primitive arrays by an <tt>IndexedValueDomains</tt> object, otherwise they are kept in
+     * dictionaries by a <tt>ValueDomains</tt> object
+     */
+    public void setUseIndexedValueDomains(boolean useIndexedValueDomains) {
+        if (useIndexedValueDomains)
+            valueDomains = new IndexedValueDomains(this);
+        else
+            valueDomains = new ValueDomains(this);
+        valueDomains.setVerbosity(verbosity);
+    }
+
 
 }
\ No newline at end of file
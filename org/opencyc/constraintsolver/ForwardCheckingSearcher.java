@@ -5,7 +5,6 @@ import java.util.ArrayList;
 import java.util.Collections;
 
 import org.apache.commons.collections.CollectionUtils;
-import org.opencyc.api.CycAccess;
 import org.opencyc.api.CycApiException;
 import org.opencyc.cycobject.CycList;
 import org.opencyc.cycobject.CycVariable;
@@ -85,6 +84,56 @@ public class ForwardCheckingSearcher {
      */
     protected int nbrSteps = 0;
 
+    /**
+     * The number of branches per search thread into which the top levels of the search tree
+     * are split for a parallel search.  Having more branches than threads keeps the threads
+     * busy when some branches are pruned early.
+     */
+    protected static final int BRANCHES_PER_SEARCH_THREAD = 4;
+
+    /**
+     * The searcher which started this branch of a parallel search, or <tt>null</tt> if this
+     * searcher is not searching a branch.
+     */
+    protected ForwardCheckingSearcher parentSearcher = null;
+
+    /**
+     * The variables remaining to be solved in this branch of a parallel search.
+     */
+    protected ArrayList branchVariables;
+
+    /**
+     * The search level at which this branch of a parallel search begins.
+     */
+    protected int branchLevel;
+
+    /**
+     * The position of this branch of a parallel search in serial search order.
+     */
+    protected int branchIndex;
+
+    /**
+     * The branch indices of the solutions recorded by a parallel search, in the order the
+     * solutions are held in the solution of the parent constraint problem.
+     */
+    protected ArrayList branchSolutionIndices;
+
+    /**
+     * The branches of a parallel search which are not yet searched.
+     */
+    protected ArrayList unsearchedBranches;
+
+    /**
+     * Indicates that the requested number of solutions has been found by a parallel search,
+     * and that the remaining branches are to be abandoned.
+     */
+    protected boolean isSearchDone = false;
+
+    /**
+     * The first exception thrown by a branch of a parallel search.
+     */
+    protected Exception searchException = null;
+
     /**
      * Constructs a new <tt>FowardCheckingSearcher</tt> object.
      *
@@ -99,6 +148,27 @@ public class ForwardCheckingSearcher {
         verbosity = constraintProblem.verbosity;
     }
 
+    /**
+     * Constructs a new <tt>FowardCheckingSearcher</tt> object which searches a branch of a
+     * parallel search, having its own copy of the value domain marks and of the partial
+     * solution.
+     *
+     * @param parentSearcher the searcher which started the parallel search
+     * @param valueDomains the value domains from which the branch is split
+     * @param partialSolution the <tt>ArrayList</tt> of bindings leading to the branch
+     */
+    protected ForwardCheckingSearcher(ForwardCheckingSearcher parentSearcher,
+                                      ValueDomains valueDomains,
+                                      ArrayList partialSolution) {
+        this.parentSearcher = parentSearcher;
+        constraintProblem = parentSearcher.constraintProblem;
+        constraintRules = parentSearcher.constraintRules;
+        verbosity = parentSearcher.verbosity;
+        this.valueDomains = valueDomains.copy();
+        solution = new Solution(constraintProblem.nbrSolutionsRequested, verbosity);
+        solution.getCurrentSolution().addAll(partialSolution);
+    }
+
     /**
      * Sets verbosity of the constraint solver output.  0 --> quiet ... 9 -> maximum
      * diagnostic input.
@@ -119,6 +189,10 @@ public class ForwardCheckingSearcher {
      */
     public boolean search(ArrayList variables, int level)
         throws IOException, CycApiException {
+        if ((parentSearcher == null) &&
+            (constraintProblem.nbrSearchThreads > 1) &&
+            (variables.size() > 1))
+            return parallelSearch(variables, level);
         CycVariable selectedVariable = selectVariable(variables);
         ArrayList remainingDomain = valueDomains.getUnmarkedDomainValues(selectedVariable);
         ArrayList remainingVariables = (ArrayList) variables.clone();
@@ -132,6 +206,9 @@ public class ForwardCheckingSearcher {
         // Iterate through the unmarked domain values, solving the subtree recursively,
         // backtracking when required.
         for (int i = 0; i < remainingDomain.size(); i++) {
+            if ((parentSearcher != null) && parentSearcher.isSearchDone())
+                // Another branch found the requested solution(s).
+                return true;
             Object selectedValue = remainingDomain.get(i);
             Binding currentBinding = new Binding(selectedVariable,
                                                  selectedValue);
@@ -142,6 +219,12 @@ public class ForwardCheckingSearcher {
                                    solution.getCurrentSolution());
             if (variables.size() == 1) {
                 // Trivial case where the last variable is under consideration.
+                if (parentSearcher != null) {
+                    if (parentSearcher.recordBranchSolution(branchIndex, solution.getCurrentSolution()))
+                        return true;
+                    solution.removeBindingFromCurrentSolution(currentBinding);
+                    continue;
+                }
                 solution.setNbrSolutionsFound(solution. getNbrSolutionsFound() + 1);
                 if (verbosity > 0) {
                     if (solution.getNbrSolutionsFound() == 1)
@@ -182,6 +265,212 @@ public class ForwardCheckingSearcher {
         return false;
     }
 
+    /**
+     * Performs the search of the solution space in parallel.  The top levels of the search
+     * tree are split into branches, each having its own copy of the value domain marks and of
+     * the partial solution, and the branches are searched by
+     * <tt>ConstraintProblem.nbrSearchThreads</tt> threads.  A thread which finishes its
+     * branch takes the next unsearched branch, and the remaining branches are abandoned once
+     * the requested number of solutions is found.
+     *
+     * @param variables is the <tt>ArrayList</tt> of remaining variables to solve
+     * @param level is the current depth of the search
+     * @return <tt>true</tt> when the requested number of solutions is found
+     */
+    protected boolean parallelSearch(ArrayList variables, int level)
+        throws IOException, CycApiException {
+        isSearchDone = false;
+        searchException = null;
+        branchSolutionIndices = new ArrayList();
+        unsearchedBranches = splitSearch(variables, level);
+        int nbrThreads = Math.min(constraintProblem.nbrSearchThreads,
+                                  unsearchedBranches.size());
+        if (verbosity > 0)
+            System.out.println("Searching " + unsearchedBranches.size() + " branches with " +
+                               nbrThreads + " threads");
+        Thread[] searchThreads = new Thread[nbrThreads];
+        for (int i = 0; i < nbrThreads; i++) {
+            searchThreads[i] = new Thread(new Runnable() {
+                public void run() {
+                    searchBranches();
+                }
+            }, "constraint search " + (i + 1));
+            searchThreads[i].start();
+        }
+        try {
+            for (int i = 0; i < nbrThreads; i++)
+                searchThreads[i].join();
+        }
+        catch (InterruptedException e) {
+            throw new CycApiException("Interrupted during parallel search");
+        }
+        if (searchException instanceof IOException)
+            throw (IOException) searchException;
+        else if (searchException instanceof CycApiException)
+            throw (CycApiException) searchException;
+        else if (searchException != null)
+            throw new RuntimeException(searchException.getMessage());
+        return isSearchDone;
+    }
+
+    /**
+     * Splits the top levels of the search tree into branches, forward checking each branch
+     * and discarding those which wipe out a remaining variable domain.  Splitting stops
+     * once there are enough branches to keep the search threads busy.
+     *
+     * @param variables is the <tt>ArrayList</tt> of remaining variables to solve
+     * @param level is the current depth of the search
+     * @return the <tt>ArrayList</tt> of branch searchers
+     */
+    protected ArrayList splitSearch(ArrayList variables, int level)
+        throws IOException, CycApiException {
+        int nbrBranchesWanted = constraintProblem.nbrSearchThreads * BRANCHES_PER_SEARCH_THREAD;
+        ForwardCheckingSearcher rootBranch =
+            new ForwardCheckingSearcher(this, valueDomains, solution.getCurrentSolution());
+        rootBranch.branchVariables = variables;
+        rootBranch.branchLevel = level;
+        ArrayList branches = new ArrayList();
+        branches.add(rootBranch);
+        while (branches.size() < nbrBranchesWanted) {
+            ArrayList splitBranches = new ArrayList();
+            boolean isSplit = false;
+            for (int i = 0; i < branches.size(); i++) {
+                ForwardCheckingSearcher branch = (ForwardCheckingSearcher) branches.get(i);
+                if (branch.branchVariables.size() > 1) {
+                    splitBranches.addAll(branch.splitBranch());
+                    isSplit = true;
+                }
+                else
+                    splitBranches.add(branch);
+            }
+            branches = splitBranches;
+            if (! isSplit)
+                break;
+        }
+        // Each split preserves the order of its domain values, so the branches are in
+        // serial search order.
+        for (int i = 0; i < branches.size(); i++)
+            ((ForwardCheckingSearcher) branches.get(i)).branchIndex = i;
+        return branches;
+    }
+
+    /**
+     * Splits this branch of a parallel search into one branch for each unmarked domain
+     * value of its selected variable, omitting those branches in which forward checking
+     * wipes out a remaining variable domain.
+     *
+     * @return the <tt>ArrayList</tt> of branch searchers
+     */
+    protected ArrayList splitBranch()
+        throws IOException, CycApiException {
+        ArrayList branches = new ArrayList();
+        CycVariable selectedVariable = selectVariable(branchVariables);
+        ArrayList remainingDomain = valueDomains.getUnmarkedDomainValues(selectedVariable);
+        ArrayList remainingVariables = (ArrayList) branchVariables.clone();
+        remainingVariables.remove(selectedVariable);
+        for (int i = 0; i < remainingDomain.size(); i++) {
+            Binding currentBinding = new Binding(selectedVariable,
+                                                 remainingDomain.get(i));
+            ForwardCheckingSearcher branch =
+                new ForwardCheckingSearcher(parentSearcher,
+                                            valueDomains,
+                                            solution.getCurrentSolution());
+            branch.solution.addBindingToCurrentSolution(currentBinding);
+            parentSearcher.nbrSteps++;
+            if (branch.checkForwardRules(remainingVariables,
+                                         branchLevel,
+                                         currentBinding)) {
+                branch.branchVariables = remainingVariables;
+                branch.branchLevel = branchLevel + 1;
+                branches.add(branch);
+            }
+        }
+        return branches;
+    }
+
+    /**
+     * Searches unsearched branches of a parallel search until none remain, the requested
+     * number of solutions is found, or a branch throws an exception.
+     */
+    protected void searchBranches() {
+        while (true) {
+            ForwardCheckingSearcher branch;
+            synchronized (this) {
+                if (isSearchDone || (searchException != null) || unsearchedBranches.isEmpty())
+                    return;
+                branch = (ForwardCheckingSearcher) unsearchedBranches.remove(0);
+            }
+            try {
+                branch.search(branch.branchVariables, branch.branchLevel);
+            }
+            catch (Exception e) {
+                synchronized (this) {
+                    if (searchException == null)
+                        searchException = e;
+                }
+            }
+            synchronized (this) {
+                nbrSteps += branch.nbrSteps;
+            }
+        }
+    }
+
+    /**
+     * Returns <tt>true</tt> once the requested number of solutions has been found by a
+     * parallel search.
+     *
+     * @return <tt>true</tt> once the requested number of solutions has been found
+     */
+    protected synchronized boolean isSearchDone() {
+        return isSearchDone;
+    }
+
+    /**
+     * Records a solution found by a branch of a parallel search in the solution of the
+     * parent constraint problem, and returns <tt>true</tt> if the requested number of
+     * solutions has now been found.  The solution is placed after those found by the
+     * same or earlier branches, so that the recorded solutions are in serial search order
+     * whichever thread finishes first.  When fewer than all solutions are requested, the
+     * solutions found may nevertheless differ from those a serial search finds first.
+     *
+     * @param branchIndex the position of the branch in serial search order
+     * @param branchSolution the <tt>ArrayList</tt> of bindings which solve the problem
+     * @return <tt>true</tt> if the requested number of solutions has now been found
+     */
+    protected synchronized boolean recordBranchSolution(int branchIndex, ArrayList branchSolution) {
+        if (isSearchDone)
+            return true;
+        ArrayList foundSolution = new ArrayList(branchSolution.size());
+        for (int i = 0; i < branchSolution.size(); i++)
+            foundSolution.add(((Binding) branchSolution.get(i)).clone());
+        // Solutions found precede the current partial solution, as they do in a serial search.
+        ArrayList solutions = solution.getSolutions();
+        int firstBranchSolution = solutions.size() - 1 - branchSolutionIndices.size();
+        int position = branchSolutionIndices.size();
+        while ((position > 0) &&
+               (((Integer) branchSolutionIndices.get(position - 1)).intValue() > branchIndex))
+            position--;
+        branchSolutionIndices.add(position, new Integer(branchIndex));
+        solutions.add(firstBranchSolution + position, foundSolution);
+        solution.setNbrSolutionsFound(solution.getNbrSolutionsFound() + 1);
+        if (verbosity > 0) {
+            if (solution.getNbrSolutionsFound() == 1)
+                System.out.println("\nFound a solution\n");
+            else
+                System.out.println("\nFound solution " +
+                                   solution.getNbrSolutionsFound() + "\n");
+            solution.displaySolution(foundSolution);
+            System.out.println();
+        }
+        if ((constraintProblem.nbrSolutionsRequested != null) &&
+            (constraintProblem.nbrSolutionsRequested.intValue() == solution.getNbrSolutionsFound())) {
+            // The last solution found becomes the current solution.
+            solutions.remove(solutions.size() - 1);
+            isSearchDone = true;
+        }
+        return isSearchDone;
+    }
+
     /**
      * From the list of variables, heuristically chooses the one most likely to
      * narrow the remaining search space.
@@ -338,6 +627,13 @@ public class ForwardCheckingSearcher {
                                                         currentBinding.getCycVariable());
         ArrayList bindingList = new ArrayList();
         bindingList.add(currentBinding);
+        // Ask the KB once for all the ground instantiations rather than once for each.
+        ArrayList groundInstantiatedRules = new ArrayList();
+        gatherGroundInstantiatedRules(instantiatedRule,
+                                      remainingRuleVariables,
+                                      groundInstantiatedRules);
+        if (groundInstantiatedRules.size() > 0)
+            constraintProblem.ruleEvaluator.areQueriesTrue(groundInstantiatedRules);
         markPermittedRemainingBindings(instantiatedRule,
                                        remainingRuleVariables,
                                        bindingList,
@@ -373,9 +669,9 @@ public class ForwardCheckingSearcher {
         CycVariable selectedVariable = currentBinding.getCycVariable();
         if (remainingVariables.size() == 0) {
             // This is the terminating recursion case, with no more variables left to instantiate.
+            // The answer was prefetched into the rule evaluator's truth table.
             boolean instantiatedRuleResult =
-                CycAccess.current().isQueryTrue_Cached(instantiatedRule,
-                                                       constraintProblem.mt);
+                constraintProblem.ruleEvaluator.isQueryTrue(instantiatedRule);
             if (verbosity > 2) {
                 System.out.println("Bindings " + bindings);
                 System.out.println(instantiatedRule.cyclify() + " --> " + instantiatedRuleResult);
@@ -399,26 +695,26 @@ public class ForwardCheckingSearcher {
             }
             return;
         }
-        else if (remainingVariables.size() == 1) {
-            // One variable left, handle the special cases where individual value
+        else if (remainingVariables.size() == 1 &&
+                 valueDomains.getUnmarkedDomainSize((CycVariable) remainingVariables.get(0)) >
+                 ASK_ALL_OR_INDIV_THRESHOLD) {
+            // One variable left, handle the special case where individual value
             // instantiation is not efficient.
             CycVariable variable = (CycVariable) remainingVariables.get(0);
-            if (valueDomains.getUnmarkedDomainSize(variable) > ASK_ALL_OR_INDIV_THRESHOLD) {
-                // Special case it is more efficient to ask for all the bindings and mark
-                // them rather than to ask for them individually.
-                if (verbosity > 2)
-                    System.out.println("Variable exceeds ask-all threshold " + variable);
-                ArrayList domainValues = this.askWithVariable(instantiatedRule, variable);
-                for (int i = 0; i < domainValues.size(); i++) {
-                    Object value = domainValues.get(i);
-                    if (valueDomains.domainHasValue(variable, value)) {
-                        if (verbosity > 2)
-                            System.out.println("  " + (new Binding(variable, value)).cyclify() +
-                                               " is permitted by " + currentBinding.cyclify());
-                        valueDomains.markDomain(variable, value, Boolean.TRUE);
-                    }
-
+            // Special case it is more efficient to ask for all the bindings and mark
+            // them rather than to ask for them individually.
+            if (verbosity > 2)
+                System.out.println("Variable exceeds ask-all threshold " + variable);
+            ArrayList domainValues = this.askWithVariable(instantiatedRule, variable);
+            for (int i = 0; i < domainValues.size(); i++) {
+                Object value = domainValues.get(i);
+                if (valueDomains.domainHasValue(variable, value)) {
+                    if (verbosity > 2)
+                        System.out.println("  " + (new Binding(variable, value)).cyclify() +
+                                           " is permitted by " + currentBinding.cyclify());
+                    valueDomains.markDomain(variable, value, Boolean.TRUE);
                 }
+
             }
             return;
         }
@@ -434,11 +730,10 @@ public class ForwardCheckingSearcher {
             }
             Object value;
             CycList newInstantiatedRule;
-            ArrayList newBindings = new ArrayList();
+            ArrayList newBindings;
             for (int i = 0; i < limit; i++) {
                 value = domainValues.get(i);
-                Binding newCurrentBinding = new Binding(variable, value);
-                newBindings.addAll(bindings);
+                newBindings = new ArrayList(bindings);
                 newBindings.add(new Binding(variable, value));
                 newInstantiatedRule = instantiatedRule.subst(value, variable);
                 if (verbosity > 4)
@@ -448,12 +743,44 @@ public class ForwardCheckingSearcher {
                 this.markPermittedRemainingBindings(newInstantiatedRule,
                                                     newRemainingVariables,
                                                     newBindings,
-                                                    newCurrentBinding,
+                                                    currentBinding,
                                                     currentRule);
             }
         }
     }
 
+    /**
+     * Gathers the ground instantiations of the constraint rule which
+     * <tt>markPermittedRemainingBindings</tt> will ask individually, one for each combination
+     * of the unmarked domain values of the remaining variables, so that they can be asked of
+     * the KB in a single request.  When the last variable's unmarked domain exceeds the ask-all
+     * threshold its bindings are asked for instead, and no ground instantiations are gathered.
+     *
+     * @param instantiatedRule the constraint rule
+     * @param remainingVariables the variables left to instantiate in the constraint rule
+     * @param groundInstantiatedRules the <tt>ArrayList</tt> to which the ground
+     * instantiations are added
+     */
+    protected void gatherGroundInstantiatedRules(CycList instantiatedRule,
+                                                 ArrayList remainingVariables,
+                                                 ArrayList groundInstantiatedRules) {
+        if (remainingVariables.size() == 0) {
+            groundInstantiatedRules.add(instantiatedRule);
+            return;
+        }
+        CycVariable variable = (CycVariable) remainingVariables.get(0);
+        int limit = valueDomains.getUnmarkedDomainSize(variable);
+        if (remainingVariables.size() == 1 && limit > ASK_ALL_OR_INDIV_THRESHOLD)
+            return;
+        ArrayList domainValues = valueDomains.getUnmarkedDomainValues(variable);
+        ArrayList newRemainingVariables = (ArrayList) remainingVariables.clone();
+        newRemainingVariables.remove(0);
+        for (int i = 0; i < limit; i++)
+            gatherGroundInstantiatedRules(instantiatedRule.subst(domainValues.get(i), variable),
+                                          newRemainingVariables,
+                                          groundInstantiatedRules);
+    }
+
     /**
      * Returns a list of bindings for single unbound variable left in the rule.
      *
@@ -496,12 +823,11 @@ public class ForwardCheckingSearcher {
         differentVariables.remove(currentBinding.getCycVariable());
         for (int i = 0; i < differentVariables.size(); i++) {
             CycVariable differentVariable = (CycVariable) differentVariables.get(i);
-            if (valueDomains.getUnmarkedDomainValues(differentVariable).contains(value) &&
-                ! valueDomains.isDomainMarked(differentVariable, value)) {
+            if (valueDomains.isDomainUnmarked(differentVariable, value)) {
                 if (verbosity > 6)
                     System.out.println("  " + (new Binding(differentVariable, value)).cyclify() +
                                        " is ruled out by " + currentBinding.cyclify());
-                valueDomains.markDomain(differentVariable, value, new Integer(level));
+                valueDomains.markDomainAtLevel(differentVariable, value, level);
                 if (valueDomains.isDomainWipedOut(differentVariable)) {
                     if (verbosity > 6)
                         System.out.println("  domain wiped out for " + differentVariable.cyclify());
@@ -548,7 +874,7 @@ public class ForwardCheckingSearcher {
                         if (verbosity > 6)
                             System.out.println("  " + binding.cyclify() + " is ruled out by " +
                                                currentBinding.cyclify());
-                        valueDomains.markDomain(variable, value, new Integer(level));
+                        valueDomains.markDomainAtLevel(variable, value, level);
                         if (valueDomains.isDomainWipedOut(variable)) {
                             if (verbosity > 6)
                                 System.out.println("  domain wiped out for " + variable);
@@ -599,20 +925,8 @@ public class ForwardCheckingSearcher {
      * the search.
      */
     protected void restore(ArrayList remainingVariables, int level) {
-        Integer intLevel = new Integer(level);
-        for (int i = 0; i < remainingVariables.size(); i++) {
-            CycVariable cycVariable = (CycVariable) remainingVariables.get(i);
-            ArrayList domainValues = valueDomains.getDomainValues(cycVariable);
-            for (int j = 0; j < domainValues.size(); j++) {
-                Object value = domainValues.get(j);
-                if (valueDomains.isDomainMarkedAtLevel(cycVariable, value, intLevel)) {
-                    if (verbosity > 2)
-                        System.out.println("  restoring " +
-                                           (new Binding(cycVariable, value)).cyclify());
-                    valueDomains.unmarkDomain(cycVariable, value);
-                }
-            }
-        }
+        for (int i = 0; i < remainingVariables.size(); i++)
+            valueDomains.restoreDomain((CycVariable) remainingVariables.get(i), level);
     }
 
     /**
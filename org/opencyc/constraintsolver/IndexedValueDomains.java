@@ -0,0 +1,406 @@
+package org.opencyc.constraintsolver;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+
+import org.opencyc.cycobject.CycVariable;
+import org.opencyc.inferencesupport.Binding;
+import org.opencyc.inferencesupport.UnitTest;
+
+/**
+ * <tt>IndexedValueDomains</tt> object to model the value domains of variables during
+ * forward checking search, keeping the domain value marks in primitive arrays.<p>
+ *
+ * When the domain value marking is initialized, each variable's domain values are mapped
+ * once to dense <tt>int</tt> indices, and the marks are kept in an <tt>int</tt> array
+ * indexed by them, together with the count of unmarked values.  Marking, restoring,
+ * counting and wipe out tests are then allocation free array operations, rather than
+ * walks over <tt>HashMap</tt> entries holding boxed levels.<p>
+ *
+ * @version $Id$
+ *
+ * <p>Copyright 2001 Cycorp, Inc., license is open source GNU LGPL.
+ * <p><a href="http://www.opencyc.org/license.txt">the license</a>
+ * <p><a href="http://www.opencyc.org">www.opencyc.org</a>
+ * <p><a href="http://www.sourceforge.net/projects/opencyc">OpenCyc at SourceForge</a>
+ * <p>
+ * THIS SOFTWARE AND KNOWLEDGE BASE CONTENT ARE PROVIDED ``AS IS'' AND
+ * ANY EXPRESSED OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE OPENCYC
+ * ORGANIZATION OR ITS CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE AND KNOWLEDGE
+ * BASE CONTENT, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * @see UnitTest#testConstraintProblem
+ */
+public class IndexedValueDomains extends ValueDomains {
+
+    /**
+     * The mark of a domain value which is eligible for the solution.
+     */
+    protected static final int UNMARKED = 0;
+
+    /**
+     * The mark of a domain value which is permitted during a complement operation.
+     */
+    protected static final int PERMITTED = -1;
+
+    /**
+     * Dictionary of variable --> <tt>IndexedDomain</tt>, created when the domain value
+     * marking is initialized.
+     */
+    protected HashMap indexedDomains = new HashMap();
+
+    /**
+     * The indexed domain values and marks of one variable.
+     */
+    protected static class IndexedDomain {
+
+        /**
+         * The domain values, indexed by their dense index.
+         */
+        protected Object[] values;
+
+        /**
+         * Dictionary of domain value --> <tt>Integer</tt> dense index.
+         */
+        protected HashMap valueIndices;
+
+        /**
+         * The domain value marks, indexed by the dense index of the value.  Each mark is
+         * <tt>UNMARKED</tt>, <tt>PERMITTED</tt> or the search level at which the value was
+         * ruled out.
+         */
+        protected int[] marks;
+
+        /**
+         * The number of domain values whose mark is <tt>UNMARKED</tt>.
+         */
+        protected int nbrUnmarked;
+
+        /**
+         * Constructs a new <tt>IndexedDomain</tt> object for the given domain values, all
+         * of them unmarked.
+         *
+         * @param domainValues the <tt>ArrayList</tt> of domain values
+         */
+        protected IndexedDomain(ArrayList domainValues) {
+            int nbrValues = domainValues.size();
+            values = domainValues.toArray();
+            valueIndices = new HashMap(nbrValues * 2);
+            for (int i = 0; i < nbrValues; i++)
+                valueIndices.put(values[i], new Integer(i));
+            marks = new int[nbrValues];
+            nbrUnmarked = nbrValues;
+        }
+
+        /**
+         * Constructs a new <tt>IndexedDomain</tt> object which shares the domain values of
+         * the given <tt>IndexedDomain</tt> object and has its own copy of the marks.
+         *
+         * @param indexedDomain the <tt>IndexedDomain</tt> object to copy
+         */
+        protected IndexedDomain(IndexedDomain indexedDomain) {
+            values = indexedDomain.values;
+            valueIndices = indexedDomain.valueIndices;
+            marks = (int[]) indexedDomain.marks.clone();
+            nbrUnmarked = indexedDomain.nbrUnmarked;
+        }
+
+        /**
+         * Returns the dense index of the given domain value, or -1 if the value is not in
+         * the domain.
+         *
+         * @param value the domain value
+         * @return the dense index of the given domain value, or -1 if the value is not in
+         * the domain
+         */
+        protected int indexOf(Object value) {
+            Integer index = (Integer) valueIndices.get(value);
+            if (index == null)
+                return -1;
+            return index.intValue();
+        }
+
+        /**
+         * Sets the mark of the domain value having the given index, keeping the count of
+         * unmarked values.
+         *
+         * @param index the dense index of the domain value
+         * @param mark the new mark
+         */
+        protected void setMark(int index, int mark) {
+            if (marks[index] == UNMARKED)
+                nbrUnmarked--;
+            if (mark == UNMARKED)
+                nbrUnmarked++;
+            marks[index] = mark;
+        }
+    }
+
+    /**
+     * Constructs a new <tt>IndexedValueDomains</tt> object.
+     *
+     * @param constraintProblem the parent constraint problem
+     */
+    public IndexedValueDomains(ConstraintProblem constraintProblem) {
+        super(constraintProblem);
+    }
+
+    /**
+     * Constructs a new <tt>IndexedValueDomains</tt> object which shares the variable domain
+     * values of the given <tt>IndexedValueDomains</tt> object, and which has its own copy of
+     * the domain value marks.
+     *
+     * @param indexedValueDomains the <tt>IndexedValueDomains</tt> object to copy
+     */
+    public IndexedValueDomains(IndexedValueDomains indexedValueDomains) {
+        super(indexedValueDomains);
+        indexedDomains = new HashMap(indexedValueDomains.indexedDomains.size());
+        Iterator variables = indexedValueDomains.indexedDomains.keySet().iterator();
+        while (variables.hasNext()) {
+            Object cycVariable = variables.next();
+            IndexedDomain indexedDomain =
+                (IndexedDomain) indexedValueDomains.indexedDomains.get(cycVariable);
+            indexedDomains.put(cycVariable, new IndexedDomain(indexedDomain));
+        }
+    }
+
+    /**
+     * Returns a copy of this <tt>IndexedValueDomains</tt> object which shares the variable
+     * domain values, and which has its own copy of the domain value marks.
+     *
+     * @return a copy of this <tt>IndexedValueDomains</tt> object
+     */
+    public ValueDomains copy() {
+        return new IndexedValueDomains(this);
+    }
+
+    /**
+     * Initializes the domain value marking structure, mapping each variable's domain values
+     * to dense indices.
+     */
+    public void initializeDomainValueMarking() {
+        int nbrOfVariables = constraintProblem.variables.size();
+        indexedDomains = new HashMap(nbrOfVariables * 2);
+        for (int i = 0; i < nbrOfVariables; i++) {
+            CycVariable cycVariable = (CycVariable) constraintProblem.variables.get(i);
+            indexedDomains.put(cycVariable, new IndexedDomain(getDomainValues(cycVariable)));
+        }
+    }
+
+    /**
+     * Sets the <tt>ArrayList</tt> of domain values for a variable.
+     *
+     * @param cycVariable the variable
+     * @param domainValues the <tt>ArrayList</tt> of domain values for the variable
+     */
+    public void setDomainValues(CycVariable cycVariable, ArrayList domainValues) {
+        super.setDomainValues(cycVariable, domainValues);
+        reindexDomain(cycVariable);
+    }
+
+    /**
+     * Adds an <tt>Object</tt> value to the domain for a variable.
+     *
+     * @param cycVariable the variable
+     * @param value the <tt>Object</tt> value which is added to the domain for the variable
+     */
+    public void addDomainValue(CycVariable cycVariable, Object value) {
+        super.addDomainValue(cycVariable, value);
+        reindexDomain(cycVariable);
+    }
+
+    /**
+     * Removes the given value from the given variable's value domain.
+     *
+     * @param cycVariable the variable under consideration
+     * @param value the <tt>Object</tt> to be removed from the variable's value domain
+     */
+    public void removeFromValue(CycVariable cycVariable, Object value) {
+        super.removeFromValue(cycVariable, value);
+        reindexDomain(cycVariable);
+    }
+
+    /**
+     * Maps the variable's domain values to dense indices again after the domain has changed,
+     * keeping the marks of the values which remain in the domain.  Does nothing before the
+     * domain value marking is initialized.
+     *
+     * @param cycVariable the variable whose domain has changed
+     */
+    protected void reindexDomain(CycVariable cycVariable) {
+        IndexedDomain oldIndexedDomain = (IndexedDomain) indexedDomains.get(cycVariable);
+        if (oldIndexedDomain == null)
+            return;
+        IndexedDomain indexedDomain = new IndexedDomain(getDomainValues(cycVariable));
+        for (int i = 0; i < indexedDomain.values.length; i++) {
+            int oldIndex = oldIndexedDomain.indexOf(indexedDomain.values[i]);
+            if (oldIndex != -1)
+                indexedDomain.setMark(i, oldIndexedDomain.marks[oldIndex]);
+        }
+        indexedDomains.put(cycVariable, indexedDomain);
+    }
+
+    /**
+     * Marks the entry for the variable / domain value with an <tt>Integer</tt> level number,
+     * or a <tt>Boolean</tt> <tt>True</tt>, or <tt>null</tt>.
+     */
+    public void markDomain(CycVariable cycVariable, Object value, Object level) {
+        int mark;
+        if (level == null)
+            mark = UNMARKED;
+        else if (level.equals(Boolean.TRUE))
+            mark = PERMITTED;
+        else
+            mark = ((Integer) level).intValue();
+        markDomainAtLevel(cycVariable, value, mark);
+    }
+
+    /**
+     * Marks the entry for the variable / domain value with the given search level number.
+     *
+     * @param cycVariable the variable
+     * @param value the domain value
+     * @param level the search level at which the domain value is ruled out
+     */
+    public void markDomainAtLevel(CycVariable cycVariable, Object value, int level) {
+        IndexedDomain indexedDomain = (IndexedDomain) indexedDomains.get(cycVariable);
+        int index = indexedDomain.indexOf(value);
+        if (index != -1)
+            indexedDomain.setMark(index, level);
+    }
+
+    /**
+     * Resets the entries for the variable's domain values which were marked at the given
+     * search level, restoring them to the solution after a backtrack.
+     *
+     * @param cycVariable the variable
+     * @param level the search level from which the search backtracks
+     */
+    public void restoreDomain(CycVariable cycVariable, int level) {
+        IndexedDomain indexedDomain = (IndexedDomain) indexedDomains.get(cycVariable);
+        int[] marks = indexedDomain.marks;
+        for (int i = 0; i < marks.length; i++) {
+            if (marks[i] == level) {
+                if (verbosity > 2)
+                    System.out.println("  restoring " +
+                                       (new Binding(cycVariable,
+                                                    indexedDomain.values[i])).cyclify());
+                indexedDomain.setMark(i, UNMARKED);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of unmarked (eligible for the solution) domain values
+     * for the given variable.
+     */
+    public int getUnmarkedDomainSize(CycVariable cycVariable) {
+        return ((IndexedDomain) indexedDomains.get(cycVariable)).nbrUnmarked;
+    }
+
+    /**
+     * Returns the <tt>ArrayList</tt> of unmarked (eligible for the solution) domain
+     * values for the given variable.
+     */
+    public ArrayList getUnmarkedDomainValues(CycVariable cycVariable) {
+        IndexedDomain indexedDomain = (IndexedDomain) indexedDomains.get(cycVariable);
+        ArrayList unmarkedDomainValues = new ArrayList(indexedDomain.nbrUnmarked);
+        int[] marks = indexedDomain.marks;
+        for (int i = 0; i < marks.length; i++) {
+            if (marks[i] == UNMARKED)
+                unmarkedDomainValues.add(indexedDomain.values[i]);
+        }
+        return unmarkedDomainValues;
+    }
+
+    /**
+     * Iterates over the domain values for the given variable, changing any
+     * entries marked <tt>true</tt> to <tt>Integer</tt> level.
+     *
+     * @param cycVariable the variable for domain value complementation
+     * @param newLevel the new search level for the variable's domain
+     * @param selectedBinding a variable binding for optional diagnostic display
+     */
+    public void complementDomainValues(CycVariable cycVariable,
+                                          Integer newLevel,
+                                          Binding selectedBinding) {
+        IndexedDomain indexedDomain = (IndexedDomain) indexedDomains.get(cycVariable);
+        int level = newLevel.intValue();
+        int[] marks = indexedDomain.marks;
+        for (int i = 0; i < marks.length; i++) {
+            if (marks[i] == UNMARKED) {
+                indexedDomain.setMark(i, level);
+                if (verbosity > 2)
+                    System.out.println("\n" + (new Binding(cycVariable, indexedDomain.values[i])) +
+                                       " is ruled out by " +
+                                       selectedBinding);
+            }
+            else if (marks[i] == PERMITTED)
+                indexedDomain.setMark(i, UNMARKED);
+        }
+    }
+
+    /**
+     * Returns <tt>true</tt> iff all the domain values of the variable have been marked
+     * and thus eliminated from consideration as a solution.
+     *
+     * @return <tt>true</tt> if and only if all the domain values of the variable have been marked
+     * and thus eliminated from consideration as a solution
+     */
+    public boolean isDomainWipedOut(CycVariable cycVariable) {
+        int[] marks = ((IndexedDomain) indexedDomains.get(cycVariable)).marks;
+        for (int i = 0; i < marks.length; i++) {
+            if (marks[i] <= UNMARKED)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns <tt>true</tt> iff the variable / value combination is marked
+     * with any level number.
+     *
+     * @return <tt>true</tt> iff the variable / value combination is marked
+     * with aany level number
+     */
+    public boolean isDomainMarked(CycVariable cycVariable, Object value) {
+        IndexedDomain indexedDomain = (IndexedDomain) indexedDomains.get(cycVariable);
+        int index = indexedDomain.indexOf(value);
+        return (index != -1) && (indexedDomain.marks[index] > UNMARKED);
+    }
+
+    /**
+     * Returns <tt>true</tt> iff the value is in the variable's domain and is not marked.
+     *
+     * @return <tt>true</tt> iff the value is in the variable's domain and is not marked
+     */
+    public boolean isDomainUnmarked(CycVariable cycVariable, Object value) {
+        IndexedDomain indexedDomain = (IndexedDomain) indexedDomains.get(cycVariable);
+        int index = indexedDomain.indexOf(value);
+        return (index != -1) && (indexedDomain.marks[index] == UNMARKED);
+    }
+
+    /**
+     * Returns <tt>true</tt> iff the variable / value combination is marked
+     * with a given level number.
+     *
+     * @return <tt>true</tt> iff the variable / value combination is marked
+     * with a given level number
+     */
+    public boolean isDomainMarkedAtLevel(CycVariable cycVariable,
+                                            Object value,
+                                            Integer level) {
+        IndexedDomain indexedDomain = (IndexedDomain) indexedDomains.get(cycVariable);
+        int index = indexedDomain.indexOf(value);
+        return (index != -1) && (indexedDomain.marks[index] == level.intValue());
+    }
+}
@@ -121,9 +121,14 @@ public class NodeConsistencyAchiever {
             affectedVariables.add(affectedVariable);
             inputDomainValues = constraintProblem.valueDomains.getDomainValues(affectedVariable);
             outputDomainValues = new ArrayList();
+            // Ask the KB once for all the values rather than once for each value.
+            ArrayList instantiatedRules = new ArrayList(inputDomainValues.size());
+            for (int j = 0; j < inputDomainValues.size(); j++)
+                instantiatedRules.add(rule.instantiate(affectedVariable, inputDomainValues.get(j)));
+            constraintProblem.ruleEvaluator.prefetch(instantiatedRules);
             for (int j = 0; j < inputDomainValues.size(); j++) {
                 Object value = inputDomainValues.get(j);
-                instantiatedRule = rule.instantiate(affectedVariable, value);
+                instantiatedRule = (ConstraintRule) instantiatedRules.get(j);
                 instantiatedRuleResult = constraintProblem.ruleEvaluator.ask(instantiatedRule);
                 constraintProblem.nbrAsks++;
                 if (verbosity > 7)
@@ -1,8 +1,9 @@
 package org.opencyc.constraintsolver;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
 
-import org.opencyc.api.CycAccess;
 import org.opencyc.api.CycApiException;
 import org.opencyc.cycobject.CycConstant;
 import org.opencyc.cycobject.CycList;
@@ -81,6 +82,17 @@ public class RuleEvaluator {
      */
     protected CycConstant plusFn;
 
+    /**
+     * Dictionary of ground formula --> <tt>Boolean</tt> truth value, memoizing the answers to
+     * the formulas asked in the KB for this constraint problem.
+     */
+    protected HashMap truthTable = new HashMap();
+
+    /**
+     * Number of api requests made to ask formulas in the KB.
+     */
+    protected int nbrKbRequests = 0;
+
     /**
      * Constructs a new <tt>RuleEvaluator</tt> object for the parent
      * <tt>ConstraintProblem</tt>.
@@ -165,8 +177,7 @@ public class RuleEvaluator {
                 argument1Integer = ((Integer) argument1).intValue();
             else
                 // Ask OpenCyc.
-                return CycAccess.current().isQueryTrue_Cached(rule.getFormula(),
-                                                              constraintProblem.mt);
+                return isQueryTrue(rule.getFormula());
             Object argument2 = rule.getFormula().third();
             int argument2Integer = 0;
             if (argument2 instanceof CycList) {
@@ -178,8 +189,7 @@ public class RuleEvaluator {
                 argument2Integer = ((Integer) argument2).intValue();
             else
                 // Ask OpenCyc.
-                return CycAccess.current().isQueryTrue_Cached(rule.getFormula(),
-                                                              constraintProblem.mt);
+                return isQueryTrue(rule.getFormula());
             return argument1Integer == argument2Integer;
         }
         else if (predicate.equals(different)) {
@@ -188,8 +198,125 @@ public class RuleEvaluator {
         }
         else
             // Ask OpenCyc.
-            return CycAccess.current().isQueryTrue_Cached(rule.getFormula(),
-                                                          constraintProblem.mt);
+            return isQueryTrue(rule.getFormula());
+    }
+
+    /**
+     * Returns <tt>true</tt> iff the ground formula is true in the KB, answering from the
+     * truth table when the formula has already been asked.
+     *
+     * @param formula the ground formula
+     * @return <tt>true</tt> iff the ground formula is true in the KB
+     */
+    public boolean isQueryTrue(CycList formula) throws IOException, CycApiException {
+        Boolean truthValue;
+        synchronized (truthTable) {
+            truthValue = (Boolean) truthTable.get(formula);
+        }
+        if (truthValue != null)
+            return truthValue.booleanValue();
+        ArrayList formulas = new ArrayList(1);
+        formulas.add(formula);
+        return areQueriesTrue(formulas)[0];
+    }
+
+    /**
+     * Returns whether each of the ground formulas is true in the KB.  The formulas not yet in
+     * the truth table are asked in a single api request and their answers are added to the
+     * truth table.
+     *
+     * @param formulas the <tt>ArrayList</tt> of ground formulas
+     * @return an array whose elements are <tt>true</tt> iff the corresponding formula is true
+     * in the KB
+     */
+    public boolean[] areQueriesTrue(ArrayList formulas) throws IOException, CycApiException {
+        boolean[] truthValues = new boolean[formulas.size()];
+        ArrayList unknownFormulas = new ArrayList();
+        synchronized (truthTable) {
+            for (int i = 0; i < formulas.size(); i++) {
+                Object formula = formulas.get(i);
+                if ((! truthTable.containsKey(formula)) && (! unknownFormulas.contains(formula)))
+                    unknownFormulas.add(formula);
+            }
+        }
+        if (unknownFormulas.size() > 0) {
+            boolean[] answers =
+                constraintProblem.cycAccess.areQueriesTrue(unknownFormulas, constraintProblem.mt);
+            synchronized (truthTable) {
+                nbrKbRequests++;
+                for (int i = 0; i < answers.length; i++)
+                    truthTable.put(unknownFormulas.get(i), new Boolean(answers[i]));
+            }
+            if (verbosity > 4)
+                System.out.println("Asked " + unknownFormulas.size() + " formulas in the KB");
+        }
+        synchronized (truthTable) {
+            for (int i = 0; i < formulas.size(); i++)
+                truthValues[i] = ((Boolean) truthTable.get(formulas.get(i))).booleanValue();
+        }
+        return truthValues;
+    }
+
+    /**
+     * Asks in a single api request the ground formulas which evaluating the given instantiated
+     * constraint rules would ask in the KB, adding their answers to the truth table so that
+     * the subsequent evaluation of the rules makes no KB requests.
+     *
+     * @param rules the <tt>ArrayList</tt> of instantiated constraint rules
+     */
+    public void prefetch(ArrayList rules) throws IOException, CycApiException {
+        ArrayList formulas = new ArrayList();
+        for (int i = 0; i < rules.size(); i++)
+            gatherKbFormulas(((ConstraintRule) rules.get(i)).getFormula(), formulas);
+        areQueriesTrue(formulas);
+    }
+
+    /**
+     * Gathers the ground formulas which the <tt>ask</tt> method would ask in the KB when
+     * evaluating the given formula.
+     *
+     * @param formula the instantiated constraint rule formula
+     * @param formulas the <tt>ArrayList</tt> to which the ground formulas are added
+     */
+    protected void gatherKbFormulas(CycList formula, ArrayList formulas) {
+        Object predicate = formula.first();
+        if (predicate.equals(and) || predicate.equals(or)) {
+            CycList arguments = (CycList) formula.rest();
+            for (int i = 0; i < arguments.size(); i++) {
+                if (arguments.get(i) instanceof CycList)
+                    gatherKbFormulas((CycList) arguments.get(i), formulas);
+            }
+        }
+        else if (predicate.equals(not)) {
+            if (formula.second() instanceof CycList)
+                gatherKbFormulas((CycList) formula.second(), formulas);
+        }
+        else if (predicate.equals(numericallyEqual)) {
+            if (! (isEvaluatableNumber(formula.second()) && isEvaluatableNumber(formula.third())))
+                formulas.add(formula);
+        }
+        else if (! predicate.equals(different))
+            formulas.add(formula);
+    }
+
+    /**
+     * Returns <tt>true</tt> iff the <tt>ask</tt> method evaluates the given
+     * <tt>numericallyEqual</tt> argument without asking the KB.
+     *
+     * @param argument the <tt>numericallyEqual</tt> argument
+     * @return <tt>true</tt> iff the argument is evaluated without asking the KB
+     */
+    protected boolean isEvaluatableNumber(Object argument) {
+        return (argument instanceof CycList) || (argument instanceof Integer);
+    }
+
+    /**
+     * Returns the number of api requests made to ask formulas in the KB.
+     *
+     * @return the number of api requests made to ask formulas in the KB
+     */
+    public int getNbrKbRequests() {
+        return nbrKbRequests;
     }
 
     /**
@@ -65,6 +65,8 @@ public class UnitTest extends TestCase {
             testSuite.addTest(new UnitTest("testProblemParser"));
             testSuite.addTest(new UnitTest("testConstraintProblem1"));
             testSuite.addTest(new UnitTest("testConstraintProblem2"));
+            testSuite.addTest(new UnitTest("testConstraintProblem3"));
+            testSuite.addTest(new UnitTest("testConstraintProblem4"));
         }
         TestResult testResult = new TestResult();
         testSuite.run(testResult);
@@ -202,6 +204,28 @@ public class UnitTest extends TestCase {
             Assert.assertTrue(ruleEvaluator.ask(new ConstraintRule("(#$numericallyEqual 2 (#$PlusFn 1))")));
             Assert.assertTrue(ruleEvaluator.ask(new ConstraintRule("(#$numericallyEqual (#$PlusFn 1) 2)")));
             Assert.assertTrue(! ruleEvaluator.ask(new ConstraintRule("(#$numericallyEqual (#$PlusFn 1) 5)")));
+            Assert.assertEquals(0, ruleEvaluator.getNbrKbRequests());
+
+            // test the truth table and the batched KB asks
+            ArrayList rules = new ArrayList();
+            rules.add(new ConstraintRule("(#$isa #$Collection #$Collection)"));
+            rules.add(new ConstraintRule("(#$not (#$isa #$Collection #$Predicate))"));
+            rules.add(new ConstraintRule("(#$and (#$numericallyEqual 1 1) (#$isa #$isa #$Predicate))"));
+            ruleEvaluator.prefetch(rules);
+            Assert.assertEquals(1, ruleEvaluator.getNbrKbRequests());
+            Assert.assertEquals(3, ruleEvaluator.truthTable.size());
+            Assert.assertTrue(ruleEvaluator.ask((ConstraintRule) rules.get(0)));
+            Assert.assertTrue(ruleEvaluator.ask((ConstraintRule) rules.get(1)));
+            Assert.assertTrue(ruleEvaluator.ask((ConstraintRule) rules.get(2)));
+            Assert.assertEquals(1, ruleEvaluator.getNbrKbRequests());
+            ArrayList formulas = new ArrayList();
+            formulas.add(((ConstraintRule) rules.get(0)).getFormula());
+            formulas.add(constraintProblem.cycAccess.makeCycList("(#$isa #$Predicate #$Collection)"));
+            boolean[] truthValues = ruleEvaluator.areQueriesTrue(formulas);
+            Assert.assertTrue(truthValues[0]);
+            Assert.assertTrue(truthValues[1]);
+            Assert.assertEquals(2, ruleEvaluator.getNbrKbRequests());
+            Assert.assertEquals(4, ruleEvaluator.truthTable.size());
         }
         catch (Exception e) {
             Assert.fail(e.getMessage());
@@ -461,6 +485,214 @@ public class UnitTest extends TestCase {
         System.out.println("** testConstraintProblem2 OK **");
     }
 
+    /**
+     * Tests the parallel search of the <tt>ForwardCheckingSearcher</tt> class.
+     */
+    public void testConstraintProblem3() {
+        System.out.println("** testConstraintProblem3 **");
+
+        //Zebra Puzzle
+        String zebraPuzzleString =
+            "(#$and " +
+            "  (#$or " +
+            "    (#$numericallyEqual ?norwegian (#$PlusFn ?blue 1)) " +
+            "    (#$numericallyEqual ?blue (#$PlusFn ?norwegian 1))) " +
+            "  (#$numericallyEqual ?japanese ?volkswagen) " +
+            "  (#$numericallyEqual ?mercedes-benz ?orange-juice) " +
+            "  (#$or " +
+            "    (#$numericallyEqual ?ford (#$PlusFn ?horse 1)) " +
+            "    (#$numericallyEqual ?horse (#$PlusFn ?ford 1))) " +
+            "  (#$or " +
+            "    (#$numericallyEqual ?chevrolet (#$PlusFn ?fox 1)) " +
+            "    (#$numericallyEqual ?fox (#$PlusFn ?chevrolet 1))) " +
+            "  (#$numericallyEqual ?norwegian 1) " +
+            "  (#$numericallyEqual ?milk 3) " +
+            "  (#$numericallyEqual ?ford ?yellow) " +
+            "  (#$numericallyEqual ?oldsmobile ?snails) " +
+            "  (#$numericallyEqual ?green (#$PlusFn ?ivory 1)) " +
+            "  (#$numericallyEqual ?ukranian ?eggnog) " +
+            "  (#$numericallyEqual ?cocoa ?green) " +
+            "  (#$numericallyEqual ?spaniard ?dog) " +
+            "  (#$numericallyEqual ?english ?red) " +
+            "  (#$different ?ford ?chevrolet ?oldsmobile ?mercedes-benz ?volkswagen) " +
+            "  (#$different ?orange-juice ?cocoa ?eggnog ?milk ?water) " +
+            "  (#$different ?dog ?snails ?horse ?fox ?zebra) " +
+            "  (#$different ?english ?spaniard ?norwegian ?japanese ?ukranian) " +
+            "  (#$different ?blue ?red ?green ?yellow ?ivory) " +
+            "  (#$elementOf ?blue (#$TheSet 1 2 3 4 5)) " +
+            "  (#$elementOf ?chevrolet (#$TheSet 1 2 3 4 5)) " +
+            "  (#$elementOf ?cocoa (#$TheSet 1 2 3 4 5)) " +
+            "  (#$elementOf ?dog (#$TheSet 1 2 3 4 5)) " +
+            "  (#$elementOf ?eggnog (#$TheSet 1 2 3 4 5)) " +
+            "  (#$elementOf ?english (#$TheSet 1 2 3 4 5)) " +
+            "  (#$elementOf ?ford (#$TheSet 1 2 3 4 5)) " +
+            "  (#$elementOf ?fox (#$TheSet 1 2 3 4 5)) " +
+            "  (#$elementOf ?green (#$TheSet 1 2 3 4 5)) " +
+            "  (#$elementOf ?horse (#$TheSet 1 2 3 4 5)) " +
+            "  (#$elementOf ?ivory (#$TheSet 1 2 3 4 5)) " +
+            "  (#$elementOf ?japanese (#$TheSet 1 2 3 4 5)) " +
+            "  (#$elementOf ?mercedes-benz (#$TheSet 1 2 3 4 5)) " +
+            "  (#$elementOf ?milk (#$TheSet 1 2 3 4 5)) " +
+            "  (#$elementOf ?norwegian (#$TheSet 1 2 3 4 5)) " +
+            "  (#$elementOf ?oldsmobile (#$TheSet 1 2 3 4 5)) " +
+            "  (#$elementOf ?orange-juice (#$TheSet 1 2 3 4 5)) " +
+            "  (#$elementOf ?red (#$TheSet 1 2 3 4 5)) " +
+            "  (#$elementOf ?snails (#$TheSet 1 2 3 4 5)) " +
+            "  (#$elementOf ?spaniard (#$TheSet 1 2 3 4 5)) " +
+            "  (#$elementOf ?ukranian (#$TheSet 1 2 3 4 5)) " +
+            "  (#$elementOf ?volkswagen (#$TheSet 1 2 3 4 5)) " +
+            "  (#$elementOf ?water (#$TheSet 1 2 3 4 5)) " +
+            "  (#$elementOf ?yellow (#$TheSet 1 2 3 4 5)) " +
+            "  (#$elementOf ?zebra (#$TheSet 1 2 3 4 5))) ";
+        ConstraintProblem zebraProblem = new ConstraintProblem();
+        CycAccess cycAccess = zebraProblem.cycAccess;
+        try {
+            CycList zebraPuzzleCycList = cycAccess.makeCycList(zebraPuzzleString);
+            zebraProblem.setVerbosity(0);
+            zebraProblem.nbrSolutionsRequested = null;
+            zebraProblem.nbrSearchThreads = 1;
+            zebraProblem.solve(zebraPuzzleCycList);
+            int nbrSerialSolutionsFound = zebraProblem.solution.getNbrSolutionsFound();
+            Assert.assertTrue(nbrSerialSolutionsFound > 0);
+
+            ConstraintProblem parallelZebraProblem = new ConstraintProblem(cycAccess);
+            parallelZebraProblem.setVerbosity(0);
+            parallelZebraProblem.nbrSolutionsRequested = null;
+            parallelZebraProblem.nbrSearchThreads = 4;
+            ArrayList solutions = parallelZebraProblem.solve(zebraPuzzleCycList);
+            Assert.assertEquals(nbrSerialSolutionsFound,
+                                parallelZebraProblem.solution.getNbrSolutionsFound());
+            // Each solution found precedes the final partial solution.
+            Assert.assertEquals(nbrSerialSolutionsFound + 1, solutions.size());
+            for (int i = 0; i < nbrSerialSolutionsFound; i++)
+                Assert.assertEquals(25, ((ArrayList) solutions.get(i)).size());
+
+            parallelZebraProblem = new ConstraintProblem(cycAccess);
+            parallelZebraProblem.setVerbosity(0);
+            parallelZebraProblem.nbrSolutionsRequested = new Integer(1);
+            parallelZebraProblem.nbrSearchThreads = 4;
+            solutions = parallelZebraProblem.solve(zebraPuzzleCycList);
+            Assert.assertEquals(1, parallelZebraProblem.solution.getNbrSolutionsFound());
+            Assert.assertEquals(1, solutions.size());
+            Assert.assertEquals(25, ((ArrayList) solutions.get(0)).size());
+        }
+        catch (Exception e) {
+            e.printStackTrace();
+            Assert.fail(e.getMessage());
+        }
+
+        System.out.println("** testConstraintProblem3 OK **");
+    }
 
+    /**
+     * Tests the <tt>IndexedValueDomains</tt> class.
+     */
+    public void testConstraintProblem4() {
+        System.out.println("** testConstraintProblem4 **");
 
-}
\ No newline at end of file
+        //Zebra Puzzle
+        String zebraPuzzleString =
+            "(#$and " +
+            "  (#$or " +
+            "    (#$numericallyEqual ?norwegian (#$PlusFn ?blue 1)) " +
+            "    (#$numericallyEqual ?blue (#$PlusFn ?norwegian 1))) " +
+            "  (#$numericallyEqual ?japanese ?volkswagen) " +
+            "  (#$numericallyEqual ?mercedes-benz ?orange-juice) " +
+            "  (#$or " +
+            "    (#$numericallyEqual ?ford (#$PlusFn ?horse 1)) " +
+            "    (#$numericallyEqual ?horse (#$PlusFn ?ford 1))) " +
+            "  (#$or " +
+            "    (#$numericallyEqual ?chevrolet (#$PlusFn ?fox 1)) " +
+            "    (#$numericallyEqual ?fox (#$PlusFn ?chevrolet 1))) " +
+            "  (#$numericallyEqual ?norwegian 1) " +
+            "  (#$numericallyEqual ?milk 3) " +
+            "  (#$numericallyEqual ?ford ?yellow) " +
+            "  (#$numericallyEqual ?oldsmobile ?snails) " +
+            "  (#$numericallyEqual ?green (#$PlusFn ?ivory 1)) " +
+            "  (#$numericallyEqual ?ukranian ?eggnog) " +
+            "  (#$numericallyEqual ?cocoa ?green) " +
+            "  (#$numericallyEqual ?spaniard ?dog) " +
+            "  (#$numericallyEqual ?english ?red) " +
+            "  (#$different ?ford ?chevrolet ?oldsmobile ?mercedes-benz ?volkswagen) " +
+            "  (#$different ?orange-juice ?cocoa ?eggnog ?milk ?water) " +
+            "  (#$different ?dog ?snails ?horse ?fox ?zebra) " +
+            "  (#$different ?english ?spaniard ?norwegian ?japanese ?ukranian) " +
+            "  (#$different ?blue ?red ?green ?yellow ?ivory) " +
+            "  (#$elementOf ?blue (#$TheSet 1 2 3 4 5)) " +
+            "  (#$elementOf ?chevrolet (#$TheSet 1 2 3 4 5)) " +
+            "  (#$elementOf ?cocoa (#$TheSet 1 2 3 4 5)) " +
+            "  (#$elementOf ?dog (#$TheSet 1 2 3 4 5)) " +
+            "  (#$elementOf ?eggnog (#$TheSet 1 2 3 4 5)) " +
+            "  (#$elementOf ?english (#$TheSet 1 2 3 4 5)) " +
+            "  (#$elementOf ?ford (#$TheSet 1 2 3 4 5)) " +
+            "  (#$elementOf ?fox (#$TheSet 1 2 3 4 5)) " +
+            "  (#$elementOf ?green (#$TheSet 1 2 3 4 5)) " +
+            "  (#$elementOf ?horse (#$TheSet 1 2 3 4 5)) " +
+            "  (#$elementOf ?ivory (#$TheSet 1 2 3 4 5)) " +
+            "  (#$elementOf ?japanese (#$TheSet 1 2 3 4 5)) " +
+            "  (#$elementOf ?mercedes-benz (#$TheSet 1 2 3 4 5)) " +
+            "  (#$elementOf ?milk (#$TheSet 1 2 3 4 5)) " +
+            "  (#$elementOf ?norwegian (#$TheSet 1 2 3 4 5)) " +
+            "  (#$elementOf ?oldsmobile (#$TheSet 1 2 3 4 5)) " +
+            "  (#$elementOf ?orange-juice (#$TheSet 1 2 3 4 5)) " +
+            "  (#$elementOf ?red (#$TheSet 1 2 3 4 5)) " +
+            "  (#$elementOf ?snails (#$TheSet 1 2 3 4 5)) " +
+            "  (#$elementOf ?spaniard (#$TheSet 1 2 3 4 5)) " +
+            "  (#$elementOf ?ukranian (#$TheSet 1 2 3 4 5)) " +
+            "  (#$elementOf ?volkswagen (#$TheSet 1 2 3 4 5)) " +
+            "  (#$elementOf ?water (#$TheSet 1 2 3 4 5)) " +
+            "  (#$elementOf ?yellow (#$TheSet 1 2 3 4 5)) " +
+            "  (#$elementOf ?zebra (#$TheSet 1 2 3 4 5))) ";
+        ConstraintProblem zebraProblem = new ConstraintProblem();
+        CycAccess cycAccess = zebraProblem.cycAccess;
+        try {
+            CycList zebraPuzzleCycList = cycAccess.makeCycList(zebraPuzzleString);
+            zebraProblem.setVerbosity(0);
+            zebraProblem.nbrSolutionsRequested = null;
+            zebraProblem.solve(zebraPuzzleCycList);
+            int nbrSolutionsFound = zebraProblem.solution.getNbrSolutionsFound();
+            Assert.assertTrue(nbrSolutionsFound > 0);
+
+            ConstraintProblem indexedZebraProblem = new ConstraintProblem(cycAccess);
+            indexedZebraProblem.setUseIndexedValueDomains(true);
+            Assert.assertTrue(indexedZebraProblem.valueDomains instanceof IndexedValueDomains);
+            indexedZebraProblem.setVerbosity(0);
+            indexedZebraProblem.nbrSolutionsRequested = null;
+            ArrayList solutions = indexedZebraProblem.solve(zebraPuzzleCycList);
+            Assert.assertEquals(nbrSolutionsFound,
+                                indexedZebraProblem.solution.getNbrSolutionsFound());
+            for (int i = 0; i < nbrSolutionsFound; i++)
+                Assert.assertEquals(25, ((ArrayList) solutions.get(i)).size());
+
+            // test marking, restoring and counting
+            IndexedValueDomains valueDomains =
+                (IndexedValueDomains) indexedZebraProblem.valueDomains.copy();
+            CycVariable blue = CycObjectFactory.makeCycVariable("?blue");
+            ArrayList domainValues = valueDomains.getDomainValues(blue);
+            valueDomains.initializeDomainValueMarking();
+            Assert.assertEquals(domainValues.size(), valueDomains.getUnmarkedDomainSize(blue));
+            Object value = domainValues.get(0);
+            Assert.assertTrue(valueDomains.isDomainUnmarked(blue, value));
+            valueDomains.markDomainAtLevel(blue, value, 2);
+            Assert.assertTrue(valueDomains.isDomainMarked(blue, value));
+            Assert.assertTrue(valueDomains.isDomainMarkedAtLevel(blue, value, new Integer(2)));
+            Assert.assertEquals(domainValues.size() - 1, valueDomains.getUnmarkedDomainSize(blue));
+            Assert.assertTrue(! valueDomains.getUnmarkedDomainValues(blue).contains(value));
+            valueDomains.restoreDomain(blue, 3);
+            Assert.assertTrue(valueDomains.isDomainMarked(blue, value));
+            valueDomains.restoreDomain(blue, 2);
+            Assert.assertTrue(! valueDomains.isDomainMarked(blue, value));
+            Assert.assertEquals(domainValues.size(), valueDomains.getUnmarkedDomainSize(blue));
+            for (int i = 0; i < domainValues.size(); i++)
+                valueDomains.markDomainAtLevel(blue, domainValues.get(i), 4);
+            Assert.assertTrue(valueDomains.isDomainWipedOut(blue));
+            Assert.assertEquals(0, valueDomains.getUnmarkedDomainSize(blue));
+        }
+        catch (Exception e) {
+            e.printStackTrace();
+            Assert.fail(e.getMessage());
+        }
+
+        System.out.println("** testConstraintProblem4 OK **");
+    }
+}
@@ -75,6 +75,39 @@ public class ValueDomains {
         this.constraintProblem = constraintProblem;
     }
 
+    /**
+     * Constructs a new <tt>ValueDomains</tt> object which shares the variable domain values
+     * of the given <tt>ValueDomains</tt> object, and which has its own copy of the domain
+     * value marks.  Used to give each branch of a parallel search its own marking state.
+     *
+     * @param valueDomains the <tt>ValueDomains</tt> object to copy
+     */
+    public ValueDomains(ValueDomains valueDomains) {
+        constraintProblem = valueDomains.constraintProblem;
+        verbosity = valueDomains.verbosity;
+        varsDictionary = valueDomains.varsDictionary;
+        domains = new HashMap(valueDomains.domains.size());
+        Iterator variables = valueDomains.domains.keySet().iterator();
+        while (variables.hasNext()) {
+            Object cycVariable = variables.next();
+            HashMap domainValueMarks = (HashMap) valueDomains.domains.get(cycVariable);
+            if (domainValueMarks == null)
+                domains.put(cycVariable, null);
+            else
+                domains.put(cycVariable, new HashMap(domainValueMarks));
+        }
+    }
+
+    /**
+     * Returns a copy of this <tt>ValueDomains</tt> object which shares the variable domain
+     * values, and which has its own copy of the domain value marks.
+     *
+     * @return a copy of this <tt>ValueDomains</tt> object
+     */
+    public ValueDomains copy() {
+        return new ValueDomains(this);
+    }
+
     /**
      * Displays the variables and their value domains.
      */
@@ -177,6 +210,38 @@ public class ValueDomains {
         domainValueMarks.put(value, level);
     }
 
+    /**
+     * Marks the entry for the variable / domain value with the given search level number.
+     *
+     * @param cycVariable the variable
+     * @param value the domain value
+     * @param level the search level at which the domain value is ruled out
+     */
+    public void markDomainAtLevel(CycVariable cycVariable, Object value, int level) {
+        markDomain(cycVariable, value, new Integer(level));
+    }
+
+    /**
+     * Resets the entries for the variable's domain values which were marked at the given
+     * search level, restoring them to the solution after a backtrack.
+     *
+     * @param cycVariable the variable
+     * @param level the search level from which the search backtracks
+     */
+    public void restoreDomain(CycVariable cycVariable, int level) {
+        Integer intLevel = new Integer(level);
+        ArrayList domainValues = getDomainValues(cycVariable);
+        for (int i = 0; i < domainValues.size(); i++) {
+            Object value = domainValues.get(i);
+            if (isDomainMarkedAtLevel(cycVariable, value, intLevel)) {
+                if (verbosity > 2)
+                    System.out.println("  restoring " +
+                                       (new Binding(cycVariable, value)).cyclify());
+                unmarkDomain(cycVariable, value);
+            }
+        }
+    }
+
     /**
      * Returns the number of unmarked (eligible for the solution) domain values
      * for the given variable.
@@ -275,6 +340,17 @@ public class ValueDomains {
         return (domainValueMarks.get(value)) instanceof Integer;
     }
 
+    /**
+     * Returns <tt>true</tt> iff the value is in the variable's domain and is not marked.
+     *
+     * @return <tt>true</tt> iff the value is in the variable's domain and is not marked
+     */
+    public boolean isDomainUnmarked(CycVariable cycVariable, Object value) {
+        HashMap domainValueMarks = (HashMap) domains.get(cycVariable);
+        return domainValueMarks.containsKey(value) &&
+               (domainValueMarks.get(value) == null);
+    }
+
     /**
      * Returns <tt>true</tt> iff the variable / value combination is marked
      * with a given level number.
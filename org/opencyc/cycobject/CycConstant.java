@@ -387,7 +387,7 @@ public class CycConstant extends CycFort implements Comparable, Serializable {
   //// serialization implementation
   private void writeObject(ObjectOutputStream stream) throws java.io.IOException {
     stream.defaultWriteObject();
-    stream.writeUTF( guid.guidString);
+    stream.writeUTF( guid.toString());
     stream.writeUTF( name);
   }
    
@@ -4,6 +4,8 @@ import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.io.StringWriter;
+import java.io.Writer;
 import java.lang.reflect.Method;
 import java.net.UnknownHostException;
 import java.util.ArrayList;
@@ -1103,23 +1105,30 @@ public class CycList extends ArrayList implements CycObject, List, Serializable
    *
    */
   public String cyclifyWithEscapeChars() {
-    final StringBuffer result = new StringBuffer("(");
-    String cyclifiedObject = null;
-    for(int i = 0; i < super.size(); i++) {
-      final Object object = this.get(i);
-      cyclifiedObject = DefaultCycObject.cyclifyWithEscapeChars(object);
-      if (i > 0)
-        result.append(" ");
-      result.append(cyclifiedObject);
+    final StringWriter result = new StringWriter();
+    try {
+      cyclifyWithEscapeChars(result);
     }
-    if(!isProperList) {
-      result.append(" . ");
-      result.append(DefaultCycObject.cyclifyWithEscapeChars(dottedElement));
+    catch (IOException e) {
+      throw new RuntimeException(e.getMessage());
     }
-    result.append(")");
     return result.toString();
   }
   
+  /**
+   * Writes a cyclified string representation of the OpenCyc <tt>CycList</tt> to the given
+   * writer.  Embedded constants are prefixed with ""#$".  Embedded quote and backslash
+   * chars in strings are escaped.  The names of all the constants in the tree are obtained
+   * beforehand in one api request, and the tree is then written in a single pass.
+   *
+   * @param writer the given writer
+   * @throws IOException if the writer cannot be written
+   */
+  public void cyclifyWithEscapeChars(final Writer writer) throws IOException {
+    obtainTreeConstantNames();
+    writeCyclified(writer, true);
+  }
+  
   /**
    * Returns a cyclified string representation of the OpenCyc <tt>CycList</tt>.
    * Embedded constants are prefixed with ""#$".
@@ -1128,31 +1137,101 @@ public class CycList extends ArrayList implements CycObject, List, Serializable
    *
    */
   public String cyclify() {
+    final StringWriter result = new StringWriter();
+    try {
+      cyclify(result);
+    }
+    catch (IOException e) {
+      throw new RuntimeException(e.getMessage());
+    }
+    return result.toString();
+  }
+  
+  /**
+   * Writes a cyclified string representation of the OpenCyc <tt>CycList</tt> to the given
+   * writer.  Embedded constants are prefixed with ""#$".  The names of all the constants in
+   * the tree are obtained beforehand in one api request, and the tree is then written in a
+   * single pass.
+   *
+   * @param writer the given writer
+   * @throws IOException if the writer cannot be written
+   */
+  public void cyclify(final Writer writer) throws IOException {
+    obtainTreeConstantNames();
+    writeCyclified(writer, false);
+  }
+  
+  /**
+   * Obtains the names of all the constants in the tree in one api request, when there is a
+   * current CycAccess.
+   */
+  protected void obtainTreeConstantNames() {
     if (CycAccess.hasCurrent())
-      // efficiently get all the required constant names beforehand
       try {
         CycAccess.current().obtainConstantNames(treeConstants());
       }
       catch (Exception e) {
         throw new CycApiException(e);
       }
-    
-    final StringBuffer result = new StringBuffer("(");
-    String cyclifiedObject = null;
+  }
+  
+  /**
+   * Writes a cyclified string representation of this <tt>CycList</tt> to the given writer,
+   * without obtaining constant names.
+   *
+   * @param writer the given writer
+   * @param withEscapeChars when true, quote and backslash chars in strings are escaped
+   * @throws IOException if the writer cannot be written
+   */
+  protected void writeCyclified(final Writer writer, final boolean withEscapeChars)
+  throws IOException {
+    writer.write('(');
     for(int i = 0; i < super.size(); i++) {
-      Object object = this.get(i);
-      if(object == null)
-        throw new RuntimeException("Invalid null element after " + result);      
+      final Object object = this.get(i);
+      if(object == null && ! withEscapeChars)
+        throw new RuntimeException("Invalid null element at " + i + " in " + safeToString());
       if (i > 0)
-        result.append(" ");
-      result.append(DefaultCycObject.cyclify(object));
+        writer.write(' ');
+      writeCyclified(object, writer, withEscapeChars);
     }
     if(!isProperList) {
-      result.append(" . ");
-      result.append(DefaultCycObject.cyclify(dottedElement));
+      writer.write(" . ");
+      writeCyclified(dottedElement, writer, withEscapeChars);
     }
-    result.append(")");
-    return result.toString();
+    writer.write(')');
+  }
+  
+  /**
+   * Writes a cyclified string representation of the given object to the given writer,
+   * without obtaining constant names.  Lists and the formulas of narts are written in the
+   * same pass, and other objects are written by <tt>DefaultCycObject</tt>.
+   *
+   * @param object the given object
+   * @param writer the given writer
+   * @param withEscapeChars when true, quote and backslash chars in strings are escaped
+   * @throws IOException if the writer cannot be written
+   */
+  protected static void writeCyclified(final Object object,
+                                       final Writer writer,
+                                       final boolean withEscapeChars)
+  throws IOException {
+    if (object instanceof CycList)
+      ((CycList) object).writeCyclified(writer, withEscapeChars);
+    else if (object instanceof CycNart) {
+      final CycNart cycNart = (CycNart) object;
+      writer.write('(');
+      writeCyclified(cycNart.getFunctor(), writer, withEscapeChars);
+      final Iterator iter = cycNart.getArguments().iterator();
+      while (iter.hasNext()) {
+        writer.write(' ');
+        writeCyclified(iter.next(), writer, withEscapeChars);
+      }
+      writer.write(')');
+    }
+    else if (withEscapeChars)
+      writer.write(DefaultCycObject.cyclifyWithEscapeChars(object));
+    else
+      writer.write(DefaultCycObject.cyclify(object));
   }
   
   public HashMap getPrettyStringDetails() {
@@ -1217,31 +1296,77 @@ public class CycList extends ArrayList implements CycObject, List, Serializable
    * @return this object in a form suitable for use as an <tt>String</tt> api expression value
    */
   public String stringApiValue() {
-    final StringBuffer result = new StringBuffer(300);
+    final StringWriter result = new StringWriter(300);
+    try {
+      stringApiValue(result);
+    }
+    catch (IOException e) {
+      throw new RuntimeException(e.getMessage());
+    }
+    return result.toString();
+  }
+
+  /**
+   * Writes this object to the given writer in a form suitable for use as an <tt>String</tt>
+   * api expression value.  The names of all the constants in the tree are obtained beforehand
+   * in one api request, and the tree is then written in a single pass.
+   *
+   * @param writer the given writer
+   * @throws IOException if the writer cannot be written
+   */
+  public void stringApiValue(final Writer writer) throws IOException {
+    obtainTreeConstantNames();
+    writeStringApiValue(writer);
+  }
+
+  /**
+   * Writes this object to the given writer in a form suitable for use as an <tt>String</tt>
+   * api expression value, without obtaining constant names.
+   *
+   * @param writer the given writer
+   * @throws IOException if the writer cannot be written
+   */
+  protected void writeStringApiValue(final Writer writer) throws IOException {
     if (isProperList()) {
-      result.append("(list");
-      final String cyclifiedObject = null;
+      writer.write("(list");
       for(int i = 0; i < this.size(); i++) {
-        final Object object = this.get(i);
-        result.append(" ");
-        result.append(DefaultCycObject.stringApiValue(object));
+        writer.write(' ');
+        writeStringApiValue(this.get(i), writer);
       }
     } else {
-      result.append("(list*"); // note the asterisk, which results in a dotted list
-      final String cyclifiedObject = null;
+      writer.write("(list*"); // note the asterisk, which results in a dotted list
       for(int i = 0; i < super.size(); i++) {
-        final Object object = this.get(i);
-        result.append(" ");
-        result.append(DefaultCycObject.stringApiValue(object));
+        writer.write(' ');
+        writeStringApiValue(this.get(i), writer);
       }
-      result.append(" ");
+      writer.write(' ');
       if(dottedElement == null)
-        result.append(new CycSymbol("NIL").stringApiValue());
+        writer.write(new CycSymbol("NIL").stringApiValue());
       else
-        result.append(DefaultCycObject.stringApiValue(dottedElement));
+        writeStringApiValue(dottedElement, writer);
     }
-    result.append(")");
-    return result.toString();
+    writer.write(')');
+  }
+
+  /**
+   * Writes the given object to the given writer in a form suitable for use as an
+   * <tt>String</tt> api expression value, without obtaining constant names.
+   *
+   * @param object the given object
+   * @param writer the given writer
+   * @throws IOException if the writer cannot be written
+   */
+  protected static void writeStringApiValue(final Object object, final Writer writer)
+  throws IOException {
+    if (object instanceof CycList)
+      ((CycList) object).writeStringApiValue(writer);
+    else if (object instanceof CycNart) {
+      writer.write("(canonicalize-term '");
+      writeCyclified(object, writer, true);
+      writer.write(')');
+    }
+    else
+      writer.write(DefaultCycObject.stringApiValue(object));
   }
 
   /**
@@ -7,6 +7,7 @@
 package org.opencyc.cycobject;
 
 import java.io.IOException;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -112,6 +113,22 @@ public abstract class DefaultCycObject implements CycObject {
     return obj.toString(); 
   }
   
+    /**
+     * Writes a cyclified string representation of the given <tt>Object</tt> to the given
+     * writer.  Embedded constants are prefixed with "#$".  A <tt>CycList</tt> is written in
+     * a single pass, after obtaining the names of all its constants in one api request.
+     *
+     * @param obj the given object
+     * @param writer the given writer
+     * @throws IOException if the writer cannot be written
+     */
+  public static void cyclify(Object obj, Writer writer) throws IOException {
+    if (obj instanceof CycList)
+      ((CycList)obj).cyclify(writer);
+    else
+      writer.write(cyclify(obj));
+  }
+  
   public static List getReferencedConstants(Object obj) {
     if (obj == null) { return new ArrayList(); }
     if ((obj == null) || (!isCycLObject(obj))) {      
@@ -140,6 +157,22 @@ public abstract class DefaultCycObject implements CycObject {
     return cyclifyWithEscapeChars(obj);
   }
   
+  /**
+   * Writes the given <tt>Object</tt> to the given writer in a form suitable for use as a
+   * <tt>String</tt> api expression value.  A <tt>CycList</tt> is written in a single pass,
+   * after obtaining the names of all its constants in one api request.
+   *
+   * @param obj the given object
+   * @param writer the given writer
+   * @throws IOException if the writer cannot be written
+   */
+  public static void stringApiValue(Object obj, Writer writer) throws IOException {
+    if (obj instanceof CycList)
+      ((CycList)obj).stringApiValue(writer);
+    else
+      writer.write(stringApiValue(obj));
+  }
+  
   /**
    * Returns true iff the given object is an object than can be contained
    * in a CycL expression.
@@ -39,15 +39,194 @@ public class Guid implements Serializable {
     public static final String guidXMLTag = "guid";
 
     /**
-     * The GUID in string form.
+     * The length of a GUID in its standard string form.
      */
-    public String guidString;
+    public static final int GUID_STRING_LENGTH = 36;
+
+    /**
+     * The lowercase hexadecimal digits.
+     */
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    /**
+     * The most significant 64 bits of the GUID.
+     */
+    protected long mostSignificantBits;
+
+    /**
+     * The least significant 64 bits of the GUID.
+     */
+    protected long leastSignificantBits;
+
+    /**
+     * Indicates whether the GUID is held as its 128 bits, otherwise it is held only as a string
+     * which is not in the standard 8-4-4-4-12 hexadecimal form.
+     */
+    protected boolean isParsed;
+
+    /**
+     * The GUID in string form, formatted when first needed.
+     */
+    protected String guidString;
 
     /**
      * Constructs a new <tt>Guid</tt> object.
      */
     public Guid (String guidString) {
-        this.guidString = guidString;
+        if (parse(guidString, null, guidString.length())) {
+            // keep a string which would not be reproduced by formatting the bits
+            for (int i = 0; i < GUID_STRING_LENGTH; i++) {
+                char ch = guidString.charAt(i);
+                if (ch >= 'A' && ch <= 'F') {
+                    this.guidString = guidString;
+                    break;
+                }
+            }
+        }
+        else
+            this.guidString = guidString;
+    }
+
+    /**
+     * Constructs a new <tt>Guid</tt> object from its 128 bits.
+     *
+     * @param mostSignificantBits the most significant 64 bits of the GUID
+     * @param leastSignificantBits the least significant 64 bits of the GUID
+     */
+    public Guid (long mostSignificantBits, long leastSignificantBits) {
+        this.mostSignificantBits = mostSignificantBits;
+        this.leastSignificantBits = leastSignificantBits;
+        isParsed = true;
+    }
+
+    /**
+     * Constructs a new <tt>Guid</tt> object from the given bytes of its standard string form.
+     *
+     * @param bytes the given bytes
+     * @param length the number of bytes
+     */
+    private Guid (byte[] bytes, int length) {
+        parse(null, bytes, length);
+    }
+
+    /**
+     * Returns a new <tt>Guid</tt> parsed from the given ascii bytes without creating an
+     * intermediate string, or null if the bytes are not a GUID in standard string form.
+     *
+     * @param bytes the given ascii bytes
+     * @param length the number of bytes
+     * @return the new <tt>Guid</tt>, or null if the bytes are not a GUID in standard string form
+     */
+    public static Guid parseGuid (byte[] bytes, int length) {
+        Guid guid = new Guid(bytes, length);
+        if (guid.isParsed)
+            return guid;
+        else
+            return null;
+    }
+
+    /**
+     * Sets the 128 bits from the given characters or bytes of the standard string form of a
+     * GUID, leaving this object unparsed if they are not in that form.
+     *
+     * @param chars the given characters, or null when parsing bytes
+     * @param bytes the given bytes, or null when parsing characters
+     * @param length the number of characters or bytes
+     * @return true if the standard string form was parsed
+     */
+    private boolean parse (CharSequence chars, byte[] bytes, int length) {
+        if (length != GUID_STRING_LENGTH)
+            return false;
+        long mostSignificantBits = 0;
+        long leastSignificantBits = 0;
+        int nbrDigits = 0;
+        for (int i = 0; i < GUID_STRING_LENGTH; i++) {
+            int ch = (chars == null) ? bytes[i] : chars.charAt(i);
+            if (i == 8 || i == 13 || i == 18 || i == 23) {
+                if (ch != '-')
+                    return false;
+                continue;
+            }
+            int digit;
+            if (ch >= '0' && ch <= '9')
+                digit = ch - '0';
+            else if (ch >= 'a' && ch <= 'f')
+                digit = ch - 'a' + 10;
+            else if (ch >= 'A' && ch <= 'F')
+                digit = ch - 'A' + 10;
+            else
+                return false;
+            if (nbrDigits++ < 16)
+                mostSignificantBits = (mostSignificantBits << 4) | digit;
+            else
+                leastSignificantBits = (leastSignificantBits << 4) | digit;
+        }
+        this.mostSignificantBits = mostSignificantBits;
+        this.leastSignificantBits = leastSignificantBits;
+        isParsed = true;
+        return true;
+    }
+
+    /**
+     * Returns the most significant 64 bits of the GUID.
+     *
+     * @return the most significant 64 bits of the GUID
+     */
+    public long getMostSignificantBits () {
+        return mostSignificantBits;
+    }
+
+    /**
+     * Returns the least significant 64 bits of the GUID.
+     *
+     * @return the least significant 64 bits of the GUID
+     */
+    public long getLeastSignificantBits () {
+        return leastSignificantBits;
+    }
+
+    /**
+     * Returns true if the GUID is held as its 128 bits, otherwise it is held only as a string
+     * which is not in the standard form.
+     *
+     * @return true if the GUID is held as its 128 bits
+     */
+    public boolean isParsed () {
+        return isParsed;
+    }
+
+    /**
+     * Writes the string form of the GUID, as returned by <tt>toString</tt>, as ascii bytes into
+     * the given buffer, without creating an intermediate string.  A GUID parsed from a string
+     * keeps the case of that string.
+     *
+     * @param bytes the given buffer, which must have room for GUID_STRING_LENGTH bytes
+     * @param offset the offset at which the bytes are written
+     * @return false if the GUID is not held as its 128 bits, in which case nothing is written
+     */
+    public boolean writeBytes (byte[] bytes, int offset) {
+        if (! isParsed)
+            return false;
+        if (guidString != null) {
+            for (int i = 0; i < GUID_STRING_LENGTH; i++)
+                bytes[offset + i] = (byte) guidString.charAt(i);
+            return true;
+        }
+        int nbrDigits = 0;
+        for (int i = 0; i < GUID_STRING_LENGTH; i++) {
+            if (i == 8 || i == 13 || i == 18 || i == 23) {
+                bytes[offset + i] = '-';
+                continue;
+            }
+            int digit;
+            if (nbrDigits < 16)
+                digit = (int) (mostSignificantBits >>> (60 - 4 * nbrDigits)) & 0xF;
+            else
+                digit = (int) (leastSignificantBits >>> (60 - 4 * (nbrDigits - 16))) & 0xF;
+            nbrDigits++;
+            bytes[offset + i] = (byte) HEX_DIGITS[digit];
+        }
+        return true;
     }
 
     /**
@@ -56,10 +235,16 @@ public class Guid implements Serializable {
      * @return <tt>boolean</tt> indicating equality of an object with this object.
      */
     public boolean equals(Object object) {
-        if (object instanceof Guid &&
-            this.guidString.equals(((Guid) object).guidString)) {
+        if (object == this)
             return true;
-        }
+        if (! (object instanceof Guid))
+            return false;
+        Guid that = (Guid) object;
+        if (this.isParsed && that.isParsed)
+            return this.mostSignificantBits == that.mostSignificantBits &&
+                   this.leastSignificantBits == that.leastSignificantBits;
+        else if (! this.isParsed && ! that.isParsed)
+            return this.guidString.equals(that.guidString);
         else
             return false;
     }
@@ -69,8 +254,11 @@ public class Guid implements Serializable {
      *
      * @return the hash code for this object
      */
-    public int hashcode () {
-        return guidString.hashCode();
+    public int hashCode () {
+        if (! isParsed)
+            return guidString.hashCode();
+        long bits = mostSignificantBits ^ leastSignificantBits;
+        return (int) (bits ^ (bits >>> 32));
     }
     
     /**
@@ -79,6 +267,14 @@ public class Guid implements Serializable {
      * @return the <tt>Guid</tt> formated as a <tt>String</tt>.
      */
     public String toString() {
+        if (guidString == null) {
+            byte[] bytes = new byte[GUID_STRING_LENGTH];
+            writeBytes(bytes, 0);
+            char[] chars = new char[GUID_STRING_LENGTH];
+            for (int i = 0; i < GUID_STRING_LENGTH; i++)
+                chars[i] = (char) bytes[i];
+            guidString = new String(chars);
+        }
         return guidString;
     }
 
@@ -103,7 +299,7 @@ public class Guid implements Serializable {
     public void toXML (XMLWriter xmlWriter, int indent, boolean relative)
         throws IOException {
         xmlWriter.printXMLStartTag(guidXMLTag, indent, relative, false);
-        xmlWriter.print(guidString);
+        xmlWriter.print(toString());
         xmlWriter.printXMLEndTag(guidXMLTag);
     }
 }
@@ -1,5 +1,8 @@
 package org.opencyc.cycobject;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Enumeration;
@@ -12,6 +15,7 @@ import junit.framework.TestCase;
 import junit.framework.TestSuite;
 import junit.textui.TestRunner;
 
+import org.opencyc.api.CfaslOutputStream;
 import org.opencyc.api.CycAccess;
 import org.opencyc.api.CycConnection;
 import org.opencyc.api.CycObjectFactory;
@@ -81,6 +85,7 @@ public class UnitTest extends TestCase {
     // testSuite.addTest(new UnitTest("testCycNart"));
     testSuite.addTest(new UnitTest("testStreamTokenizer"));
     testSuite.addTest(new UnitTest("testCycList"));
+    testSuite.addTest(new UnitTest("testCycListWriter"));
     testSuite.addTest(new UnitTest("testCycListVisitor"));
     testSuite.addTest(new UnitTest("testUnicodeString"));  
     return testSuite;
@@ -111,6 +116,42 @@ public class UnitTest extends TestCase {
     Guid guid3 = CycObjectFactory.makeGuid(guidString);
     Assert.assertEquals(guid, guid3);
     Assert.assertEquals(1, CycObjectFactory.getGuidCacheSize());
+
+    // 128 bit representation
+    Guid guid4 = new Guid(guidString);
+    Assert.assertTrue(guid4.isParsed());
+    Assert.assertEquals(guid, guid4);
+    Assert.assertEquals(guid.hashCode(), guid4.hashCode());
+    Assert.assertEquals(0xbd58c19d9c2911b1L, guid4.getMostSignificantBits());
+    Assert.assertEquals(0x9dadc379636f7270L, guid4.getLeastSignificantBits());
+    Assert.assertEquals(guid4, new Guid(0xbd58c19d9c2911b1L, 0x9dadc379636f7270L));
+    Assert.assertEquals(guidString, new Guid(0xbd58c19d9c2911b1L, 0x9dadc379636f7270L).toString());
+    Guid upperCaseGuid = new Guid("BD58C19D-9C29-11B1-9DAD-C379636F7270");
+    Assert.assertEquals(guid, upperCaseGuid);
+    Assert.assertEquals("BD58C19D-9C29-11B1-9DAD-C379636F7270", upperCaseGuid.toString());
+    Guid nonstandardGuid = new Guid("not-a-guid");
+    Assert.assertTrue(! nonstandardGuid.isParsed());
+    Assert.assertEquals(new Guid("not-a-guid"), nonstandardGuid);
+    Assert.assertEquals("not-a-guid", nonstandardGuid.toString());
+    Assert.assertTrue(! guid.equals(nonstandardGuid));
+    byte[] guidBytes = guidString.getBytes();
+    Assert.assertTrue(guid == CycObjectFactory.makeGuid(guidBytes, guidBytes.length));
+    byte[] formattedBytes = new byte[Guid.GUID_STRING_LENGTH];
+    Assert.assertTrue(guid.writeBytes(formattedBytes, 0));
+    Assert.assertEquals(guidString, new String(formattedBytes));
+    Assert.assertTrue(upperCaseGuid.writeBytes(formattedBytes, 0));
+    Assert.assertEquals("BD58C19D-9C29-11B1-9DAD-C379636F7270", new String(formattedBytes));
+    try {
+      ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+      CfaslOutputStream cfaslOutputStream = new CfaslOutputStream(byteArrayOutputStream);
+      cfaslOutputStream.writeGuid(upperCaseGuid);
+      cfaslOutputStream.flush();
+      String written = new String(byteArrayOutputStream.toByteArray(), "US-ASCII");
+      Assert.assertTrue(written.endsWith("BD58C19D-9C29-11B1-9DAD-C379636F7270"));
+    }
+    catch (IOException e) {
+      Assert.fail(e.getMessage());
+    }
     
     // toXML, toXMLString, unmarshall
     XMLStringWriter xmlStringWriter = new XMLStringWriter();
@@ -1281,6 +1322,61 @@ public class UnitTest extends TestCase {
     System.out.println("*** testCycList OK ***");
   }
   
+  /**
+   * Tests the writing of <tt>CycList</tt> objects to a <tt>Writer</tt>, which must give the
+   * same forms as the <tt>String</tt> methods.  No Cyc server is needed.
+   */
+  public void testCycListWriter() {
+    System.out.println("\n*** testCycListWriter ***");
+    CycConstant isa = 
+      new CycConstant("isa", CycObjectFactory.makeGuid("bd588104-9c29-11b1-9dad-c379636f7270"));
+    CycConstant dog = 
+      new CycConstant("Dog", CycObjectFactory.makeGuid("bd58daa0-9c29-11b1-9dad-c379636f7270"));
+    CycList cycList = new CycList();
+    cycList.add(CycObjectFactory.makeCycSymbol("foo"));
+    cycList.add(CycList.makeCycList(isa, CycObjectFactory.makeCycVariable("?X"), dog));
+    cycList.add("a \"quoted\" \\ string");
+    cycList.add(new Integer(42));
+    cycList.add(new Double(1.5));
+    cycList.add(CycObjectFactory.makeCycSymbol(":keyword"));
+    cycList.add(CycObjectFactory.nil);
+    cycList.add(new CycList());
+    CycList dottedList = CycList.makeCycList(dog);
+    dottedList.setDottedElement(isa);
+    cycList.add(dottedList);
+    try {
+      StringWriter writer = new StringWriter();
+      cycList.cyclify(writer);
+      Assert.assertEquals("(FOO (#$isa ?X #$Dog) \"a \"quoted\" \\ string\" 42 1.5 :KEYWORD NIL () (#$Dog . #$isa))",
+                          writer.toString());
+      Assert.assertEquals(cycList.cyclify(), writer.toString());
+      
+      writer = new StringWriter();
+      cycList.cyclifyWithEscapeChars(writer);
+      Assert.assertEquals("(FOO (#$isa ?X #$Dog) \"a \\\"quoted\\\" \\\\ string\" 42 1.5 :KEYWORD NIL () (#$Dog . #$isa))",
+                          writer.toString());
+      Assert.assertEquals(cycList.cyclifyWithEscapeChars(), writer.toString());
+      
+      writer = new StringWriter();
+      cycList.stringApiValue(writer);
+      Assert.assertEquals("(list (QUOTE FOO) (list #$isa '?X #$Dog) \"a \\\"quoted\\\" \\\\ string\" 42 1.5 " +
+                          ":KEYWORD NIL (list) (list* #$Dog #$isa))",
+                          writer.toString());
+      Assert.assertEquals(cycList.stringApiValue(), writer.toString());
+      
+      // Writing appends to what the writer already holds.
+      writer = new StringWriter();
+      writer.write("(progn ");
+      dottedList.cyclify(writer);
+      writer.write(")");
+      Assert.assertEquals("(progn (#$Dog . #$isa))", writer.toString());
+    }
+    catch (IOException e) {
+      Assert.fail(e.getMessage());
+    }
+    System.out.println("*** testCycListWriter OK ***");
+  }
+  
   /**
    * Tests <tt>CycListVisitor</tt> object behavior.
    */
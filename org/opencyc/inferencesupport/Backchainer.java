@@ -2,7 +2,6 @@ package org.opencyc.inferencesupport;
 
 import java.util.*;
 import java.io.*;
-import org.apache.oro.util.*;
 import org.opencyc.cycobject.*;
 import org.opencyc.api.*;
 import org.opencyc.constraintsolver.*;
@@ -85,10 +84,33 @@ public class Backchainer {
     protected boolean sbhlBackchain = false;
 
     /**
-     * Least Recently Used Cache of implication rule sets concluding a predicate, so that a reference to an
-     * existing implication rule set concluding a predicate is returned instead of gathering a duplicate.
+     * The maximum number of implication rule sets held in the cache.
      */
-    protected static Cache implicationRuleSetCache = new CacheLRU(100);
+    public static final int IMPLICATION_RULE_SET_CACHE_SIZE =
+        Integer.getInteger("org.opencyc.inferencesupport.ruleCacheSize", 500).intValue();
+
+    /**
+     * Least Recently Used Cache of implication rule sets concluding a predicate,
+     * (predicate arity [mt]) --> <tt>HornClauseIndex</tt>, so that the rules are gathered from the
+     * KB and indexed once rather than for each literal.  Access is synchronized so that concurrent
+     * queries may share the cache.
+     */
+    protected static Map implicationRuleSetCache = makeImplicationRuleSetCache();
+
+    /**
+     * The solutions of the subgoals backchained upon from the same input query,
+     * (subgoal depth) --> list of solutions.  The table is shared with the backchainers of the nested
+     * queries, so that a repeated subgoal is solved once for each backchain depth, the solutions
+     * found depending upon the remaining depth.
+     */
+    protected Map subgoalTable = Collections.synchronizedMap(new HashMap());
+
+    /**
+     * The subgoals whose solutions are being sought.  The set is shared with the backchainers of the
+     * nested queries, so that a subgoal which recurs at any depth while its solutions are sought
+     * fails instead of being backchained upon again.
+     */
+    protected Set subgoalsInProgress = Collections.synchronizedSet(new HashSet());
 
     /**
      * Constructs a new <tt>Backchainer</tt> object given the parent <tt>ConstraintProblem</tt>
@@ -113,23 +135,63 @@ public class Backchainer {
     public ArrayList backchain(Literal literal, ArrayList variables, CycFort mt) throws IOException {
         this.variables = variables;
         this.mt = mt;
-        ArrayList values = new ArrayList();
-        CycVariable variable = (CycVariable) literal.getVariables().get(0);
+        String subgoal = getSubgoal(literal, mt);
+        String tabledSubgoal = subgoal + " " + backchainDepth;
+        ArrayList tabledSolutions = (ArrayList) subgoalTable.get(tabledSubgoal);
+        if (tabledSolutions != null) {
+            if (verbosity > 1)
+                System.out.println("Reusing solutions at depth " + backchainDepth + " for\n  " + literal);
+            return new ArrayList(tabledSolutions);
+        }
+        if (! subgoalsInProgress.add(subgoal)) {
+            if (verbosity > 1)
+                System.out.println("Recursive subgoal at depth " + backchainDepth + " fails\n  " + literal);
+            return new ArrayList();
+        }
         if (verbosity > 1)
             System.out.println("Backchaining at depth " + backchainDepth + " on\n  " + literal);
-        // Reuse the existing CycAccess object.
-        QueryProcessor queryProcessor =
-            new QueryProcessor(CycAccess.current());
-        queryProcessor.setVerbosity(verbosity);
-        //queryProcessor.setVerbosity(9);
-        // Request all solutions.
-        queryProcessor.nbrSolutionsRequested = null;
-        queryProcessor.mt = mt;
-        // Keep the same limit on maximum backchain depth
-        queryProcessor.setMaxBackchainDepth(this.maxBackchainDepth);
-        // Increment the depth of backchaining.
-        queryProcessor.setBackchainDepth(this.backchainDepth + 1);
-        return queryProcessor.ask(literal.formula);
+        ArrayList solutions = null;
+        try {
+            // Reuse the existing CycAccess object.
+            QueryProcessor queryProcessor =
+                new QueryProcessor(CycAccess.current());
+            queryProcessor.setVerbosity(verbosity);
+            //queryProcessor.setVerbosity(9);
+            // Request all solutions.
+            queryProcessor.nbrSolutionsRequested = null;
+            queryProcessor.mt = mt;
+            // Keep the same limit on maximum backchain depth
+            queryProcessor.setMaxBackchainDepth(this.maxBackchainDepth);
+            // Increment the depth of backchaining.
+            queryProcessor.setBackchainDepth(this.backchainDepth + 1);
+            // Share the solved subgoals and those being solved.
+            queryProcessor.getBackchainer().subgoalTable = subgoalTable;
+            queryProcessor.getBackchainer().subgoalsInProgress = subgoalsInProgress;
+            solutions = queryProcessor.ask(literal.formula);
+        }
+        finally {
+            subgoalsInProgress.remove(subgoal);
+            if (solutions != null)
+                subgoalTable.put(tabledSubgoal, new ArrayList(solutions));
+        }
+        return solutions;
+    }
+
+    /**
+     * Returns the subgoal which identifies the given literal in the given microtheory.  The
+     * variables are numbered in the order of their first occurrence, so that the literals of
+     * renamed rule antecedants which differ only in their variable names are the same subgoal.
+     *
+     * @param literal the given literal
+     * @param mt the given microtheory, or null
+     * @return the subgoal which identifies the given literal in the given microtheory
+     */
+    protected String getSubgoal(Literal literal, CycFort mt) {
+        CycList formula = literal.getFormula();
+        ArrayList literalVariables = literal.getVariables();
+        for (int i = 0; i < literalVariables.size(); i++)
+            formula = formula.subst(new CycVariable("?<" + i + ">"), literalVariables.get(i));
+        return formula.cyclify() + (mt == null ? "" : " " + mt.cyclify());
     }
 
     /**
@@ -149,7 +211,9 @@ public class Backchainer {
     }
 
     /**
-     * Returns the sets of conjunctive antecentant rules which can prove the given rule.
+     * Returns the sets of conjunctive antecentant rules which can prove the given rule.  Only the
+     * candidate horn clauses from the index of the implication rules concluding the literal's
+     * predicate are unified with the literal.
      *
      * @param rule a rule is to be proven via backchaining
      * @return the sets of conjunctive antecentant rules which can prove the given rule
@@ -158,14 +222,14 @@ public class Backchainer {
         ArrayList result = new ArrayList();
         if (verbosity > 3)
             System.out.println("getting rules to conclude\n" + literal);
-        ArrayList candidateImplicationRules = gatherImplicationRulesConcluding(literal);
+        HornClauseIndex hornClauseIndex = getImplicationRuleSet(literal);
+        ArrayList candidateHornClauses = hornClauseIndex.getCandidateHornClauses(literal);
         int nbrAcceptedRules = 0;
-        int nbrCandidateRules = candidateImplicationRules.size();
+        int nbrCandidateRules = candidateHornClauses.size();
         for (int i = 0; i < nbrCandidateRules; i++) {
-            CycList candidateImplicationRule = (CycList) candidateImplicationRules.get(i);
+            HornClause hornClause = (HornClause) candidateHornClauses.get(i);
             if (verbosity > 4)
-                System.out.println("\nConsidering implication rule\n" + candidateImplicationRule.cyclify());
-            HornClause hornClause = new HornClause(candidateImplicationRule);
+                System.out.println("\nConsidering implication rule\n" + hornClause);
             ArrayList antecedants = unifier.semanticallyUnify(literal, hornClause);
             if (antecedants != null) {
                 if (verbosity > 4)
@@ -185,26 +249,58 @@ public class Backchainer {
             for (int i = 0; i < result.size(); i++)
                 System.out.println("  " + ((Literal) result.get(i)).cyclify());
             System.out.println("Accepted " + nbrAcceptedRules + " backchain rules from " +
-                               nbrCandidateRules + " candidates");
+                               nbrCandidateRules + " candidates of " + hornClauseIndex.size() + " rules");
         }
         return result;
     }
 
     /**
-     * Gathers the implication rules which conclude the given rule.
+     * Gathers the implication rules which may conclude the given rule, being those concluding its
+     * predicate.
      *
      * @param literal the literal to be proven via backchaining
-     * @return the list of implication rules as <tt>CycList</tt> formulae which conclude the given rule
+     * @return the list of implication rules as <tt>CycList</tt> formulae which may conclude the given rule
      */
     public ArrayList gatherImplicationRulesConcluding(Literal literal) throws IOException {
-        ArrayList result = new ArrayList();
+        return getImplicationRuleSet(literal).getRules();
+    }
+
+    /**
+     * Returns the index of the implication rules concluding the predicate of the given literal,
+     * from the cache if present, otherwise gathering them from the KB and caching them.
+     *
+     * @param literal the literal to be proven via backchaining
+     * @return the index of the implication rules concluding the predicate of the given literal
+     */
+    public HornClauseIndex getImplicationRuleSet(Literal literal) throws IOException {
         CycConstant predicate = literal.getPredicate();
         if (! this.sbhlBackchain &&
             (predicate.equals(CycAccess.isa) || predicate.equals(CycAccess.genls))) {
             if (verbosity > 3)
                 System.out.println("backchain inference bypassed for predicate " + predicate);
-            return result;
+            return new HornClauseIndex();
+        }
+        int arity = literal.getArguments().size();
+        HornClauseIndex hornClauseIndex = getCache(predicate, arity, mt);
+        if (hornClauseIndex == null) {
+            hornClauseIndex = gatherImplicationRuleSet(predicate, arity);
+            addCache(predicate, arity, mt, hornClauseIndex);
         }
+        else if (verbosity > 3)
+            System.out.println("cached " + hornClauseIndex + " for predicate " + predicate);
+        return hornClauseIndex;
+    }
+
+    /**
+     * Gathers from the KB the implication rules which conclude the given predicate, with the
+     * given number of arguments, and indexes them.
+     *
+     * @param predicate the predicate
+     * @param arity the number of arguments
+     * @return the index of the implication rules concluding the given predicate
+     */
+    protected HornClauseIndex gatherImplicationRuleSet(CycConstant predicate, int arity) throws IOException {
+        HornClauseIndex result = new HornClauseIndex();
         if (CycAccess.current().isBackchainForbidden(predicate, mt)) {
             if (verbosity > 3)
                 System.out.println("backchain inference forbidden for predicate " + predicate);
@@ -220,10 +316,13 @@ public class Backchainer {
                 System.out.println("backchain inference bypassed for evaluatable predicate " + predicate);
             return result;
         }
+        // A formula having only variable arguments unifies with the consequent of every rule.
+        CycList formula = new CycList();
+        formula.add(predicate);
+        for (int i = 1; i <= arity; i++)
+            formula.add(CycObjectFactory.makeCycVariable("?ARG" + i));
         CycList backchainImplicationRules =
-            CycAccess.current().getBackchainImplicationRules(literal.getPredicate(),
-                                                             literal.getFormula(),
-                                                             mt);
+            CycAccess.current().getBackchainImplicationRules(predicate, formula, mt);
         for (int i = 0; i < backchainImplicationRules.size(); i++) {
             CycList cycListRule = (CycList) backchainImplicationRules.get(i);
             if (HornClause.isValidHornExpression(cycListRule))
@@ -234,9 +333,7 @@ public class Backchainer {
             }
         }
         CycList forwardChainImplicationRules =
-            CycAccess.current().getForwardChainRules(literal.getPredicate(),
-                                                     literal.getFormula(),
-                                                     mt);
+            CycAccess.current().getForwardChainRules(predicate, formula, mt);
         for (int i = 0; i < forwardChainImplicationRules.size(); i++) {
             CycList cycListRule = (CycList) forwardChainImplicationRules.get(i);
             if (HornClause.isValidHornExpression(cycListRule))
@@ -246,6 +343,8 @@ public class Backchainer {
                     System.out.println("dropped ill-formed (forward) rule " + cycListRule.cyclify());
             }
         }
+        if (verbosity > 3)
+            System.out.println("gathered " + result + " for predicate " + predicate);
         return result;
     }
 
@@ -271,21 +370,54 @@ public class Backchainer {
         unifier.setVerbosity(verbosity);
     }
 
+    /**
+     * Returns a new empty implication rule set cache, bounded to
+     * <tt>IMPLICATION_RULE_SET_CACHE_SIZE</tt> entries by evicting the least recently used.
+     *
+     * @return a new empty implication rule set cache
+     */
+    protected static Map makeImplicationRuleSetCache() {
+        return Collections.synchronizedMap(new LinkedHashMap(16, 0.75f, true) {
+            protected boolean removeEldestEntry(Map.Entry eldest) {
+                return size() > IMPLICATION_RULE_SET_CACHE_SIZE;
+            }
+        });
+    }
+
+    /**
+     * Returns the implication rule set cache key for the given predicate, arity and microtheory.
+     *
+     * @param predicate the predicate concluded by the implication rule set
+     * @param arity the number of arguments of the concluded literal
+     * @param mt the microtheory in which the implication rules were gathered
+     * @return the implication rule set cache key
+     */
+    protected static CycList makeCacheKey(CycConstant predicate, int arity, CycFort mt) {
+        CycList key = new CycList(3);
+        key.add(predicate);
+        key.add(new Integer(arity));
+        if (mt != null)
+            key.add(mt);
+        return key;
+    }
+
     /**
      * Resets the implication rule set cache.
      */
     public static void resetImplicationRuleSetCache() {
-        implicationRuleSetCache = new CacheLRU(500);
+        implicationRuleSetCache.clear();
     }
 
     /**
      * Adds the implication rule set to the cache for the given predicate
      *
      * @param predicate the predicate concluded by the implication rule set
-     * @param ruleSet the set of implication rules concluding the given predicate
+     * @param arity the number of arguments of the concluded literal
+     * @param mt the microtheory in which the implication rules were gathered
+     * @param ruleSet the index of the implication rules concluding the given predicate
      */
-    public static void addCache(CycConstant predicate, ArrayList ruleSet) {
-        implicationRuleSetCache.addElement(predicate, ruleSet);
+    public static void addCache(CycConstant predicate, int arity, CycFort mt, HornClauseIndex ruleSet) {
+        implicationRuleSetCache.put(makeCacheKey(predicate, arity, mt), ruleSet);
     }
 
     /**
@@ -293,20 +425,28 @@ public class Backchainer {
      * if not found in the cache.
      *
      * @param predicate the predicate concluded by the implication rule set
+     * @param arity the number of arguments of the concluded literal
+     * @param mt the microtheory in which the implication rules were gathered
      * @return the implication rule set from the cache for the given predicate, returning <tt>null</tt>
      * if not found in the cache
      */
-    public static ArrayList getCache(CycConstant predicate) {
-        return (ArrayList) implicationRuleSetCache.getElement(predicate);
+    public static HornClauseIndex getCache(CycConstant predicate, int arity, CycFort mt) {
+        return (HornClauseIndex) implicationRuleSetCache.get(makeCacheKey(predicate, arity, mt));
     }
 
     /**
-     * Removes the implication rule set from the cache for the given predicate if it is contained within.
+     * Removes the implication rule sets from the cache for the given predicate, in every microtheory,
+     * if contained within.
      */
     public static void removeCache(CycConstant predicate) {
-        Object element = implicationRuleSetCache.getElement(predicate);
-        if (element != null)
-            implicationRuleSetCache.addElement(predicate, null);
+        synchronized (implicationRuleSetCache) {
+            Iterator iter = implicationRuleSetCache.keySet().iterator();
+            while (iter.hasNext()) {
+                CycList key = (CycList) iter.next();
+                if (key.first().equals(predicate))
+                    iter.remove();
+            }
+        }
     }
 
     /**
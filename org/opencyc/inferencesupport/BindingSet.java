@@ -60,12 +60,28 @@ public class BindingSet implements Comparable {
      * @param mt the microtheory in which the variable bindings are obtained
      */
     public BindingSet(QueryLiteral queryLiteral, CycFort mt) throws IOException, CycApiException {
+        this(queryLiteral, mt, null);
+    }
+
+    /**
+     * Constructs a new <tt>BindingSet</tt> object with the given <tt>QueryLiteral</tt>, using the
+     * given <tt>CycAccess</tt> object to estimate the number of KB instances.
+     *
+     * @param queryLiteral the literal for which bindings are obtained
+     * @param mt the microtheory in which the variable bindings are obtained
+     * @param cycAccess the <tt>CycAccess</tt> object which provides the OpenCyc api, or
+     * <tt>null</tt> for the <tt>CycAccess</tt> object of the current thread
+     */
+    public BindingSet(QueryLiteral queryLiteral, CycFort mt, CycAccess cycAccess)
+        throws IOException, CycApiException {
         this.queryLiteral = queryLiteral;
         this.mt = mt;
         if (queryLiteral.nbrFormulaInstances == -1) {
+            if (cycAccess == null)
+                cycAccess = CycAccess.current();
             CycList formula;
-            if (queryLiteral.formula.first().equals(CycAccess.current().getKnownConstantByName("assertedSentence")) ||
-                queryLiteral.formula.first().equals(CycAccess.current().getKnownConstantByName("knownSentence")))
+            if (queryLiteral.formula.first().equals(cycAccess.getKnownConstantByName("assertedSentence")) ||
+                queryLiteral.formula.first().equals(cycAccess.getKnownConstantByName("knownSentence")))
                 formula = (CycList) queryLiteral.formula.second();
             else
                 formula = formula = queryLiteral.formula;
@@ -73,7 +89,7 @@ public class BindingSet implements Comparable {
                 queryLiteral.nbrFormulaInstances = Integer.MAX_VALUE;
             else
                 queryLiteral.nbrFormulaInstances =
-                    CycAccess.current().countUsingBestIndex(formula, mt);
+                    cycAccess.countUsingBestIndex(formula, mt);
         }
     }
 
@@ -0,0 +1,135 @@
+package org.opencyc.inferencesupport;
+
+import java.util.*;
+import org.opencyc.cycobject.*;
+
+/**
+ * <tt>HornClauseIndex</tt> object to hold the implication rules concluding a predicate in a
+ * microtheory, indexed by the first argument of their consequent.  A literal whose first
+ * argument is a term can only unify with a horn clause whose consequent has the same term
+ * or a variable as its first argument, and a literal whose first argument is a variable can
+ * only unify with a horn clause whose consequent has a variable there, so just those
+ * candidate horn clauses need be given to the <tt>Unifier</tt>.<p>
+ *
+ * @version $Id$
+ *
+ * <p>Copyright 2001 Cycorp, Inc., license is open source GNU LGPL.
+ * <p><a href="http://www.opencyc.org/license.txt">the license</a>
+ * <p><a href="http://www.opencyc.org">www.opencyc.org</a>
+ * <p><a href="http://www.sourceforge.net/projects/opencyc">OpenCyc at SourceForge</a>
+ * <p>
+ * THIS SOFTWARE AND KNOWLEDGE BASE CONTENT ARE PROVIDED ``AS IS'' AND
+ * ANY EXPRESSED OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE OPENCYC
+ * ORGANIZATION OR ITS CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE AND KNOWLEDGE
+ * BASE CONTENT, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * @see Backchainer#gatherImplicationRulesConcluding
+ */
+public class HornClauseIndex {
+
+    /**
+     * The implication rules as <tt>CycList</tt> formulae, in the order added.
+     */
+    protected ArrayList rules = new ArrayList();
+
+    /**
+     * The horn clauses, in the order added.
+     */
+    protected ArrayList hornClauses = new ArrayList();
+
+    /**
+     * The horn clauses whose consequent has a term as its first argument, term --> list of horn clauses.
+     */
+    protected HashMap termFirstArgumentHornClauses = new HashMap();
+
+    /**
+     * The horn clauses whose consequent has a variable, or no argument, as its first argument.
+     */
+    protected ArrayList variableFirstArgumentHornClauses = new ArrayList();
+
+    /**
+     * Constructs a new empty <tt>HornClauseIndex</tt> object.
+     */
+    public HornClauseIndex() {
+    }
+
+    /**
+     * Adds the given implication rule to the index.
+     *
+     * @param rule the implication rule as a valid horn expression
+     */
+    public void add(CycList rule) {
+        HornClause hornClause = new HornClause(rule);
+        rules.add(rule);
+        hornClauses.add(hornClause);
+        CycList consequentArguments = hornClause.getConsequent().getArguments();
+        if (consequentArguments.size() == 0 || consequentArguments.first() instanceof CycVariable)
+            variableFirstArgumentHornClauses.add(hornClause);
+        else {
+            Object term = consequentArguments.first();
+            ArrayList termHornClauses = (ArrayList) termFirstArgumentHornClauses.get(term);
+            if (termHornClauses == null) {
+                termHornClauses = new ArrayList(3);
+                termFirstArgumentHornClauses.put(term, termHornClauses);
+            }
+            termHornClauses.add(hornClause);
+        }
+    }
+
+    /**
+     * Returns the horn clauses which may unify with the given literal, in the order added.
+     *
+     * @param literal the literal to be proven via backchaining
+     * @return the horn clauses which may unify with the given literal
+     */
+    public ArrayList getCandidateHornClauses(Literal literal) {
+        CycList literalArguments = literal.getArguments();
+        if (literalArguments.size() == 0 || literalArguments.first() instanceof CycVariable)
+            return variableFirstArgumentHornClauses;
+        ArrayList termHornClauses = (ArrayList) termFirstArgumentHornClauses.get(literalArguments.first());
+        if (termHornClauses == null)
+            return variableFirstArgumentHornClauses;
+        if (variableFirstArgumentHornClauses.size() == 0)
+            return termHornClauses;
+        ArrayList candidates = new ArrayList(termHornClauses.size() + variableFirstArgumentHornClauses.size());
+        candidates.addAll(termHornClauses);
+        candidates.addAll(variableFirstArgumentHornClauses);
+        return candidates;
+    }
+
+    /**
+     * Returns the implication rules as <tt>CycList</tt> formulae, in the order added.
+     *
+     * @return the implication rules as <tt>CycList</tt> formulae
+     */
+    public ArrayList getRules() {
+        return rules;
+    }
+
+    /**
+     * Returns the number of implication rules in the index.
+     *
+     * @return the number of implication rules in the index
+     */
+    public int size() {
+        return rules.size();
+    }
+
+    /**
+     * Returns a <tt>String</tt> representation of the <tt>HornClauseIndex</tt> object.
+     *
+     * @return a <tt>String</tt> representation of the <tt>HornClauseIndex</tt> object
+     */
+    public String toString() {
+        return "horn clause index of " + rules.size() + " rules, " +
+            termFirstArgumentHornClauses.size() + " distinct first argument terms";
+    }
+}
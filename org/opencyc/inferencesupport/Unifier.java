@@ -79,6 +79,11 @@ public class Unifier {
                 " " + hornClause.getConsequent().getPredicate());
             return null;
         }
+        if (! mayUnify(literal, hornClause)) {
+            if (verbosity > 3)
+                System.out.println("arguments cannot unify");
+            return null;
+        }
         // Clone a new horn clause having no variables in common with those variable which
         // are already included in the constraint problem.
         HornClause unifiedHornClause = (HornClause) hornClause.clone();
@@ -147,6 +152,35 @@ public class Unifier {
             return unifiedHornClause.getAntecedantConjuncts();
     }
 
+    /**
+     * Returns <tt>false</tt> when the arguments of the given literal and horn clause consequent
+     * certainly cannot unify, which is checked before the horn clause is cloned and its variables
+     * renamed.  The argument counts must be equal, a literal variable requires a consequent variable,
+     * and respective terms must be equal.
+     *
+     * @param literal the literal which is the subject of the backchaining operation
+     * @param hornClause the horn clause whose consequent is to be unified with the literal
+     * @return <tt>false</tt> when the arguments certainly cannot unify
+     */
+    protected boolean mayUnify(Literal literal, HornClause hornClause) {
+        CycList consequentArguments = hornClause.getConsequent().getArguments();
+        CycList literalArguments = literal.getArguments();
+        if (consequentArguments.size() != literalArguments.size())
+            return false;
+        for (int i = 0; i < literalArguments.size(); i++) {
+            Object literalArgument = literalArguments.get(i);
+            Object consequentArgument = consequentArguments.get(i);
+            if (literalArgument instanceof CycVariable) {
+                if (! (consequentArgument instanceof CycVariable))
+                    return false;
+            }
+            else if (! (consequentArgument instanceof CycVariable) &&
+                     ! literalArgument.equals(consequentArgument))
+                return false;
+        }
+        return true;
+    }
+
     /**
      * Checks any ground antecedant conjuncts (having no variables) for truthfullness via KB
      * lookup, returning <tt>false</tt> iff any ground conjunct is false.  This check is not
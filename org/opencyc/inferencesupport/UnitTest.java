@@ -61,6 +61,7 @@ public class UnitTest extends TestCase {
         testSuite.addTest(new UnitTest("testConstraintRule"));
         testSuite.addTest(new UnitTest("testQueryLiteral"));
         testSuite.addTest(new UnitTest("testHornClause"));
+        testSuite.addTest(new UnitTest("testHornClauseIndex"));
         testSuite.addTest(new UnitTest("testSolution"));
         testSuite.addTest(new UnitTest("testUnifier"));
         testSuite.addTest(new UnitTest("testBackchainer"));
@@ -82,6 +83,8 @@ public class UnitTest extends TestCase {
             testSuite.addTest(new UnitTest("testConstraintRule"));
             testSuite.addTest(new UnitTest("testQueryLiteral"));
             testSuite.addTest(new UnitTest("testHornClause"));
+            testSuite.addTest(new UnitTest("testHornClauseIndex"));
+        testSuite.addTest(new UnitTest("testHornClauseIndex"));
             testSuite.addTest(new UnitTest("testSolution"));
             testSuite.addTest(new UnitTest("testUnifier"));
             testSuite.addTest(new UnitTest("testBackchainer"));
@@ -900,4 +903,149 @@ public class UnitTest extends TestCase {
         System.out.println("** testSolution OK **");
     }
 
+    /**
+     * Tests the <tt>HornClauseIndex</tt> class and the implication rule set cache.
+     */
+    public void testHornClauseIndex() {
+        System.out.println("** testHornClauseIndex **");
+
+        CycConstant implies =
+            new CycConstant("implies", CycObjectFactory.makeGuid("bd5880f4-9c29-11b1-9dad-c379636f7270"));
+        CycConstant p =
+            new CycConstant("p", CycObjectFactory.makeGuid("bd58c19f-9c29-11b1-9dad-c379636f7270"));
+        CycConstant q =
+            new CycConstant("q", CycObjectFactory.makeGuid("bd58c1a0-9c29-11b1-9dad-c379636f7270"));
+        CycConstant a =
+            new CycConstant("A", CycObjectFactory.makeGuid("bd58c1a1-9c29-11b1-9dad-c379636f7270"));
+        CycConstant b =
+            new CycConstant("B", CycObjectFactory.makeGuid("bd58c1a2-9c29-11b1-9dad-c379636f7270"));
+        CycConstant c =
+            new CycConstant("C", CycObjectFactory.makeGuid("bd58c1a3-9c29-11b1-9dad-c379636f7270"));
+        CycVariable x = CycObjectFactory.makeCycVariable("?X");
+        CycVariable y = CycObjectFactory.makeCycVariable("?Y");
+
+        // (#$implies (#$p ?X) (#$q #$A ?X)), (#$implies (#$p ?X) (#$q ?Y ?X)), (#$implies (#$p ?X) (#$q #$B ?X))
+        Object[] firstArguments = {a, y, b};
+        HornClauseIndex hornClauseIndex = new HornClauseIndex();
+        for (int i = 0; i < firstArguments.length; i++)
+            hornClauseIndex.add(CycList.makeCycList(implies,
+                                                    CycList.makeCycList(p, x),
+                                                    CycList.makeCycList(q, firstArguments[i], x)));
+        Assert.assertEquals(3, hornClauseIndex.size());
+        Assert.assertEquals(3, hornClauseIndex.getRules().size());
+
+        // getCandidateHornClauses
+        ArrayList candidates =
+            hornClauseIndex.getCandidateHornClauses(new QueryLiteral(CycList.makeCycList(q, a, x)));
+        Assert.assertEquals(2, candidates.size());
+        Assert.assertEquals(a, ((HornClause) candidates.get(0)).getConsequent().getArguments().first());
+        Assert.assertEquals(y, ((HornClause) candidates.get(1)).getConsequent().getArguments().first());
+        candidates =
+            hornClauseIndex.getCandidateHornClauses(new QueryLiteral(CycList.makeCycList(q, c, x)));
+        Assert.assertEquals(1, candidates.size());
+        Assert.assertEquals(y, ((HornClause) candidates.get(0)).getConsequent().getArguments().first());
+
+        // The implication rule sets are cached by predicate, arity and microtheory.
+        Backchainer.resetImplicationRuleSetCache();
+        Backchainer.addCache(p, 2, q, hornClauseIndex);
+        Assert.assertSame(hornClauseIndex, Backchainer.getCache(p, 2, q));
+        Assert.assertNull(Backchainer.getCache(p, 3, q));
+        Assert.assertNull(Backchainer.getCache(p, 2, null));
+        Backchainer.addCache(p, 2, null, hornClauseIndex);
+        Backchainer.removeCache(p);
+        Assert.assertEquals(0, Backchainer.getCacheSize());
+
+        // The implication rule set cache evicts the least recently used rule set.
+        int cacheSize = Backchainer.IMPLICATION_RULE_SET_CACHE_SIZE;
+        CycConstant[] predicates = new CycConstant[cacheSize + 1];
+        for (int i = 0; i < predicates.length; i++) {
+            String suffix = Long.toHexString(0x1000000000000L + i).substring(1);
+            predicates[i] = new CycConstant("predicate" + i,
+                                            CycObjectFactory.makeGuid("bd58c1a4-9c29-11b1-9dad-" + suffix));
+        }
+        for (int i = 0; i < cacheSize; i++)
+            Backchainer.addCache(predicates[i], 2, null, new HornClauseIndex());
+        Assert.assertEquals(cacheSize, Backchainer.getCacheSize());
+        // Using the first rule set makes the second the least recently used.
+        Assert.assertNotNull(Backchainer.getCache(predicates[0], 2, null));
+        Backchainer.addCache(predicates[cacheSize], 2, null, new HornClauseIndex());
+        Assert.assertEquals(cacheSize, Backchainer.getCacheSize());
+        Assert.assertNull(Backchainer.getCache(predicates[1], 2, null));
+        Assert.assertNotNull(Backchainer.getCache(predicates[0], 2, null));
+        Assert.assertNotNull(Backchainer.getCache(predicates[2], 2, null));
+        Assert.assertNotNull(Backchainer.getCache(predicates[cacheSize], 2, null));
+        Backchainer.resetImplicationRuleSetCache();
+        Assert.assertEquals(0, Backchainer.getCacheSize());
+
+        System.out.println("** testHornClauseIndex OK **");
+    }
+
+    /**
+     * Tests the <tt>Backchainer</tt> class.
+     */
+    public void testBackchainer() {
+        System.out.println("** testBackchainer **");
+
+        // The self-recursive rule
+        //   (#$implies (#$and (#$parents ?X ?Z) (#$ancestors ?Z ?Y)) (#$ancestors ?X ?Y))
+        // presents its renamed consequent as a subgoal one backchain depth deeper.
+        CycConstant ancestors =
+            new CycConstant("ancestors", CycObjectFactory.makeGuid("bd58c19d-9c29-11b1-9dad-c379636f7270"));
+        CycConstant fred =
+            new CycConstant("Fred", CycObjectFactory.makeGuid("bd58c19e-9c29-11b1-9dad-c379636f7270"));
+        CycList formula1 = new CycList();
+        formula1.add(ancestors);
+        formula1.add(CycObjectFactory.makeCycVariable("?X"));
+        formula1.add(CycObjectFactory.makeCycVariable("?Y"));
+        QueryLiteral literal1 = new QueryLiteral(formula1);
+        CycList formula2 = new CycList();
+        formula2.add(ancestors);
+        formula2.add(CycObjectFactory.makeCycVariable("?Z_1"));
+        formula2.add(CycObjectFactory.makeCycVariable("?Y_1"));
+        QueryLiteral literal2 = new QueryLiteral(formula2);
+        CycList formula3 = new CycList();
+        formula3.add(ancestors);
+        formula3.add(fred);
+        formula3.add(CycObjectFactory.makeCycVariable("?Y"));
+        QueryLiteral literal3 = new QueryLiteral(formula3);
+
+        // getSubgoal
+        Backchainer backchainer = new Backchainer();
+        backchainer.setVerbosity(0);
+        Assert.assertEquals(backchainer.getSubgoal(literal1, null),
+                            backchainer.getSubgoal(literal2, null));
+        Assert.assertTrue(! backchainer.getSubgoal(literal1, null).equals(
+            backchainer.getSubgoal(literal3, null)));
+
+        // backchain
+        Backchainer nestedBackchainer = new Backchainer();
+        nestedBackchainer.setVerbosity(0);
+        nestedBackchainer.backchainDepth = backchainer.backchainDepth + 1;
+        nestedBackchainer.maxBackchainDepth = 5;
+        nestedBackchainer.subgoalTable = backchainer.subgoalTable;
+        nestedBackchainer.subgoalsInProgress = backchainer.subgoalsInProgress;
+        backchainer.subgoalsInProgress.add(backchainer.getSubgoal(literal1, null));
+        try {
+            // The recurring subgoal fails rather than being backchained upon again.
+            ArrayList solutions = nestedBackchainer.backchain(literal2, literal2.getVariables(), null);
+            Assert.assertEquals(0, solutions.size());
+            Assert.assertEquals(0, backchainer.subgoalTable.size());
+
+            // A solved subgoal is reused at the same depth.
+            ArrayList tabledSolutions = new ArrayList();
+            tabledSolutions.add(new ArrayList());
+            backchainer.subgoalTable.put(backchainer.getSubgoal(literal3, null) + " " +
+                                         nestedBackchainer.backchainDepth,
+                                         tabledSolutions);
+            solutions = nestedBackchainer.backchain(literal3, literal3.getVariables(), null);
+            Assert.assertEquals(tabledSolutions, solutions);
+            Assert.assertTrue(tabledSolutions != solutions);
+        }
+        catch (Exception e) {
+            Assert.fail(e.getMessage());
+        }
+
+        System.out.println("** testBackchainer OK **");
+    }
+
 }
\ No newline at end of file
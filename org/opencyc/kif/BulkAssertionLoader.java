@@ -0,0 +1,350 @@
+package org.opencyc.kif;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.LinkedList;
+
+import org.opencyc.cycobject.CycFort;
+import org.opencyc.cycobject.CycList;
+
+
+/**
+ * Pipelines the assertion of parsed sentences into the KB.<p>
+ *
+ * The parsing thread hands sentences to <tt>add</tt>, which groups them into
+ * batches of <tt>batchSize</tt> sentences for a single microtheory and
+ * direction.  Full
+ * batches are placed on a bounded queue, from which a writer thread ships
+ * each batch to the server as a single api request.  Batches are asserted
+ * in the order they were added, so definitions which precede their uses in
+ * the input remain ahead of them in the KB.  When the queue is full the
+ * parsing thread waits, so memory use stays bounded for large files.<p>
+ *
+ * Sentences which the KB rejects are reported to the feedback writer along
+ * with the number of their batch.  When a whole batch request fails, its
+ * sentences are asserted one by one to find the failing ones.
+ *
+ * @version $Id$
+ *
+ * <p>Copyright 2001 Cycorp, Inc., license is open source GNU LGPL.
+ * <p><a href="http://www.opencyc.org/license.txt">the license</a>
+ * <p><a href="http://www.opencyc.org">www.opencyc.org</a>
+ * <p><a href="http://www.sourceforge.net/projects/opencyc">OpenCyc at SourceForge</a>
+ * <p>
+ * THIS SOFTWARE AND KNOWLEDGE BASE CONTENT ARE PROVIDED ``AS IS'' AND
+ * ANY EXPRESSED OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE OPENCYC
+ * ORGANIZATION OR ITS CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE AND KNOWLEDGE
+ * BASE CONTENT, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+public class BulkAssertionLoader implements Runnable {
+
+    /**
+     * The default number of sentences sent in one api request.
+     */
+    public static final int DEFAULT_BATCH_SIZE =
+	Integer.getInteger("org.opencyc.kif.bulkBatchSize", 500).intValue();
+
+    /**
+     * The default number of full batches which may wait for the writer thread.
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY =
+	Integer.getInteger("org.opencyc.kif.bulkQueueCapacity", 4).intValue();
+
+    /**
+     * Cyc api support.
+     */
+    protected CycAssertionsFactory cycAccess;
+
+    /**
+     * Receives the per batch error reports and the throughput summary.
+     */
+    protected PrintWriter pw;
+
+    protected int batchSize;
+    protected int queueCapacity;
+
+    /**
+     * Full batches waiting for the writer thread.
+     */
+    protected LinkedList queue = new LinkedList();
+
+    /**
+     * The batch being filled by the parsing thread.
+     */
+    protected Batch currentBatch = null;
+
+    protected Thread writerThread = null;
+    protected boolean isClosed = false;
+
+    /**
+     * The exception which ended the writer thread, rethrown to the parsing thread.
+     */
+    protected Throwable writerFailure = null;
+
+    private int nbrBatches = 0;
+    private int nbrSentences = 0;
+    private int nbrAsserted = 0;
+    private int nbrFailed = 0;
+    private long startMillis;
+    private long elapsedMillis = 0;
+
+    /**
+     * Verbosity indicator <tt>0</tt> indicates quiet on a range of
+     * <tt>0</tt> ... <tt>10</tt>
+     */
+    public static int verbosity = 0;
+
+    /**
+     * Constructs a new BulkAssertionLoader with the default batch size and queue capacity.
+     *
+     * @param ca the CycAssertionsFactory for this BulkAssertionLoader
+     * @param pw the writer which receives error reports and throughput
+     */
+    public BulkAssertionLoader(CycAssertionsFactory ca, PrintWriter pw) {
+	this(ca, pw, DEFAULT_BATCH_SIZE, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * Constructs a new BulkAssertionLoader.
+     *
+     * @param ca the CycAssertionsFactory for this BulkAssertionLoader
+     * @param pw the writer which receives error reports and throughput
+     * @param batchSize the number of sentences sent in one api request
+     * @param queueCapacity the number of full batches which may wait for the writer
+     */
+    public BulkAssertionLoader(CycAssertionsFactory ca, PrintWriter pw, int batchSize, int queueCapacity) {
+	if ( ca == null ) throw new IllegalArgumentException("CycAssertionsFactory is null");
+	if ( batchSize < 1 ) throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+	if ( queueCapacity < 1 ) throw new IllegalArgumentException("queueCapacity must be positive: " + queueCapacity);
+	cycAccess = ca;
+	this.pw = pw == null ? new PrintWriter(System.out) : pw;
+	this.batchSize = batchSize;
+	this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * Starts the writer thread.
+     */
+    public synchronized void start() {
+	if ( writerThread != null ) return;
+	startMillis = System.currentTimeMillis();
+	writerThread = new Thread(this, "BulkAssertionLoader writer");
+	writerThread.setDaemon(true);
+	writerThread.start();
+    }
+
+    /**
+     * Adds the sentence for assertion in the given microtheory, waiting
+     * while the queue of full batches is at capacity.
+     *
+     * @param sentence the sentence to assert
+     * @param mt the microtheory in which the sentence is asserted
+     */
+    public void add(CycList sentence, CycFort mt) throws InterruptedException {
+	add(sentence, mt, false);
+    }
+
+    /**
+     * Adds the sentence for assertion in the given microtheory and direction,
+     * waiting while the queue of full batches is at capacity.
+     *
+     * @param sentence the sentence to assert
+     * @param mt the microtheory in which the sentence is asserted
+     * @param isForward whether the sentence is asserted as a forward assertion
+     */
+    public void add(CycList sentence, CycFort mt, boolean isForward) throws InterruptedException {
+	if ( sentence == null ) return;
+	if ( writerThread == null ) start();
+	if ( currentBatch != null && (currentBatch.mt != mt || currentBatch.isForward != isForward) ) flush();
+	if ( currentBatch == null ) currentBatch = new Batch(mt, isForward);
+	currentBatch.sentences.add(sentence);
+	if ( currentBatch.sentences.size() >= batchSize ) flush();
+    }
+
+    /**
+     * Queues the partially filled batch, if any, for the writer thread.
+     *
+     * @throws RuntimeException if the writer thread has failed
+     */
+    public void flush() throws InterruptedException {
+	if ( currentBatch == null ) return;
+	Batch batch = currentBatch;
+	currentBatch = null;
+	synchronized (this) {
+	    while ( queue.size() >= queueCapacity && writerFailure == null ) wait();
+	    checkWriterFailure();
+	    batch.number = ++nbrBatches;
+	    queue.addLast(batch);
+	    notifyAll();
+	}
+    }
+
+    /**
+     * Flushes the remaining sentences, waits for the writer thread to assert
+     * every queued batch, and reports the throughput.
+     *
+     * @throws RuntimeException if the writer thread has failed
+     */
+    public void close() throws InterruptedException {
+	if ( writerThread == null ) start();
+	flush();
+	synchronized (this) {
+	    isClosed = true;
+	    notifyAll();
+	}
+	writerThread.join();
+	synchronized (this) {
+	    checkWriterFailure();
+	}
+	elapsedMillis = System.currentTimeMillis() - startMillis;
+	pw.println("<p>" + getThroughputSummary());
+	pw.flush();
+    }
+
+    /**
+     * Asserts queued batches until the loader is closed and the queue is empty.
+     * An exception which ends the writer thread is recorded for the parsing
+     * thread, which is woken rather than left waiting on a full queue.
+     */
+    public void run() {
+	try {
+	    while ( true ) {
+		Batch batch;
+		synchronized (this) {
+		    while ( queue.isEmpty() && ! isClosed ) wait();
+		    if ( queue.isEmpty() ) return;
+		    batch = (Batch) queue.removeFirst();
+		    notifyAll();
+		}
+		assertBatch(batch);
+	    }
+	} catch ( Throwable e ) {
+	    synchronized (this) {
+		writerFailure = e;
+		queue.clear();
+		notifyAll();
+	    }
+	}
+    }
+
+    /**
+     * Rethrows the exception which ended the writer thread, if any.  The
+     * caller holds the lock on this loader.
+     */
+    private void checkWriterFailure() {
+	if ( writerFailure == null ) return;
+	if ( writerFailure instanceof RuntimeException ) throw (RuntimeException) writerFailure;
+	if ( writerFailure instanceof Error ) throw (Error) writerFailure;
+	throw new RuntimeException("BulkAssertionLoader writer failed: " + writerFailure, writerFailure);
+    }
+
+    /**
+     * Asserts the batch in a single api request, reporting the sentences the KB rejected.
+     */
+    protected void assertBatch(Batch batch) {
+	boolean[] asserted;
+	try {
+	    asserted = cycAccess.assertBatchWithTranscriptNoWffCheck(batch.sentences, batch.mt, batch.isForward);
+	} catch ( Exception e ) {
+	    pw.println("<pre><font color=red>batch " + batch.number + ": " + e + "</font></pre>");
+	    asserted = assertSentences(batch);
+	}
+	int failed = 0;
+	for ( int i = 0; i < asserted.length; i++ ) {
+	    if ( ! asserted[i] ) {
+		failed++;
+		pw.println("<pre><font color=red>batch " + batch.number + " sentence " + (i + 1) + " not asserted: " +
+			   ((CycList) batch.sentences.get(i)).cyclify() + "</font></pre>");
+	    }
+	}
+	synchronized (this) {
+	    nbrSentences += asserted.length;
+	    nbrAsserted += asserted.length - failed;
+	    nbrFailed += failed;
+	}
+	if ( verbosity > 2 )
+	    pw.println("<font color=green>batch " + batch.number + ": " + (asserted.length - failed) +
+		       " of " + asserted.length + " asserted in " + batch.mt + "</font>");
+    }
+
+    /**
+     * Asserts the sentences of a failed batch one at a time.
+     */
+    private boolean[] assertSentences(Batch batch) {
+	boolean[] asserted = new boolean[batch.sentences.size()];
+	for ( int i = 0; i < asserted.length; i++ ) {
+	    ArrayList sentence = new ArrayList(1);
+	    sentence.add(batch.sentences.get(i));
+	    try {
+		asserted[i] = cycAccess.assertBatchWithTranscriptNoWffCheck(sentence, batch.mt, batch.isForward)[0];
+	    } catch ( Exception e ) {
+		pw.println("<pre><font color=red>batch " + batch.number + " sentence " + (i + 1) + ": " + e + "</font></pre>");
+	    }
+	}
+	return asserted;
+    }
+
+    public synchronized int getNbrBatches() {
+	return nbrBatches;
+    }
+
+    public synchronized int getNbrSentences() {
+	return nbrSentences;
+    }
+
+    public synchronized int getNbrAsserted() {
+	return nbrAsserted;
+    }
+
+    public synchronized int getNbrFailed() {
+	return nbrFailed;
+    }
+
+    /**
+     * Returns the sentences per second asserted since the writer thread started.
+     *
+     * @return the sentences per second asserted since the writer thread started
+     */
+    public synchronized double getSentencesPerSecond() {
+	long millis = elapsedMillis;
+	if ( millis == 0 && writerThread != null )
+	    millis = System.currentTimeMillis() - startMillis;
+	if ( millis <= 0 ) return 0.0;
+	return nbrSentences * 1000.0 / millis;
+    }
+
+    /**
+     * Returns a one line report of the sentences, failures and throughput.
+     *
+     * @return a one line report of the sentences, failures and throughput
+     */
+    public synchronized String getThroughputSummary() {
+	return nbrSentences + " sentences in " + nbrBatches + " batches, " + nbrFailed + " failed, " +
+	    ((long) getSentencesPerSecond()) + " sentences/sec";
+    }
+
+    /**
+     * A run of sentences asserted in one microtheory and direction by one api request.
+     */
+    protected static class Batch {
+	CycFort mt;
+	boolean isForward;
+	ArrayList sentences = new ArrayList();
+	int number;
+
+	Batch(CycFort mt, boolean isForward) {
+	    this.mt = mt;
+	    this.isForward = isForward;
+	}
+    }
+
+}
@@ -74,6 +74,19 @@ public class CycAssertionsFactory extends CycAccess {
 		cycAccessInit();
 	}
 
+	/**
+	 * Constructs a new CycAssertionsFactory object given a connection to the
+	 * OpenCyc server.
+	 * 
+	 * @param conn
+	 *            the connection to the OpenCyc server
+	 */
+	public CycAssertionsFactory(CycConnectionInterface conn)
+			throws IOException, CycApiException {
+		super(conn);
+		cycAccessInit();
+	}
+
 	public ArrayList getMts() throws Exception {
 		return (ArrayList) getAllInstances(microtheory);
 	}
@@ -501,6 +514,74 @@ public class CycAssertionsFactory extends CycAccess {
 		converseVoid(command);
 	}
 
+	/**
+	 * Asserts the given sentences in a single api request, placing each on the
+	 * transcript queue with default strength and direction. No WFF checks are
+	 * performed. The sentences are asserted in list order so that an earlier
+	 * definition is in the KB before a later sentence which uses it.
+	 *
+	 * @param <tt>List</tt> sentences the <tt>CycList</tt> sentences for
+	 *            assertion
+	 * @param <tt>CycFort</tt> mt the microtheory in which the assertions are
+	 *            placed
+	 * @return an array whose elements are <tt>true</tt> for each sentence
+	 *         which the KB accepted
+	 */
+
+	public boolean[] assertBatchWithTranscriptNoWffCheck(List sentences,
+			CycFort mt) throws IOException, UnknownHostException,
+			CycApiException {
+		return assertBatchWithTranscriptNoWffCheck(sentences, mt, false);
+	}
+
+	/**
+	 * Asserts the given sentences in a single api request, placing each on the
+	 * transcript queue, as forward monotonic assertions when isForward is
+	 * true and otherwise with default strength and direction. No WFF checks
+	 * are performed. The sentences are asserted in list order.
+	 *
+	 * @param <tt>List</tt> sentences the <tt>CycList</tt> sentences for
+	 *            assertion
+	 * @param <tt>CycFort</tt> mt the microtheory in which the assertions are
+	 *            placed
+	 * @param <tt>boolean</tt> isForward whether the assertions are forward
+	 * @return an array whose elements are <tt>true</tt> for each sentence
+	 *         which the KB accepted
+	 */
+
+	public boolean[] assertBatchWithTranscriptNoWffCheck(List sentences,
+			CycFort mt, boolean isForward) throws IOException,
+			UnknownHostException, CycApiException {
+		boolean[] asserted = new boolean[sentences.size()];
+		if (sentences.isEmpty())
+			return asserted;
+		if (mt == null)
+			throw new CycApiException(
+					"assertBatchWithTranscriptNoWffCheck: mt==null");
+		if (cyclist == null)
+			throw new CycApiException(
+					"assertBatchWithTranscriptNoWffCheck: cyclist==null");
+
+		String mtString = mt.cyclify();
+		StringBuffer command = new StringBuffer();
+		command.append("(clet ((*the-cyclist* " + cyclist.cyclify() + "))\n");
+		command.append("   (without-wff-semantics (list");
+		for (int i = 0; i < sentences.size(); i++) {
+			command.append("\n    (pif (ke-assert-now '");
+			command.append(((CycList) sentences.get(i)).cyclify());
+			command.append(" " + mtString);
+			if (isForward)
+				command.append(" :monotonic :forward");
+			command.append(") t nil)");
+		}
+		command.append(")))");
+
+		CycList response = converseList(command.toString());
+		for (int i = 0; i < asserted.length && i < response.size(); i++)
+			asserted[i] = !response.get(i).equals(CycObjectFactory.nil);
+		return asserted;
+	}
+
 	/**
 	 * Asserts a ground atomic formula (gaf) in the specified microtheory MT.
 	 * The operation will be added to the KB transcript for replication and
@@ -4,11 +4,13 @@ import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.io.Writer;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.Iterator;
 
 import org.opencyc.cycobject.CycConstant;
 import org.opencyc.cycobject.CycFort;
 import org.opencyc.cycobject.CycList;
+import org.opencyc.inferencesupport.ConstraintRule;
 
 import ViolinStrings.Strings;
 
@@ -39,6 +41,44 @@ public class CycBulkAssertions {
     private int numberText = 0;
     public boolean isTestedClean = false;
 
+    /**
+     * Bulk load stage of the microtheory and constant definitions, which are
+     * asserted as soon as they are staged.
+     */
+    public static final int BULK_STAGE_CONSTANTS = 0;
+
+    /**
+     * Bulk load stage of the ground isa, genls and comment assertions.
+     */
+    public static final int BULK_STAGE_DEFINITIONAL = 1;
+
+    /**
+     * Bulk load stage of the remaining ground assertions.
+     */
+    public static final int BULK_STAGE_GROUND = 2;
+
+    /**
+     * Bulk load stage of the rules, which are asserted last.
+     */
+    public static final int BULK_STAGE_RULES = 3;
+
+    /**
+     * When not null, receives the sentences of a bulk load.
+     */
+    protected BulkAssertionLoader bulkLoader = null;
+
+    /**
+     * The sentences of the later bulk load stages, held until all sentences
+     * are staged.
+     */
+    protected ArrayList[] bulkStages = null;
+
+    /**
+     * The constant definitions already given to the bulk loader.
+     */
+    private HashSet bulkConstantDefinitions = null;
+    private CycConstant bulkPredicateCollection = null;
+
     /**
      * Verbosity indicator <tt>0</tt> indicates quiet on a range of
      * <tt>0</tt> ... <tt>10</tt>
@@ -231,6 +271,148 @@ public class CycBulkAssertions {
 	commitArrayList(b, pw,cycOrderedAssertions, defaultMt);
     }
 
+    /**
+     * Adds the AssertionCollection to defaultMt in batches, one api request
+     * per batch, reporting failed sentences and throughput to feedbackMl.
+     *
+     */
+
+    public void commitAssertionsBulk(Writer feedbackMl)  throws Exception  {
+	PrintWriter pw;
+
+	if ( feedbackMl == null )
+	    pw = new PrintWriter(System.out);
+	else
+	    pw = new PrintWriter(feedbackMl);
+	startBulkLoad(pw);
+	try {
+	    Iterator forms = cycAssertionsForBaseKB.iterator();
+	    while ( forms.hasNext() )
+		bulkLoader.add((CycList) forms.next(), (CycFort) cycAccess.baseKB);
+	    forms = cycOrderedAssertions.iterator();
+	    while ( forms.hasNext() )
+		stageBulkSentence((CycList) forms.next(), defaultMt, false);
+	    flushBulkStages();
+	} finally {
+	    finishBulkLoad();
+	}
+    }
+
+    /**
+     * Starts the bulk loader which receives staged sentences.
+     *
+     * @param pw the writer which receives error reports and throughput
+     */
+    protected void startBulkLoad(PrintWriter pw) {
+	bulkLoader = new BulkAssertionLoader(cycAccess, pw);
+	bulkStages = new ArrayList[BULK_STAGE_RULES + 1];
+	for ( int i = 0; i < bulkStages.length; i++ )
+	    bulkStages[i] = new ArrayList();
+	bulkConstantDefinitions = new HashSet();
+	bulkLoader.start();
+    }
+
+    /**
+     * Waits for the bulk loader to assert every sentence given to it, and
+     * discards any sentences still staged.
+     */
+    protected void finishBulkLoad() throws InterruptedException {
+	BulkAssertionLoader loader = bulkLoader;
+	bulkLoader = null;
+	bulkStages = null;
+	bulkConstantDefinitions = null;
+	loader.close();
+    }
+
+    /**
+     * Returns the bulk load stage of the sentence, following the dependency
+     * order of orderAssertions: microtheory and constant definitions, then
+     * genls and isa, then the other ground assertions, then rules.  No KB
+     * request is made.
+     *
+     * @param sentence the sentence
+     * @return the bulk load stage of the sentence
+     */
+    public int getBulkStage(CycList sentence) {
+	if ( ! new ConstraintRule(sentence).isGround() ) return BULK_STAGE_RULES;
+	Object predicate = sentence.first();
+	if ( predicate.equals(cycAccess.genlMt) ) return BULK_STAGE_CONSTANTS;
+	if ( predicate.equals(cycAccess.isa) ) {
+	    if ( sentence.size() > 2 && sentence.third().equals(cycAccess.microtheory) )
+		return BULK_STAGE_CONSTANTS;
+	    return BULK_STAGE_DEFINITIONAL;
+	}
+	if ( predicate.equals(cycAccess.genls) || predicate.equals(cycAccess.comment) )
+	    return BULK_STAGE_DEFINITIONAL;
+	return BULK_STAGE_GROUND;
+    }
+
+    /**
+     * Stages the sentence of a bulk load.  Microtheory definitions are given
+     * to the bulk loader at once for assertion in BaseKB, preceded like the
+     * orderAssertions definitions by the constant definitions the sentence
+     * needs.  Sentences of later stages are held until flushBulkStages.
+     *
+     * @param sentence the sentence to assert
+     * @param mt the microtheory in which the sentence is asserted
+     * @param isForward whether the sentence is asserted as a forward assertion
+     */
+    protected void stageBulkSentence(CycList sentence, CycFort mt, boolean isForward) throws Exception {
+	int stage = getBulkStage(sentence);
+	if ( stage == BULK_STAGE_CONSTANTS ) {
+	    bulkLoader.add(sentence, (CycFort) cycAccess.baseKB, isForward);
+	    return;
+	}
+	if ( stage != BULK_STAGE_RULES ) addBulkConstantDefinitions(sentence, mt);
+	bulkStages[stage].add(new StagedSentence(sentence, mt, isForward));
+    }
+
+    /**
+     * Gives the bulk loader the collection and predicate definitions of the
+     * constants of the ground sentence, as addOrderGenls, addOrderIsa and
+     * addOrderGround do, each definition only once.
+     */
+    private void addBulkConstantDefinitions(CycList sentence, CycFort mt) throws Exception {
+	Object predicate = sentence.first();
+	if ( predicate.equals(cycAccess.genls) ) {
+	    if ( sentence.size() < 3 ) return;
+	    if ( sentence.second() instanceof CycConstant )
+		addBulkConstantDefinition((CycConstant) sentence.second(), cycAccess.collection, mt);
+	    if ( sentence.third() instanceof CycConstant )
+		addBulkConstantDefinition((CycConstant) sentence.third(), cycAccess.collection, mt);
+	} else if ( predicate.equals(cycAccess.isa) ) {
+	    if ( sentence.size() > 2 && sentence.third() instanceof CycConstant ) {
+		addBulkConstantDefinition((CycConstant) sentence.third(), cycAccess.collection, mt);
+		if ( sentence.third().equals(cycAccess.collection) && sentence.second() instanceof CycConstant )
+		    addBulkConstantDefinition((CycConstant) sentence.second(), cycAccess.collection, mt);
+	    }
+	} else if ( predicate instanceof CycConstant && ! predicate.equals(cycAccess.comment) ) {
+	    if ( bulkPredicateCollection == null )
+		bulkPredicateCollection = cycAccess.makeCycConstant("#$Predicate");
+	    addBulkConstantDefinition((CycConstant) predicate, bulkPredicateCollection, mt);
+	}
+    }
+
+    private void addBulkConstantDefinition(CycConstant term, CycConstant type, CycFort mt) throws Exception {
+	CycList definition = cycAccess.makeIsa(term, type);
+	if ( bulkConstantDefinitions.add(definition) )
+	    bulkLoader.add(definition, mt);
+    }
+
+    /**
+     * Gives the bulk loader the staged sentences, stage by stage.
+     */
+    protected void flushBulkStages() throws InterruptedException {
+	for ( int stage = 0; stage < bulkStages.length; stage++ ) {
+	    Iterator staged = bulkStages[stage].iterator();
+	    while ( staged.hasNext() ) {
+		StagedSentence stagedSentence = (StagedSentence) staged.next();
+		bulkLoader.add(stagedSentence.sentence, stagedSentence.mt, stagedSentence.isForward);
+	    }
+	    bulkStages[stage].clear();
+	}
+    }
+
     private void commitArrayList(boolean b, PrintWriter pw, ArrayList cycArrayList , CycFort mt) {
 	Iterator forms;
 	forms = cycArrayList.iterator();
@@ -368,6 +550,21 @@ public class CycBulkAssertions {
 
     }
 
+    /**
+     * A sentence of a bulk load held with its microtheory and direction.
+     */
+    protected static class StagedSentence {
+	CycList sentence;
+	CycFort mt;
+	boolean isForward;
+
+	StagedSentence(CycList sentence, CycFort mt, boolean isForward) {
+	    this.sentence = sentence;
+	    this.mt = mt;
+	    this.isForward = isForward;
+	}
+    }
+
 }
 
 
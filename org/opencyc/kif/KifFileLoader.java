@@ -122,6 +122,47 @@ public class KifFileLoader extends CycBulkAssertions {
 	commitAssertions(feedbackMl);
     }
 
+    /**
+     * Adds the File to KB into Mt, asserting the sentences in batches.
+     * Microtheory and constant definitions are asserted while the rest of the
+     * file is still being parsed, and the other sentences once it is parsed,
+     * in the orderAssertions dependency order: genls and isa, then the other
+     * ground assertions, then rules.  The :MT, :SET and :UNSET directives of
+     * doLine apply to the sentences which follow them, and :FORWARD sentences
+     * are asserted as forward assertions.  Rejected sentences and the load
+     * throughput are reported to feedbackMl.
+     *
+     * @param file for sentences 
+     * @param mt for sentences 
+     */
+    public void addFileBulk(Writer feedbackMl,File file, String mt)  throws Exception  {
+	addFileBulk(feedbackMl,file,cycAccess.makeCycConstant("#$" + mt));
+    }
+
+    /**
+     * Adds the File to KB into Mt, asserting the sentences in batches while
+     * the rest of the file is still being parsed.
+     *
+     * @param file for sentences 
+     * @param mt for sentences 
+     */
+    public void addFileBulk(Writer feedbackMl,File file, CycFort mt)  throws Exception  {
+	setDefaultMt(mt);
+	resetAll();
+	PrintWriter pw;
+	if ( feedbackMl == null )
+	    pw = new PrintWriter(System.out);
+	else
+	    pw = new PrintWriter(feedbackMl);
+	startBulkLoad(pw);
+	try {
+	    load(file);
+	    flushBulkStages();
+	} finally {
+	    finishBulkLoad();
+	}
+    }
+
     /**
      * Adds the File to KB into Mt.
      *
@@ -203,21 +244,7 @@ public class KifFileLoader extends CycBulkAssertions {
 
     public void doLine(CycList sentence) throws Exception {
 	if ( sentence==null ) return;
-	if ( sentence.first() instanceof CycSymbol ) {
-	    if ( sentence.first().equals(new CycSymbol(":MT")) ) {
-		setDefaultMt(sentence.second().toString());
-		return;
-	    }
-	    if ( sentence.first().equals(new CycSymbol(":SET")) ) {
-		setGlobalFlag(sentence.second().toString());
-		return;
-	    }
-	    if ( sentence.first().equals(new CycSymbol(":UNSET")) ) {
-		unsetGlobalFlag(sentence.second().toString());
-		return;
-	    }
-	    return; 
-	}
+	if ( doDirective(sentence) ) return;
 
 	if (defaultMt==null) throw new CycApiException("defaultMt null;");
 
@@ -238,6 +265,43 @@ public class KifFileLoader extends CycBulkAssertions {
     }
 
 
+    /**
+     * Applies the sentence when it is a directive, whose first element is a
+     * symbol such as :MT, :SET or :UNSET.
+     *
+     * @param sentence the parsed sentence
+     * @return true if the sentence is a directive
+     */
+    protected boolean doDirective(CycList sentence) throws Exception {
+	if ( !(sentence.first() instanceof CycSymbol) ) return false;
+	if ( sentence.first().equals(new CycSymbol(":MT")) ) {
+	    setDefaultMt(sentence.second().toString());
+	    return true;
+	}
+	if ( sentence.first().equals(new CycSymbol(":SET")) ) {
+	    setGlobalFlag(sentence.second().toString());
+	    return true;
+	}
+	if ( sentence.first().equals(new CycSymbol(":UNSET")) ) {
+	    unsetGlobalFlag(sentence.second().toString());
+	    return true;
+	}
+	return true;
+    }
+
+    /**
+     * Stages the sentence of a bulk load in the current defaultMt and
+     * direction, or applies it when it is a directive.
+     *
+     * @param sentence the parsed sentence
+     */
+    protected void addBulkSentence(CycList sentence) throws Exception {
+	if ( sentence==null ) return;
+	if ( doDirective(sentence) ) return;
+	if (defaultMt==null) throw new CycApiException("defaultMt null;");
+	stageBulkSentence(sentence,defaultMt,getGlobalFlag(":FORWARD"));
+    }
+
     private ArrayList globalFlags = new ArrayList();
     public void setGlobalFlag(String flag) {
 	if ( !globalFlags.contains(flag) ) globalFlags.add(flag);
@@ -329,8 +393,13 @@ public class KifFileLoader extends CycBulkAssertions {
 	st.wordChars( '*', '*' );  st.wordChars( '/', '/' );  st.wordChars( '.', '.' );  st.wordChars( '#', '#' );
 	st.wordChars( ':', ':' );  st.wordChars( '!', '!' );  st.wordChars( '$', '$' );  st.wordChars( '?', '?' );
 	st.wordChars( '%', '%' );  st.wordChars( '&', '&' );  st.quoteChar('"');  st.eolIsSignificant(false);
-	while ( st.ttype != st.TT_EOF )
-	    addSentence((new CycListKifParser(cycAccess)).read(st));
+	while ( st.ttype != st.TT_EOF ) {
+	    CycList sentence = (new CycListKifParser(cycAccess)).read(st);
+	    if ( bulkLoader != null )
+		addBulkSentence(sentence);
+	    else
+		addSentence(sentence);
+	}
     }
 
     public ArrayList getKifCycLMap() {
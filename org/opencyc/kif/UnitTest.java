@@ -0,0 +1,285 @@
+package org.opencyc.kif;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import junit.framework.Assert;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import junit.textui.TestRunner;
+
+import org.opencyc.api.CycAccess;
+import org.opencyc.api.CycApiException;
+import org.opencyc.api.CycConnectionInterface;
+import org.opencyc.api.CycObjectFactory;
+import org.opencyc.api.SubLWorker;
+import org.opencyc.cycobject.CycConstant;
+import org.opencyc.cycobject.CycList;
+import org.opencyc.util.Log;
+import org.opencyc.util.Timer;
+import org.opencyc.util.UUID;
+
+/**
+ * Provides a suite of JUnit test cases for the <tt>org.opencyc.kif</tt> package.<p>
+ *
+ * @version $Id$
+ *
+ * <p>Copyright 2001 Cycorp, Inc., license is open source GNU LGPL.
+ * <p><a href="http://www.opencyc.org/license.txt">the license</a>
+ * <p><a href="http://www.opencyc.org">www.opencyc.org</a>
+ * <p><a href="http://www.sourceforge.net/projects/opencyc">OpenCyc at SourceForge</a>
+ * <p>
+ * THIS SOFTWARE AND KNOWLEDGE BASE CONTENT ARE PROVIDED ``AS IS'' AND
+ * ANY EXPRESSED OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE OPENCYC
+ * ORGANIZATION OR ITS CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE AND KNOWLEDGE
+ * BASE CONTENT, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+public class UnitTest extends TestCase {
+
+	/**
+	 * Main method in case tracing is prefered over running JUnit.
+	 */
+	public static void main(String[] args) {
+		TestRunner.run(suite());
+	}
+
+	/**
+	 * Constructs a new UnitTest object.
+	 * @param name the test case name.
+	 */
+	public UnitTest(String name) {
+		super(name);
+	}
+
+	/**
+	 * Runs the unit tests
+	 */
+	public static Test suite() {
+		TestSuite testSuite = new TestSuite();
+		testSuite.addTest(new UnitTest("testBulkAssertionLoader"));
+		return testSuite;
+	}
+
+	/**
+	 * Tests the batching and the error reporting of the BulkAssertionLoader class
+	 * against a stub connection.
+	 */
+	public void testBulkAssertionLoader() {
+		System.out.println("** testBulkAssertionLoader **");
+		Log.makeLog("unit-test.log");
+		try {
+			StubConnection connection = new StubConnection();
+			CycAssertionsFactory cycAccess = new CycAssertionsFactory(connection);
+			connection.requests.clear();
+			CycConstant baseKB = makeConstant("BaseKB", 1);
+			CycConstant testMt = makeConstant("TestMt", 2);
+			CycConstant isa = makeConstant("isa", 3);
+			CycConstant dog = makeConstant("Dog", 4);
+			CycConstant rejected = makeConstant("Rejected", 5);
+			CycConstant failing = makeConstant("Failing", 6);
+			StringWriter feedback = new StringWriter();
+			BulkAssertionLoader loader = new BulkAssertionLoader(cycAccess, new PrintWriter(feedback), 3, 1);
+
+			// Batch 1 is full, batch 2 ends at the change of microtheory, and batches
+			// 3 and 4 at the changes of direction.
+			loader.add(makeSentence(isa, makeConstant("Fido", 7), dog), baseKB);
+			loader.add(makeSentence(isa, makeConstant("Rex", 8), dog), baseKB);
+			loader.add(makeSentence(isa, makeConstant("Spot", 9), rejected), baseKB);
+			loader.add(makeSentence(isa, makeConstant("Lassie", 10), dog), baseKB);
+			loader.add(makeSentence(isa, makeConstant("Rover", 11), dog), testMt);
+			loader.add(makeSentence(isa, makeConstant("Max", 12), dog), testMt, true);
+
+			// Batch 5 fails as a whole, and its sentences are then asserted one by one.
+			loader.add(makeSentence(isa, makeConstant("Bella", 13), dog), testMt);
+			loader.add(makeSentence(isa, makeConstant("Buddy", 14), failing), testMt);
+			loader.add(makeSentence(isa, makeConstant("Molly", 15), rejected), testMt);
+			loader.close();
+
+			Assert.assertEquals(8, connection.requests.size());
+			Assert.assertEquals(3, ((String) connection.requests.get(0)).split("ke-assert-now").length - 1);
+			Assert.assertTrue(((String) connection.requests.get(1)).indexOf("#$Lassie #$Dog) #$BaseKB)") > -1);
+			Assert.assertTrue(((String) connection.requests.get(2)).indexOf("#$Rover #$Dog) #$TestMt)") > -1);
+			Assert.assertTrue(((String) connection.requests.get(3)).indexOf("#$Max #$Dog) #$TestMt :monotonic :forward)") > -1);
+			Assert.assertEquals(3, ((String) connection.requests.get(4)).split("ke-assert-now").length - 1);
+			Assert.assertTrue(((String) connection.requests.get(5)).indexOf("#$Bella") > -1);
+			Assert.assertTrue(((String) connection.requests.get(6)).indexOf("#$Buddy") > -1);
+			Assert.assertTrue(((String) connection.requests.get(7)).indexOf("#$Molly") > -1);
+
+			Assert.assertEquals(5, loader.getNbrBatches());
+			Assert.assertEquals(9, loader.getNbrSentences());
+			Assert.assertEquals(6, loader.getNbrAsserted());
+			Assert.assertEquals(3, loader.getNbrFailed());
+
+			String report = feedback.toString();
+			Assert.assertTrue(report.indexOf("batch 1 sentence 3 not asserted: (#$isa #$Spot #$Rejected)") > -1);
+			Assert.assertTrue(report.indexOf("batch 5: org.opencyc.api.CycApiException: cannot assert #$Failing") > -1);
+			Assert.assertTrue(report.indexOf("batch 5 sentence 2: org.opencyc.api.CycApiException: cannot assert #$Failing") > -1);
+			Assert.assertTrue(report.indexOf("batch 5 sentence 2 not asserted: (#$isa #$Buddy #$Failing)") > -1);
+			Assert.assertTrue(report.indexOf("batch 5 sentence 3 not asserted: (#$isa #$Molly #$Rejected)") > -1);
+			Assert.assertEquals(-1, report.indexOf("batch 2"));
+			Assert.assertEquals(-1, report.indexOf("batch 3"));
+			Assert.assertEquals(-1, report.indexOf("batch 4"));
+			Assert.assertEquals(-1, report.indexOf("batch 5 sentence 1"));
+			Assert.assertTrue(report.indexOf("9 sentences in 5 batches, 3 failed") > -1);
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			Assert.fail(e.getMessage());
+		}
+		System.out.println("** testBulkAssertionLoader OK **");
+	}
+
+	/**
+	 * Makes a constant without accessing the Cyc server.
+	 *
+	 * @param name the constant name
+	 * @param i the distinguishing part of its guid
+	 * @return the constant
+	 */
+	protected CycConstant makeConstant(String name, int i) {
+		String suffix = Integer.toHexString(0x1000 + i).substring(1);
+		return new CycConstant(name, CycObjectFactory.makeGuid("c0ffe" + suffix + "-9c29-11b1-9dad-c379636f7270"));
+	}
+
+	/**
+	 * Makes a binary sentence.
+	 *
+	 * @param predicate the predicate
+	 * @param arg1 the first argument
+	 * @param arg2 the second argument
+	 * @return the sentence
+	 */
+	protected CycList makeSentence(CycConstant predicate, Object arg1, Object arg2) {
+		CycList sentence = new CycList(predicate);
+		sentence.add(arg1);
+		sentence.add(arg2);
+		return sentence;
+	}
+
+	/**
+	 * Provides a connection which answers the constant requests of
+	 * CycAssertionsFactory and the bulk assertion requests without a Cyc server.
+	 * A sentence mentioning #$Rejected is not asserted, and a request mentioning
+	 * #$Failing fails as a whole.
+	 */
+	protected static class StubConnection implements CycConnectionInterface {
+
+		/**
+		 * The bulk assertion requests in the order received.
+		 */
+		protected ArrayList requests = new ArrayList();
+
+		/**
+		 * The number of constants looked up by name.
+		 */
+		protected int nbrConstants = 0;
+
+		public Object[] converse(Object message) throws IOException, CycApiException {
+			Object[] response = {Boolean.TRUE, null};
+			if (message instanceof CycList) {
+				// constant-info-from-guid-strings, answered with each guid as its name
+				CycList guidStrings = (CycList) ((CycList) ((CycList) message).second()).second();
+				CycList constantInfos = new CycList();
+				for (int i = 0; i < guidStrings.size(); i++) {
+					CycList constantInfo = new CycList(guidStrings.get(i));
+					constantInfo.add(guidStrings.get(i));
+					constantInfos.add(constantInfo);
+				}
+				response[1] = constantInfos;
+				return response;
+			}
+			String command = (String) message;
+			if (command.indexOf("ke-assert-now") < 0) {
+				if (command.startsWith("(guid-to-string"))
+					response[1] = "c0ffef" + Integer.toHexString(0x100 + nbrConstants).substring(1) +
+						"-9c29-11b1-9dad-c379636f7270";
+				else
+					response[1] = new Integer(++nbrConstants);
+				return response;
+			}
+			requests.add(command);
+			if (command.indexOf("#$Failing") > -1) {
+				response[0] = Boolean.FALSE;
+				response[1] = "cannot assert #$Failing";
+				return response;
+			}
+			String[] sentences = command.split("\\(pif ");
+			CycList asserted = new CycList();
+			for (int i = 1; i < sentences.length; i++) {
+				if (sentences[i].indexOf("#$Rejected") > -1)
+					asserted.add(CycObjectFactory.nil);
+				else
+					asserted.add(CycObjectFactory.t);
+			}
+			response[1] = asserted;
+			return response;
+		}
+
+		public Object[] converse(Object message, Timer timeout) throws IOException, CycApiException {
+			return converse(message);
+		}
+
+		public Object[] converseBinary(CycList message, Timer timeout) throws IOException, CycApiException {
+			return converse(message);
+		}
+
+		public void converseBinary(SubLWorker worker) {
+			throw new UnsupportedOperationException();
+		}
+
+		public String connectionInfo() {
+			return "stub connection";
+		}
+
+		public void close() {
+		}
+
+		public int getTrace() {
+			return 0;
+		}
+
+		public int getConnectionType() {
+			return CycAccess.PERSISTENT_CONNECTION;
+		}
+
+		public void setTrace(int trace) {
+		}
+
+		public void traceOff() {
+		}
+
+		public void traceOn() {
+		}
+
+		public void traceOnDetailed() {
+		}
+
+		public UUID getUuid() {
+			return null;
+		}
+
+		public String getHostName() {
+			return "localhost";
+		}
+
+		public int getBasePort() {
+			return 3600;
+		}
+
+		public void cancelCommunication(SubLWorker worker) {
+		}
+
+		public void abortCommunication(SubLWorker worker) {
+		}
+	}
+}
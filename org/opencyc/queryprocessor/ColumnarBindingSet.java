@@ -0,0 +1,163 @@
+package org.opencyc.queryprocessor;
+
+import java.util.*;
+
+/**
+ * <tt>ColumnarBindingSet</tt> object to hold the binding value rows of a join in
+ * column order, with each binding value replaced by the integer id given to it by the
+ * <tt>HashJoiner</tt>.  The hash joins compare and copy these ids rather than the
+ * binding value objects, and no row objects are created until the joined result is
+ * converted back into a <tt>BindingSet</tt>.<p>
+ *
+ * @version $Id$
+ *
+ * <p>Copyright 2001 Cycorp, Inc., license is open source GNU LGPL.
+ * <p><a href="http://www.opencyc.org/license.txt">the license</a>
+ * <p><a href="http://www.opencyc.org">www.opencyc.org</a>
+ * <p><a href="http://www.sourceforge.net/projects/opencyc">OpenCyc at SourceForge</a>
+ * <p>
+ * THIS SOFTWARE AND KNOWLEDGE BASE CONTENT ARE PROVIDED ``AS IS'' AND
+ * ANY EXPRESSED OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE OPENCYC
+ * ORGANIZATION OR ITS CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE AND KNOWLEDGE
+ * BASE CONTENT, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * @see HashJoiner
+ */
+public class ColumnarBindingSet {
+
+    /**
+     * The variables, in the order of the columns.
+     */
+    protected ArrayList variables;
+
+    /**
+     * The value id columns, one for each variable.
+     */
+    protected int[][] columns;
+
+    /**
+     * The number of rows.
+     */
+    protected int size = 0;
+
+    /**
+     * Constructs a new empty <tt>ColumnarBindingSet</tt> object.
+     *
+     * @param variables the variables, in the order of the columns
+     * @param capacity the initial number of rows for which space is allocated
+     */
+    public ColumnarBindingSet(ArrayList variables, int capacity) {
+        this.variables = variables;
+        columns = new int[variables.size()][Math.max(capacity, 1)];
+    }
+
+    /**
+     * Returns the variables, in the order of the columns.
+     *
+     * @return the variables, in the order of the columns
+     */
+    public ArrayList getVariables() {
+        return variables;
+    }
+
+    /**
+     * Returns the index of the column for the given variable, or -1 if the variable
+     * is not bound by this binding set.
+     *
+     * @param variable the variable
+     * @return the index of the column for the given variable, or -1 if the variable
+     * is not bound by this binding set
+     */
+    public int getColumnIndex(Object variable) {
+        return variables.indexOf(variable);
+    }
+
+    /**
+     * Returns the value id column at the given index.  Only the first <tt>size()</tt>
+     * entries are valid.
+     *
+     * @param index the column index
+     * @return the value id column at the given index
+     */
+    public int[] getColumn(int index) {
+        return columns[index];
+    }
+
+    /**
+     * Returns the number of rows.
+     *
+     * @return the number of rows
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Appends a row and returns its index, growing the columns when full.  The caller
+     * fills the row with <tt>set</tt>.
+     *
+     * @return the index of the appended row
+     */
+    public int addRow() {
+        if (columns.length > 0 && size == columns[0].length) {
+            int newCapacity = size * 2;
+            for (int i = 0; i < columns.length; i++) {
+                int[] column = new int[newCapacity];
+                System.arraycopy(columns[i], 0, column, 0, size);
+                columns[i] = column;
+            }
+        }
+        return size++;
+    }
+
+    /**
+     * Sets the value id at the given row and column.
+     *
+     * @param row the row index
+     * @param column the column index
+     * @param valueId the value id
+     */
+    public void set(int row, int column, int valueId) {
+        columns[column][row] = valueId;
+    }
+
+    /**
+     * Returns the number of distinct value id tuples in the given columns.
+     *
+     * @param columnIndices the column indices which form the tuple
+     * @return the number of distinct value id tuples in the given columns
+     */
+    public int countDistinct(int[] columnIndices) {
+        if (columnIndices.length == 0)
+            return Math.min(size, 1);
+        HashSet tuples = new HashSet();
+        for (int row = 0; row < size; row++) {
+            if (columnIndices.length == 1)
+                tuples.add(new Integer(columns[columnIndices[0]][row]));
+            else {
+                StringBuffer tuple = new StringBuffer();
+                for (int j = 0; j < columnIndices.length; j++)
+                    tuple.append(columns[columnIndices[j]][row]).append(',');
+                tuples.add(tuple.toString());
+            }
+        }
+        return tuples.size();
+    }
+
+    /**
+     * Returns a <tt>String</tt> representation of the <tt>ColumnarBindingSet</tt> object.
+     *
+     * @return a <tt>String</tt> representation of the <tt>ColumnarBindingSet</tt> object
+     */
+    public String toString() {
+        return "columnar binding set for " + variables + " with size " + size;
+    }
+}
@@ -47,6 +47,31 @@ public class HashJoiner {
      */
     ArrayList remainingBindingSets;
 
+    /**
+     * When <tt>true</tt>, binding sets which share no variables with the binding sets joined
+     * so far are joined as a cartesian product.  Otherwise such a query is rejected, because
+     * the product of its disconnected literals is seldom what was intended and its size is
+     * the product of theirs.
+     */
+    public boolean allowCartesianProducts = false;
+
+    /**
+     * The dictionary of binding value ids, binding value --> Integer id.
+     */
+    protected HashMap valueIds = new HashMap();
+
+    /**
+     * The binding values indexed by their ids.
+     */
+    protected ArrayList idValues = new ArrayList();
+
+    /**
+     * The columnar forms of the instantiated binding sets being joined, binding set -->
+     * <tt>ColumnarBindingSet</tt>, so that each is built once for both the join planning and
+     * the join.  The column values are ids from <tt>valueIds</tt>, and so are cleared with it.
+     */
+    protected IdentityHashMap columnarBindingSets = new IdentityHashMap();
+
     /**
      * The default verbosity of the solution output.  0 --> quiet ... 9 -> maximum
      * diagnostic input.
@@ -66,55 +91,164 @@ public class HashJoiner {
     }
 
     /**
-     * Joins the given binding sets into a single binding set.
+     * Joins the given binding sets into a single binding set, in the order given by
+     * <tt>planJoinOrder</tt>.  Consecutive hash joins are performed on columns of binding
+     * value ids, and the joined binding value lists are only created for the final result,
+     * or when a postponed binding set is to be joined by selection.
      *
      * @param bindingSets the list of binding sets to be joined
      * @return the binding set which is the result of the join operation
      */
     public BindingSet join(ArrayList bindingSets) throws IOException {
-        remainingBindingSets = (ArrayList) bindingSets.clone();
         if (bindingSets.size() == 0)
             throw new RuntimeException("Invalid binding sets size " + bindingSets.size());
-        Collections.sort(remainingBindingSets);
-        BindingSet joinedBindingSet = (BindingSet) remainingBindingSets.get(0);
-        remainingBindingSets.remove(0);
+        valueIds.clear();
+        idValues.clear();
+        columnarBindingSets.clear();
+        ArrayList joinOrder = planJoinOrder(bindingSets);
+        BindingSet joinedBindingSet = (BindingSet) joinOrder.get(0);
         if (verbosity > 4)
             System.out.println("Starting binding set for join is \n" + joinedBindingSet);
-        int index;
+        if (joinedBindingSet.isBindingPostponed())
+            // The starting binding set has the smallest estimated size, so is the cheapest to ask.
+            literalAsker.ask(joinedBindingSet);
+        CycFort mt = joinedBindingSet.getMt();
+        QueryLiteral joinedQueryLiteral = joinedBindingSet.getQueryLiteral();
+        // When not null, holds the rows of the join so far in place of joinedBindingSet.
+        ColumnarBindingSet joinedColumns = null;
+        for (int i = 1; i < joinOrder.size(); i++) {
+            BindingSet bindingSet = (BindingSet) joinOrder.get(i);
+            if (verbosity > 4)
+                System.out.println("  next binding set for join \n  " + bindingSet);
+            boolean isCartesianProduct = ! OcCollectionUtils.hasIntersection(joinedQueryLiteral.getVariables(),
+                                                                             bindingSet.getVariables());
+            int joinedSize = joinedColumns == null ? joinedBindingSet.size() : joinedColumns.size();
+            if (bindingSet.isBindingPostponed()) {
+                if (! isCartesianProduct && joinedSize < bindingSet.size()) {
+                    if (joinedColumns != null) {
+                        joinedBindingSet = makeBindingSet(joinedQueryLiteral, joinedColumns, mt);
+                        joinedColumns = null;
+                    }
+                    joinedBindingSet = joinSelection(joinedBindingSet, bindingSet);
+                    joinedQueryLiteral = joinedBindingSet.getQueryLiteral();
+                    continue;
+                }
+                literalAsker.ask(bindingSet);
+            }
+            if (joinedColumns == null)
+                joinedColumns = makeColumnarBindingSet(joinedBindingSet);
+            ColumnarBindingSet columns = getColumnarBindingSet(bindingSet);
+            joinedQueryLiteral = QueryLiteral.conjoin(joinedQueryLiteral, bindingSet.getQueryLiteral());
+            if (isCartesianProduct)
+                joinedColumns = joinCartesianProduct(joinedColumns, columns, joinedQueryLiteral.getVariables());
+            else
+                joinedColumns = joinBuildProbe(joinedColumns, columns, joinedQueryLiteral.getVariables());
+            if (verbosity > 4)
+                System.out.println("  joined " + joinedQueryLiteral.cyclify() + "\n    with size " +
+                                   joinedColumns.size());
+        }
+        if (joinedColumns != null)
+            joinedBindingSet = makeBindingSet(joinedQueryLiteral, joinedColumns, mt);
+        valueIds.clear();
+        idValues.clear();
+        columnarBindingSets.clear();
+        if (verbosity > 3 && joinOrder.size() > 1) {
+            System.out.println();
+            joinedBindingSet.displayBindingSet();
+            System.out.println();
+        }
+        return joinedBindingSet;
+    }
+
+    /**
+     * Returns the order in which the given binding sets are to be joined.  The binding set
+     * with the smallest estimated size is joined first.  Thereafter the binding set sharing
+     * variables with those already joined, and whose join has the smallest estimated
+     * cardinality, is joined next.  The size estimates are the KB instance counts given by
+     * <tt>BindingSet.getNbrInstances</tt> for postponed binding sets, and the actual sizes for
+     * the others.
+     *
+     * @param bindingSets the list of binding sets to be joined
+     * @return the list of binding sets in join order
+     * @throws RuntimeException when a cartesian product would be required but
+     * <tt>allowCartesianProducts</tt> is <tt>false</tt>
+     */
+    public ArrayList planJoinOrder(ArrayList bindingSets) {
+        remainingBindingSets = (ArrayList) bindingSets.clone();
+        Collections.sort(remainingBindingSets);
+        ArrayList joinOrder = new ArrayList(bindingSets.size());
+        BindingSet firstBindingSet = (BindingSet) remainingBindingSets.remove(0);
+        joinOrder.add(firstBindingSet);
+        HashSet joinedVariables = new HashSet(firstBindingSet.getVariables());
+        double joinedCardinality = firstBindingSet.size();
+        if (verbosity > 3)
+            System.out.println("Join plan\n  " + firstBindingSet + "\n    estimated join size " +
+                               (long) joinedCardinality);
         while (remainingBindingSets.size() > 0) {
-            index = -1;
-            for (int i = 1; i < remainingBindingSets.size(); i++) {
+            int index = -1;
+            double bestCardinality = Double.MAX_VALUE;
+            for (int i = 0; i < remainingBindingSets.size(); i++) {
                 BindingSet remainingBindingSet = (BindingSet) remainingBindingSets.get(i);
-                ArrayList joinedBindingSetVariables = joinedBindingSet.getVariables();
-                ArrayList remainingBindingSetVariables = remainingBindingSet.getVariables();
-                if (verbosity > 4)
-                    System.out.println("  candidate binding set \n  " + remainingBindingSet);
-                if (OcCollectionUtils.hasIntersection(joinedBindingSetVariables,
-                                                      remainingBindingSetVariables)) {
+                if (! OcCollectionUtils.hasIntersection(joinedVariables, remainingBindingSet.getVariables()))
+                    continue;
+                double cardinality = estimateJoinCardinality(joinedCardinality,
+                                                             joinedVariables,
+                                                             remainingBindingSet);
+                if (cardinality < bestCardinality) {
                     index = i;
-                    break;
+                    bestCardinality = cardinality;
                 }
             }
-            BindingSet bestBindingSetForJoin;
             if (index == -1) {
+                if (! allowCartesianProducts)
+                    throw new RuntimeException("Cartesian product required to join " + remainingBindingSets +
+                                               "\n  which share no variables with " + joinedVariables);
                 index = 0;
-                bestBindingSetForJoin = (BindingSet) remainingBindingSets.get(index);
-                if (verbosity > 4)
-                    System.out.println("  no binding set has variables in common");
-                joinedBindingSet = joinCartesianProduct(joinedBindingSet, bestBindingSetForJoin);
-            }
-            else {
-                bestBindingSetForJoin = (BindingSet) remainingBindingSets.get(index);
-                if (verbosity > 4)
-                    System.out.println("  best binding set for join \n  " + bestBindingSetForJoin);
-                joinedBindingSet = join(joinedBindingSet, bestBindingSetForJoin);
+                bestCardinality = joinedCardinality * ((BindingSet) remainingBindingSets.get(0)).size();
+                if (verbosity > 3)
+                    System.out.println("  no binding set has variables in common, joining as cartesian product");
             }
-            remainingBindingSets.remove(index);
+            BindingSet bindingSet = (BindingSet) remainingBindingSets.remove(index);
+            joinOrder.add(bindingSet);
+            joinedVariables.addAll(bindingSet.getVariables());
+            joinedCardinality = bestCardinality;
+            if (verbosity > 3)
+                System.out.println("  " + bindingSet + "\n    estimated join size " + (long) joinedCardinality);
         }
-        if (joinedBindingSet.isBindingPostponed())
-            // Ensure that a single literal query gets asked.
-            literalAsker.ask(joinedBindingSet);
-        return joinedBindingSet;
+        return joinOrder;
+    }
+
+    /**
+     * Returns the estimated number of rows resulting from the join of the given binding set
+     * with binding sets already joined.  Each joined row is assumed to match the average
+     * number of rows of the given binding set having the same values for the shared
+     * variables.  That average is known when the binding set has been asked, and otherwise
+     * the shared variables are assumed to determine a single row, so that the join is no
+     * larger than either of its inputs.
+     *
+     * @param joinedCardinality the estimated number of rows joined so far
+     * @param joinedVariables the set of variables joined so far
+     * @param bindingSet the candidate binding set
+     * @return the estimated number of rows resulting from the join
+     */
+    protected double estimateJoinCardinality(double joinedCardinality,
+                                             Set joinedVariables,
+                                             BindingSet bindingSet) {
+        int size = bindingSet.size();
+        if (bindingSet.isBindingPostponed() || size == 0)
+            return Math.min(joinedCardinality, size);
+        ArrayList variables = bindingSet.getVariables();
+        int nbrSharedVariables = 0;
+        for (int k = 0; k < variables.size(); k++)
+            if (joinedVariables.contains(variables.get(k)))
+                nbrSharedVariables++;
+        int[] sharedIndices = new int[nbrSharedVariables];
+        int j = 0;
+        for (int k = 0; k < variables.size(); k++)
+            if (joinedVariables.contains(variables.get(k)))
+                sharedIndices[j++] = k;
+        int nbrKeys = getColumnarBindingSet(bindingSet).countDistinct(sharedIndices);
+        return joinedCardinality * size / nbrKeys;
     }
 
     /**
@@ -153,6 +287,7 @@ public class HashJoiner {
      * @param bindingSet1 the first binding set
      * @param bindingSet2 the second binding set
      * @return the binding set which is the result of the product join operation
+     * @throws RuntimeException when <tt>allowCartesianProducts</tt> is <tt>false</tt>
      */
     public BindingSet joinCartesianProduct(BindingSet bindingSet1,
                                            BindingSet bindingSet2) throws IOException {
@@ -160,25 +295,24 @@ public class HashJoiner {
             System.out.println("Joining (cartesian product)\n  first " +
                                bindingSet1 +
                                "\n    with variables " + bindingSet1.getVariables() +
-                               "\n  uninstantiated " + bindingSet2 +
+                               "\n  second " + bindingSet2 +
                                "\n    with variables " + bindingSet2.getVariables());
-
+        if (! allowCartesianProducts)
+            throw new RuntimeException("Cartesian product required to join \n" + bindingSet1 +
+                                       "\n" + bindingSet2);
+        if (bindingSet1.isBindingPostponed())
+            literalAsker.ask(bindingSet1);
+        if (bindingSet2.isBindingPostponed())
+            literalAsker.ask(bindingSet2);
         QueryLiteral joinedQueryLiteral = QueryLiteral.conjoin(bindingSet1.getQueryLiteral(),
                                                                bindingSet2.getQueryLiteral());
         if (verbosity > 4)
             System.out.println("  joined query \n  " + joinedQueryLiteral.cyclify() +
                                "\n    with variables " + joinedQueryLiteral.getVariables());
-        BindingSet joinedBindingSet = new BindingSet(joinedQueryLiteral, bindingSet1.getMt());
-        ArrayList cartesianProduct = new ArrayList();
-        if (bindingSet1.isCartesianProduct())
-            cartesianProduct.add(bindingSet1.getCartesianProductBindingSets());
-        else
-            cartesianProduct.add(bindingSet1);
-        if (bindingSet2.isCartesianProduct())
-            cartesianProduct.add(bindingSet2.getCartesianProductBindingSets());
-        else
-            cartesianProduct.add(bindingSet2);
-        return joinedBindingSet;
+        ColumnarBindingSet joinedColumns = joinCartesianProduct(makeColumnarBindingSet(bindingSet1),
+                                                                makeColumnarBindingSet(bindingSet2),
+                                                                joinedQueryLiteral.getVariables());
+        return makeBindingSet(joinedQueryLiteral, joinedColumns, bindingSet1.getMt());
     }
 
     /**
@@ -203,20 +337,16 @@ public class HashJoiner {
         if (verbosity > 4)
             System.out.println("  joined query \n  " + joinedQueryLiteral.cyclify() +
                                "\n    with variables " + joinedQueryLiteral.getVariables());
+        // The binding values are asked below, so the KB need not count the joined formula instances.
+        joinedQueryLiteral.nbrFormulaInstances = smallerBindingSet.size();
         BindingSet joinedBindingSet = new BindingSet(joinedQueryLiteral, smallerBindingSet.getMt());
-
-        if (smallerBindingSet.isCartesianProduct()) {
-            //TODO
-        }
-        else {
-            ArrayList bindingLists = null;
-            for (int i = 0; i < smallerBindingSet.size(); i++)
-                joinedBindingSet.addAll(literalAsker.ask(joinedQueryLiteral,
-                                                         uninstantiatedBindingSet.getQueryLiteral(),
-                                                         smallerBindingSet.getVariables(),
-                                                         (ArrayList) smallerBindingSet.getBindingValues().get(i),
-                                                         smallerBindingSet.getMt()));
-            }
+        joinedBindingSet.setBindingValues(new ArrayList());
+        for (int i = 0; i < smallerBindingSet.size(); i++)
+            joinedBindingSet.addAll(literalAsker.ask(joinedQueryLiteral,
+                                                     uninstantiatedBindingSet.getQueryLiteral(),
+                                                     smallerBindingSet.getVariables(),
+                                                     (ArrayList) smallerBindingSet.getBindingValues().get(i),
+                                                     smallerBindingSet.getMt()));
         if (verbosity > 3) {
             System.out.println();
             joinedBindingSet.displayBindingSet();
@@ -228,8 +358,8 @@ public class HashJoiner {
     /**
      * Joins a probe binding set with a build binding set.
      *
-     * @param bindingSet1 the binding set from which a hash table is built
-     * @param bindingSet2 the binding set which is probed against the build binding set
+     * @param buildBindingSet the binding set from which a hash table is built
+     * @param probeBindingSet the binding set which is probed against the build binding set
      * @return the binding set which is the result of the join operation
      */
     public BindingSet joinBuildProbe(BindingSet buildBindingSet, BindingSet probeBindingSet)
@@ -245,122 +375,239 @@ public class HashJoiner {
         if (verbosity > 4)
             System.out.println("  joined query \n  " + joinedQueryLiteral.cyclify() +
                                "\n    with variables " + joinedQueryLiteral.getVariables());
+        if (! OcCollectionUtils.hasIntersection(buildBindingSet.getVariables(), probeBindingSet.getVariables()))
+            return joinCartesianProduct(buildBindingSet, probeBindingSet);
+        ColumnarBindingSet joinedColumns = joinBuildProbe(makeColumnarBindingSet(buildBindingSet),
+                                                          makeColumnarBindingSet(probeBindingSet),
+                                                          joinedQueryLiteral.getVariables());
+        BindingSet joinedBindingSet = makeBindingSet(joinedQueryLiteral, joinedColumns, buildBindingSet.getMt());
+        if (verbosity > 3) {
+            System.out.println();
+            joinedBindingSet.displayBindingSet();
+            System.out.println();
+        }
+        return joinedBindingSet;
+    }
 
-        BindingSet joinedBindingSet = new BindingSet(joinedQueryLiteral, buildBindingSet.getMt());
-        ArrayList intersectingVariables =
-            new ArrayList(CollectionUtils.intersection(buildBindingSet.getVariables(),
-                          probeBindingSet.getVariables()));
+    /**
+     * Hash joins two columnar binding sets on their shared variables.  A chained hash table
+     * of row indices is built from the smaller binding set, whose value id tuples for the
+     * shared variables are then probed by each row of the larger one.
+     *
+     * @param columns1 a columnar binding set to be joined
+     * @param columns2 another columnar binding set to be joined, sharing at least one variable
+     * with the first
+     * @param joinedVariables the variables of the joined binding set
+     * @return the columnar binding set which is the result of the join operation
+     */
+    protected ColumnarBindingSet joinBuildProbe(ColumnarBindingSet columns1,
+                                                ColumnarBindingSet columns2,
+                                                ArrayList joinedVariables) {
+        ColumnarBindingSet build = columns1.size() <= columns2.size() ? columns1 : columns2;
+        ColumnarBindingSet probe = build == columns1 ? columns2 : columns1;
+        ArrayList buildVariables = build.getVariables();
+        ArrayList keyColumnIndices = new ArrayList();
+        for (int k = 0; k < buildVariables.size(); k++)
+            if (probe.getColumnIndex(buildVariables.get(k)) != -1)
+                keyColumnIndices.add(new Integer(k));
+        int nbrKeys = keyColumnIndices.size();
+        int[][] buildKeys = new int[nbrKeys][];
+        int[][] probeKeys = new int[nbrKeys][];
+        for (int j = 0; j < nbrKeys; j++) {
+            int k = ((Integer) keyColumnIndices.get(j)).intValue();
+            buildKeys[j] = build.getColumn(k);
+            probeKeys[j] = probe.getColumn(probe.getColumnIndex(buildVariables.get(k)));
+        }
         if (verbosity > 4)
-            System.out.println("    intersecting variables " + intersectingVariables + "\n");
-
-        int intersectingVariablesSize = intersectingVariables.size();
-        if (intersectingVariablesSize == 0)
-            // TODO
-
-            throw new RuntimeException("product not yet implemented for \n" + buildBindingSet +
-                                       "\n" + probeBindingSet);
+            System.out.println("  Hash join, build size " + build.size() + ", probe size " + probe.size() +
+                               ", intersecting variables " + nbrKeys);
         // Build step.
-        HashMap hashMap = new HashMap();
-        ArrayList buildVariables = buildBindingSet.getVariables();
-        int buildVariablesSize = buildVariables.size();
-        if (verbosity > 4) {
-            System.out.println("  Starting build step, with build binding set size " + buildBindingSet.size());
-            for (int j = 0; j < intersectingVariablesSize; j++) {
-                for (int k = 0; k < buildVariablesSize; k++)
-                if (intersectingVariables.get(j).equals(buildVariables.get(k)))
-                    System.out.println("    intersecting variable " + intersectingVariables.get(j) +
-                                       " matches build variable at index " + k);
-            }
-        }
-        for (int i = 0; i < buildBindingSet.size(); i++) {
-            CycList key = new CycList();
-            CycList buildBindingValueList = (CycList) buildBindingSet.getBindingValues().get(i);
-            for (int j = 0; j < intersectingVariablesSize; j++) {
-                for (int k = 0; k < buildVariablesSize; k++)
-                if (intersectingVariables.get(j).equals(buildVariables.get(k)))
-                    key.add(buildBindingValueList.get(k));
-            }
-            if (! hashMap.containsKey(key))
-                hashMap.put(key, new ArrayList(3));
-            ArrayList bucket = (ArrayList) hashMap.get(key);
-            bucket.add(buildBindingValueList);
-            if (verbosity > 7)
-                System.out.println("  indexing " + buildBindingValueList.cyclify() +
-                                   "\n  key " + key.cyclify());
+        int buildSize = build.size();
+        int capacity = 1;
+        while (capacity < buildSize * 2)
+            capacity <<= 1;
+        int mask = capacity - 1;
+        int[] buckets = new int[capacity];
+        Arrays.fill(buckets, -1);
+        int[] nextRows = new int[Math.max(buildSize, 1)];
+        for (int row = 0; row < buildSize; row++) {
+            int bucket = hash(buildKeys, row) & mask;
+            nextRows[row] = buckets[bucket];
+            buckets[bucket] = row;
         }
         // Probe step.
-        ArrayList probeVariables = probeBindingSet.getVariables();
-        int probeVariablesSize = probeVariables.size();
-        ArrayList joinedVariables = joinedBindingSet.getVariables();
-        int joinedVariablesSize = joinedVariables.size();
-        if (verbosity > 4) {
-            System.out.println("  Starting probe step, with probe binding set size " + probeBindingSet.size());
-            for (int j = 0; j < intersectingVariablesSize; j++) {
-                for (int k = 0; k < probeVariablesSize; k++)
-                if (intersectingVariables.get(j).equals(probeVariables.get(k)))
-                    System.out.println("    intersecting variable " + intersectingVariables.get(j) +
-                                       " matches probe variable at index " + k);
-            }
-        }
-        for (int i = 0; i < probeBindingSet.size(); i++) {
-            CycList key = new CycList();
-            CycList probeBindingValueList = (CycList) probeBindingSet.getBindingValues().get(i);
-            for (int j = 0; j < intersectingVariablesSize; j++) {
-                for (int k = 0; k < probeVariablesSize; k++)
-                if (intersectingVariables.get(j).equals(probeVariables.get(k)))
-                    key.add(probeBindingValueList.get(k));
-            }
-            ArrayList bucket = (ArrayList) hashMap.get(key);
-            boolean keyFound = bucket != null;
-            if (verbosity > 7)
-                System.out.println("  probing " + probeBindingValueList.cyclify() + "\n    key " +
-                                   key.cyclify() + " --> " + keyFound);
-            else if (verbosity > 4 && keyFound)
-                System.out.println("  probing " + probeBindingValueList.cyclify() + "\n    key " +
-                                   key.cyclify() + " --> " + keyFound);
-            if (keyFound) {
-                for (int bucketIndex = 0; bucketIndex < bucket.size(); bucketIndex++) {
-                    // Assemble the joined binding set value list from the build and probe sets.
-                    CycList buildBindingValueList = (CycList) bucket.get(bucketIndex);
-                    CycList joinedBindingValueList = new CycList();
-                    for (int j = 0; j < joinedVariablesSize; j++) {
-                        CycVariable joinedVariable = (CycVariable) joinedVariables.get(j);
-                        boolean foundJoinedBindingValue = false;
-                        for (int k = 0; k < buildVariablesSize; k++) {
-                            if (joinedVariable.equals(buildVariables.get(k))) {
-                                foundJoinedBindingValue = true;
-                                joinedBindingValueList.add(buildBindingValueList.get(k));
-                                break;
-                            }
-                        }
-                        if (! foundJoinedBindingValue) {
-                            for (int k = 0; k < probeVariablesSize; k++) {
-                                if (joinedVariable.equals(probeVariables.get(k))) {
-                                    foundJoinedBindingValue = true;
-                                    joinedBindingValueList.add(probeBindingValueList.get(k));
-                                    break;
-                                }
-                            }
-                        }
-                        if (! foundJoinedBindingValue)
-                            throw new RuntimeException("Expected variable not found in joined binding sets \n" +
-                                                       buildBindingSet + "\n" + probeBindingSet);
+        int[][] sourceColumns = new int[joinedVariables.size()][];
+        boolean[] isBuildColumn = new boolean[joinedVariables.size()];
+        mapJoinedColumns(build, probe, joinedVariables, sourceColumns, isBuildColumn);
+        ColumnarBindingSet joined = new ColumnarBindingSet(joinedVariables, probe.size());
+        int probeSize = probe.size();
+        for (int probeRow = 0; probeRow < probeSize; probeRow++) {
+            int bucket = hash(probeKeys, probeRow) & mask;
+            for (int buildRow = buckets[bucket]; buildRow != -1; buildRow = nextRows[buildRow]) {
+                boolean isMatch = true;
+                for (int j = 0; j < nbrKeys; j++) {
+                    if (buildKeys[j][buildRow] != probeKeys[j][probeRow]) {
+                        isMatch = false;
+                        break;
                     }
-                    if (verbosity > 4) {
-                        System.out.println("    build binding value list         " + buildBindingValueList);
-                        System.out.println("    probe binding value list         " + probeBindingValueList);
-                        System.out.println("    adding joined binding value list " + joinedBindingValueList);
-                    }
-                    joinedBindingSet.add(joinedBindingValueList);
+                }
+                if (isMatch) {
+                    int joinedRow = joined.addRow();
+                    for (int j = 0; j < sourceColumns.length; j++)
+                        joined.set(joinedRow, j, sourceColumns[j][isBuildColumn[j] ? buildRow : probeRow]);
                 }
             }
         }
-        if (verbosity > 3) {
-            System.out.println();
-            joinedBindingSet.displayBindingSet();
-            System.out.println();
+        return joined;
+    }
+
+    /**
+     * Joins two columnar binding sets which share no variables, pairing every row of the
+     * first with every row of the second.
+     *
+     * @param columns1 the first columnar binding set
+     * @param columns2 the second columnar binding set
+     * @param joinedVariables the variables of the joined binding set
+     * @return the columnar binding set which is the result of the product join operation
+     */
+    protected ColumnarBindingSet joinCartesianProduct(ColumnarBindingSet columns1,
+                                                      ColumnarBindingSet columns2,
+                                                      ArrayList joinedVariables) {
+        int[][] sourceColumns = new int[joinedVariables.size()][];
+        boolean[] isFirstColumn = new boolean[joinedVariables.size()];
+        mapJoinedColumns(columns1, columns2, joinedVariables, sourceColumns, isFirstColumn);
+        ColumnarBindingSet joined = new ColumnarBindingSet(joinedVariables, columns1.size() * columns2.size());
+        for (int row1 = 0; row1 < columns1.size(); row1++) {
+            for (int row2 = 0; row2 < columns2.size(); row2++) {
+                int joinedRow = joined.addRow();
+                for (int j = 0; j < sourceColumns.length; j++)
+                    joined.set(joinedRow, j, sourceColumns[j][isFirstColumn[j] ? row1 : row2]);
+            }
         }
-        return joinedBindingSet;
+        return joined;
+    }
+
+    /**
+     * Finds, for each joined variable, the column of the first or second columnar binding set
+     * from which its value ids are copied.
+     *
+     * @param columns1 the first columnar binding set
+     * @param columns2 the second columnar binding set
+     * @param joinedVariables the variables of the joined binding set
+     * @param sourceColumns the returned source column for each joined variable
+     * @param isFirstColumn the returned indicator for each joined variable that its source column
+     * is in the first columnar binding set
+     */
+    protected void mapJoinedColumns(ColumnarBindingSet columns1,
+                                    ColumnarBindingSet columns2,
+                                    ArrayList joinedVariables,
+                                    int[][] sourceColumns,
+                                    boolean[] isFirstColumn) {
+        for (int j = 0; j < joinedVariables.size(); j++) {
+            Object joinedVariable = joinedVariables.get(j);
+            int k = columns1.getColumnIndex(joinedVariable);
+            isFirstColumn[j] = k != -1;
+            if (k == -1)
+                k = columns2.getColumnIndex(joinedVariable);
+            if (k == -1)
+                throw new RuntimeException("Expected variable " + joinedVariable +
+                                           " not found in joined binding sets \n" + columns1 + "\n" + columns2);
+            sourceColumns[j] = isFirstColumn[j] ? columns1.getColumn(k) : columns2.getColumn(k);
+        }
+    }
+
+    /**
+     * Returns the hash code of the given row's value id tuple.
+     *
+     * @param keys the key columns
+     * @param row the row index
+     * @return the hash code of the given row's value id tuple
+     */
+    protected static int hash(int[][] keys, int row) {
+        int h = 0;
+        for (int j = 0; j < keys.length; j++)
+            h = 31 * h + keys[j][row];
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        return h;
+    }
+
+    /**
+     * Returns the id for the given binding value, giving it the next id if it has none.
+     *
+     * @param value the binding value
+     * @return the id for the given binding value
+     */
+    protected int getValueId(Object value) {
+        Integer valueId = (Integer) valueIds.get(value);
+        if (valueId == null) {
+            valueId = new Integer(idValues.size());
+            valueIds.put(value, valueId);
+            idValues.add(value);
+        }
+        return valueId.intValue();
+    }
+
+    /**
+     * Returns the columnar form of the given instantiated binding set, which is built when
+     * first requested during a join.
+     *
+     * @param bindingSet the instantiated binding set
+     * @return the columnar form of the given binding set
+     */
+    protected ColumnarBindingSet getColumnarBindingSet(BindingSet bindingSet) {
+        ColumnarBindingSet columns = (ColumnarBindingSet) columnarBindingSets.get(bindingSet);
+        if (columns == null) {
+            columns = makeColumnarBindingSet(bindingSet);
+            columnarBindingSets.put(bindingSet, columns);
+        }
+        return columns;
+    }
+
+    /**
+     * Returns the columnar form of the given instantiated binding set.
+     *
+     * @param bindingSet the instantiated binding set
+     * @return the columnar form of the given binding set
+     */
+    protected ColumnarBindingSet makeColumnarBindingSet(BindingSet bindingSet) {
+        ArrayList bindingValues = bindingSet.getBindingValues();
+        ColumnarBindingSet columns = new ColumnarBindingSet(bindingSet.getVariables(), bindingValues.size());
+        int nbrVariables = bindingSet.getVariables().size();
+        for (int i = 0; i < bindingValues.size(); i++) {
+            List bindingValueList = (List) bindingValues.get(i);
+            int row = columns.addRow();
+            for (int k = 0; k < nbrVariables; k++)
+                columns.set(row, k, getValueId(bindingValueList.get(k)));
+        }
+        return columns;
+    }
+
+    /**
+     * Returns the binding set for the given query literal having the binding values of the
+     * given columnar binding set, whose variables are those of the query literal.
+     *
+     * @param queryLiteral the query literal
+     * @param columns the columnar binding set
+     * @param mt the microtheory in which the variable bindings were obtained
+     * @return the binding set for the given query literal
+     */
+    protected BindingSet makeBindingSet(QueryLiteral queryLiteral, ColumnarBindingSet columns, CycFort mt)
+        throws IOException {
+        // The binding values are known, so the KB need not count the formula instances.
+        queryLiteral.nbrFormulaInstances = columns.size();
+        BindingSet bindingSet = new BindingSet(queryLiteral, mt);
+        int nbrVariables = columns.getVariables().size();
+        ArrayList bindingValues = new ArrayList(columns.size());
+        for (int row = 0; row < columns.size(); row++) {
+            CycList bindingValueList = new CycList(nbrVariables);
+            for (int k = 0; k < nbrVariables; k++)
+                bindingValueList.add(idValues.get(columns.getColumn(k)[row]));
+            bindingValues.add(bindingValueList);
+        }
+        bindingSet.setBindingValues(bindingValues);
+        return bindingSet;
     }
 
     /**
@@ -372,4 +619,4 @@ public class HashJoiner {
     public void setVerbosity(int verbosity) {
         this.verbosity = verbosity;
     }
-}
\ No newline at end of file
+}
@@ -60,6 +60,18 @@ public class LiteralAsker {
      */
     public int formulaInstancesThreshold = DEFAULT_FORMULA_INSTANCES_THRESHOLD;
 
+    /**
+     * The maximum number of query literals which are asked concurrently.  Concurrent asks are
+     * only made when the <tt>CycAccess</tt> object uses a <tt>CycConnectionPool</tt>, otherwise
+     * the query literals are asked one after another.
+     */
+    public int nbrAskThreads = Integer.getInteger("org.opencyc.queryprocessor.askThreads", 4).intValue();
+
+    /**
+     * The <tt>LiteralAsk</tt> objects of the most recent asking of a list of query literals.
+     */
+    protected LiteralAsk[] literalAsks = new LiteralAsk[0];
+
     /**
      * Constructs a new <tt>LiteralAsker</tt> object.
      */
@@ -68,37 +80,115 @@ public class LiteralAsker {
 
     /**
      * Asks the KB about each of the given query literals on the condition that their estimated
-     * number of instances do not exceed the user-controlled threshold.
+     * number of instances do not exceed the user-controlled threshold.  The query literals are
+     * independent of one another until joined, so when the <tt>CycAccess</tt> object uses a
+     * <tt>CycConnectionPool</tt> up to <tt>nbrAskThreads</tt> of them are counted and asked
+     * concurrently.
      *
      * @param queryLiterals the query literals which are asked in the KB
      * @param mt the KB microtheory in which the query literals are asked
      * @return a list of variable binding sets for each literal.
      */
     public ArrayList ask(ArrayList queryLiterals, CycFort mt) throws IOException {
-        ArrayList result = new ArrayList();
-        for (int i = 0; i < queryLiterals.size(); i++) {
+        CycAccess cycAccess = CycAccess.current();
+        literalAsks = new LiteralAsk[queryLiterals.size()];
+        for (int i = 0; i < literalAsks.length; i++) {
             QueryLiteral queryLiteral = (QueryLiteral) queryLiterals.get(i);
-            BindingSet bindingSet = new BindingSet(queryLiteral, mt);
-            if (bindingSet.isUnary() &&
-                (bindingSet.getNbrInstances() < formulaInstancesThreshold ||
-                neverPostponeAskingForPredicate(queryLiteral.getPredicate()))) {
-                if (verbosity > 3)
-                    System.out.println("Asking " + queryLiteral.cyclify());
-                bindingSet.setBindingValues(CycAccess.current().askWithVariables(bindingSet.getQueryLiteral().getFormula(),
-                                                                                 bindingSet.getVariables(),
-                                                                                 bindingSet.getMt()));
-            }
-            else {
-                if (verbosity > 3)
-                    System.out.println("Postponed asking " + queryLiteral.cyclify());
+            literalAsks[i] = new LiteralAsk(queryLiteral,
+                                            mt,
+                                            cycAccess,
+                                            neverPostponeAskingForPredicate(queryLiteral.getPredicate()));
+        }
+        int nbrThreads = Math.min(nbrAskThreads, literalAsks.length);
+        if (nbrThreads > 1 && ! (cycAccess.getCycConnection() instanceof CycConnectionPool)) {
+            if (verbosity > 4)
+                System.out.println("Asking literals one after another without a connection pool");
+            nbrThreads = 1;
+        }
+        long startMillis = System.currentTimeMillis();
+        if (nbrThreads > 1)
+            askConcurrently(literalAsks, nbrThreads);
+        else
+            for (int i = 0; i < literalAsks.length; i++)
+                literalAsks[i].run();
+        ArrayList result = new ArrayList();
+        for (int i = 0; i < literalAsks.length; i++) {
+            LiteralAsk literalAsk = literalAsks[i];
+            if (literalAsk.exception instanceof IOException)
+                throw (IOException) literalAsk.exception;
+            else if (literalAsk.exception instanceof RuntimeException)
+                throw (RuntimeException) literalAsk.exception;
+            else if (literalAsk.exception != null)
+                throw new RuntimeException(literalAsk.exception.getMessage(), literalAsk.exception);
+            BindingSet bindingSet = literalAsk.getBindingSet();
+            if (verbosity > 3) {
+                if (bindingSet.isBindingPostponed())
+                    System.out.println("Postponed asking " + literalAsk.getQueryLiteral().cyclify() +
+                                       " (counted in " + literalAsk.getCountMillis() + " ms)");
+                else
+                    System.out.println("Asked " + literalAsk.getQueryLiteral().cyclify() +
+                                       " (counted in " + literalAsk.getCountMillis() + " ms, asked in " +
+                                       literalAsk.getAskMillis() + " ms)");
             }
             if (verbosity > 8)
                 bindingSet.displayBindingSet();
             result.add(bindingSet);
         }
+        if (verbosity > 3)
+            System.out.println("Asked " + literalAsks.length + " literals in " +
+                               (System.currentTimeMillis() - startMillis) + " ms using " + nbrThreads +
+                               (nbrThreads == 1 ? " thread" : " threads"));
         return result;
     }
 
+    /**
+     * Runs the given literal asks on the given number of threads, returning when all have
+     * completed.
+     *
+     * @param literalAsks the literal asks
+     * @param nbrThreads the number of threads
+     */
+    protected void askConcurrently(final LiteralAsk[] literalAsks, int nbrThreads) {
+        final int[] nextIndex = {0};
+        Runnable askRunner = new Runnable() {
+            public void run() {
+                while (true) {
+                    LiteralAsk literalAsk;
+                    synchronized (nextIndex) {
+                        if (nextIndex[0] == literalAsks.length)
+                            return;
+                        literalAsk = literalAsks[nextIndex[0]++];
+                    }
+                    literalAsk.run();
+                }
+            }
+        };
+        Thread[] threads = new Thread[nbrThreads];
+        for (int i = 0; i < nbrThreads; i++) {
+            threads[i] = new Thread(askRunner, "LiteralAsker-" + (i + 1));
+            threads[i].start();
+        }
+        for (int i = 0; i < nbrThreads; i++) {
+            while (threads[i].isAlive()) {
+                try {
+                    threads[i].join();
+                }
+                catch (InterruptedException e) {
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the <tt>LiteralAsk</tt> objects, giving the per-literal timings, of the most
+     * recent asking of a list of query literals.
+     *
+     * @return the <tt>LiteralAsk</tt> objects of the most recent asking of a list of query literals
+     */
+    public LiteralAsk[] getLiteralAsks() {
+        return literalAsks;
+    }
+
     /**
      * Asks the KB about the query literal contained in the given binding set.
      *
@@ -221,4 +311,126 @@ public class LiteralAsker {
     public void setVerbosity(int verbosity) {
         this.verbosity = verbosity;
     }
-}
\ No newline at end of file
+
+    /**
+     * <tt>LiteralAsk</tt> object to count the KB instances of one query literal, and to ask the
+     * KB for its bindings unless the asking is postponed, timing each step.
+     */
+    public class LiteralAsk implements Runnable {
+
+        /**
+         * The query literal.
+         */
+        protected QueryLiteral queryLiteral;
+
+        /**
+         * The KB microtheory in which the query literal is asked.
+         */
+        protected CycFort mt;
+
+        /**
+         * The <tt>CycAccess</tt> object which provides the OpenCyc api.
+         */
+        protected CycAccess cycAccess;
+
+        /**
+         * Indicates that the asking of the query literal is never postponed.
+         */
+        protected boolean neverPostpone;
+
+        /**
+         * The binding set for the query literal.
+         */
+        protected BindingSet bindingSet;
+
+        /**
+         * The milliseconds taken to count the KB instances of the query literal.
+         */
+        protected long countMillis = 0;
+
+        /**
+         * The milliseconds taken to ask the KB for the bindings of the query literal.
+         */
+        protected long askMillis = 0;
+
+        /**
+         * The exception thrown while counting or asking, or null if none.
+         */
+        protected Exception exception;
+
+        /**
+         * Constructs a new <tt>LiteralAsk</tt> object.
+         *
+         * @param queryLiteral the query literal
+         * @param mt the KB microtheory in which the query literal is asked
+         * @param cycAccess the <tt>CycAccess</tt> object which provides the OpenCyc api
+         * @param neverPostpone indicates that the asking of the query literal is never postponed
+         */
+        public LiteralAsk(QueryLiteral queryLiteral, CycFort mt, CycAccess cycAccess, boolean neverPostpone) {
+            this.queryLiteral = queryLiteral;
+            this.mt = mt;
+            this.cycAccess = cycAccess;
+            this.neverPostpone = neverPostpone;
+        }
+
+        /**
+         * Counts the KB instances of the query literal, and asks the KB for its bindings when
+         * the literal is unary and the count does not exceed the threshold.
+         */
+        public void run() {
+            try {
+                long startMillis = System.currentTimeMillis();
+                bindingSet = new BindingSet(queryLiteral, mt, cycAccess);
+                countMillis = System.currentTimeMillis() - startMillis;
+                if (bindingSet.isUnary() &&
+                    (bindingSet.getNbrInstances() < formulaInstancesThreshold || neverPostpone)) {
+                    startMillis = System.currentTimeMillis();
+                    bindingSet.setBindingValues(cycAccess.askWithVariables(queryLiteral.getFormula(),
+                                                                           bindingSet.getVariables(),
+                                                                           mt));
+                    askMillis = System.currentTimeMillis() - startMillis;
+                }
+            }
+            catch (Exception e) {
+                exception = e;
+            }
+        }
+
+        /**
+         * Returns the query literal.
+         *
+         * @return the query literal
+         */
+        public QueryLiteral getQueryLiteral() {
+            return queryLiteral;
+        }
+
+        /**
+         * Returns the binding set for the query literal.
+         *
+         * @return the binding set for the query literal
+         */
+        public BindingSet getBindingSet() {
+            return bindingSet;
+        }
+
+        /**
+         * Returns the milliseconds taken to count the KB instances of the query literal.
+         *
+         * @return the milliseconds taken to count the KB instances of the query literal
+         */
+        public long getCountMillis() {
+            return countMillis;
+        }
+
+        /**
+         * Returns the milliseconds taken to ask the KB for the bindings of the query literal,
+         * which is zero when the asking was postponed.
+         *
+         * @return the milliseconds taken to ask the KB for the bindings of the query literal
+         */
+        public long getAskMillis() {
+            return askMillis;
+        }
+    }
+}
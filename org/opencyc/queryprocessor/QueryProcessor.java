@@ -241,6 +241,15 @@ public class QueryProcessor {
         return solution.getSolutions();
     }
 
+    /**
+     * Returns the <tt>Backchainer</tt> for this <tt>QueryProcessor</tt>.
+     *
+     * @return the <tt>Backchainer</tt> for this <tt>QueryProcessor</tt>
+     */
+    public Backchainer getBackchainer() {
+        return backchainer;
+    }
+
     /**
      * Returns the variables used in the query.
      *
@@ -352,6 +361,24 @@ public class QueryProcessor {
         backchainer.setSbhlBackchain(sbhlBackchain);
     }
 
+    /**
+     * Sets whether query literals which share no variables with the others are joined as a
+     * cartesian product.  The default is false, in which case such a query is rejected.
+     *
+     * @param allowCartesianProducts whether query literals which share no variables with the
+     * others are joined as a cartesian product
+     */
+    public void setAllowCartesianProducts(boolean allowCartesianProducts) {
+        hashJoiner.allowCartesianProducts = allowCartesianProducts;
+    }
 
-
-}
\ No newline at end of file
+    /**
+     * Sets the maximum number of query literals which are asked concurrently over the
+     * connection pool.  A value of one asks the query literals one after another.
+     *
+     * @param nbrAskThreads the maximum number of query literals which are asked concurrently
+     */
+    public void setNbrAskThreads(int nbrAskThreads) {
+        literalAsker.nbrAskThreads = nbrAskThreads;
+    }
+}
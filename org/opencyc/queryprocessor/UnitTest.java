@@ -63,6 +63,8 @@ public class UnitTest extends TestCase {
             testSuite.addTest(new UnitTest("testQueryParser"));
             testSuite.addTest(new UnitTest("testLiteralAsker1"));
             testSuite.addTest(new UnitTest("testHashJoiner"));
+            testSuite.addTest(new UnitTest("testColumnarBindingSet"));
+            testSuite.addTest(new UnitTest("testJoinOrder"));
             testSuite.addTest(new UnitTest("testQueryProcessor1"));
             testSuite.addTest(new UnitTest("testQueryProcessor4"));
             testSuite.addTest(new UnitTest("testQueryProcessor5"));
@@ -258,6 +260,118 @@ public class UnitTest extends TestCase {
         System.out.println("** testHashJoiner OK **");
     }
 
+    /**
+     * Tests the <tt>ColumnarBindingSet</tt> class.
+     */
+    public void testColumnarBindingSet() {
+        System.out.println("** testColumnarBindingSet **");
+
+        ArrayList variables = new ArrayList();
+        variables.add(CycObjectFactory.makeCycVariable("?x"));
+        variables.add(CycObjectFactory.makeCycVariable("?y"));
+        ColumnarBindingSet columns = new ColumnarBindingSet(variables, 1);
+        Assert.assertEquals(0, columns.size());
+        Assert.assertEquals(0, columns.countDistinct(new int[0]));
+        Assert.assertEquals(1, columns.getColumnIndex(CycObjectFactory.makeCycVariable("?y")));
+        Assert.assertEquals(-1, columns.getColumnIndex(CycObjectFactory.makeCycVariable("?z")));
+        // (1 1) (1 2) (2 1) (1 1), which grows the columns past their initial capacity.
+        int[][] rows = {{1, 1}, {1, 2}, {2, 1}, {1, 1}};
+        for (int i = 0; i < rows.length; i++) {
+            int row = columns.addRow();
+            Assert.assertEquals(i, row);
+            columns.set(row, 0, rows[i][0]);
+            columns.set(row, 1, rows[i][1]);
+        }
+        Assert.assertEquals(4, columns.size());
+        Assert.assertEquals(2, columns.getColumn(0)[2]);
+        Assert.assertEquals(2, columns.getColumn(1)[1]);
+        Assert.assertEquals(1, columns.countDistinct(new int[0]));
+        Assert.assertEquals(2, columns.countDistinct(new int[] {0}));
+        Assert.assertEquals(2, columns.countDistinct(new int[] {1}));
+        Assert.assertEquals(3, columns.countDistinct(new int[] {0, 1}));
+
+        System.out.println("** testColumnarBindingSet OK **");
+    }
+
+    /**
+     * Tests the join order planned by the <tt>HashJoiner</tt> class, without the KB.
+     */
+    public void testJoinOrder() {
+        System.out.println("** testJoinOrder **");
+
+        try {
+            // (p ?x ?y) with 2 rows.
+            BindingSet bindingSet1 = makeBindingSet("p", new String[] {"?x", "?y"},
+                                                    new Object[][] {{"a", "b"}, {"c", "d"}});
+            // (q ?y ?z) with 4 rows all having the same ?y, estimated to join 2 * 4 / 1 rows.
+            BindingSet bindingSet2 = makeBindingSet("q", new String[] {"?y", "?z"},
+                                                    new Object[][] {{"b", "1"}, {"b", "2"}, {"b", "3"}, {"b", "4"}});
+            // (r ?y ?u) with 4 rows having distinct ?y, estimated to join 2 * 4 / 4 rows.
+            BindingSet bindingSet3 = makeBindingSet("r", new String[] {"?y", "?u"},
+                                                    new Object[][] {{"b", "5"}, {"d", "6"}, {"e", "7"}, {"f", "8"}});
+            ArrayList bindingSets = new ArrayList();
+            bindingSets.add(bindingSet2);
+            bindingSets.add(bindingSet3);
+            bindingSets.add(bindingSet1);
+            HashJoiner hashJoiner = new HashJoiner();
+            hashJoiner.setVerbosity(0);
+            ArrayList joinOrder = hashJoiner.planJoinOrder(bindingSets);
+            Assert.assertEquals(3, joinOrder.size());
+            Assert.assertSame(bindingSet1, joinOrder.get(0));
+            Assert.assertSame(bindingSet3, joinOrder.get(1));
+            Assert.assertSame(bindingSet2, joinOrder.get(2));
+
+            // (s ?w) shares no variables with the others.
+            BindingSet bindingSet4 = makeBindingSet("s", new String[] {"?w"},
+                                                    new Object[][] {{"g"}});
+            bindingSets.add(bindingSet4);
+            try {
+                hashJoiner.planJoinOrder(bindingSets);
+                Assert.fail("cartesian product should be rejected");
+            }
+            catch (RuntimeException e) {
+            }
+            hashJoiner.allowCartesianProducts = true;
+            joinOrder = hashJoiner.planJoinOrder(bindingSets);
+            Assert.assertEquals(4, joinOrder.size());
+            Assert.assertSame(bindingSet4, joinOrder.get(0));
+            Assert.assertSame(bindingSet1, joinOrder.get(1));
+            Assert.assertSame(bindingSet3, joinOrder.get(2));
+            Assert.assertSame(bindingSet2, joinOrder.get(3));
+        }
+        catch (Exception e) {
+            e.printStackTrace();
+            Assert.fail(e.getMessage());
+        }
+
+        System.out.println("** testJoinOrder OK **");
+    }
+
+    /**
+     * Returns an instantiated binding set for the given predicate and variables, whose
+     * formula instances are not counted by the KB.
+     *
+     * @param predicateName the predicate symbol name
+     * @param variableNames the variable names
+     * @param rows the binding values, in the order of the variables
+     * @return an instantiated binding set for the given predicate and variables
+     */
+    protected BindingSet makeBindingSet(String predicateName, String[] variableNames, Object[][] rows)
+        throws IOException, CycApiException {
+        CycList formula = new CycList();
+        formula.add(CycObjectFactory.makeCycSymbol(predicateName));
+        for (int i = 0; i < variableNames.length; i++)
+            formula.add(CycObjectFactory.makeCycVariable(variableNames[i]));
+        QueryLiteral queryLiteral = new QueryLiteral(formula);
+        queryLiteral.nbrFormulaInstances = rows.length;
+        BindingSet bindingSet = new BindingSet(queryLiteral, null);
+        ArrayList bindingValues = new ArrayList();
+        for (int i = 0; i < rows.length; i++)
+            bindingValues.add(new CycList(Arrays.asList(rows[i])));
+        bindingSet.setBindingValues(bindingValues);
+        return bindingSet;
+    }
+
     /**
      * Tests the <tt>QueryProcessor</tt> class.
      */
@@ -0,0 +1,168 @@
+package org.opencyc.soap;
+
+//// Internal Imports
+import org.opencyc.api.*;
+import org.opencyc.cycobject.CycList;
+import org.opencyc.util.Log;
+
+//// External Imports
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+
+/** Provides a Cyc binary (CFASL) API connection via plain HTTP, without the XML SOAP
+ * envelope and Base64 encoding of SOAPBinaryCycConnection.  Each request is POSTed as
+ * raw CFASL to a CfaslHttpServlet endpoint, and the raw CFASL reply is decoded directly
+ * from the response stream.  The Axis libraries are not required.
+ *
+ * <p>Copyright 2004 Cycorp, Inc., license is open source GNU LGPL.
+ * <p><a href="http://www.opencyc.org/license.txt">the license</a>
+ * <p><a href="http://www.opencyc.org">www.opencyc.org</a>
+ * <p><a href="http://www.sourceforge.net/projects/opencyc">OpenCyc at SourceForge</a>
+ * <p>
+ * THIS SOFTWARE AND KNOWLEDGE BASE CONTENT ARE PROVIDED ``AS IS'' AND
+ * ANY EXPRESSED OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE OPENCYC
+ * ORGANIZATION OR ITS CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE AND KNOWLEDGE
+ * BASE CONTENT, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * @version $Id$
+ */
+public class CfaslHttpCycConnection extends RemoteBinaryCycConnection {
+  
+  //// Constructors
+  
+  /** Creates a new instance of CfaslHttpCycConnection using the default endpoint URL
+   * and Cyc server.
+   */
+  public CfaslHttpCycConnection() throws IOException {
+    this(new URL(DEFAULT_ENDPOINT_URL),
+         CfaslHttpServlet.DEFAULT_HOSTNAME,
+         Integer.parseInt(CfaslHttpServlet.DEFAULT_PORT),
+         null);
+  }
+  
+  /** Creates a new instance of CfaslHttpCycConnection using the given endpoint URL and the given
+   * CycAccess API method provider.
+   *
+   * @param endpointURL the CFASL HTTP endpoint URL which indicates the Cyc API web services host
+   * @param hostName the name of the computer hosting the Cyc server
+   * @param basePort the tcp base listening port
+   * @param cycAccess the parent CycAccess object, or null when the connection is to be
+   * wrapped by a new CycAccess object
+   */
+  public CfaslHttpCycConnection(final URL endpointURL, 
+                                final String hostName,
+                                final int basePort,
+                                final CycAccess cycAccess) throws IOException {
+    super(endpointURL, hostName, basePort, cycAccess);
+    final String query = "hostname=" + URLEncoder.encode(hostName, "UTF-8") + "&port=" + basePort;
+    interactorURL = new URL(endpointURL.toExternalForm() +
+                            (endpointURL.getQuery() == null ? "?" : "&") + query);
+  }
+  
+  //// Public Area
+  
+  /** the content type of raw CFASL request and response bodies */
+  public static final String CFASL_CONTENT_TYPE = "application/x-cfasl";
+  
+  /** the default CFASL HTTP endpoint URL */
+  public static final String DEFAULT_ENDPOINT_URL = "http://localhost:8080/opencyc/cfasl";
+
+  /** Returns connection information, suitable for diagnostics.
+   *
+   * @return connection information, suitable for diagnostics
+   */
+  public String connectionInfo() {
+    return "Cyc API CFASL HTTP Service at " + endpointURL.toString();
+  }
+  
+  //// Protected Area
+  
+  /** POSTs the binary (CFASL) request and decodes the binary (CFASL) response as it is
+   * streamed back.
+   *
+   * @param apiRequest the given SubL request which will be submitted to the Cyc server for evaluation
+   * @return the result of evaluating the given SubL request
+   * @throws IOException when the HTTP request fails or its response cannot be decoded
+   */
+  protected Object post(final CycList apiRequest) throws IOException {
+    final HttpURLConnection httpURLConnection = (HttpURLConnection) interactorURL.openConnection();
+    httpURLConnection.setRequestMethod("POST");
+    httpURLConnection.setDoOutput(true);
+    httpURLConnection.setUseCaches(false);
+    httpURLConnection.setRequestProperty("Content-Type", CFASL_CONTENT_TYPE);
+    final CfaslOutputStream cfaslOutputStream =
+      new CfaslOutputStream(new BufferedOutputStream(httpURLConnection.getOutputStream()));
+    cfaslOutputStream.trace = trace;
+    cfaslOutputStream.writeObject(apiRequest);
+    cfaslOutputStream.close();
+    final int responseCode = httpURLConnection.getResponseCode();
+    if (responseCode != HttpURLConnection.HTTP_OK)
+      throw new IOException("CFASL HTTP request to " + endpointURL + " failed: " + 
+                            responseCode + " " + httpURLConnection.getResponseMessage());
+    final InputStream inputStream = httpURLConnection.getInputStream();
+    try {
+      final CfaslInputStream cfaslInputStream = new CfaslInputStream(new BufferedInputStream(inputStream));
+      cfaslInputStream.trace = trace;
+      return cfaslInputStream.readObject();
+    }
+    finally {
+      inputStream.close();
+    }
+  }
+  
+  //// Internal Rep
+
+  /** the endpoint URL with the Cyc server host and port request parameters */
+  private URL interactorURL;
+  
+ //// Main
+  
+  /** Provides the main method for the testing the CfaslHttpCycConnection.
+   *
+   * @param args the command line arguments, optionally the endpoint URL, Cyc host and Cyc port
+   */
+  public static void main(final String[] args) {
+    Log.makeLog("CfaslHttpCycConnection.log");
+    try {
+      final URL endpointURL = new URL(args.length > 0 ? args[0] : DEFAULT_ENDPOINT_URL);
+      final String hostname = args.length > 1 ? args[1] : CfaslHttpServlet.DEFAULT_HOSTNAME;
+      final int port = Integer.parseInt(args.length > 2 ? args[2] : CfaslHttpServlet.DEFAULT_PORT);
+      final CfaslHttpCycConnection cfaslHttpCycConnection =
+        new CfaslHttpCycConnection(endpointURL, hostname, port, null);
+      final CycAccess cycAccess = new CycAccess(cfaslHttpCycConnection);
+      Log.current.println("CycAccess created");
+      final CycList query = new CycList();
+      query.add(CycObjectFactory.makeCycSymbol("+"));
+      query.add(new Integer(1));
+      query.add(new Integer(1));
+      Log.current.println("cycAccess result=" + cycAccess.converseObject(query));
+      Object[] response = cfaslHttpCycConnection.converse(query);
+      Log.current.println("response[0]=" + response[0].toString());
+      Log.current.println("response[1]=" + response[1].toString());
+      final CycList request = new CycList();
+      request.add(CycObjectFactory.makeCycSymbol("find-constant"));
+      request.add("Brazil");
+      Log.current.println("cycAccess request=" + request.toString());
+      Log.current.println("cycAccess result=" + cycAccess.converseObject(request));
+      cycAccess.close();
+    }
+    catch( Exception e ) {
+      Log.current.errorPrintln(e.getMessage());
+      Log.current.printStackTrace(e);
+    }
+  }
+  
+}
@@ -0,0 +1,95 @@
+package org.opencyc.soap;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.opencyc.api.CfaslInputStream;
+import org.opencyc.api.CfaslOutputStream;
+import org.opencyc.cycobject.CycList;
+import org.opencyc.util.Log;
+
+/**
+ * Provides the binary (CFASL) SubL interactor of the CycSOAPService as a plain HTTP
+ * endpoint.  The request body is the raw CFASL encoding of the SubL request, and the
+ * response body is the raw CFASL encoding of its result, each with the content type
+ * application/x-cfasl.  The XML envelope and Base64 encoding of the SOAP transport are
+ * thus avoided.  The Cyc server is given by the optional hostname and port request
+ * parameters.<p>
+ *
+ * @version $Id$
+ *
+ * <p>Copyright 2001 Cycorp, Inc., license is open source GNU LGPL.
+ * <p><a href="http://www.opencyc.org/license.txt">the license</a>
+ * <p><a href="http://www.opencyc.org">www.opencyc.org</a>
+ * <p><a href="http://www.sourceforge.net/projects/opencyc">OpenCyc at SourceForge</a>
+ * <p>
+ * THIS SOFTWARE AND KNOWLEDGE BASE CONTENT ARE PROVIDED ``AS IS'' AND
+ * ANY EXPRESSED OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE OPENCYC
+ * ORGANIZATION OR ITS CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE AND KNOWLEDGE
+ * BASE CONTENT, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+public class CfaslHttpServlet extends HttpServlet {
+
+  //// Public Area
+
+  /** the default name of the computer hosting the Cyc server */
+  public static final String DEFAULT_HOSTNAME = "localhost";
+
+  /** the default Cyc server listening port */
+  public static final String DEFAULT_PORT = "3600";
+
+  /**
+   * Evaluates the CFASL encoded SubL request given in the request body and writes the
+   * CFASL encoded result to the response body.  Errors in evaluation are returned as a
+   * (CycApiException message) list, as with the SOAP service.
+   *
+   * @param request the HTTP request
+   * @param response the HTTP response
+   */
+  public void doPost(HttpServletRequest request, HttpServletResponse response)
+    throws ServletException, IOException {
+    Object subLRequest = null;
+    try {
+      CfaslInputStream cfaslInputStream =
+        new CfaslInputStream(new BufferedInputStream(request.getInputStream()));
+      subLRequest = cfaslInputStream.readObject();
+    }
+    catch (Exception e) {
+      Log.current.println("Exception " + e.getMessage());
+    }
+    if (! (subLRequest instanceof CycList)) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, "a CFASL encoded SubL request is required");
+      return;
+    }
+    String hostname = request.getParameter("hostname");
+    if (hostname == null)
+      hostname = DEFAULT_HOSTNAME;
+    String port = request.getParameter("port");
+    if (port == null)
+      port = DEFAULT_PORT;
+    Object subLResponse = cycSOAPService.subLInteractorAtHostPort((CycList) subLRequest, hostname, port);
+    response.setContentType(CfaslHttpCycConnection.CFASL_CONTENT_TYPE);
+    CfaslOutputStream cfaslOutputStream =
+      new CfaslOutputStream(new BufferedOutputStream(response.getOutputStream()));
+    cfaslOutputStream.writeObject(subLResponse);
+    cfaslOutputStream.flush();
+  }
+
+  //// Internal Rep
+
+  /** the SOAP service whose interactor and cached Cyc connections are shared */
+  protected final CycSOAPService cycSOAPService = new CycSOAPService();
+
+}
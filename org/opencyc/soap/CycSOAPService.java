@@ -160,12 +160,35 @@ public class CycSOAPService {
    * @param port the given port
    */
   public String binarySubLInteractorAtHostPort(String base64SubLRequest, String hostname, String port) {
+    try {
+      CycList subLRequest = (CycList) Base64.decodeCycObject(base64SubLRequest, 0);
+      return Base64.encodeCycObject(subLInteractorAtHostPort(subLRequest, hostname, port), 0);
+    }
+    catch (Exception e) {
+      Log.current.println("Exception " + e.getMessage());
+      try {
+        return Base64.encodeCycObject(makeApiException(e.getMessage() + "\n" + StringUtils.getStringForException(e)), 0);
+      }
+      catch (Exception e1) {
+      }
+      return null;
+    }
+  }
+  
+  /** Provides a SubL interactor service directed to the given Cyc host and listener port,
+   * shared by the SOAP and the raw CFASL HTTP transports.
+   * @param subLRequest the given SubL request which will be submitted to the Cyc server for evaluation
+   * @param hostname the given host name
+   * @param port the given port
+   * @return the result of evaluating the given SubL request, or a (CycApiException message)
+   * list if an error occurs
+   */
+  public Object subLInteractorAtHostPort(CycList subLRequest, String hostname, String port) {
+    subLRequest = unescape(subLRequest);
     int timeoutCount = 0;
     while (true) {
       try {
         CycAccess cycAccess = establishAndVerifyCycAccess(hostname, port);        
-        CycList subLRequest = (CycList) Base64.decodeCycObject(base64SubLRequest, 0);
-        subLRequest = unescape(subLRequest);
         Log.current.println("subLRequest " + subLRequest.toString() + "\n");
         Object response = null;
         try {
@@ -181,28 +204,30 @@ public class CycSOAPService {
             cycAccess = null;
             continue;
           }
-          CycList exception = new CycList();
-          exception.add(CycObjectFactory.makeCycSymbol("CycApiException"));
-          exception.add(e.getMessage());
-          return Base64.encodeCycObject(exception, 0);
+          return makeApiException(e.getMessage());
         }
-        return Base64.encodeCycObject(response, 0);
+        return response;
       }
       catch (Exception e) {
         Log.current.println("Exception " + e.getMessage());
-        try {
-          CycList exception = new CycList();
-          exception.add(CycObjectFactory.makeCycSymbol("CycApiException"));
-          exception.add(e.getMessage() + "\n" + StringUtils.getStringForException(e));
-          return Base64.encodeCycObject(exception, 0);
-        }
-        catch (Exception e1) {
-        }
-        return null;
+        return makeApiException(e.getMessage() + "\n" + StringUtils.getStringForException(e));
       }
     }
   }
   
+  /**
+   * Returns the (CycApiException message) list which reports an error to the client.
+   *
+   * @param message the error message
+   * @return the (CycApiException message) list
+   */
+  protected CycList makeApiException(String message) {
+    CycList exception = new CycList();
+    exception.add(CycObjectFactory.makeCycSymbol("CycApiException"));
+    exception.add(message);
+    return exception;
+  }
+  
   /**
    * Unescapes strings contained in the given CycList.
    *
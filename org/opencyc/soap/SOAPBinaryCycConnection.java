@@ -2,25 +2,15 @@ package org.opencyc.soap;
 
 //// Internal Imports
 import org.opencyc.api.*;
-import org.opencyc.cycobject.CycConstant;
-import org.opencyc.cycobject.CycFort;
 import org.opencyc.cycobject.CycList;
-import org.opencyc.cycobject.CycSymbol;
-import org.opencyc.cycobject.DefaultCycObject;
 import org.opencyc.util.Base64;
 import org.opencyc.util.Log;
-import org.opencyc.util.TimeOutException;
-import org.opencyc.util.Timer;
-import org.opencyc.util.UUID;
 
 //// External Imports
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.util.Iterator;
-import java.util.List;
 import java.rmi.RemoteException;
-import javax.swing.SwingUtilities;
 import javax.xml.rpc.ParameterMode;
 import javax.xml.rpc.ServiceException;
 import org.apache.axis.client.Call;
@@ -51,7 +41,7 @@ import org.apache.axis.encoding.XMLType;
  * date March 28, 2005
  * @version $Id$
  */
-public class SOAPBinaryCycConnection implements CycConnectionInterface {
+public class SOAPBinaryCycConnection extends RemoteBinaryCycConnection {
   
   //// Constructors
   
@@ -67,7 +57,6 @@ public class SOAPBinaryCycConnection implements CycConnectionInterface {
       Log.current.printStackTrace(e);
       System.exit(1);
     }
-    uuid = UUID.randomUUID();
   }
   
   /** Creates a new instance of SOAPCycConnection using the given endpoint URL and the given
@@ -82,152 +71,14 @@ public class SOAPBinaryCycConnection implements CycConnectionInterface {
                                  final String hostName,
                                  final int basePort,
                                  final CycAccess cycAccess) throws IOException, CycApiException {
-    this.endpointURL = endpointURL;
-    this.cycAccess = cycAccess;
-    this.hostName = hostName;
-    this.basePort = basePort;
-    uuid = UUID.randomUUID();
+    super(endpointURL, hostName, basePort, cycAccess);
   }
   
   //// Public Area
   
-  /** no api trace */
-  public static final int API_TRACE_NONE = 0;
-  
-  /** message-level api trace */
-  public static final int API_TRACE_MESSAGES = 1;
-  
-  /** detailed api trace */
-  public static final int API_TRACE_DETAILED = 2;
-  
   /** SOAP mode connnection to the Cyc server. */
   public static final int SOAP_MODE = 3;
 
-  /** Sends a message to Cyc and return the <tt>Boolean</tt> true as the first
-   * element of an object array, and the cyc response Symbolic Expression as
-   * the second element.  If an error occurs the first element is <tt>Boolean</tt>
-   * false and the second element is the error message string.
-   *
-   * @param message the api command
-   * @return an array of two objects, the first is an Integer response code, and the second is the
-   * response object or error string.
-   */
-  public Object[] converse(final Object message) throws IOException, CycApiException {
-    return  converse(message, notimeout);
-  }
-  
-  /** Sends a message to Cyc and return the response code as the first
-   * element of an object array, and the cyc response Symbolic Expression as
-   * the second element, spending no less time than the specified timer allows
-   * but throwing a <code>TimeOutException</code> at the first opportunity
-   * where that time limit is exceeded.
-   * If an error occurs the second element is the error message string.
-   *
-   * @param message the api command which must be a String or a CycList
-   * @param timeout a <tt>Timer</tt> object giving the time limit for the api call
-   * @return an array of two objects, the first is an Integer response code, and the second is the
-   * response object or error string.
-   */
-  public Object[] converse(final Object message, final Timer timeout)
-  throws IOException, TimeOutException, CycApiException {
-    CycList messageCycList;
-    if (message instanceof CycList)
-      messageCycList = (CycList) message;
-    else if (message instanceof String) {
-      if (cycAccess == null)
-        throw new RuntimeException("CycAccess is required to process commands in string form");
-      messageCycList = cycAccess.makeCycList((String) message);
-    }
-    else
-      throw new CycApiException("Invalid class for message " + message);
-    messageCycList = substituteForBackquote(messageCycList, timeout);
-    return  converseBinary(messageCycList, timeout);
-  }
-  
-  /**
-   * Send a message to Cyc spending no less time than the specified timer allows but throwing a <code>TimeOutException</code> 
-   * at the first opportunity where that time limit is exceeded. The concurrent mode of Cyc server communication 
-   * is supported by Cyc's pool of transaction processor threads, each of which can concurrently process an api request.  The
-   * SubLWorker object notifies the caller when the api response is aschronously received.
-   * 
-   * @param worker a <tt>SubLWorker</tt> object that notifies the caller when work is done
-   * 
-   * @throws IOException when a communication error occurs
-   * @throws TimeOutException when the time limit is exceeded
-   * @throws CycApiException when a Cyc api error occurs
-   */
-  public void converseBinary(final SubLWorker worker)
-  throws IOException, TimeOutException, CycApiException {
-    
-    if ((worker instanceof SubLWorkerSynch) && inAWTEventThread()) {
-      throw new CycApiException("Invalid attempt to communicate with Cyc " + 
-      "from the AWT event thread.\n\n" + worker);
-    }
-    new SubLWorkerProcessor(worker).run();
-  }
-
-  /**
-   * Sets the client name of this api connection.
-   * 
-   * @param myClientName the client name of this api connection
-   */
-  public void setMyClientName(String myClientName) {
-    this.myClientName = myClientName;
-  }
-
-  /**
-   * Gets the client name of this api connection.
-   * 
-   * @return the client name of this api connection
-   */
-  public String getMyClientname() {
-    return myClientName;
-  }
-
-  /**
-   * Returns the next apiRequestId.
-   * 
-   * @return the next apiRequestId
-   */
-  static public synchronized Integer nextApiRequestId() {
-    return new Integer(++apiRequestId);
-  }
-
-  /** Closes the api sockets and streams */
-  public void close() {
-  }
-  
-  /** Returns the trace value.
-   *
-   * @return the trace value
-   */
-  public int getTrace() {
-    return trace;
-  }
-  
-  /** Sets the trace value.
-   *
-   * @param trace the trace value
-   */
-  public void setTrace(final int trace) {
-    this.trace = trace;
-  }
-  
-  /** Turns on the diagnostic trace of socket messages. */
-  public void traceOn() {
-    trace = API_TRACE_MESSAGES;
-  }
-  
-  /** Turns on the detailed diagnostic trace of socket messages. */
-  public void traceOnDetailed() {
-    trace = API_TRACE_DETAILED;
-  }
-  
-  /** Turns off the diagnostic trace of socket messages. */
-  public void traceOff() {
-    trace = API_TRACE_NONE;
-  }
-  
   /** Returns connection information, suitable for diagnostics.
    *
    * @return connection information, suitable for diagnostics
@@ -236,155 +87,32 @@ public class SOAPBinaryCycConnection implements CycConnectionInterface {
     return "Cyc API Web Service at " + endpointURL.toString();
   }
   
-  /** Returns the UUID that identifies this java api client connection.
-   *
-   * @return the UUID that identifies this java api client connection
-   *
-   */
-  public UUID getUuid() {
-    return null;
-  }
-  
-  /** Returns the base port of this connection.
-   * @return <code>int</code> of this connection's base port.
-   *
-   */
-  public int getBasePort() {
-    return basePort;
-  }
-  
-  /** Returns the hostname of this connection.
-   * @return <code>String</code> denoting this hostname.
-   *
-   */
-  public String getHostName() {
-    return hostName;
-  }
-  
-  public void cancelCommunication(final SubLWorker worker) throws IOException {
-    final Integer id = worker.getId();
-    if (id.intValue() < 0) {
-      //@note serial communications cannot be canceled right now
-      return;
-    }
-    final String command = "(fif (" + "terminate-active-task-process"
-        + " " + worker.getId() + " \"" + uuid + "\" " + ":cancel" + 
-        ") '(ignore) '(ignore))";
-    converse(cycAccess.makeCycList(command));
-    // the SubL implementation of CANCEL will send a CANCEL event back,
-    // which will cleanup the waiting thread info and signal the termination 
-    // event, so no need to perform event signaling and cleanup
-  }
-  
-  public void abortCommunication(final SubLWorker worker) throws IOException {
-    final Integer id = worker.getId();
-    if (id.intValue() < 0) {
-      //@note serial communications cannot be canceled right now
-      return;
-    }
-    try {
-      final String command = "(fif (" + "terminate-active-task-process"
-        + " " + worker.getId() + " \"" + uuid + "\" " + ":abort" + 
-        ") '(ignore) '(ignore))";
-      converse(cycAccess.makeCycList(command));
-    } finally {
-    // the SubL implementation of ABORT will not send anything back,
-    // so we do need to perform event signaling and cleanup
-      worker.fireSubLWorkerTerminatedEvent(new SubLWorkerEvent(worker,
-        SubLWorkerStatus.ABORTED_STATUS, null));
-//      waitingReplyThreads.remove(id);
-    }
-  }
-  
-  /** Gets the connection type.
-   *
-   * @return the connection type
-   */
-  public int getConnectionType() {
-    return CycAccess.PERSISTENT_CONNECTION;
-  }
-  
   //// Protected Area
   
-  /** Substitutes a READ-FROM-STRING expression for expressions directly containing a
-   * backquote symbol.  This transformation is only required for the binary api,
-   * which does not parse the backquoted expression.
-   *
-   * @param messageCyclist the input expression to be checked for directly containing
-   * a backquote symbol.
-   * @param timeout a <tt>Timer</tt> object giving the time limit for the api call
-   * @return the expression with a READ-FROM-STRING expression substituted for
-   * expressions directly containing a backquote symbol
-   */
-  protected CycList substituteForBackquote(final CycList messageCycList, Timer timeout)
-  throws IOException, CycApiException {
-    if (messageCycList.treeContains(CycObjectFactory.backquote)) {
-      final CycList substituteCycList = new CycList();
-      substituteCycList.add(CycObjectFactory.makeCycSymbol("read-from-string"));
-      substituteCycList.add(messageCycList.cyclify());
-      final Object[] response = converseBinary(substituteCycList, timeout);
-      if ((response[0].equals(Boolean.TRUE)) &&
-      (response[1] instanceof CycList)) {
-        CycList backquoteExpression = (CycList) response[1];
-        return backquoteExpression.subst(CycObjectFactory.makeCycSymbol("api-bq-list"),
-        CycObjectFactory.makeCycSymbol("bq-list"));
-      }
-      throw new CycApiException("Invalid backquote substitution in " + messageCycList +
-      "\nstatus" + response[0] + "\nmessage " + response[1]);
-      
-    }
-    return messageCycList;
-  }
-  
-  /** Sends a message to Cyc and return the response code as the first
-   * element of an object array, and the cyc response Symbolic Expression as
-   * the second element, spending no less time than the specified timer allows
-   * but throwing a <code>TimeOutException</code> at the first opportunity
-   * where that time limit is exceeded.
-   * If an error occurs the second element is the error message string.
-   * The concurrent mode of Cyc server communication is supported by
-   * Cyc's pool of transaction processor threads, each of which can
-   * concurrently process an api request.
+  /** Sends the binary (CFASL) request to the SOAP service encoded as a Base64 string, and
+   * decodes the Base64 encoded binary (CFASL) response.
    *
-   * The CFASL input and output streams are encoded in Base64 format.
-   *
-   * @param message the api command
-   * @param timeout a <tt>Timer</tt> object giving the time limit for the api call
-   * @return an array of two objects, the first is an Integer response code, and the second is the
-   * response object or error string.
+   * @param apiRequest the given SubL request which will be submitted to the Cyc server for evaluation
+   * @return the result of evaluating the given SubL request
+   * @throws IOException when the SOAP call fails or its response cannot be decoded
+   * @throws CycApiException when the SOAP service cannot be created
    */
-  public Object[] converseBinary(final CycList message, final Timer timeout)
-  throws IOException, TimeOutException, CycApiException {
-    DefaultSubLWorkerSynch worker = new DefaultSubLWorkerSynch(message, cycAccess);
-    Object[] result = new Object[2];
+  protected Object post(final CycList apiRequest) throws IOException, CycApiException {
+    final String base64SubLRequest = Base64.encodeCycObject(apiRequest, trace);
+    final String base64Response;
     try {
-      result[1] = worker.getWork();
-    } catch (IOException xcpt) {
-      throw xcpt;
-    } catch (TimeOutException xcpt) {
-      throw xcpt;      
-    } catch (CycApiServerSideException xcpt) {
-      // @note: this implements a legacy API of converseBinary()
-      result[0] = Boolean.FALSE;
-      result[1] = xcpt.getMessage();
-      return result;
-    } catch (CycApiException xcpt) {
-      throw xcpt;
-    } catch (Exception xcpt) {
-      throw new RuntimeException(xcpt);
+      base64Response = remoteBinarySubLInteractorAtHostPort(base64SubLRequest,
+                                                            getCycAccess().getHostName(),
+                                                            Integer.toString(getCycAccess().getBasePort()));
+    }
+    catch (ServiceException e) {
+      throw new CycApiException(e.getMessage(), e);
     }
-    result[0] = worker.getStatus() == SubLWorkerStatus.FINISHED_STATUS ? Boolean.TRUE : Boolean.FALSE;
-    return result;
+    return Base64.decodeCycObject(base64Response, trace);
   }
   
   //// Private Area
   
-  private boolean inAWTEventThread() {
-    try {
-      return SwingUtilities.isEventDispatchThread();
-    } catch (Throwable e) { return false; }
-  }
-  
   /** Provides a remote SubL Interactor using Base64 encoding of the binary (CFASL) request and
    * response.
    *
@@ -432,144 +160,11 @@ public class SOAPBinaryCycConnection implements CycConnectionInterface {
     Log.current.println(result);
   }
   
-  protected class SubLWorkerProcessor extends Thread {
-    
-    /** Creates a new SubLWorkerProcessor instance.
-     *
-     * @param message the api command
-     * @param timeout the timer object giving the time limit for the api call
-     * @param worker a <tt>SubLWorker</tt> object that notifies the caller when work is done
-     */
-    public SubLWorkerProcessor(final SubLWorker worker) {
-      //// Preconditions
-      assert worker != null : "worker must not be null";
-      this.worker = worker;
-    }
-    
-    /** Runs this process. */
-    public void run() {
-      final CycSymbol taskProcessorRequestSymbol = CycObjectFactory.makeCycSymbol("task-processor-request");
-      Integer id = null;
-      CycList taskProcessorRequest = null;
-      if (worker.getSubLCommand().first().equals(taskProcessorRequestSymbol)) {
-        // client has supplied the task-processor-request form
-        taskProcessorRequest = worker.getSubLCommand();
-        id = (Integer)worker.getSubLCommand().third();
-      } else {
-        id = nextApiRequestId();
-        taskProcessorRequest = new CycList();
-        taskProcessorRequest.add(taskProcessorRequestSymbol); // function
-        taskProcessorRequest.add(worker.getSubLCommand()); // request
-        taskProcessorRequest.add(id); // id
-        taskProcessorRequest.add(new Integer(CycConnection.DEFAULT_PRIORITY)); // priority
-        taskProcessorRequest.add(myClientName); // requestor
-        taskProcessorRequest.add(CycObjectFactory.nil); // client-bindings
-        taskProcessorRequest.add(uuid.toString()); // uuid to identify this client
-      }
-      // tell everyone this is getting started
-      SubLWorkerEvent event = new SubLWorkerEvent(worker, id); 
-      worker.fireSubLWorkerStartedEvent(event);
-      final CycList soapApiRequest = new CycList();
-      // return-whole-task-processor-response indicates that the CycConnection at the server is to return the whole task-processor-response
-      soapApiRequest.add(CycObjectFactory.makeCycSymbol("return-whole-task-processor-response"));
-      soapApiRequest.add(taskProcessorRequest);
-      String base64Response = null;
-      try {
-        final String base64SubLRequest = Base64.encodeCycObject(soapApiRequest, trace);
-        base64Response = remoteBinarySubLInteractorAtHostPort(base64SubLRequest,
-                                                              cycAccess.getHostName(),
-                                                              Integer.toString(cycAccess.getBasePort()));
-        final Object response = Base64.decodeCycObject(base64Response, trace);
-        final Object[] answer =  {
-          null, null
-        };
-        if (response instanceof CycList &&
-            ((CycList) response).size() > 0 &&
-            ((CycList) response).first() instanceof CycSymbol &&
-            ((CycList) response).first().toString().equals("CYCAPIEXCEPTION")) {
-          answer[0] = Boolean.FALSE;
-          answer[1] = response;
-          worker.fireSubLWorkerTerminatedEvent(new SubLWorkerEvent(worker,
-                SubLWorkerStatus.EXCEPTION_STATUS,
-                new CycApiServerSideException(((CycList) response).second().toString())));
-          return;
-        }
-        answer[0] = Boolean.TRUE;
-        answer[1] = response;
-        final Object status = answer[0];
-        final CycList taskProcessorResponse = (CycList) answer[1];
-        //System.out.println("taskProcessorResponse: " + taskProcessorResponse.toString());
-        assert id.equals(taskProcessorResponse.get(2)) : "returned id " + taskProcessorResponse.get(2).toString() + " must equal sent id " + id.toString();
-        final Object actualResponse = taskProcessorResponse.get(5);
-        final Object taskStatus = taskProcessorResponse.get(6);
-        boolean finished = (taskProcessorResponse.get(7) != CycObjectFactory.nil);
-
-        if (taskStatus == CycObjectFactory.nil) {
-          // no error occurred, no exceptions
-          worker.fireSubLWorkerDataAvailableEvent(new SubLWorkerEvent(worker, actualResponse, -1.0f));
-          if (finished) {
-            worker.fireSubLWorkerTerminatedEvent(new SubLWorkerEvent(worker, SubLWorkerStatus.FINISHED_STATUS, null));
-          }
-        } else {
-          // Error, status contains the error message
-
-          //@ToDo need to diferrentiate between exceptions and cancel messages!!!!!!!!!
-          finished = true;
-          if (taskStatus instanceof String) {
-            worker.fireSubLWorkerTerminatedEvent(new SubLWorkerEvent(worker,
-              SubLWorkerStatus.EXCEPTION_STATUS,
-              new CycApiServerSideException(taskStatus.toString())));
-          } else if (taskStatus instanceof CycSymbol) {
-            worker.fireSubLWorkerTerminatedEvent(new SubLWorkerEvent(worker,
-              SubLWorkerStatus.CANCELED_STATUS, null));
-          }
-        }
-      } catch (Exception xcpt) {
-        Log.current.errorPrintln(xcpt.getMessage());
-        Log.current.printStackTrace(xcpt);
-      }
-    }
-    
-    /** the SubLWorker object that notifies the caller when work is done */
-    final SubLWorker worker;
-    
-  }
-  
   //// Internal Rep
 
-  /** the Universally Unique ID that identifies this CycConnection to the Cyc server. It is used when
-   * establishing the (second) asychronous socket connection.
-   */
-  private UUID uuid;
-  
-  /** parameter that, when true, causes a trace of the messages to and from the server */
-  private int trace = API_TRACE_NONE;
-  //protected int trace = API_TRACE_MESSAGES;
-  
-  /** the timer which optionally monitors the duration of requests to the OpenCyc server */
-  private static final Timer notimeout = new Timer();
-  
-  /** the reference to the parent CycAccess object for dereferencing constants in ascii symbolic expressions */
-  private CycAccess cycAccess;
-  
   /** the indicator for ascii communications mode that strings should retain their quote delimiters */
   private boolean quotedStrings;
   
-  /** the SOAP XML endpoint URL which indicates the Cyc API web services host */
-  private URL endpointURL;
-  
-  /** outbound request serial id */
-  static private int apiRequestId = 0;
-
-   /** name of my api client */
-  private String myClientName = "api client";
-
-  /** the name of the computer hosting the Cyc server */
-  private String hostName;
-
-  /** the tcp base listening port */
-  private int basePort;
-
  //// Main
   
   /** Provides the main method for the testing the SOAPBinaryCycConnection.
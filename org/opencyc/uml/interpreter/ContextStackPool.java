@@ -9,7 +9,15 @@ import org.opencyc.util.*;
 /**
  * Provides a pool of context frames for use by state machine interpreter
  * threads.  The pool is used to reduce the creation and destruction of
- * temporary Cyc context microtheories.
+ * temporary Cyc context microtheories.<p>
+ *
+ * The context frames are created in batches, each by a single api request, and
+ * the pool doubles in size when its free list is exhausted, up to the maximum
+ * number of context frames.  A deallocated context frame is recycled by clearing
+ * its contents and temporary definitional assertions in a single api request,
+ * and it is killed only when the context stack is destroyed.  The free list is
+ * guarded by its own monitor, which is held only to push or pop a context frame
+ * and never during an api request.<p>
  *
  * @version $Id$
  * @author Stephen L. Reed
@@ -80,9 +88,40 @@ public class ContextStackPool {
     protected int contextFramesCount = DEFAULT_CONTEXT_FRAMES_COUNT;
 
     /**
-     * stack of available context frames
+     * The default maximum number of frames in the state machine evaluation context
+     * stack, which may be overridden by the org.opencyc.uml.interpreter.maxContextFrames
+     * system property.
+     */
+    public static final int DEFAULT_MAX_CONTEXT_FRAMES_COUNT = 1280;
+
+    /**
+     * the maximum number of frames to which the state machine evaluation context
+     * stack may grow
+     */
+    protected int maxContextFramesCount =
+        Integer.getInteger("org.opencyc.uml.interpreter.maxContextFrames",
+                           DEFAULT_MAX_CONTEXT_FRAMES_COUNT).intValue();
+
+    /**
+     * the available context frames, the most recently deallocated last
+     */
+    protected ArrayList freeContextFrames = new ArrayList();
+
+    /**
+     * the number of context frame allocations
      */
-    protected Stack freeContextFrames = new Stack();
+    protected long nbrAllocations = 0;
+
+    /**
+     * the number of context frame allocations which found the free list empty
+     * and waited for the pool to grow
+     */
+    protected long nbrMisses = 0;
+
+    /**
+     * the number of times that the pool has grown after its initial creation
+     */
+    protected long nbrGrowths = 0;
 
     /**
      * dictionary of context frames and their associated temporary
@@ -164,21 +203,48 @@ public class ContextStackPool {
      */
     public void createContextStack ()
         throws IOException, CycApiException, ExpressionEvaluationException {
-        String startName = "UMLStateMachineContextFrame";
-        for (int i = 0; i < this.contextFramesCount; i++) {
-            CycConstant contextFrame = cycAccess.makeUniqueCycConstant(startName);
+        synchronized (contextFrames) {
+            createContextFrames(contextFramesCount);
+        }
+    }
+
+    /**
+     * Creates the given number of context frames in one api request, and adds them
+     * to the free list.  The caller holds the lock on the list of context frames.
+     *
+     * @param nbrContextFrames the number of context frames to create
+     */
+    protected void createContextFrames (int nbrContextFrames)
+        throws IOException, CycApiException, ExpressionEvaluationException {
+        if (nbrContextFrames <= 0)
+            return;
+        String command = cycAccess.wrapBookkeeping(
+            "(clet ((result nil) (context-frame nil))\n" +
+            "  (cdotimes (i " + nbrContextFrames + ")\n" +
+            "    (csetq context-frame (gentemp-constant \"UMLStateMachineContextFrame\" \"\"))\n" +
+            "    (cyc-assert (list #$isa context-frame #$UMLStateMachineContextFrame) #$BaseKB)\n" +
+            "    (cpush (list context-frame (constant-name context-frame)) result))\n" +
+            "  (nreverse result))");
+        CycList response = cycAccess.converseList(command);
+        ArrayList newContextFrames = new ArrayList(response.size());
+        for (int i = 0; i < response.size(); i++) {
+            CycList contextFrameInfo = (CycList) response.get(i);
+            CycConstant contextFrame = (CycConstant) contextFrameInfo.first();
+            contextFrame.setName((String) contextFrameInfo.second());
+            CycObjectFactory.addCycConstantCacheByGuid(contextFrame);
+            CycObjectFactory.addCycConstantCacheByName(contextFrame);
             if (verbosity > 2)
                 Log.current.println(contextFrame.cyclify() + " created");
-            contextFrames.add(contextFrame);
-            freeContextFrames.push(contextFrame);
-            CycList sentence = new CycList();
-            sentence.add(cycAccess.isa);
-            sentence.add(contextFrame);
-            sentence.add(cycAccess.getKnownConstantByName("UMLStateMachineContextFrame"));
-            cycAccess.assertWithBookkeepingAndWithoutTranscript(sentence, cycAccess.baseKB);
-            contextFrameDefinitionalAssertions.put(contextFrame, new ArrayList());
+            newContextFrames.add(contextFrame);
+        }
+        contextFrames.addAll(newContextFrames);
+        synchronized (freeContextFrames) {
+            for (int i = newContextFrames.size() - 1; i >= 0; i--) {
+                CycConstant contextFrame = (CycConstant) newContextFrames.get(i);
+                contextFrameDefinitionalAssertions.put(contextFrame, new ArrayList());
+                freeContextFrames.add(contextFrame);
+            }
         }
-
     }
 
     /**
@@ -187,10 +253,21 @@ public class ContextStackPool {
      */
     public void destroyContextStack ()
         throws IOException, CycApiException, ExpressionEvaluationException {
+        StringBuffer command = new StringBuffer("(progn");
         Iterator iter = contextFrames.iterator();
         while (iter.hasNext()) {
             CycConstant contextFrame = (CycConstant) iter.next();
-            cycAccess.killWithoutTranscript(contextFrame);
+            command.append("\n  (cyc-kill ");
+            command.append(contextFrame.stringApiValue());
+            command.append(")");
+        }
+        command.append(")");
+        if (! contextFrames.isEmpty())
+            cycAccess.converseVoid(cycAccess.wrapBookkeeping(command.toString()));
+        iter = contextFrames.iterator();
+        while (iter.hasNext()) {
+            CycConstant contextFrame = (CycConstant) iter.next();
+            CycObjectFactory.removeCaches(contextFrame);
             if (verbosity > 2)
                 Log.current.println(contextFrame.cyclify() + " killed");
         }
@@ -216,8 +293,7 @@ public class ContextStackPool {
         if (verbosity > 2)
             Log.current.println("Allocating context frame for state machine term " + stateMachineTerm);
         CycConstant contextFrame = allocateContextFrame(parentContextFrame, definitionMt);
-        ArrayList definitionalAssertions =
-            (ArrayList) contextFrameDefinitionalAssertions.get(contextFrame);
+        ArrayList definitionalAssertions = getDefinitionalAssertions(contextFrame);
         CycList sentence = new CycList();
         sentence.add(cycAccess.isa);
         sentence.add(contextFrame);
@@ -252,8 +328,7 @@ public class ContextStackPool {
         if (verbosity > 2)
             Log.current.println("Allocating context frame for procedure term " + procedureTerm);
         CycConstant contextFrame = allocateContextFrame(parentContextFrame, definitionMt);
-        ArrayList definitionalAssertions =
-            (ArrayList) contextFrameDefinitionalAssertions.get(contextFrame);
+        ArrayList definitionalAssertions = getDefinitionalAssertions(contextFrame);
         CycList sentence = new CycList();
         sentence.add(cycAccess.isa);
         sentence.add(contextFrame);
@@ -280,18 +355,34 @@ public class ContextStackPool {
      * @param definitionMt the state machine definition mt
      * @return the allocated context frame
      */
-    protected synchronized CycConstant allocateContextFrame (CycConstant parentContextFrame,
+    protected CycConstant allocateContextFrame (CycConstant parentContextFrame,
                                                 CycFort definitionMt)
         throws IOException, CycApiException, ExpressionEvaluationException {
-        if (freeContextFrames.empty())
-            throw new RuntimeException("Context frames exhausted");
-        CycConstant contextFrame = (CycConstant) freeContextFrames.pop();
-        ArrayList definitionalAssertions =
-            (ArrayList) contextFrameDefinitionalAssertions.get(contextFrame);
+        CycConstant contextFrame = popFreeContextFrame(true);
+        if (contextFrame == null) {
+            synchronized (contextFrames) {
+                contextFrame = popFreeContextFrame(false);
+                if (contextFrame == null) {
+                    int nbrContextFrames = Math.min(Math.max(contextFrames.size(), 1),
+                                                    maxContextFramesCount - contextFrames.size());
+                    if (nbrContextFrames <= 0)
+                        throw new RuntimeException("Context frames exhausted");
+                    if (verbosity > 2)
+                        Log.current.println("Growing the context stack by " + nbrContextFrames +
+                                            " context frames");
+                    createContextFrames(nbrContextFrames);
+                    synchronized (freeContextFrames) {
+                        nbrGrowths++;
+                    }
+                    contextFrame = popFreeContextFrame(false);
+                }
+            }
+        }
+        ArrayList definitionalAssertions = getDefinitionalAssertions(contextFrame);
         CycList sentence;
         if (parentContextFrame != null) {
             sentence = new CycList();
-            sentence.add(cycAccess.getKnownConstantByName("umlStateMachineInterpetationContextStackParent"));
+            sentence.add(umlStateMachineInterpetationContextStackParent);
             sentence.add(contextFrame);
             sentence.add(parentContextFrame);
             cycAccess.assertWithBookkeepingAndWithoutTranscript(sentence, temporaryWorkspaceMt);
@@ -311,29 +402,77 @@ public class ContextStackPool {
         sentence.add(contextFrame);
         sentence.add(definitionMt);
         cycAccess.assertWithBookkeepingAndWithoutTranscript(sentence, cycAccess.baseKB);
-        definitionalAssertions.add(new DefinitionalAssertionInfo(sentence, definitionMt));
+        definitionalAssertions.add(new DefinitionalAssertionInfo(sentence, cycAccess.baseKB));
         return contextFrame;
     }
 
+    /**
+     * Pops the most recently deallocated context frame from the free list.
+     *
+     * @param isCounted when true the allocation is counted, and counted as a miss if
+     * the free list is empty
+     * @return the popped context frame, or null if the free list is empty
+     */
+    protected CycConstant popFreeContextFrame (boolean isCounted) {
+        synchronized (freeContextFrames) {
+            if (isCounted)
+                nbrAllocations++;
+            if (freeContextFrames.isEmpty()) {
+                if (isCounted)
+                    nbrMisses++;
+                return null;
+            }
+            return (CycConstant) freeContextFrames.remove(freeContextFrames.size() - 1);
+        }
+    }
+
+    /**
+     * Returns the temporary definitional assertion info objects of the given context frame.
+     *
+     * @param contextFrame the given context frame
+     * @return the temporary definitional assertion info objects of the given context frame
+     */
+    protected ArrayList getDefinitionalAssertions (CycConstant contextFrame) {
+        synchronized (freeContextFrames) {
+            return (ArrayList) contextFrameDefinitionalAssertions.get(contextFrame);
+        }
+    }
+
     /**
      * Deallocates a context frame by unasserting all of its contained assertions and
-     * then returning it to the free list.
+     * its temporary definitional assertions in one api request, and then returning it
+     * to the free list for reuse.
      *
      * @param contextFrame the deallocated context frame
      */
-    public synchronized void deallocateContextFrame (CycConstant contextFrame)
+    public void deallocateContextFrame (CycConstant contextFrame)
         throws IOException, CycApiException, ExpressionEvaluationException {
         if (verbosity > 2)
             Log.current.println("deallocating " + contextFrame.cyclify());
-        cycAccess.unassertMtContentsWithoutTranscript(contextFrame);
-        freeContextFrames.push(contextFrame);
-        ArrayList definitionalAssertions =
-            (ArrayList) contextFrameDefinitionalAssertions.get(contextFrame);
+        String mt = cycAccess.makeELMt(contextFrame).stringApiValue();
+        StringBuffer command = new StringBuffer("(progn");
+        command.append("\n  (cdolist (assertion (gather-mt-index " + mt + "))");
+        command.append("\n    (cyc-unassert assertion " + mt + "))");
+        ArrayList definitionalAssertions = getDefinitionalAssertions(contextFrame);
         Iterator iter = definitionalAssertions.iterator();
         while (iter.hasNext()) {
             DefinitionalAssertionInfo definitionalAssertionInfo =
                 (DefinitionalAssertionInfo) iter.next();
-            definitionalAssertionInfo.unassert();
+            command.append("\n  (cyc-unassert ");
+            command.append(definitionalAssertionInfo.sentence.stringApiValue());
+            command.append(" ");
+            command.append(cycAccess.makeELMt(definitionalAssertionInfo.mt).stringApiValue());
+            command.append(")");
+            if (verbosity > 2)
+                Log.current.println("unasserting temporary definitional assertion\n  from mt: " +
+                                    definitionalAssertionInfo.mt +
+                                    "\n  " + definitionalAssertionInfo.sentence.cyclify());
+        }
+        command.append(")");
+        cycAccess.converseVoid(cycAccess.wrapBookkeeping(command.toString()));
+        definitionalAssertions.clear();
+        synchronized (freeContextFrames) {
+            freeContextFrames.add(contextFrame);
         }
     }
 
@@ -391,6 +530,76 @@ public class ContextStackPool {
         this.contextFramesCount = contextFramesCount;
     }
 
+    /**
+     * Gets the maximum number of frames to which the state machine evaluation context
+     * stack may grow
+     *
+     * @return the maximum number of frames to which the state machine evaluation context
+     * stack may grow
+     */
+    public int getMaxContextFramesCount () {
+        return maxContextFramesCount;
+    }
+
+    /**
+     * Sets the maximum number of frames to which the state machine evaluation context
+     * stack may grow
+     *
+     * @param maxContextFramesCount
+     */
+    public void setMaxContextFramesCount (int maxContextFramesCount) {
+        this.maxContextFramesCount = maxContextFramesCount;
+    }
+
+    /**
+     * Returns the number of context frame allocations.
+     *
+     * @return the number of context frame allocations
+     */
+    public long getNbrAllocations () {
+        synchronized (freeContextFrames) {
+            return nbrAllocations;
+        }
+    }
+
+    /**
+     * Returns the number of context frame allocations which found the free list empty.
+     *
+     * @return the number of context frame allocations which found the free list empty
+     */
+    public long getNbrMisses () {
+        synchronized (freeContextFrames) {
+            return nbrMisses;
+        }
+    }
+
+    /**
+     * Returns the fraction of context frame allocations which found a free context
+     * frame without waiting for the pool to grow.
+     *
+     * @return the fraction of context frame allocations which found a free context frame
+     */
+    public double getHitRate () {
+        synchronized (freeContextFrames) {
+            if (nbrAllocations == 0)
+                return 1.0;
+            return (double) (nbrAllocations - nbrMisses) / nbrAllocations;
+        }
+    }
+
+    /**
+     * Returns a string representation of this object, which reports the pool usage.
+     *
+     * @return a string representation of this object
+     */
+    public String toString () {
+        synchronized (freeContextFrames) {
+            return "[ContextStackPool " + contextFramesCount + " initial context frames, " +
+                freeContextFrames.size() + " free, " + nbrAllocations + " allocations, hit rate " +
+                getHitRate() + ", " + nbrGrowths + " growths]";
+        }
+    }
+
     /**
      * Gets the global temporary interpreter workspace
      *
@@ -443,7 +652,7 @@ public class ContextStackPool {
         /**
          * the temporary defining assertion's microtheory
          */
-        CycFort mt;
+        CycObject mt;
 
         /**
          * Constructs a new definitionalAssertionInfo object given
@@ -452,7 +661,7 @@ public class ContextStackPool {
          * @param sentence the given temporary defining assertion
          * @param mt the given assertion microtheory
          */
-        public DefinitionalAssertionInfo (CycList sentence, CycFort mt) {
+        public DefinitionalAssertionInfo (CycList sentence, CycObject mt) {
             this.sentence = sentence;
             this.mt = mt;
         }
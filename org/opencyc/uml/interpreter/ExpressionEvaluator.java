@@ -94,6 +94,12 @@ public class ExpressionEvaluator {
      */
     protected CycConstant trueValue;
 
+    /**
+     * the optional in-memory store of software parameter values, or null if the
+     * values are read and written directly in the KB
+     */
+    protected StateVariableStore stateVariableStore;
+
     /**
      * Constructs a new ExpressionEvaluator object.
      *
@@ -246,6 +252,8 @@ public class ExpressionEvaluator {
                                                CycFort evaluationContext)
             throws IOException, CycApiException, ExpressionEvaluationException {
         boolean answer;
+        if (stateVariableStore != null)
+            stateVariableStore.flush();
         answer = cycAccess.isQueryTrue(cycLExpression, evaluationContext);
         if (verbosity > 2)
             Log.current.println(cycLExpression.cyclify() + "\n evaluates to " + answer);
@@ -268,6 +276,10 @@ public class ExpressionEvaluator {
         if (verbosity > 2)
             Log.current.println("Assigning value " + valueExpression + " to " + softwareParameter.cyclify());
         Object value = evaluateCycLObject(valueExpression, evaluationContext);
+        if (stateVariableStore != null) {
+            stateVariableStore.setValue(softwareParameter, value, evaluationContext);
+            return CycObjectFactory.nil;
+        }
         CycList sentence = new CycList();
         if (value instanceof CycList ||
             value instanceof CycFort) {
@@ -314,11 +326,16 @@ public class ExpressionEvaluator {
             cycLObject instanceof Double)
             value = cycLObject;
         else if (cycLObject instanceof CycFort) {
-            value = cycAccess.getArg2(softwareParameterValue,
-                                      (CycFort) cycLObject,
-                                      evaluationContext);
+            if (stateVariableStore != null)
+                value = stateVariableStore.getValue((CycFort) cycLObject, evaluationContext);
+            else
+                value = cycAccess.getArg2(softwareParameterValue,
+                                          (CycFort) cycLObject,
+                                          evaluationContext);
         }
         else if (cycLObject instanceof CycList) {
+            if (stateVariableStore != null)
+                stateVariableStore.flush();
             CycList query = new CycList();
             query.add(cycAccess.getKnownConstantByName("evaluate"));
             CycVariable variable = CycObjectFactory.makeCycVariable("?x");
@@ -350,4 +367,24 @@ public class ExpressionEvaluator {
         this.verbosity = verbosity;
     }
 
+    /**
+     * Gets the optional in-memory store of software parameter values.
+     *
+     * @return the in-memory store of software parameter values, or null if the
+     * values are read and written directly in the KB
+     */
+    public StateVariableStore getStateVariableStore () {
+        return stateVariableStore;
+    }
+
+    /**
+     * Sets the optional in-memory store of software parameter values.
+     *
+     * @param stateVariableStore the in-memory store of software parameter values,
+     * or null if the values are to be read and written directly in the KB
+     */
+    public void setStateVariableStore (StateVariableStore stateVariableStore) {
+        this.stateVariableStore = stateVariableStore;
+    }
+
 }
\ No newline at end of file
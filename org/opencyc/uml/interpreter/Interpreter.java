@@ -56,10 +56,22 @@ public class Interpreter {
     protected int verbosity = DEFAULT_VERBOSITY;
 
     /**
-     * the event queue
+     * the event queue, which is also the lock guarding the event queue, the enqueue times,
+     * the scheduled indicator and the terminated indicator
      */
     protected UnboundedFifoBuffer eventQueue = new UnboundedFifoBuffer();
 
+    /**
+     * the times in milliseconds at which the queued events were enqueued, in the same order
+     * as the event queue
+     */
+    protected UnboundedFifoBuffer eventEnqueueTimes = new UnboundedFifoBuffer();
+
+    /**
+     * the time in milliseconds at which the current event was enqueued
+     */
+    protected long currentEventEnqueueTime;
+
     /**
      * the current event
      */
@@ -145,6 +157,28 @@ public class Interpreter {
      */
     protected ContextStackPool contextStackPool;
 
+    /**
+     * the scheduler which runs this state machine, or null if it is run by the
+     * interpret method
+     */
+    protected InterpreterScheduler scheduler;
+
+    /**
+     * indicates that this state machine is queued for, or is being run by, its scheduler
+     */
+    protected boolean isScheduled = false;
+
+    /**
+     * indicates that the initial state configuration has been formed
+     */
+    protected boolean isStarted = false;
+
+    /**
+     * the optional in-memory store of state variable values, or null if the
+     * values are read and written directly in the KB
+     */
+    protected StateVariableStore stateVariableStore;
+
     /**
      * Constructs a new Interpreter object.
      */
@@ -241,30 +275,105 @@ public class Interpreter {
         throws IOException, CycApiException, ExpressionEvaluationException  {
         if (verbosity > 2)
             Log.current.println("Terminating " + stateMachine.toString());
-        isTerminated = true;
+        synchronized (eventQueue) {
+            isTerminated = true;
+            eventQueue.notifyAll();
+        }
+        if (stateVariableStore != null)
+            stateVariableStore.discard(stateMt);
         contextStackPool.deallocateContextFrame(stateMt);
     }
 
     /**
-     * Interprets the state machine.
+     * Interprets the state machine in the calling thread, which waits without
+     * consuming the processor while the event queue is empty.
      */
     public void interpret ()
+        throws IOException, CycApiException, ExpressionEvaluationException {
+        start();
+        while (waitForEvent())
+            runToCompletion();
+    }
+
+    /**
+     * Forms the state configurations, which enqueues the completion events
+     * of the initial states.
+     */
+    protected void start ()
         throws IOException, CycApiException, ExpressionEvaluationException {
         if (verbosity > 2)
             Log.current.println("Interpreting UML state machine " + stateMachine.getName() +
                                 "\n  with evaluation context " + stateMt);
+        isStarted = true;
         formAllStatesConfiguration();
         formInitialStateConfiguration();
-        while (! isTerminated) {
-            eventDispatcher();
-            eventProcessor();
-            fireSelectedTransitions();
-            if (currentEvent != null) {
-                if (verbosity > 2)
-                    Log.current.println("Destroying " + currentEvent.toString());
-                stateMachineFactory.destroyEvent(currentEvent);
-                currentEvent = null;
+        flushStateVariables();
+    }
+
+    /**
+     * Waits until an event is queued or the state machine terminates.
+     *
+     * @return true if an event is queued, false if the state machine has
+     * terminated or the waiting thread is interrupted
+     */
+    protected boolean waitForEvent () {
+        synchronized (eventQueue) {
+            while (eventQueue.isEmpty() && ! isTerminated) {
+                try {
+                    eventQueue.wait();
+                }
+                catch (InterruptedException e) {
+                    return false;
+                }
             }
+            return ! isTerminated;
+        }
+    }
+
+    /**
+     * Dispatches the next queued event, if any, and runs the transitions which
+     * it selects to completion.
+     *
+     * @return the run to completion latency in milliseconds, measured from the
+     * time at which the event was enqueued, or -1 if there was no event to dispatch
+     */
+    protected long runToCompletion ()
+        throws IOException, CycApiException, ExpressionEvaluationException {
+        eventDispatcher();
+        if (currentEvent == null)
+            return -1;
+        eventProcessor();
+        fireSelectedTransitions();
+        long latency = System.currentTimeMillis() - currentEventEnqueueTime;
+        if (currentEvent != null) {
+            if (verbosity > 2)
+                Log.current.println("Destroying " + currentEvent.toString());
+            stateMachineFactory.destroyEvent(currentEvent);
+            currentEvent = null;
+        }
+        flushStateVariables();
+        return latency;
+    }
+
+    /**
+     * Returns whether this state machine has queued events and has not terminated.
+     *
+     * @return whether this state machine has queued events and has not terminated
+     */
+    public boolean hasPendingEvents () {
+        synchronized (eventQueue) {
+            return ! isTerminated && ! eventQueue.isEmpty();
+        }
+    }
+
+    /**
+     * Returns whether this state machine has terminated.
+     *
+     * @return whether this state machine has terminated
+     */
+    public boolean isTerminated () {
+        synchronized (eventQueue) {
+            return isTerminated;
         }
     }
 
@@ -411,14 +520,18 @@ public class Interpreter {
      * processing.
      */
     protected void eventDispatcher () {
-        if (eventQueue.isEmpty()) {
-            currentEvent = null;
-            if (verbosity > 2)
-                Log.current.println("No events to dispatch");
+        synchronized (eventQueue) {
+            if (eventQueue.isEmpty())
+                currentEvent = null;
+            else {
+                currentEvent = (Event) eventQueue.remove();
+                currentEventEnqueueTime = ((Long) eventEnqueueTimes.remove()).longValue();
+            }
         }
-        else {
-            currentEvent = (Event) eventQueue.get();
-            if (verbosity > 2)
+        if (verbosity > 2) {
+            if (currentEvent == null)
+                Log.current.println("No events to dispatch");
+            else
                 Log.current.println("Dispatching " + currentEvent.toString());
         }
     }
@@ -496,12 +609,24 @@ public class Interpreter {
     }
 
     /**
-     * Adds an event to this state machine's event queue.
+     * Adds an event to this state machine's event queue, and wakes the thread
+     * waiting for it.  This method may be called from any thread.
      *
      * @param event the event to add  to this state machine's event queue
      */
     public void enqueueEvent (Event event) {
-        eventQueue.add(event);
+        boolean isToBeScheduled = false;
+        synchronized (eventQueue) {
+            eventQueue.add(event);
+            eventEnqueueTimes.add(new Long(System.currentTimeMillis()));
+            eventQueue.notifyAll();
+            if (scheduler != null && ! isScheduled && ! isTerminated) {
+                isScheduled = true;
+                isToBeScheduled = true;
+            }
+        }
+        if (isToBeScheduled)
+            scheduler.schedule(this);
     }
 
     /**
@@ -523,6 +648,8 @@ public class Interpreter {
      */
     public Object getStateVariableValue (CycFort stateVariable)
         throws IOException, CycApiException, ExpressionEvaluationException {
+        if (stateVariableStore != null)
+            return stateVariableStore.getValue(stateVariable, stateMt);
         return cycAccess.getArg2(cycAccess.getKnownConstantByName("softwareParameterValue"),
                                  stateVariable,
                                  stateMt);
@@ -797,4 +924,48 @@ public class Interpreter {
         this.contextStackPool = contextStackPool;
     }
 
+    /**
+     * Gets the optional in-memory store of state variable values.
+     *
+     * @return the in-memory store of state variable values, or null if the
+     * values are read and written directly in the KB
+     */
+    public StateVariableStore getStateVariableStore () {
+        return stateVariableStore;
+    }
+
+    /**
+     * Sets the optional in-memory store of state variable values, whose dirty
+     * values are written to the KB at each transition boundary.  It must be set
+     * before the state machine is started.
+     *
+     * @param stateVariableStore the in-memory store of state variable values,
+     * or null if the values are to be read and written directly in the KB
+     */
+    public void setStateVariableStore (StateVariableStore stateVariableStore) {
+        this.stateVariableStore = stateVariableStore;
+        if (expressionEvaluator != null)
+            expressionEvaluator.setStateVariableStore(stateVariableStore);
+    }
+
+    /**
+     * Writes the dirty values of the in-memory state variable store, if any, to
+     * the KB, which may also be done on demand for debugging.
+     */
+    public void flushStateVariables ()
+        throws IOException, CycApiException {
+        if (stateVariableStore != null)
+            stateVariableStore.flush();
+    }
+
+    /**
+     * Gets the scheduler which runs this state machine
+     *
+     * @return the scheduler which runs this state machine, or null if it is run
+     * by the interpret method
+     */
+    public InterpreterScheduler getScheduler () {
+        return scheduler;
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,305 @@
+package org.opencyc.uml.interpreter;
+
+import java.util.*;
+import org.opencyc.util.*;
+
+/**
+ * Runs many UML state machine interpreters on a small shared pool of worker
+ * threads.  A state machine is queued for a worker only when it has pending
+ * events, which include the completion events which trigger its completion
+ * transitions, and it is run by one worker at a time.  Each worker dispatches a
+ * single event of the state machine and runs its selected transitions to
+ * completion, then requeues the state machine behind the others if more events
+ * are pending.  Idle state machines thus consume no threads, and idle workers
+ * wait without consuming the processor.<p>
+ *
+ * The latency of each run to completion step, measured from the time at which
+ * its event was enqueued, is recorded.<p>
+ *
+ * @version $Id$
+ *
+ * <p>Copyright 2001 Cycorp, Inc., license is open source GNU LGPL.
+ * <p><a href="http://www.opencyc.org/license.txt">the license</a>
+ * <p><a href="http://www.opencyc.org">www.opencyc.org</a>
+ * <p><a href="http://www.sourceforge.net/projects/opencyc">OpenCyc at SourceForge</a>
+ * <p>
+ * THIS SOFTWARE AND KNOWLEDGE BASE CONTENT ARE PROVIDED ``AS IS'' AND
+ * ANY EXPRESSED OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE OPENCYC
+ * ORGANIZATION OR ITS CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE AND KNOWLEDGE
+ * BASE CONTENT, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * @see Interpreter
+ */
+public class InterpreterScheduler {
+
+    /**
+     * The default number of worker threads, which may be overridden by the
+     * org.opencyc.uml.interpreter.schedulerThreads system property.
+     */
+    public static final int DEFAULT_NBR_THREADS = 4;
+
+    /**
+     * the state machine interpreters which are queued for a worker
+     */
+    protected LinkedList readyInterpreters = new LinkedList();
+
+    /**
+     * the worker threads
+     */
+    protected ArrayList workers = new ArrayList();
+
+    /**
+     * indicates that the scheduler has been shut down
+     */
+    protected boolean isShutdown = false;
+
+    /**
+     * the number of state machines started and not yet terminated
+     */
+    protected int nbrActiveInterpreters = 0;
+
+    /**
+     * the number of run to completion steps
+     */
+    protected long nbrRunToCompletionSteps = 0;
+
+    /**
+     * the total run to completion latency in milliseconds
+     */
+    protected long totalRunToCompletionLatency = 0;
+
+    /**
+     * the maximum run to completion latency in milliseconds
+     */
+    protected long maxRunToCompletionLatency = 0;
+
+    /**
+     * Constructs a new InterpreterScheduler object with the default number of
+     * worker threads.
+     */
+    public InterpreterScheduler() {
+        this(Integer.getInteger("org.opencyc.uml.interpreter.schedulerThreads",
+                                DEFAULT_NBR_THREADS).intValue());
+    }
+
+    /**
+     * Constructs a new InterpreterScheduler object and starts its worker threads.
+     *
+     * @param nbrThreads the number of worker threads
+     */
+    public InterpreterScheduler(int nbrThreads) {
+        for (int i = 0; i < nbrThreads; i++) {
+            Worker worker = new Worker("InterpreterScheduler-" + (i + 1));
+            workers.add(worker);
+            worker.start();
+        }
+    }
+
+    /**
+     * Starts the interpretation of the given state machine by this scheduler.
+     *
+     * @param interpreter the given state machine interpreter
+     */
+    public void start (Interpreter interpreter) {
+        synchronized (interpreter.eventQueue) {
+            if (interpreter.scheduler != null)
+                throw new IllegalStateException(interpreter.getStateMachine() + " is already scheduled");
+            interpreter.scheduler = this;
+            interpreter.isScheduled = true;
+        }
+        synchronized (this) {
+            nbrActiveInterpreters++;
+        }
+        schedule(interpreter);
+    }
+
+    /**
+     * Queues the given state machine interpreter for a worker.  The caller has
+     * set its scheduled indicator.
+     *
+     * @param interpreter the given state machine interpreter
+     */
+    protected synchronized void schedule (Interpreter interpreter) {
+        readyInterpreters.addLast(interpreter);
+        notify();
+    }
+
+    /**
+     * Waits for a state machine interpreter which is queued for a worker.
+     *
+     * @return the next state machine interpreter, or null if the scheduler has
+     * been shut down
+     */
+    protected synchronized Interpreter nextInterpreter ()
+        throws InterruptedException {
+        while (readyInterpreters.isEmpty() && ! isShutdown)
+            wait();
+        if (isShutdown)
+            return null;
+        return (Interpreter) readyInterpreters.removeFirst();
+    }
+
+    /**
+     * Starts the given state machine, or runs one of its events to completion,
+     * and then requeues it if it has more pending events.
+     *
+     * @param interpreter the given state machine interpreter
+     */
+    protected void runStep (Interpreter interpreter) {
+        try {
+            if (! interpreter.isStarted)
+                interpreter.start();
+            else if (! interpreter.isTerminated()) {
+                long latency = interpreter.runToCompletion();
+                if (latency >= 0)
+                    recordLatency(latency);
+            }
+        }
+        catch (Exception e) {
+            Log.current.errorPrintln("Terminating " + interpreter.getStateMachine() +
+                                     " after " + e.getMessage());
+            Log.current.printStackTrace(e);
+            // A failed step terminates the state machine as its final state does, which
+            // releases its context frame.
+            if (! interpreter.isTerminated()) {
+                try {
+                    interpreter.terminate();
+                }
+                catch (Exception e1) {
+                    Log.current.errorPrintln("Cannot terminate " + interpreter.getStateMachine() +
+                                             " after " + e1.getMessage());
+                    Log.current.printStackTrace(e1);
+                    synchronized (interpreter.eventQueue) {
+                        interpreter.isTerminated = true;
+                    }
+                }
+            }
+        }
+        boolean isRequeued;
+        boolean isTerminated;
+        synchronized (interpreter.eventQueue) {
+            isTerminated = interpreter.isTerminated;
+            isRequeued = ! isTerminated && ! interpreter.eventQueue.isEmpty();
+            interpreter.isScheduled = isRequeued;
+        }
+        if (isRequeued)
+            schedule(interpreter);
+        else if (isTerminated)
+            synchronized (this) {
+                nbrActiveInterpreters--;
+            }
+    }
+
+    /**
+     * Records the latency of a run to completion step.
+     *
+     * @param latency the run to completion latency in milliseconds
+     */
+    protected synchronized void recordLatency (long latency) {
+        nbrRunToCompletionSteps++;
+        totalRunToCompletionLatency += latency;
+        if (latency > maxRunToCompletionLatency)
+            maxRunToCompletionLatency = latency;
+    }
+
+    /**
+     * Stops the worker threads once their current steps are complete.  State
+     * machines which have not terminated are abandoned.
+     */
+    public void shutdown () {
+        synchronized (this) {
+            isShutdown = true;
+            notifyAll();
+        }
+    }
+
+    /**
+     * Returns the number of state machines started and not yet terminated.
+     *
+     * @return the number of state machines started and not yet terminated
+     */
+    public synchronized int getNbrActiveInterpreters () {
+        return nbrActiveInterpreters;
+    }
+
+    /**
+     * Returns the number of run to completion steps.
+     *
+     * @return the number of run to completion steps
+     */
+    public synchronized long getNbrRunToCompletionSteps () {
+        return nbrRunToCompletionSteps;
+    }
+
+    /**
+     * Returns the mean run to completion latency in milliseconds, measured from
+     * the time at which each event was enqueued.
+     *
+     * @return the mean run to completion latency in milliseconds
+     */
+    public synchronized double getMeanRunToCompletionLatency () {
+        if (nbrRunToCompletionSteps == 0)
+            return 0.0;
+        return (double) totalRunToCompletionLatency / nbrRunToCompletionSteps;
+    }
+
+    /**
+     * Returns the maximum run to completion latency in milliseconds.
+     *
+     * @return the maximum run to completion latency in milliseconds
+     */
+    public synchronized long getMaxRunToCompletionLatency () {
+        return maxRunToCompletionLatency;
+    }
+
+    /**
+     * Returns a string representation of this object, which reports the run to
+     * completion latency.
+     *
+     * @return a string representation of this object
+     */
+    public synchronized String toString () {
+        return "[InterpreterScheduler " + workers.size() + " threads, " +
+            nbrActiveInterpreters + " active state machines, " +
+            nbrRunToCompletionSteps + " steps, mean latency " +
+            getMeanRunToCompletionLatency() + " ms, max latency " +
+            maxRunToCompletionLatency + " ms]";
+    }
+
+    /**
+     * Runs the state machines queued for a worker.
+     */
+    protected class Worker extends Thread {
+
+        /**
+         * Constructs a new Worker object.
+         *
+         * @param name the thread name
+         */
+        protected Worker (String name) {
+            super(name);
+            setDaemon(true);
+        }
+
+        /**
+         * Runs queued state machines until the scheduler is shut down.
+         */
+        public void run () {
+            try {
+                Interpreter interpreter;
+                while ((interpreter = nextInterpreter()) != null)
+                    runStep(interpreter);
+            }
+            catch (InterruptedException e) {
+            }
+        }
+    }
+}
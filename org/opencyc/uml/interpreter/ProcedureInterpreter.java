@@ -110,6 +110,12 @@ public class ProcedureInterpreter {
      */
     protected CycConstant softwareParameterFromSyntaxFn;
 
+    /**
+     * the optional in-memory store of software parameter values, or null if the
+     * values are read and written directly in the KB
+     */
+    protected StateVariableStore stateVariableStore;
+
     /**
      * Constructs a new ProcedureInterpreter object.
      *
@@ -179,9 +185,13 @@ public class ProcedureInterpreter {
             Object value = null;
             if (valueExpression instanceof StateVariable) {
                 // lookup the value of the state variable
-                value = cycAccess.getArg2(softwareParameterValue,
-                                          cycAccess.getKnownConstantByName(valueExpression.toString()),
-                                          parentContextFrame);
+                CycFort stateVariableTerm = cycAccess.getKnownConstantByName(valueExpression.toString());
+                if (stateVariableStore != null)
+                    value = stateVariableStore.getValue(stateVariableTerm, parentContextFrame);
+                else
+                    value = cycAccess.getArg2(softwareParameterValue,
+                                              stateVariableTerm,
+                                              parentContextFrame);
             }
             else
                 // a literal
@@ -189,7 +199,10 @@ public class ProcedureInterpreter {
             if (verbosity > 2)
                 Log.current.println(value.toString() + " --> " + inputPinParameter.cyclify());
             //TODO interpret evaluatable expressions as inpput arguments
-
+            if (stateVariableStore != null) {
+                stateVariableStore.setValue(inputPinParameter, value, contextFrame);
+                continue;
+            }
             CycList softwareParameterValueSentence = new CycList();
             softwareParameterValueSentence.add(softwareParameterValue);
             softwareParameterValueSentence.add(inputPinParameter);
@@ -213,6 +226,12 @@ public class ProcedureInterpreter {
             StateVariable stateVariable = outputBinding.getBoundOutputStateVariable();
             CycFort stateVariableTerm = cycAccess.getKnownConstantByName(stateVariable.toString());
             CycNart outputPinParameter = new CycNart(softwareParameterFromSyntaxFn, outputPinTerm);
+            if (stateVariableStore != null) {
+                stateVariableStore.setValue(stateVariableTerm,
+                                            stateVariableStore.getValue(outputPinParameter, contextFrame),
+                                            parentContextFrame);
+                continue;
+            }
             Object value =
                 cycAccess.getArg2(softwareParameterValue,
                                   outputPinParameter,
@@ -230,6 +249,8 @@ public class ProcedureInterpreter {
             cycAccess.assertWithBookkeepingAndWithoutTranscript(softwareParameterValueSentence,
                                                                 parentContextFrame);
         }
+        if (stateVariableStore != null)
+            stateVariableStore.discard(contextFrame);
         contextStackPool.deallocateContextFrame(contextFrame);
     }
 
@@ -252,4 +273,16 @@ public class ProcedureInterpreter {
         this.verbosity = verbosity;
     }
 
+    /**
+     * Sets the optional in-memory store of software parameter values, which is
+     * shared with this procedure interpreter's expression evaluator.
+     *
+     * @param stateVariableStore the in-memory store of software parameter values,
+     * or null if the values are to be read and written directly in the KB
+     */
+    public void setStateVariableStore (StateVariableStore stateVariableStore) {
+        this.stateVariableStore = stateVariableStore;
+        expressionEvaluator.setStateVariableStore(stateVariableStore);
+    }
+
 }
\ No newline at end of file
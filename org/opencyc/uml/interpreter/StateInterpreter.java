@@ -89,6 +89,7 @@ public class StateInterpreter extends Thread {
                                                         interpreter.getStateMachineDefinitionMt(),
                                                         interpreter.getContextStackPool(),
                                                         verbosity);
+        procedureInterpreter.setStateVariableStore(interpreter.getStateVariableStore());
     }
 
     /**
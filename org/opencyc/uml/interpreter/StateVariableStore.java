@@ -0,0 +1,328 @@
+package org.opencyc.uml.interpreter;
+
+import java.io.*;
+import java.util.*;
+import org.opencyc.api.*;
+import org.opencyc.cycobject.*;
+import org.opencyc.util.*;
+
+/**
+ * Holds the values of state variables and procedure parameters in memory, scoped
+ * to the context frame microtheories allocated by the <tt>ContextStackPool</tt>.
+ * Reads are served from memory, the first read of a value in a context frame being
+ * read through from the KB, and writes are kept in memory as dirty values.  The
+ * dirty values of a context frame are written behind to the KB as
+ * #$softwareParameterValue assertions in one batched api request, when the
+ * interpreter reaches a transition boundary, or on demand for debugging.  Before
+ * an expression is evaluated by the KB, the dirty values of all context frames are
+ * written, since a context frame sees the values of its ancestors.  Interpreted procedures
+ * thus run at memory speed while their final state remains visible in Cyc.<p>
+ *
+ * Values asserted into a context frame by other than this store are not seen once
+ * a value has been cached.<p>
+ *
+ * @version $Id$
+ *
+ * <p>Copyright 2001 Cycorp, Inc., license is open source GNU LGPL.
+ * <p><a href="http://www.opencyc.org/license.txt">the license</a>
+ * <p><a href="http://www.opencyc.org">www.opencyc.org</a>
+ * <p><a href="http://www.sourceforge.net/projects/opencyc">OpenCyc at SourceForge</a>
+ * <p>
+ * THIS SOFTWARE AND KNOWLEDGE BASE CONTENT ARE PROVIDED ``AS IS'' AND
+ * ANY EXPRESSED OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE OPENCYC
+ * ORGANIZATION OR ITS CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE AND KNOWLEDGE
+ * BASE CONTENT, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * @see ContextStackPool
+ */
+public class StateVariableStore {
+
+    /**
+     * The quiet verbosity of this object's output.  0 --> quiet ... 9 -> maximum
+     * diagnostic input.
+     */
+    public static final int QUIET_VERBOSITY = 0;
+
+    /**
+     * The default verbosity of this object's output.  0 --> quiet ... 9 -> maximum
+     * diagnostic input.
+     */
+    public static final int DEFAULT_VERBOSITY = 3;
+
+    /**
+     * Sets verbosity of this object's output.  0 --> quiet ... 9 -> maximum
+     * diagnostic input.
+     */
+    protected int verbosity = DEFAULT_VERBOSITY;
+
+    /**
+     * the cyc access instance
+     */
+    protected CycAccess cycAccess;
+
+    /**
+     * #$softwareParameterValue
+     */
+    protected CycConstant softwareParameterValue;
+
+    /**
+     * dictionary of context frames and their dictionaries of software parameters
+     * and values
+     */
+    protected HashMap contextFrameValues = new HashMap();
+
+    /**
+     * dictionary of context frames and the sets of their software parameters whose
+     * values have not been written to the KB
+     */
+    protected HashMap contextFrameDirtyParameters = new HashMap();
+
+    /**
+     * the number of values read from the KB
+     */
+    protected long nbrKbReads = 0;
+
+    /**
+     * the number of values written to the KB
+     */
+    protected long nbrKbWrites = 0;
+
+    /**
+     * the number of batched api requests which wrote values to the KB
+     */
+    protected long nbrFlushes = 0;
+
+    /**
+     * Constructs a new StateVariableStore object.
+     *
+     * @param cycAccess the cyc access instance
+     * @param verbosity the output verbosity for this object
+     */
+    public StateVariableStore(CycAccess cycAccess, int verbosity)
+        throws IOException, CycApiException {
+        this.cycAccess = cycAccess;
+        this.verbosity = verbosity;
+        softwareParameterValue = cycAccess.getKnownConstantByName("softwareParameterValue");
+    }
+
+    /**
+     * Returns the value of the given software parameter in the given context frame,
+     * reading it from the KB if it is not held in memory.
+     *
+     * @param softwareParameter the given software parameter
+     * @param contextFrame the given context frame
+     * @return the value of the given software parameter, or null if it has no value
+     */
+    public synchronized Object getValue (CycFort softwareParameter, CycFort contextFrame)
+        throws IOException, CycApiException {
+        HashMap values = getValues(contextFrame);
+        Object value = values.get(softwareParameter);
+        if (value == null) {
+            value = cycAccess.getArg2(softwareParameterValue,
+                                      softwareParameter,
+                                      contextFrame);
+            nbrKbReads++;
+            if (value != null)
+                values.put(softwareParameter, value);
+        }
+        return value;
+    }
+
+    /**
+     * Sets the value of the given software parameter in the given context frame.  The
+     * value is written to the KB when the context frame is next flushed.
+     *
+     * @param softwareParameter the given software parameter
+     * @param value the value
+     * @param contextFrame the given context frame
+     */
+    public synchronized void setValue (CycFort softwareParameter,
+                                       Object value,
+                                       CycFort contextFrame) {
+        if (verbosity > 2)
+            Log.current.println("Storing " + value + " --> " + softwareParameter.cyclify() +
+                                " in " + contextFrame.cyclify());
+        getValues(contextFrame).put(softwareParameter, value);
+        HashSet dirtyParameters = (HashSet) contextFrameDirtyParameters.get(contextFrame);
+        if (dirtyParameters == null) {
+            dirtyParameters = new HashSet();
+            contextFrameDirtyParameters.put(contextFrame, dirtyParameters);
+        }
+        dirtyParameters.add(softwareParameter);
+    }
+
+    /**
+     * Writes the dirty values of all context frames to the KB in one api request, as
+     * when the KB is to evaluate an expression in a context frame which inherits from
+     * its ancestors.
+     *
+     * @return the number of values written
+     */
+    public synchronized int flush ()
+        throws IOException, CycApiException {
+        return flush(new ArrayList(contextFrameDirtyParameters.keySet()));
+    }
+
+    /**
+     * Writes the dirty values of the given context frame to the KB in one api request.
+     *
+     * @param contextFrame the given context frame
+     * @return the number of values written
+     */
+    public synchronized int flush (CycFort contextFrame)
+        throws IOException, CycApiException {
+        ArrayList contextFrames = new ArrayList(1);
+        contextFrames.add(contextFrame);
+        return flush(contextFrames);
+    }
+
+    /**
+     * Writes the dirty values of the given context frames to the KB in one api request,
+     * which first unasserts the values they supersede, found by the KB's index of each
+     * parameter's #$softwareParameterValue assertions.  The values remain dirty if the
+     * request fails.
+     *
+     * @param contextFrames the given context frames
+     * @return the number of values written
+     */
+    protected int flush (ArrayList contextFrames)
+        throws IOException, CycApiException {
+        StringBuffer unassertions = new StringBuffer();
+        StringBuffer assertions = new StringBuffer();
+        int nbrDirtyValues = 0;
+        for (int i = 0; i < contextFrames.size(); i++) {
+            CycFort contextFrame = (CycFort) contextFrames.get(i);
+            HashSet dirtyParameters = (HashSet) contextFrameDirtyParameters.get(contextFrame);
+            if (dirtyParameters == null)
+                continue;
+            HashMap values = getValues(contextFrame);
+            String mt = cycAccess.makeELMt(contextFrame).stringApiValue();
+            Iterator iter = dirtyParameters.iterator();
+            while (iter.hasNext()) {
+                CycFort softwareParameter = (CycFort) iter.next();
+                unassertions.append("\n  (cdolist (assertion (gather-gaf-arg-index ");
+                unassertions.append(softwareParameter.stringApiValue());
+                unassertions.append(" 1 ");
+                unassertions.append(softwareParameterValue.stringApiValue());
+                unassertions.append(" ");
+                unassertions.append(mt);
+                unassertions.append("))");
+                unassertions.append("\n    (cyc-unassert assertion " + mt + "))");
+                CycList sentence = new CycList();
+                sentence.add(softwareParameterValue);
+                sentence.add(softwareParameter);
+                sentence.add(values.get(softwareParameter));
+                assertions.append("\n      (cyc-assert ");
+                assertions.append(sentence.stringApiValue());
+                assertions.append(" ");
+                assertions.append(mt);
+                assertions.append(")");
+            }
+            nbrDirtyValues += dirtyParameters.size();
+            if (verbosity > 2)
+                Log.current.println("Flushing " + dirtyParameters.size() + " values in " +
+                                    contextFrame.cyclify());
+        }
+        if (nbrDirtyValues > 0) {
+            String cyclistName = "nil";
+            if (cycAccess.getCyclist() != null)
+                cyclistName = cycAccess.getCyclist().stringApiValue();
+            String projectName = "nil";
+            if (cycAccess.getKePurpose() != null)
+                projectName = cycAccess.getKePurpose().stringApiValue();
+            StringBuffer command = new StringBuffer("(progn");
+            command.append(unassertions);
+            command.append("\n  (with-bookkeeping-info (new-bookkeeping-info " + cyclistName +
+                           " (the-date) " + projectName + " (the-second))");
+            command.append("\n    (clet ((*the-cyclist* " + cyclistName + ")");
+            command.append("\n           (*ke-purpose* " + projectName + "))");
+            command.append(assertions);
+            command.append(")))");
+            cycAccess.converseVoid(command.toString());
+            nbrKbWrites += nbrDirtyValues;
+            nbrFlushes++;
+        }
+        for (int i = 0; i < contextFrames.size(); i++)
+            contextFrameDirtyParameters.remove(contextFrames.get(i));
+        return nbrDirtyValues;
+    }
+
+    /**
+     * Discards the values of the given context frame without writing them to the KB,
+     * as when the context frame is deallocated.
+     *
+     * @param contextFrame the given context frame
+     */
+    public synchronized void discard (CycFort contextFrame) {
+        contextFrameValues.remove(contextFrame);
+        contextFrameDirtyParameters.remove(contextFrame);
+    }
+
+    /**
+     * Returns the number of values which have not been written to the KB.
+     *
+     * @return the number of values which have not been written to the KB
+     */
+    public synchronized int getNbrDirtyValues () {
+        int nbrDirtyValues = 0;
+        Iterator iter = contextFrameDirtyParameters.values().iterator();
+        while (iter.hasNext())
+            nbrDirtyValues += ((HashSet) iter.next()).size();
+        return nbrDirtyValues;
+    }
+
+    /**
+     * Returns the dictionary of software parameters and values of the given context
+     * frame, creating it if necessary.
+     *
+     * @param contextFrame the given context frame
+     * @return the dictionary of software parameters and values of the given context frame
+     */
+    protected HashMap getValues (CycFort contextFrame) {
+        HashMap values = (HashMap) contextFrameValues.get(contextFrame);
+        if (values == null) {
+            values = new HashMap();
+            contextFrameValues.put(contextFrame, values);
+        }
+        return values;
+    }
+
+    /**
+     * Gets the  verbosity of this object's output.  0 --> quiet ... 9 -> maximum
+     * diagnostic input.
+     *
+     * @return  the  verbosity of this object's output
+     */
+    public int getVerbosity () {
+        return verbosity;
+    }
+
+    /**
+     * Sets verbosity of this object's output.  0 --> quiet ... 9 -> maximum
+     * diagnostic input.
+     *
+     * @param verbosity 0 --> quiet ... 9 -> maximum diagnostic input
+     */
+    public void setVerbosity(int verbosity) {
+        this.verbosity = verbosity;
+    }
+
+    /**
+     * Returns a string representation of this object, which reports the KB traffic.
+     *
+     * @return a string representation of this object
+     */
+    public synchronized String toString () {
+        return "[StateVariableStore " + contextFrameValues.size() + " context frames, " +
+            getNbrDirtyValues() + " dirty values, " + nbrKbReads + " KB reads, " +
+            nbrKbWrites + " KB writes in " + nbrFlushes + " flushes]";
+    }
+}
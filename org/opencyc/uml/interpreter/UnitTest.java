@@ -64,6 +64,7 @@ public class UnitTest extends TestCase {
         testSuite.addTest(new UnitTest("testSimpleStateMachine"));
         */
         testSuite.addTest(new UnitTest("testCycExtractor"));
+        testSuite.addTest(new UnitTest("testInterpreterScheduler"));
         return  testSuite;
     }
 
@@ -839,6 +840,149 @@ public class UnitTest extends TestCase {
         }
         System.out.println("\n**** testCycExtractor ****");
     }
+
+    /**
+     * Tests the queue ordering of the interpreter scheduler, which is driven here
+     * without worker threads and without Cyc.
+     */
+    public void testInterpreterScheduler () {
+        System.out.println("\n**** testInterpreterScheduler ****");
+        Log.makeLog("unit-test.log");
+        try {
+            InterpreterScheduler scheduler = new InterpreterScheduler(0);
+            ArrayList steps = new ArrayList();
+            TestInterpreter a = new TestInterpreter("a", steps);
+            TestInterpreter b = new TestInterpreter("b", steps);
+            TestInterpreter c = new TestInterpreter("c", steps);
+
+            // Started state machines are queued in order.
+            scheduler.start(a);
+            scheduler.start(b);
+            scheduler.start(c);
+            Assert.assertEquals(3, scheduler.getNbrActiveInterpreters());
+            try {
+                scheduler.start(a);
+                Assert.fail();
+            }
+            catch (IllegalStateException e) {
+            }
+            Assert.assertSame(a, scheduler.nextInterpreter());
+            Assert.assertSame(b, scheduler.nextInterpreter());
+            Assert.assertSame(c, scheduler.nextInterpreter());
+
+            // Starting a state machine without pending events does not requeue it.
+            scheduler.runStep(a);
+            scheduler.runStep(b);
+            scheduler.runStep(c);
+            Assert.assertTrue(scheduler.readyInterpreters.isEmpty());
+            Assert.assertFalse(a.isScheduled);
+
+            // An event queues its idle state machine once, in the order of arrival.
+            b.enqueueEvent(new Event());
+            b.enqueueEvent(new Event());
+            a.enqueueEvent(new Event());
+            Assert.assertEquals(2, scheduler.readyInterpreters.size());
+            Assert.assertSame(b, scheduler.nextInterpreter());
+
+            // A state machine with more pending events is requeued behind the others.
+            scheduler.runStep(b);
+            Assert.assertSame(a, scheduler.nextInterpreter());
+            Assert.assertSame(b, scheduler.nextInterpreter());
+            Assert.assertTrue(scheduler.readyInterpreters.isEmpty());
+            scheduler.runStep(b);
+            Assert.assertFalse(b.isScheduled);
+            Assert.assertTrue(scheduler.readyInterpreters.isEmpty());
+            Assert.assertEquals(2, scheduler.getNbrRunToCompletionSteps());
+
+            // A failed step terminates its state machine.
+            a.isFailing = true;
+            scheduler.runStep(a);
+            Assert.assertTrue(a.isTerminated());
+            Assert.assertTrue(a.isFrameReleased);
+            Assert.assertEquals(2, scheduler.getNbrActiveInterpreters());
+            a.enqueueEvent(new Event());
+            Assert.assertTrue(scheduler.readyInterpreters.isEmpty());
+
+            ArrayList expectedSteps = new ArrayList();
+            expectedSteps.add("start a");
+            expectedSteps.add("start b");
+            expectedSteps.add("start c");
+            expectedSteps.add("step b");
+            expectedSteps.add("step b");
+            Assert.assertEquals(expectedSteps, steps);
+
+            // Queued state machines are abandoned at shutdown.
+            c.enqueueEvent(new Event());
+            Assert.assertEquals(1, scheduler.readyInterpreters.size());
+            scheduler.shutdown();
+            Assert.assertNull(scheduler.nextInterpreter());
+        } catch (Exception e) {
+            e.printStackTrace();
+            Assert.fail();
+        }
+        System.out.println("\n**** testInterpreterScheduler ****");
+    }
+
+    /**
+     * Provides a state machine interpreter which records its steps instead of
+     * interpreting a state machine.
+     */
+    protected class TestInterpreter extends Interpreter {
+
+        /**
+         * the name of this interpreter
+         */
+        protected String name;
+
+        /**
+         * the recorded steps of all the test interpreters
+         */
+        protected ArrayList steps;
+
+        /**
+         * indicates that the next step fails
+         */
+        protected boolean isFailing = false;
+
+        /**
+         * indicates that the termination released the context frame
+         */
+        protected boolean isFrameReleased = false;
+
+        /**
+         * Constructs a new TestInterpreter object.
+         *
+         * @param name the name of this interpreter
+         * @param steps the recorded steps of all the test interpreters
+         */
+        public TestInterpreter (String name, ArrayList steps) {
+            this.name = name;
+            this.steps = steps;
+        }
+
+        protected void start () {
+            isStarted = true;
+            steps.add("start " + name);
+        }
+
+        protected long runToCompletion () throws ExpressionEvaluationException {
+            synchronized (eventQueue) {
+                eventQueue.remove();
+                eventEnqueueTimes.remove();
+            }
+            if (isFailing)
+                throw new ExpressionEvaluationException("step " + name + " failed");
+            steps.add("step " + name);
+            return 0;
+        }
+
+        public void terminate () {
+            synchronized (eventQueue) {
+                isTerminated = true;
+            }
+            isFrameReleased = true;
+        }
+    }
 }
 
 
@@ -0,0 +1,489 @@
+package org.opencyc.webserver;
+
+/**
+ * Provides the state of one client connection of the non-blocking web server.<p>
+ * <p>
+ * The connection is driven by the selector thread of its WebServer.  Request
+ * bytes accumulate in an input buffer until a complete request is present, so a
+ * request may arrive in any number of reads.  Each response is written with a
+ * Content-Length header, which lets the connection stay open for further requests
+ * under HTTP/1.1 keep-alive.  Responses are queued as byte buffers, and files
+ * too large for the file cache are sent with <tt>FileChannel.transferTo</tt>,
+ * which moves the bytes from disk to the socket without copying them through
+ * the Java heap.  While a response is being written, or while a Cyc HTML request
+ * is waiting for a proxy thread, no further requests are read, so pipelined
+ * requests are answered in order.
+ *
+ * @version $Id$
+ *
+ * <p>Copyright 2001 Cycorp, Inc., license is open source GNU LGPL.
+ * <p><a href="http://www.opencyc.org/license.txt">the license</a>
+ * <p><a href="http://www.opencyc.org">www.opencyc.org</a>
+ * <p><a href="http://www.sourceforge.net/projects/opencyc">OpenCyc at SourceForge</a>
+ * <p>
+ * THIS SOFTWARE AND KNOWLEDGE BASE CONTENT ARE PROVIDED ``AS IS'' AND
+ * ANY EXPRESSED OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE OPENCYC
+ * ORGANIZATION OR ITS CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE AND KNOWLEDGE
+ * BASE CONTENT, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.LinkedList;
+import org.opencyc.util.Log;
+
+public class HttpConnection {
+
+    /**
+     * Initial size of the request input buffer.
+     */
+    protected static final int INITIAL_BUFFER_SIZE = 4096;
+
+    /**
+     * Largest request accepted, including the body of a POST method.
+     */
+    protected static final int MAX_REQUEST_SIZE = 1024 * 1024;
+
+    /**
+     * Body of the not found response.
+     */
+    protected static final String NOT_FOUND_BODY =
+        "<HTML><HEAD>\n" +
+        "<TITLE>404 Not Found</TITLE>\n" +
+        "</HEAD><BODY>\n" +
+        "<H1>404 - Not Found</H1>\n" +
+        "</BODY></HTML>";
+
+    /**
+     * The web server which owns this connection.
+     */
+    protected WebServer webServer;
+
+    /**
+     * The client socket channel.
+     */
+    protected SocketChannel channel;
+
+    /**
+     * The selection key of the client socket channel.
+     */
+    protected SelectionKey key;
+
+    /**
+     * Request bytes not yet processed.
+     */
+    protected ByteBuffer in = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+
+    /**
+     * Response buffers not yet written, sent together by a gathering write.
+     */
+    protected LinkedList out = new LinkedList();
+
+    /**
+     * The file being sent after the response buffers, or null.
+     */
+    protected FileChannel fileChannel;
+
+    /**
+     * Position of the next file byte to send.
+     */
+    protected long filePosition;
+
+    /**
+     * Number of file bytes remaining to send.
+     */
+    protected long fileRemaining;
+
+    /**
+     * Indicates that the connection stays open after the current response.
+     */
+    protected boolean keepAlive;
+
+    /**
+     * Indicates that a Cyc HTML request is waiting for a proxy thread.
+     */
+    protected boolean awaitingProxy = false;
+
+    /**
+     * Time of the last read or write.
+     */
+    protected long lastActivityMillis = System.currentTimeMillis();
+
+    /**
+     * Contains the first line of the current request message.
+     */
+    protected String methodLine;
+
+    /**
+     * Indicates that buffered requests are being processed.
+     */
+    protected boolean isProcessing = false;
+
+    /**
+     * Indicates that the connection is closed.
+     */
+    protected boolean isClosed = false;
+
+    /**
+     * Constructs a HttpConnection object.
+     *
+     * @param webServer the web server which owns this connection
+     * @param channel the client socket channel
+     * @param key the selection key of the client socket channel
+     */
+    public HttpConnection(WebServer webServer, SocketChannel channel, SelectionKey key) {
+        this.webServer = webServer;
+        this.channel = channel;
+        this.key = key;
+    }
+
+    /**
+     * Reads available request bytes and processes any complete request.
+     *
+     * @exception IOException if the connection fails.
+     */
+    public void read() throws IOException {
+        if (! in.hasRemaining()) {
+            if (in.capacity() >= MAX_REQUEST_SIZE) {
+                Log.current.println("Request too large from " + getHostAddress());
+                close();
+                return;
+            }
+            ByteBuffer largerIn = ByteBuffer.allocate(Math.min(in.capacity() * 2, MAX_REQUEST_SIZE));
+            in.flip();
+            largerIn.put(in);
+            in = largerIn;
+        }
+        int nbrBytesRead = channel.read(in);
+        if (nbrBytesRead < 0) {
+            close();
+            return;
+        }
+        lastActivityMillis = System.currentTimeMillis();
+        processRequest();
+    }
+
+    /**
+     * Writes pending response bytes, and when the response is complete either
+     * closes the connection or resumes reading requests.
+     *
+     * @exception IOException if the connection fails.
+     */
+    public void write() throws IOException {
+        if (! out.isEmpty()) {
+            channel.write((ByteBuffer[]) out.toArray(new ByteBuffer[out.size()]));
+            lastActivityMillis = System.currentTimeMillis();
+            while (! out.isEmpty() && ! ((ByteBuffer) out.getFirst()).hasRemaining())
+                out.removeFirst();
+            if (! out.isEmpty()) {
+                key.interestOps(SelectionKey.OP_WRITE);
+                return;
+            }
+        }
+        if (fileChannel != null) {
+            while (fileRemaining > 0) {
+                long nbrBytesSent = fileChannel.transferTo(filePosition, fileRemaining, channel);
+                if (nbrBytesSent == 0) {
+                    key.interestOps(SelectionKey.OP_WRITE);
+                    return;
+                }
+                filePosition += nbrBytesSent;
+                fileRemaining -= nbrBytesSent;
+                lastActivityMillis = System.currentTimeMillis();
+            }
+            fileChannel.close();
+            fileChannel = null;
+        }
+        if (! keepAlive) {
+            close();
+            return;
+        }
+        key.interestOps(SelectionKey.OP_READ);
+        processRequest();
+    }
+
+    /**
+     * Writes the Cyc HTML response obtained by a proxy thread.
+     *
+     * @param bytes the Cyc HTML response
+     * @exception IOException if the connection fails.
+     */
+    public void writeProxyResponse(byte[] bytes) throws IOException {
+        awaitingProxy = false;
+        if (isClosed)
+            return;
+        respond("200 OK", "text/html", bytes);
+    }
+
+    /**
+     * Returns true if the connection has been idle longer than the given time
+     * and is not waiting for a proxy response.
+     *
+     * @param nowMillis the current time
+     * @param timeoutMillis the idle time allowed
+     * @return true if the connection has been idle longer than the given time
+     */
+    public boolean isIdle(long nowMillis, long timeoutMillis) {
+        return ! awaitingProxy && nowMillis - lastActivityMillis > timeoutMillis;
+    }
+
+    /**
+     * Closes the connection.
+     */
+    public void close() {
+        if (isClosed)
+            return;
+        isClosed = true;
+        key.cancel();
+        try {
+            channel.close();
+        }
+        catch (IOException e) {
+        }
+        if (fileChannel != null) {
+            try {
+                fileChannel.close();
+            }
+            catch (IOException e) {
+            }
+            fileChannel = null;
+        }
+        webServer.connectionClosed();
+    }
+
+    /**
+     * Returns the client host address.
+     *
+     * @return the client host address
+     */
+    public String getHostAddress() {
+        return channel.socket().getInetAddress().getHostAddress();
+    }
+
+    /**
+     * Returns the client internet address.
+     *
+     * @return the client internet address
+     */
+    public InetAddress getInetAddress() {
+        return channel.socket().getInetAddress();
+    }
+
+    /**
+     * Processes the buffered requests in order while no response is pending.
+     *
+     * @exception IOException if the connection fails.
+     */
+    protected void processRequest() throws IOException {
+        if (isProcessing)
+            return;
+        isProcessing = true;
+        try {
+            while (processNextRequest())
+                ;
+        }
+        finally {
+            isProcessing = false;
+        }
+    }
+
+    /**
+     * Processes the next buffered request if it is complete and no response is pending.
+     *
+     * @return true if a request was processed
+     * @exception IOException if the connection fails.
+     */
+    protected boolean processNextRequest() throws IOException {
+        if (isClosed || awaitingProxy || ! out.isEmpty() || fileChannel != null)
+            return false;
+        byte[] bytes = in.array();
+        int length = in.position();
+        int headersEnd = -1;
+        for (int i = 3; i < length; i++) {
+            if (bytes[i - 3] == '\r' && bytes[i - 2] == '\n' && bytes[i - 1] == '\r' && bytes[i] == '\n') {
+                headersEnd = i + 1;
+                break;
+            }
+        }
+        if (headersEnd < 0)
+            return false;
+        String headers = new String(bytes, 0, headersEnd, "ISO-8859-1");
+        int i = headers.indexOf("\r\n");
+        methodLine = headers.substring(0, i);
+        headers = headers.substring(i + 2);
+        String lcHeaders = headers.toLowerCase();
+        boolean postMethod = methodLine.startsWith("POST /");
+        int bodyLength = 0;
+        if (postMethod) {
+            i = lcHeaders.indexOf("content-length:");
+            if (i > -1) {
+                String contentLength = lcHeaders.substring(i + 15);
+                contentLength = contentLength.substring(0, contentLength.indexOf("\r\n")).trim();
+                try {
+                    bodyLength = Integer.parseInt(contentLength);
+                }
+                catch (NumberFormatException e) {
+                    bodyLength = -1;
+                }
+            }
+            if (bodyLength < 0 || headersEnd + bodyLength > MAX_REQUEST_SIZE) {
+                Log.current.println("Invalid request = " + methodLine);
+                close();
+                return false;
+            }
+            if (length < headersEnd + bodyLength)
+                return false;
+        }
+        String bodyLine = new String(bytes, headersEnd, bodyLength, "ISO-8859-1");
+        in.flip();
+        in.position(headersEnd + bodyLength);
+        in.compact();
+        if (lcHeaders.indexOf("connection: close") > -1)
+            keepAlive = false;
+        else if (lcHeaders.indexOf("connection: keep-alive") > -1)
+            keepAlive = true;
+        else
+            keepAlive = methodLine.endsWith("HTTP/1.1");
+        if (webServer.traceRequests)
+            Log.current.println(methodLine + "\r\n" + headers + bodyLine);
+        if (postMethod) {
+            Log.current.println("POST " + bodyLine + " from " + getHostAddress());
+            proxy(bodyLine);
+        }
+        else if (methodLine.startsWith("GET /"))
+            processHttpGet(methodLine.substring(4));
+        else {
+            Log.current.println("Invalid request = " + methodLine);
+            keepAlive = false;
+            respondNotFound();
+        }
+        return true;
+    }
+
+    /**
+     * Processes an HTTP GET method.
+     *
+     * @param httpGetPath the path of the file to get.
+     * @exception IOException if the connection fails.
+     */
+    protected void processHttpGet(String httpGetPath) throws IOException {
+        int i = httpGetPath.indexOf(' ');
+        if (i > 0)
+            httpGetPath = httpGetPath.substring(0, i);
+        Log.current.println(methodLine + " from " + getHostAddress());
+        i = httpGetPath.indexOf("cg?");
+        if (i > 0) {
+            proxy(httpGetPath.substring(i + 3));
+            return;
+        }
+        Object content;
+        try {
+            content = webServer.findContent(httpGetPath);
+        }
+        catch (IOException e) {
+            content = null;
+        }
+        if (content instanceof byte[]) {
+            byte[] bytes = (byte[]) content;
+            respond("200 OK", WebServer.getContentType(bytes, bytes.length), bytes);
+        }
+        else if (content instanceof File)
+            respondFile((File) content);
+        else {
+            Log.current.println("file not found: " + httpGetPath);
+            respondNotFound();
+        }
+    }
+
+    /**
+     * Hands the given Cyc HTML request to a proxy thread, suspending this
+     * connection until the response arrives.
+     *
+     * @param cycPath the portion of the URL which is given to the Cyc HTML server.
+     */
+    protected void proxy(String cycPath) {
+        awaitingProxy = true;
+        key.interestOps(0);
+        webServer.queueProxyRequest(this, cycPath);
+    }
+
+    /**
+     * Queues the response header and the given content, and begins writing.
+     *
+     * @param status the HTTP status code and reason
+     * @param contentType the content type
+     * @param bytes the content
+     * @exception IOException if the connection fails.
+     */
+    protected void respond(String status, String contentType, byte[] bytes) throws IOException {
+        out.addLast(ByteBuffer.wrap(makeHeader(status, contentType, bytes.length)));
+        out.addLast(ByteBuffer.wrap(bytes));
+        write();
+    }
+
+    /**
+     * Queues the response header for the given file, which is then sent from
+     * disk, and begins writing.
+     *
+     * @param file the file
+     * @exception IOException if the connection fails.
+     */
+    protected void respondFile(File file) throws IOException {
+        fileChannel = new FileInputStream(file).getChannel();
+        filePosition = 0;
+        fileRemaining = fileChannel.size();
+        ByteBuffer prefix = ByteBuffer.allocate(1000);
+        fileChannel.read(prefix, 0);
+        String contentType = WebServer.getContentType(prefix.array(), prefix.position());
+        out.addLast(ByteBuffer.wrap(makeHeader("200 OK", contentType, fileRemaining)));
+        write();
+    }
+
+    /**
+     * Queues the not found response and begins writing.
+     *
+     * @exception IOException if the connection fails.
+     */
+    protected void respondNotFound() throws IOException {
+        respond("404 Not Found", "text/html", NOT_FOUND_BODY.getBytes("ISO-8859-1"));
+    }
+
+    /**
+     * Returns the response header bytes.
+     *
+     * @param status the HTTP status code and reason
+     * @param contentType the content type
+     * @param contentLength the content length
+     * @return the response header bytes
+     */
+    protected byte[] makeHeader(String status, String contentType, long contentLength)
+        throws UnsupportedEncodingException {
+        StringBuffer header = new StringBuffer(160);
+        header.append("HTTP/1.1 ");
+        header.append(status);
+        header.append("\r\nServer: Cyc WebServer\r\n");
+        header.append(keepAlive ? "Connection: keep-alive\r\n" : "Connection: close\r\n");
+        header.append("Content-Length: ");
+        header.append(contentLength);
+        header.append("\r\nContent-Type: ");
+        header.append(contentType);
+        header.append("\r\n\r\n");
+        return header.toString().getBytes("ISO-8859-1");
+    }
+
+}
@@ -0,0 +1,224 @@
+package org.opencyc.webserver;
+
+/**
+ * Provides a bounded least recently used cache of file contents for the web server.<p>
+ * <p>
+ * The cache is bounded by the total number of content bytes it holds rather than
+ * by the number of files.  When adding an entry would exceed the capacity, the
+ * least recently used entries are evicted one at a time until the new entry fits.
+ * Contents larger than the maximum entry size are never cached, so that a single
+ * large file cannot flush the whole cache.  Hits, misses and evictions are counted
+ * for the administrative accessors of the web server.
+ *
+ * @version $Id$
+ *
+ * <p>Copyright 2001 Cycorp, Inc., license is open source GNU LGPL.
+ * <p><a href="http://www.opencyc.org/license.txt">the license</a>
+ * <p><a href="http://www.opencyc.org">www.opencyc.org</a>
+ * <p><a href="http://www.sourceforge.net/projects/opencyc">OpenCyc at SourceForge</a>
+ * <p>
+ * THIS SOFTWARE AND KNOWLEDGE BASE CONTENT ARE PROVIDED ``AS IS'' AND
+ * ANY EXPRESSED OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE OPENCYC
+ * ORGANIZATION OR ITS CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE AND KNOWLEDGE
+ * BASE CONTENT, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class LruByteCache {
+
+    /**
+     * The cache entries in least recently used order, key --> byte[].
+     */
+    protected LinkedHashMap entries = new LinkedHashMap(64, 0.75f, true);
+
+    /**
+     * The maximum total number of content bytes held.
+     */
+    protected long capacity;
+
+    /**
+     * The largest content cached, in bytes.
+     */
+    protected int maxEntrySize;
+
+    /**
+     * The total number of content bytes held.
+     */
+    protected long size = 0;
+
+    /**
+     * The number of lookups which found their content.
+     */
+    protected long nbrHits = 0;
+
+    /**
+     * The number of lookups which did not find their content.
+     */
+    protected long nbrMisses = 0;
+
+    /**
+     * The number of entries evicted to make room for others.
+     */
+    protected long nbrEvictions = 0;
+
+    /**
+     * Constructs a LruByteCache object.
+     *
+     * @param capacity the maximum total number of content bytes held
+     * @param maxEntrySize the largest content cached, in bytes
+     */
+    public LruByteCache(long capacity, int maxEntrySize) {
+        this.capacity = capacity;
+        this.maxEntrySize = (int) Math.min(maxEntrySize, capacity);
+    }
+
+    /**
+     * Returns the cached content for the given key, or null if not cached.
+     *
+     * @param key the cache key
+     * @return the cached content for the given key, or null if not cached
+     */
+    public synchronized byte[] get(String key) {
+        byte[] bytes = (byte[]) entries.get(key);
+        if (bytes == null)
+            nbrMisses++;
+        else
+            nbrHits++;
+        return bytes;
+    }
+
+    /**
+     * Returns the cached content for the given key, or null if not cached, without counting
+     * a hit or miss.  A lookup which peeks at several keys is counted once by
+     * <tt>countLookup</tt>.
+     *
+     * @param key the cache key
+     * @return the cached content for the given key, or null if not cached
+     */
+    public synchronized byte[] peek(String key) {
+        return (byte[]) entries.get(key);
+    }
+
+    /**
+     * Counts a lookup made with <tt>peek</tt> as a hit or a miss.
+     *
+     * @param isHit true if the lookup found its content
+     */
+    public synchronized void countLookup(boolean isHit) {
+        if (isHit)
+            nbrHits++;
+        else
+            nbrMisses++;
+    }
+
+    /**
+     * Caches the given content, evicting the least recently used entries as needed.
+     * Content larger than the maximum entry size is not cached.
+     *
+     * @param key the cache key
+     * @param bytes the content
+     */
+    public synchronized void put(String key, byte[] bytes) {
+        if (bytes.length > maxEntrySize)
+            return;
+        byte[] previousBytes = (byte[]) entries.remove(key);
+        if (previousBytes != null)
+            size -= previousBytes.length;
+        Iterator iter = entries.entrySet().iterator();
+        while (size + bytes.length > capacity && iter.hasNext()) {
+            Map.Entry entry = (Map.Entry) iter.next();
+            size -= ((byte[]) entry.getValue()).length;
+            iter.remove();
+            nbrEvictions++;
+        }
+        entries.put(key, bytes);
+        size += bytes.length;
+    }
+
+    /**
+     * Removes all entries and resets the counts.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        size = 0;
+        nbrHits = 0;
+        nbrMisses = 0;
+        nbrEvictions = 0;
+    }
+
+    /**
+     * Returns the largest content cached, in bytes.
+     *
+     * @return the largest content cached, in bytes
+     */
+    public int getMaxEntrySize() {
+        return maxEntrySize;
+    }
+
+    /**
+     * Returns the total number of content bytes held.
+     *
+     * @return the total number of content bytes held
+     */
+    public synchronized long getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the number of entries held.
+     *
+     * @return the number of entries held
+     */
+    public synchronized int getNbrEntries() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the number of lookups which found their content.
+     *
+     * @return the number of lookups which found their content
+     */
+    public synchronized long getNbrHits() {
+        return nbrHits;
+    }
+
+    /**
+     * Returns the number of lookups which did not find their content.
+     *
+     * @return the number of lookups which did not find their content
+     */
+    public synchronized long getNbrMisses() {
+        return nbrMisses;
+    }
+
+    /**
+     * Returns the number of entries evicted to make room for others.
+     *
+     * @return the number of entries evicted to make room for others
+     */
+    public synchronized long getNbrEvictions() {
+        return nbrEvictions;
+    }
+
+    /**
+     * Returns a one line summary of the cache contents and counts.
+     *
+     * @return a one line summary of the cache contents and counts
+     */
+    public synchronized String toString() {
+        return entries.size() + " files, " + size + " of " + capacity + " bytes, " +
+            nbrHits + " hits, " + nbrMisses + " misses, " + nbrEvictions + " evictions";
+    }
+
+}
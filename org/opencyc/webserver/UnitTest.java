@@ -0,0 +1,270 @@
+package org.opencyc.webserver;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import junit.framework.Assert;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import junit.textui.TestRunner;
+import org.opencyc.util.Log;
+
+/**
+ * Provides a suite of JUnit test cases for the <tt>org.opencyc.webserver</tt> package.<p>
+ *
+ * @version $Id$
+ *
+ * <p>Copyright 2001 Cycorp, Inc., license is open source GNU LGPL.
+ * <p><a href="http://www.opencyc.org/license.txt">the license</a>
+ * <p><a href="http://www.opencyc.org">www.opencyc.org</a>
+ * <p><a href="http://www.sourceforge.net/projects/opencyc">OpenCyc at SourceForge</a>
+ * <p>
+ * THIS SOFTWARE AND KNOWLEDGE BASE CONTENT ARE PROVIDED ``AS IS'' AND
+ * ANY EXPRESSED OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE OPENCYC
+ * ORGANIZATION OR ITS CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE AND KNOWLEDGE
+ * BASE CONTENT, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+public class UnitTest extends TestCase {
+
+    /**
+     * Main method in case tracing is prefered over running JUnit.
+     */
+    public static void main(String[] args) {
+        TestRunner.run(suite());
+    }
+
+    /**
+     * Constructs a new UnitTest object.
+     * @param name the test case name.
+     */
+    public UnitTest(String name) {
+        super(name);
+    }
+
+    /**
+     * Runs the unit tests
+     */
+    public static Test suite() {
+        TestSuite testSuite = new TestSuite();
+        testSuite.addTest(new UnitTest("testLruByteCache"));
+        testSuite.addTest(new UnitTest("testHttpConnection"));
+        return testSuite;
+    }
+
+    /**
+     * Tests the LruByteCache class.
+     */
+    public void testLruByteCache() {
+        System.out.println("** testLruByteCache **");
+
+        LruByteCache cache = new LruByteCache(10, 4);
+        Assert.assertEquals(4, cache.getMaxEntrySize());
+        Assert.assertEquals(3, new LruByteCache(3, 4).getMaxEntrySize());
+
+        // Hits and misses.
+        cache.put("a", new byte[3]);
+        cache.put("b", new byte[3]);
+        cache.put("c", new byte[3]);
+        Assert.assertEquals(9, cache.getSize());
+        Assert.assertEquals(3, cache.getNbrEntries());
+        Assert.assertNotNull(cache.get("a"));
+        Assert.assertNull(cache.get("z"));
+        Assert.assertEquals(1, cache.getNbrHits());
+        Assert.assertEquals(1, cache.getNbrMisses());
+
+        // Eviction of the least recently used entry, which is now b.
+        cache.put("d", new byte[3]);
+        Assert.assertEquals(1, cache.getNbrEvictions());
+        Assert.assertEquals(9, cache.getSize());
+        Assert.assertNull(cache.peek("b"));
+        Assert.assertNotNull(cache.peek("a"));
+        Assert.assertNotNull(cache.peek("c"));
+        Assert.assertNotNull(cache.peek("d"));
+
+        // Peeks are not counted, countLookup counts one lookup.
+        Assert.assertEquals(1, cache.getNbrHits());
+        Assert.assertEquals(1, cache.getNbrMisses());
+        cache.countLookup(true);
+        cache.countLookup(false);
+        Assert.assertEquals(2, cache.getNbrHits());
+        Assert.assertEquals(2, cache.getNbrMisses());
+
+        // Content larger than the maximum entry size is not cached.
+        cache.put("e", new byte[5]);
+        Assert.assertNull(cache.peek("e"));
+        Assert.assertEquals(9, cache.getSize());
+        Assert.assertEquals(1, cache.getNbrEvictions());
+
+        // Replacing an entry frees its previous content first.
+        cache.put("a", new byte[4]);
+        Assert.assertEquals(10, cache.getSize());
+        Assert.assertEquals(3, cache.getNbrEntries());
+        Assert.assertEquals(1, cache.getNbrEvictions());
+        Assert.assertEquals(4, cache.peek("a").length);
+
+        // A larger entry evicts as many entries as needed, eldest first.
+        cache.put("f", new byte[4]);
+        Assert.assertEquals(2, cache.getNbrEntries());
+        Assert.assertEquals(8, cache.getSize());
+        Assert.assertEquals(3, cache.getNbrEvictions());
+        Assert.assertNull(cache.peek("c"));
+        Assert.assertNull(cache.peek("d"));
+        Assert.assertNotNull(cache.peek("a"));
+        Assert.assertNotNull(cache.peek("f"));
+
+        cache.clear();
+        Assert.assertEquals(0, cache.getSize());
+        Assert.assertEquals(0, cache.getNbrEntries());
+        Assert.assertEquals(0, cache.getNbrHits());
+        Assert.assertEquals(0, cache.getNbrMisses());
+        Assert.assertEquals(0, cache.getNbrEvictions());
+
+        System.out.println("** testLruByteCache OK **");
+    }
+
+    /**
+     * Tests the request parsing of the HttpConnection class, without a client socket.
+     */
+    public void testHttpConnection() {
+        System.out.println("** testHttpConnection **");
+        Log.makeLog("unit-test.log");
+        WebServer webServer = null;
+        File dir = null;
+        File file = null;
+        try {
+            dir = File.createTempFile("webserver", "");
+            dir.delete();
+            dir.mkdir();
+            file = new File(dir, "hello.html");
+            FileOutputStream fileOutputStream = new FileOutputStream(file);
+            fileOutputStream.write("<html>hello</html>".getBytes("ISO-8859-1"));
+            fileOutputStream.close();
+            System.setProperty("org.opencyc.webserver.port", "0");
+            System.setProperty("org.opencyc.webserver.dirs", dir.getPath());
+            webServer = new WebServer();
+
+            // Pipelined GET requests followed by an incomplete request.
+            TestHttpConnection connection = new TestHttpConnection(webServer);
+            connection.receive("GET /hello.html HTTP/1.1\r\nHost: localhost\r\n\r\n" +
+                               "GET /cg?cb-start HTTP/1.0\r\n\r\n" +
+                               "GET /missing.html HTTP/1.1\r\nConnection: close\r\n\r\n" +
+                               "GET /hello.html HTTP/1.1\r\n");
+            Assert.assertEquals(3, connection.events.size());
+            Assert.assertEquals("200 OK text/html 18 keep-alive", connection.events.get(0));
+            Assert.assertEquals("proxy cb-start close", connection.events.get(1));
+            Assert.assertEquals("404 Not Found text/html close", connection.events.get(2));
+            Assert.assertEquals("GET /hello.html HTTP/1.1\r\n".length(), connection.in.position());
+            connection.receive("Connection: keep-alive\r\n\r\n");
+            Assert.assertEquals(4, connection.events.size());
+            Assert.assertEquals("200 OK text/html 18 keep-alive", connection.events.get(3));
+            Assert.assertEquals(0, connection.in.position());
+
+            // A POST request waits for its whole body.
+            connection = new TestHttpConnection(webServer);
+            connection.receive("POST /cgi-bin/cyccgi/cg HTTP/1.1\r\nContent-Length: 10\r\n\r\ncb-st");
+            Assert.assertEquals(0, connection.events.size());
+            connection.receive("art&x");
+            Assert.assertEquals(1, connection.events.size());
+            Assert.assertEquals("proxy cb-start&x keep-alive", connection.events.get(0));
+            Assert.assertEquals(0, connection.in.position());
+
+            // Unsupported methods are not found and close the connection after responding.
+            connection = new TestHttpConnection(webServer);
+            connection.receive("HEAD /hello.html HTTP/1.1\r\n\r\n");
+            Assert.assertEquals(1, connection.events.size());
+            Assert.assertEquals("404 Not Found text/html close", connection.events.get(0));
+
+            // An invalid content length closes the connection.
+            connection = new TestHttpConnection(webServer);
+            connection.receive("POST /cg HTTP/1.1\r\nContent-Length: many\r\n\r\n");
+            Assert.assertEquals(0, connection.events.size());
+            Assert.assertTrue(connection.isClosed);
+            connection = new TestHttpConnection(webServer);
+            connection.receive("POST /cg HTTP/1.1\r\nContent-Length: " +
+                               HttpConnection.MAX_REQUEST_SIZE + "\r\n\r\n");
+            Assert.assertEquals(0, connection.events.size());
+            Assert.assertTrue(connection.isClosed);
+        }
+        catch (IOException e) {
+            e.printStackTrace();
+            Assert.fail(e.getMessage());
+        }
+        finally {
+            System.getProperties().remove("org.opencyc.webserver.port");
+            System.getProperties().remove("org.opencyc.webserver.dirs");
+            try {
+                if (webServer != null)
+                    webServer.server.close();
+            }
+            catch (IOException e) {
+            }
+            if (file != null)
+                file.delete();
+            if (dir != null)
+                dir.delete();
+        }
+        System.out.println("** testHttpConnection OK **");
+    }
+
+    /**
+     * Provides a connection without a client socket, which records its responses
+     * and proxy requests instead of sending them.
+     */
+    protected class TestHttpConnection extends HttpConnection {
+
+        /**
+         * The recorded responses and proxy requests.
+         */
+        protected ArrayList events = new ArrayList();
+
+        /**
+         * Constructs a TestHttpConnection object.
+         *
+         * @param webServer the web server which owns this connection
+         */
+        public TestHttpConnection(WebServer webServer) {
+            super(webServer, null, null);
+        }
+
+        /**
+         * Appends the given request bytes as if read from the client, and processes
+         * any complete requests.
+         *
+         * @param request the request text
+         * @exception IOException if the connection fails.
+         */
+        public void receive(String request) throws IOException {
+            in.put(request.getBytes("ISO-8859-1"));
+            processRequest();
+        }
+
+        public String getHostAddress() {
+            return "127.0.0.1";
+        }
+
+        public void close() {
+            isClosed = true;
+        }
+
+        protected void proxy(String cycPath) {
+            events.add("proxy " + cycPath + (keepAlive ? " keep-alive" : " close"));
+        }
+
+        protected void respond(String status, String contentType, byte[] bytes) throws IOException {
+            if (status.startsWith("200"))
+                events.add(status + " " + contentType + " " + bytes.length + (keepAlive ? " keep-alive" : " close"));
+            else
+                events.add(status + " " + contentType + (keepAlive ? " keep-alive" : " close"));
+        }
+    }
+}
@@ -5,6 +5,9 @@ package org.opencyc.webserver;
  * <p>
  * Class WebServer is simple multithreaded HTTP server
  * with CGI limited to a Cyc connection on default port 3600.
+ * When the org.opencyc.webserver.nio property is given, connections
+ * are instead served by a single selector thread with HTTP/1.1 keep-alive,
+ * see HttpConnection.
  *
  * @version $Id$
  * @author Stephen L. Reed
@@ -30,6 +33,8 @@ package org.opencyc.webserver;
 
 import java.net.*;
 import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
 import java.util.*;
 import java.util.jar.*;
 import java.text.*;
@@ -51,6 +56,11 @@ public class WebServer extends Thread {
      */
     protected static int DEFAULT_CYC_PORT = 3600;
 
+    /**
+     * Number of pending connections the server socket queues in selector mode.
+     */
+    protected static final int ACCEPT_BACKLOG = 1024;
+
     /**
      * Default directory to serve files from on non-Windows OS.
      */
@@ -63,24 +73,26 @@ public class WebServer extends Thread {
     protected static String DEFAULT_WIN_DIR = "k:\\opencyc\\run\\httpd\\htdocs";
 
     /**
-     * File cache capacity.
+     * File cache capacity in bytes.
      */
-    protected static final int CACHE_CAPACITY = 100;
+    protected static final long CACHE_CAPACITY =
+        Long.getLong("org.opencyc.webserver.cacheBytes", 16 * 1024 * 1024).longValue();
 
     /**
-     * File cache to improve file serving performance.
+     * Largest file held in the file cache, larger files are read from disk for each request.
      */
-    protected static Hashtable fileCache = new Hashtable(CACHE_CAPACITY);
+    protected static final int MAX_CACHED_FILE_SIZE =
+        Integer.getInteger("org.opencyc.webserver.maxCachedFileBytes", 1024 * 1024).intValue();
 
     /**
-     * Number of files served from this web server.
+     * Least recently used file cache to improve file serving performance.
      */
-    protected static long nbrFilesServed = 0;
+    protected static LruByteCache fileCache = new LruByteCache(CACHE_CAPACITY, MAX_CACHED_FILE_SIZE);
 
     /**
-     * Number of files served from this web server that were found in the cache.
+     * Number of files served from this web server.
      */
-    protected static long nbrCacheHits = 0;
+    protected static long nbrFilesServed = 0;
 
     /**
      * Server socket for accepting connections.
@@ -122,6 +134,46 @@ public class WebServer extends Thread {
      */
     protected boolean traceRequests;
 
+    /**
+     * Non-blocking selector mode flag.
+     */
+    protected boolean nio;
+
+    /**
+     * Server socket channel for accepting connections in selector mode.
+     */
+    protected ServerSocketChannel serverChannel;
+
+    /**
+     * Selector which serves all connections in selector mode.
+     */
+    protected Selector selector;
+
+    /**
+     * Milliseconds an idle keep-alive connection is held open in selector mode.
+     */
+    protected long keepAliveTimeout;
+
+    /**
+     * Number of threads which proxy Cyc HTML requests in selector mode.
+     */
+    protected int nbrProxyThreads;
+
+    /**
+     * Cyc HTML requests waiting for a proxy thread, {HttpConnection, cycPath} entries.
+     */
+    protected LinkedList proxyRequests = new LinkedList();
+
+    /**
+     * Cyc HTML responses waiting for the selector thread, {HttpConnection, byte[]} entries.
+     */
+    protected LinkedList proxyResponses = new LinkedList();
+
+    /**
+     * Number of open connections in selector mode.
+     */
+    protected int nbrOpenConnections = 0;
+
     /**
      * Constructs a WebServer object.
      *
@@ -129,7 +181,13 @@ public class WebServer extends Thread {
      */
     public WebServer() throws IOException {
         getProperties();
-        server = new ServerSocket(port);
+        if (nio) {
+            serverChannel = ServerSocketChannel.open();
+            server = serverChannel.socket();
+            server.bind(new InetSocketAddress(port), ACCEPT_BACKLOG);
+        }
+        else
+            server = new ServerSocket(port);
         processDirectories();
     }
 
@@ -227,7 +285,7 @@ public class WebServer extends Thread {
             // socket after sending the request, so must parse message to find
             // the end.
             BufferedReader in = new BufferedReader(new InputStreamReader(sock.getInputStream()));
-            ArrayList inBytes = new ArrayList(200);
+            ByteArrayOutputStream inBytes = new ByteArrayOutputStream(200);
             int ch = 0;
             boolean postMethod;
             methodLine = in.readLine();
@@ -249,7 +307,7 @@ public class WebServer extends Thread {
             // Read the HTTP request headers.
             while (true) {
                 ch = in.read();
-                inBytes.add(new Integer(ch));
+                inBytes.write(ch);
                 ch1 = ch2;
                 ch2 = ch3;
                 ch3 = ch4;
@@ -262,17 +320,12 @@ public class WebServer extends Thread {
                     ch2 == -1 &&
                     ch3 == '\r' &&
                     ch4 == '\n') {
-                    inBytes.add(new Integer('\r'));
-                    inBytes.add(new Integer('\n'));
+                    inBytes.write('\r');
+                    inBytes.write('\n');
                     break;
                 }
             }
-            byte[] byteArray = new byte[inBytes.size()];
-            for (int i = 0; i < inBytes.size(); i++) {
-                Integer ich = (Integer) inBytes.get(i);
-                byteArray[i] = ich.byteValue();
-            }
-            String headers = new String(byteArray);
+            String headers = new String(inBytes.toByteArray());
             if (postMethod) {
                 String lcHeaders = headers.toLowerCase();
                 int i = lcHeaders.indexOf("content-length: ");
@@ -280,9 +333,11 @@ public class WebServer extends Thread {
                 int j = contentLength.indexOf("\r\n");
                 contentLength = contentLength.substring(0, j);
                 int bodyLen = (new Integer(contentLength)).intValue();
+                StringBuffer body = new StringBuffer(bodyLen);
                 for (int k = 0; k < bodyLen; k++) {
-                    bodyLine = bodyLine + (new Character((char) in.read())).toString();
+                    body.append((char) in.read());
                 }
+                bodyLine = body.toString();
             }
             String line = methodLine + "\r\n" + headers + bodyLine;
             if (traceRequests)
@@ -314,51 +369,14 @@ public class WebServer extends Thread {
                 return;
             }
             notFoundPath = httpGetPath;
-            i = httpGetPath.indexOf('/');
-            if (i < 0 || map == null) {
-                if (map == null || httpGetPath.endsWith(".jar")) {
-                    for (int j = 0; j < dirs.size(); j++) {
-                        String dir = (String) dirs.get(j);
-                        String nativePath = dir + httpGetPath;
-                        nativePath = nativePath.replace('/', File.separatorChar);
-                        if (fileCache.containsKey(nativePath)) {
-                            writeDataBytes((byte[]) fileCache.get(nativePath));
-                            Log.current.println("...cached");
-                            nbrCacheHits++;
-                            nbrFilesServed++;
-                            return;
-                        }
-                        try {
-                            Log.current.println("...from " + nativePath);
-                            File f = new File(nativePath);
-                            byte[] fileBytes = getBytes(new FileInputStream(f), f.length());
-                            writeDataBytes(fileBytes);
-                            if (fileCache.size() >= CACHE_CAPACITY)
-                                fileCache.clear();
-                            fileCache.put(nativePath, fileBytes);
-                            nbrFilesServed++;
-                            return;
-                        }
-                        catch (IOException e) {
-                        }
-                    }
-                }
+            Object content = findContent(httpGetPath);
+            if (content == null)
                 throw new IOException();
+            if (content instanceof File) {
+                File f = (File) content;
+                content = readBytes(new FileInputStream(f), f.length());
             }
-            String jar = httpGetPath.substring(0, i);
-            httpGetPath = httpGetPath.substring(i + 1);
-            JarFile[] jfs = (JarFile[]) map.get(jar);
-            if (jfs == null)
-                throw new IOException();
-            for (i = 0; i < jfs.length; i++) {
-                JarEntry je = jfs[i].getJarEntry(httpGetPath);
-                if (je == null)
-                    continue;
-                writeDataBytes(getBytes(jfs[i].getInputStream(je), je.getSize()));
-                nbrFilesServed++;
-                return;
-            }
-            throw new IOException();
+            writeDataBytes((byte[]) content);
         }
 
         /**
@@ -370,25 +388,6 @@ public class WebServer extends Thread {
             cycHtmlRequest(bodyLine);
         }
 
-        /**
-         * Reads the specified number of bytes and always close the stream.
-         * @param in the file to be read for subsequent downloading.
-         * @param length the number of bytes to read from the file.
-         * @return An array of bytes from the file.
-         * @exception IOException if an error occurs when processing the file.
-         */
-        private byte[] getBytes(InputStream in, long length) throws IOException {
-            DataInputStream din = new DataInputStream(in);
-            byte[] bytes = new byte[ (int) length];
-            try {
-                din.readFully(bytes);
-            }
-            finally {
-                din.close();
-            }
-            return bytes;
-        }
-
         /**
          * Sends the HTML request to Cyc.
          * @param cycPath the portion of the URL which is given to the Cyc HTML server.
@@ -397,28 +396,7 @@ public class WebServer extends Thread {
         private void cycHtmlRequest(String cycPath) {
             String request = sock.getInetAddress().getHostName() + "&" + cycPath + "#";
             System.out.println("request=" + request);
-            ArrayList bytes = new ArrayList(10000);
-            try {
-                cycHtmlSocket = new Socket(cycHost, cycPort);
-                System.out.println("cycHost=" + cycHost + " cycPort=" + cycPort);
-                BufferedReader cycIn = new BufferedReader(new InputStreamReader(cycHtmlSocket.getInputStream()));
-                PrintWriter cycOut = new PrintWriter(cycHtmlSocket.getOutputStream(), true);
-                cycOut.println(request);
-                cycOut.flush();
-                int ch = 0;
-                while (ch >= 0) {
-                    ch = cycIn.read();
-                    bytes.add(new Integer(ch));
-                }
-            }
-            catch (Exception e) {
-                Log.current.printStackTrace(e);
-            }
-            byte[] byteArray = new byte[bytes.size()];
-            for (int i = 0; i < bytes.size() - 1; i++) {
-                Integer ich = (Integer) bytes.get(i);
-                byteArray[i] = ich.byteValue();
-            }
+            byte[] byteArray = cycHtmlResponse(request);
             try {
                 writeTextBytes(byteArray);
             }
@@ -437,19 +415,7 @@ public class WebServer extends Thread {
             out.writeBytes("Server: Cyc WebServer\r\n");
             out.writeBytes("Connection: close\r\n");
             out.writeBytes("Content-Length: " + bytes.length + "\r\n");
-            int PREFIX_SIZE = 1000;
-            byte[] prefixBytes = new byte[PREFIX_SIZE];
-            for (int i = 0; i < PREFIX_SIZE; i++) {
-              if (i < bytes.length)
-                prefixBytes[i] = bytes[i];
-              else
-                prefixBytes[i] = ' ';
-            }
-            String prefix = (new String(prefixBytes)).toLowerCase();
-            if (prefix.indexOf("<html>") > -1)
-                out.writeBytes("Content-Type: text/html\r\n\r\n");
-            else
-                out.writeBytes("Content-Type: application/java\r\n\r\n");
+            out.writeBytes("Content-Type: " + getContentType(bytes, bytes.length) + "\r\n\r\n");
             out.write(bytes);
             out.flush();
         }
@@ -471,6 +437,227 @@ public class WebServer extends Thread {
     }
 
 
+    /**
+     * Class ProxyThread sends Cyc HTML requests to the Cyc HTML server on behalf of
+     * the selector thread, whose connections must not block.
+     */
+    protected class ProxyThread extends Thread {
+        /**
+         * Constructs a ProxyThread object.
+         * @param name the thread name.
+         */
+        public ProxyThread(String name) {
+            super(name);
+            setDaemon(true);
+        }
+
+        /**
+         * Proxies queued Cyc HTML requests, handing each response back to the selector thread.
+         */
+        public void run() {
+            while (true) {
+                Object[] proxyRequest;
+                synchronized (proxyRequests) {
+                    while (proxyRequests.isEmpty()) {
+                        try {
+                            proxyRequests.wait();
+                        }
+                        catch (InterruptedException e) {
+                            return;
+                        }
+                    }
+                    proxyRequest = (Object[]) proxyRequests.removeFirst();
+                }
+                HttpConnection connection = (HttpConnection) proxyRequest[0];
+                String request = connection.getInetAddress().getHostName() + "&" + proxyRequest[1] + "#";
+                if (traceRequests)
+                    Log.current.println("request=" + request);
+                byte[] bytes = cycHtmlResponse(request);
+                synchronized (proxyResponses) {
+                    proxyResponses.addLast(new Object[] {connection, bytes});
+                }
+                selector.wakeup();
+            }
+        }
+    }
+
+    /**
+     * Finds the content for the given HTTP GET path in the file cache, the served
+     * directories or the served jar files.  Files too large for the file cache are
+     * returned as File objects, so that they can be sent directly from disk.
+     * @param httpGetPath the path of the file to get.
+     * @return the content bytes, the File, or null if not found.
+     * @exception IOException if an error occurs when reading a jar file.
+     */
+    protected Object findContent(String httpGetPath) throws IOException {
+        int i = httpGetPath.indexOf('/');
+        if (i < 0 || map == null) {
+            if (map == null || httpGetPath.endsWith(".jar")) {
+                for (int j = 0; j < dirs.size(); j++) {
+                    String dir = (String) dirs.get(j);
+                    String nativePath = dir + httpGetPath;
+                    nativePath = nativePath.replace('/', File.separatorChar);
+                    byte[] cachedBytes = fileCache.peek(nativePath);
+                    if (cachedBytes != null) {
+                        fileCache.countLookup(true);
+                        Log.current.println("...cached");
+                        nbrFilesServed++;
+                        return cachedBytes;
+                    }
+                    File f = new File(nativePath);
+                    if (! f.isFile())
+                        continue;
+                    Log.current.println("...from " + nativePath);
+                    if (f.length() > fileCache.getMaxEntrySize()) {
+                        fileCache.countLookup(false);
+                        nbrFilesServed++;
+                        return f;
+                    }
+                    try {
+                        byte[] fileBytes = readBytes(new FileInputStream(f), f.length());
+                        fileCache.put(nativePath, fileBytes);
+                        fileCache.countLookup(false);
+                        nbrFilesServed++;
+                        return fileBytes;
+                    }
+                    catch (IOException e) {
+                    }
+                }
+                fileCache.countLookup(false);
+            }
+            return null;
+        }
+        String jar = httpGetPath.substring(0, i);
+        httpGetPath = httpGetPath.substring(i + 1);
+        JarFile[] jfs = (JarFile[]) map.get(jar);
+        if (jfs == null)
+            return null;
+        String cacheKey = jar + "!" + httpGetPath;
+        byte[] cachedBytes = fileCache.get(cacheKey);
+        if (cachedBytes != null) {
+            nbrFilesServed++;
+            return cachedBytes;
+        }
+        for (i = 0; i < jfs.length; i++) {
+            JarEntry je = jfs[i].getJarEntry(httpGetPath);
+            if (je == null)
+                continue;
+            byte[] entryBytes = readBytes(jfs[i].getInputStream(je), je.getSize());
+            fileCache.put(cacheKey, entryBytes);
+            nbrFilesServed++;
+            return entryBytes;
+        }
+        return null;
+    }
+
+    /**
+     * Reads the specified number of bytes and always close the stream.
+     * @param in the file to be read for subsequent downloading.
+     * @param length the number of bytes to read from the file, or a negative number
+     * to read to the end of the stream, as for a jar entry of unknown size.
+     * @return An array of bytes from the file.
+     * @exception IOException if an error occurs when processing the file.
+     */
+    protected static byte[] readBytes(InputStream in, long length) throws IOException {
+        if (length < 0) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            try {
+                int n;
+                while ((n = in.read(buffer)) != -1)
+                    out.write(buffer, 0, n);
+            }
+            finally {
+                in.close();
+            }
+            return out.toByteArray();
+        }
+        DataInputStream din = new DataInputStream(in);
+        byte[] bytes = new byte[ (int) length];
+        try {
+            din.readFully(bytes);
+        }
+        finally {
+            din.close();
+        }
+        return bytes;
+    }
+
+    /**
+     * Returns the content type of the given content, judged from its first bytes.
+     * @param bytes the content, or its first bytes.
+     * @param length the number of content bytes in the array.
+     * @return the content type.
+     */
+    protected static String getContentType(byte[] bytes, int length) {
+        int PREFIX_SIZE = 1000;
+        byte[] prefixBytes = new byte[PREFIX_SIZE];
+        for (int i = 0; i < PREFIX_SIZE; i++) {
+          if (i < length)
+            prefixBytes[i] = bytes[i];
+          else
+            prefixBytes[i] = ' ';
+        }
+        String prefix = (new String(prefixBytes)).toLowerCase();
+        if (prefix.indexOf("<html>") > -1)
+            return "text/html";
+        else
+            return "application/java";
+    }
+
+    /**
+     * Sends the given request to the Cyc HTML server and returns its response.
+     * @param request the request line for the Cyc HTML server.
+     * @return the bytes of the response, as far as they could be read.
+     */
+    protected byte[] cycHtmlResponse(String request) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(10000);
+        Socket cycHtmlSocket = null;
+        try {
+            cycHtmlSocket = new Socket(cycHost, cycPort);
+            InputStream cycIn = new BufferedInputStream(cycHtmlSocket.getInputStream());
+            PrintWriter cycOut = new PrintWriter(cycHtmlSocket.getOutputStream(), true);
+            cycOut.println(request);
+            cycOut.flush();
+            byte[] buffer = new byte[8192];
+            int nbrBytesRead;
+            while ((nbrBytesRead = cycIn.read(buffer)) >= 0)
+                bytes.write(buffer, 0, nbrBytesRead);
+        }
+        catch (Exception e) {
+            Log.current.printStackTrace(e);
+        }
+        finally {
+            if (cycHtmlSocket != null) {
+                try {
+                    cycHtmlSocket.close();
+                }
+                catch (IOException e) {
+                }
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Queues the given Cyc HTML request for a proxy thread.
+     * @param connection the connection which receives the response.
+     * @param cycPath the portion of the URL which is given to the Cyc HTML server.
+     */
+    protected void queueProxyRequest(HttpConnection connection, String cycPath) {
+        synchronized (proxyRequests) {
+            proxyRequests.addLast(new Object[] {connection, cycPath});
+            proxyRequests.notify();
+        }
+    }
+
+    /**
+     * Records that a selector mode connection has closed.
+     */
+    protected void connectionClosed() {
+        nbrOpenConnections--;
+    }
+
     /**
      * Gets properties governing the web server's behavior.
      */
@@ -506,6 +693,15 @@ public class WebServer extends Thread {
             traceRequests = true;
             Log.current.println("tracing requests");
         }
+
+        nio = false;
+        String nioProperty = System.getProperty("org.opencyc.webserver.nio", "");
+        if (! nioProperty.equalsIgnoreCase("")) {
+            nio = true;
+            Log.current.println("serving connections from a selector thread");
+        }
+        keepAliveTimeout = Long.getLong("org.opencyc.webserver.keepAliveMillis", 15000).longValue();
+        nbrProxyThreads = Integer.getInteger("org.opencyc.webserver.proxyThreads", 4).intValue();
     }
 
     /**
@@ -564,7 +760,39 @@ public class WebServer extends Thread {
      * @return The number of files served from the cache.
      */
     public long getNbrCacheHits() {
-        return nbrCacheHits;
+        return fileCache.getNbrHits();
+    }
+
+    /**
+     * Administrative accessor method that obtains number of file cache lookups which missed.
+     * @return The number of file cache lookups which missed.
+     */
+    public long getNbrCacheMisses() {
+        return fileCache.getNbrMisses();
+    }
+
+    /**
+     * Administrative accessor method that obtains number of files evicted from the cache.
+     * @return The number of files evicted from the cache.
+     */
+    public long getNbrCacheEvictions() {
+        return fileCache.getNbrEvictions();
+    }
+
+    /**
+     * Administrative accessor method that obtains number of bytes held in the file cache.
+     * @return The number of bytes held in the file cache.
+     */
+    public long getCacheSize() {
+        return fileCache.getSize();
+    }
+
+    /**
+     * Administrative accessor method that obtains number of open connections in selector mode.
+     * @return The number of open connections in selector mode.
+     */
+    public int getNbrOpenConnections() {
+        return nbrOpenConnections;
     }
 
     /**
@@ -574,7 +802,6 @@ public class WebServer extends Thread {
         Log.current.println("Clearing file cache");
         fileCache.clear();
         nbrFilesServed = 0;
-        nbrCacheHits = 0;
     }
 
     /**
@@ -654,6 +881,22 @@ public class WebServer extends Thread {
      * output.<p>
      *
      * <pre>
+     * org.opencyc.webserver.nio
+     * </pre>
+     * If this property has any value, then all connections are served by a
+     * single selector thread with HTTP/1.1 keep-alive, rather than by a thread
+     * per connection.  Idle connections are closed after
+     * org.opencyc.webserver.keepAliveMillis (default 15000), and Cyc HTML
+     * requests are proxied by org.opencyc.webserver.proxyThreads threads
+     * (default 4).  Files larger than org.opencyc.webserver.maxCachedFileBytes
+     * (default 1048576) are sent directly from disk.<p>
+     *
+     * <pre>
+     * org.opencyc.webserver.cacheBytes
+     * </pre>
+     * The number of bytes held in the least recently used file cache, default 16777216.<p>
+     *
+     * <pre>
      * org.opencyc.webserver.trees
      * </pre>
      * This property can be used to serve up individual files stored
@@ -686,9 +929,14 @@ public class WebServer extends Thread {
     }
 
     /**
-     * Just keep looping, spawning a new thread for each incoming request.
+     * Just keep looping, spawning a new thread for each incoming request, or in
+     * selector mode serving all connections from this thread.
      */
     public void run() {
+        if (nio) {
+            runSelector();
+            return;
+        }
         try {
             while (true) {
                 // Launch thread to process one HTTP request.
@@ -700,4 +948,121 @@ public class WebServer extends Thread {
         }
     }
 
+    /**
+     * Serves all connections from this thread until the server socket fails.
+     */
+    protected void runSelector() {
+        try {
+            selector = Selector.open();
+            serverChannel.configureBlocking(false);
+            serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+            for (int i = 0; i < nbrProxyThreads; i++)
+                new ProxyThread("WebServer proxy " + i).start();
+            long lastIdleCheckMillis = System.currentTimeMillis();
+            while (true) {
+                selector.select(1000);
+                Iterator selectedKeys = selector.selectedKeys().iterator();
+                while (selectedKeys.hasNext()) {
+                    SelectionKey key = (SelectionKey) selectedKeys.next();
+                    selectedKeys.remove();
+                    if (! key.isValid())
+                        continue;
+                    if (key.isAcceptable()) {
+                        acceptConnections();
+                        continue;
+                    }
+                    HttpConnection connection = (HttpConnection) key.attachment();
+                    try {
+                        if (key.isReadable())
+                            connection.read();
+                        else if (key.isWritable())
+                            connection.write();
+                    }
+                    catch (IOException e) {
+                        connection.close();
+                    }
+                    catch (CancelledKeyException e) {
+                        connection.close();
+                    }
+                    catch (RuntimeException e) {
+                        // A failure serving one connection must not stop the server.
+                        Log.current.errorPrintln("Closing connection after " + e);
+                        Log.current.printStackTrace(e);
+                        connection.close();
+                    }
+                }
+                writeProxyResponses();
+                long nowMillis = System.currentTimeMillis();
+                if (nowMillis - lastIdleCheckMillis > 1000) {
+                    closeIdleConnections(nowMillis);
+                    lastIdleCheckMillis = nowMillis;
+                }
+            }
+        }
+        catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Accepts the pending connections and registers them with the selector.
+     * @exception IOException if the server socket fails.
+     */
+    protected void acceptConnections() throws IOException {
+        SocketChannel channel;
+        while ((channel = serverChannel.accept()) != null) {
+            if (traceRequests)
+                Log.current.println("connection accepted from " + channel.socket().getInetAddress());
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+            key.attach(new HttpConnection(this, channel, key));
+            nbrOpenConnections++;
+        }
+    }
+
+    /**
+     * Writes the Cyc HTML responses obtained by the proxy threads.
+     */
+    protected void writeProxyResponses() {
+        while (true) {
+            Object[] proxyResponse;
+            synchronized (proxyResponses) {
+                if (proxyResponses.isEmpty())
+                    return;
+                proxyResponse = (Object[]) proxyResponses.removeFirst();
+            }
+            HttpConnection connection = (HttpConnection) proxyResponse[0];
+            try {
+                connection.writeProxyResponse((byte[]) proxyResponse[1]);
+            }
+            catch (IOException e) {
+                connection.close();
+            }
+            catch (CancelledKeyException e) {
+                connection.close();
+            }
+            catch (RuntimeException e) {
+                // A failure serving one connection must not stop the server.
+                Log.current.errorPrintln("Closing connection after " + e);
+                Log.current.printStackTrace(e);
+                connection.close();
+            }
+        }
+    }
+
+    /**
+     * Closes the connections which have been idle longer than the keep-alive timeout.
+     * @param nowMillis the current time.
+     */
+    protected void closeIdleConnections(long nowMillis) {
+        Object[] keys = selector.keys().toArray();
+        for (int i = 0; i < keys.length; i++) {
+            Object attachment = ((SelectionKey) keys[i]).attachment();
+            if (attachment instanceof HttpConnection &&
+                ((HttpConnection) attachment).isIdle(nowMillis, keepAliveTimeout))
+                ((HttpConnection) attachment).close();
+        }
+    }
+
 }
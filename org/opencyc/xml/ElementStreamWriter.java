@@ -0,0 +1,170 @@
+package org.opencyc.xml;
+
+//// External Imports
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+/**
+ * Writes an XML document incrementally from DOM elements.<p>
+ *
+ * The exporters build each top level element as a small DOM subtree of the
+ * document root.  Rather than serializing the whole document at the end, a
+ * streaming export writes the root start tag first and then, after each term,
+ * writes and removes the completed children of the root.  The document held in
+ * memory therefore never grows beyond the element for one term, and output
+ * begins as soon as the export starts.
+ *
+ * @version $Id$
+ *
+ * <p>Copyright 2001 Cycorp, Inc., license is open source GNU LGPL.
+ * <p><a href="http://www.opencyc.org/license.txt">the license</a>
+ * <p><a href="http://www.opencyc.org">www.opencyc.org</a>
+ * <p><a href="http://www.sourceforge.net/projects/opencyc">OpenCyc at SourceForge</a>
+ * <p>
+ * THIS SOFTWARE AND KNOWLEDGE BASE CONTENT ARE PROVIDED ``AS IS'' AND
+ * ANY EXPRESSED OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE OPENCYC
+ * ORGANIZATION OR ITS CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE AND KNOWLEDGE
+ * BASE CONTENT, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+public class ElementStreamWriter {
+
+  //// Constructors
+
+  /**
+   * Constructs a new ElementStreamWriter object which writes UTF-8 to the given file.
+   *
+   * @param outputPath the output file path
+   */
+  public ElementStreamWriter(String outputPath) throws IOException {
+    this(new OutputStreamWriter(new FileOutputStream(outputPath), "UTF-8"));
+  }
+
+  /**
+   * Constructs a new ElementStreamWriter object given the output writer.
+   *
+   * @param writer the output writer, which should encode UTF-8
+   */
+  public ElementStreamWriter(Writer writer) {
+    this.writer = new BufferedWriter(writer);
+  }
+
+  //// Public Area
+
+  /**
+   * Writes the XML declaration and the start tag of the given document root.
+   *
+   * @param root the document root element
+   */
+  public void startDocument(Element root) throws IOException {
+    writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+    writeStartTag(root);
+    writer.write(">\n");
+    writeChildren(root);
+  }
+
+  /**
+   * Writes and then removes the children of the given document root, flushing
+   * the output.
+   *
+   * @param root the document root element
+   */
+  public void writeChildren(Element root) throws IOException {
+    Node child = root.getFirstChild();
+    while (child != null) {
+      writeNode(child, INDENT);
+      root.removeChild(child);
+      child = root.getFirstChild();
+    }
+    writer.flush();
+  }
+
+  /**
+   * Writes the remaining children and the end tag of the given document root,
+   * and closes the output.
+   *
+   * @param root the document root element
+   */
+  public void endDocument(Element root) throws IOException {
+    writeChildren(root);
+    writer.write("</" + root.getTagName() + ">\n");
+    writer.close();
+  }
+
+  //// Protected Area
+
+  /**
+   * Writes the given node and its descendents.
+   *
+   * @param node the given node
+   * @param indent the indentation of the node
+   */
+  protected void writeNode(Node node, String indent) throws IOException {
+    if (node.getNodeType() == Node.TEXT_NODE) {
+      writer.write(XMLWriter.introduceXMLEntities(node.getNodeValue()));
+      return;
+    }
+    if (node.getNodeType() != Node.ELEMENT_NODE)
+      return;
+    final Element element = (Element) node;
+    writer.write(indent);
+    writeStartTag(element);
+    Node child = element.getFirstChild();
+    if (child == null) {
+      writer.write("/>\n");
+      return;
+    }
+    writer.write(">");
+    if (child.getNodeType() == Node.TEXT_NODE && child.getNextSibling() == null) {
+      writeNode(child, indent);
+      writer.write("</" + element.getTagName() + ">\n");
+      return;
+    }
+    writer.write("\n");
+    final String childIndent = indent + INDENT;
+    while (child != null) {
+      writeNode(child, childIndent);
+      child = child.getNextSibling();
+    }
+    writer.write(indent + "</" + element.getTagName() + ">\n");
+  }
+
+  /**
+   * Writes the start tag of the given element without its closing bracket.
+   *
+   * @param element the given element
+   */
+  protected void writeStartTag(Element element) throws IOException {
+    writer.write("<" + element.getTagName());
+    final NamedNodeMap attributes = element.getAttributes();
+    for (int i = 0; i < attributes.getLength(); i++) {
+      final Node attribute = attributes.item(i);
+      writer.write(" " + attribute.getNodeName() + "=\"" +
+                   XMLWriter.introduceXMLEntities(attribute.getNodeValue()) + "\"");
+    }
+  }
+
+  //// Private Area
+
+  /** the indentation added for each level of nesting */
+  private static final String INDENT = "  ";
+
+  //// Internal Rep
+
+  /** the output writer */
+  private final Writer writer;
+
+}
@@ -152,6 +152,12 @@ public class ExportDaml {
      */
     public String title = "EELD Shared Ontology";
 
+    /**
+     * When true, the DAML output is written incrementally as each constant is
+     * processed, rather than from a complete document at the end of the export.
+     */
+    public boolean isStreamingExport = Boolean.getBoolean("org.opencyc.xml.streamingExport");
+
     private static final String xmlNamespace = "http://www.w3.org/XML/1998/namespace";
     private static final String rdfNamespace = "http://www.w3.org/1999/02/22-rdf-syntax-ns#";
     private static final String rdfsNamespace = "http://www.w3.org/2000/01/rdf-schema#";
@@ -169,6 +175,7 @@ public class ExportDaml {
     private Document document = new DocumentImpl();
     private String documentUrl = null;
     private Element rdf = null;
+    private ElementStreamWriter elementStreamWriter = null;
     private Element damlOntology = null;
     private Element damlVersionInfo = null;
     private Element rdfsComment = null;
@@ -295,14 +302,20 @@ public class ExportDaml {
             createConstantNode(cycConstant);
         }
 
-        if (verbosity > 2)
-            Log.current.println("Writing DAML output to " + outputPath);
-        OutputFormat outputFormat = new OutputFormat(document, "UTF-8", true);
-        BufferedWriter damlOut = new BufferedWriter(new FileWriter(outputPath));
-        XMLSerializer xmlSerializer = new XMLSerializer(damlOut, outputFormat);
-        xmlSerializer.asDOMSerializer();
-        xmlSerializer.serialize(document);
-        damlOut.close();
+        if (elementStreamWriter != null) {
+            elementStreamWriter.endDocument(rdf);
+            elementStreamWriter = null;
+        }
+        else {
+            if (verbosity > 2)
+                Log.current.println("Writing DAML output to " + outputPath);
+            OutputFormat outputFormat = new OutputFormat(document, "UTF-8", true);
+            BufferedWriter damlOut = new BufferedWriter(new FileWriter(outputPath));
+            XMLSerializer xmlSerializer = new XMLSerializer(damlOut, outputFormat);
+            xmlSerializer.asDOMSerializer();
+            xmlSerializer.serialize(document);
+            damlOut.close();
+        }
         if (verbosity > 2)
             Log.current.println("DAML export completed");
     }
@@ -314,6 +327,12 @@ public class ExportDaml {
         createRdfNode();
         createDamlOntologyNode();
         createCycGuidNode();
+        if (isStreamingExport) {
+            if (verbosity > 2)
+                Log.current.println("Streaming DAML output to " + outputPath);
+            elementStreamWriter = new ElementStreamWriter(outputPath);
+            elementStreamWriter.startDocument(rdf);
+        }
 
         if (exportCommand == ExportDaml.EXPORT_ENTIRE_KB) {
             includeUpwardClosure = false;
@@ -397,6 +416,8 @@ public class ExportDaml {
             if (verbosity > 0)
                 Log.current.println("Unhandled constant: " + cycConstant.toString());
         }
+        if (elementStreamWriter != null)
+            elementStreamWriter.writeChildren(rdf);
     }
 
     /**
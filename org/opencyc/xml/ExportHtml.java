@@ -8,6 +8,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.StringTokenizer;
 import org.apache.html.dom.HTMLAnchorElementImpl;
 import org.apache.html.dom.HTMLDocumentImpl;
@@ -113,6 +114,19 @@ public class ExportHtml extends OntologyExport {
    */
   public ArrayList categories = new ArrayList();
   
+  /**
+   * The number of workers which render the vocabulary in parallel, each over its
+   * own api connection and into its own page file.  One worker renders the whole
+   * vocabulary into a single page.
+   */
+  public int nbrExportWorkers = Integer.getInteger("org.opencyc.xml.exportHtmlWorkers", 1).intValue();
+  
+  /**
+   * The vocabulary page of each term rendered on a shard page, term cyclified
+   * string --> page file name, or null when the vocabulary is a single page.
+   */
+  protected HashMap termPages = null;
+  
   /**
    * Constructs a new ExportHtml object given the CycAccess object.
    *
@@ -152,6 +166,9 @@ public class ExportHtml extends OntologyExport {
       if (verbosity > 2)
         Log.current.println("All selected " + selectedCycForts.size() + " CycFort terms");
     }
+    if (verbosity > 2)
+      Log.current.println("Prefetching term information");
+    prefetchTermInfo(selectedCycForts);
     if (verbosity > 2) {
       if (includeNonAtomicTerms)
         Log.current.println("Dropping quoted collection terms ");
@@ -161,7 +178,7 @@ public class ExportHtml extends OntologyExport {
     CycList tempList = new CycList();
     for (int i = 0; i < selectedCycForts.size(); i++) {
       CycFort cycFort = (CycFort) selectedCycForts.get(i);
-      if (cycAccess.isQuotedCollection(cycFort) || 
+      if (isQuotedCollection(cycFort) || 
          (! includeNonAtomicTerms && ! (cycFort instanceof CycConstant))) {
         if (verbosity > 2)
           Log.current.println("  ommitting " + cycFort.cyclify());
@@ -173,7 +190,10 @@ public class ExportHtml extends OntologyExport {
     if (verbosity > 2)
       Log.current.println("Sorting " + selectedCycForts.size() + " CycFort terms");
     sortCycObjects(selectedCycForts);
-    createVocabularyPage();
+    if (nbrExportWorkers > 1)
+      createShardedVocabularyPages();
+    else
+      createVocabularyPage();
     if (categories.size() > 0)
       createCategorizedVocabularies();
     if (rootTerm != null &&
@@ -243,8 +263,21 @@ public class ExportHtml extends OntologyExport {
   protected void createVocabularyPage() throws UnknownHostException, IOException, CycApiException {
     if (verbosity > 2)
       Log.current.println("Building HTML model for vocabulary page");
+    createVocabularyPage("Cyc ontology vocabulary for " + cycKbSubsetCollection.cyclify(),
+                         selectedCycForts,
+                         exportedVocabularyOutputPath);
+  }
+  
+  /**
+   * Creates a vocabulary HTML page for the given terms.
+   *
+   * @param title the title of the vocabulary page
+   * @param cycForts the terms rendered on the vocabulary page
+   * @param outputPath the name of the output HTML page
+   */
+  protected void createVocabularyPage(String title, List cycForts, String outputPath)
+  throws UnknownHostException, IOException, CycApiException {
     htmlDocument = new HTMLDocumentImpl();
-    String title = "Cyc ontology vocabulary for " + cycKbSubsetCollection.cyclify();
     htmlDocument.setTitle(title);
     Node htmlNode = htmlDocument.getChildNodes().item(0);
     htmlBodyElement = htmlDocument.createElement("body");
@@ -253,19 +286,19 @@ public class ExportHtml extends OntologyExport {
     htmlBodyElement.appendChild(headingElement);
     Node headingTextNode = htmlDocument.createTextNode(title);
     headingElement.appendChild(headingTextNode);
-    for (int i = 0; i < selectedCycForts.size(); i++) {
-      CycFort cycFort = (CycFort)selectedCycForts.get(i);
+    for (int i = 0; i < cycForts.size(); i++) {
+      CycFort cycFort = (CycFort)cycForts.get(i);
       if (verbosity > 2)
         Log.current.print(cycFort + "  ");
-      if (cycAccess.isCollection(cycFort)) {
+      if (isCollection(cycFort)) {
         if (verbosity > 2)
           Log.current.println("Collection");
       }
-      else if (cycAccess.isPredicate(cycFort)) {
+      else if (isPredicate(cycFort)) {
         if (verbosity > 2)
           Log.current.println("Predicate");
       }
-      else if (cycAccess.isIndividual(cycFort)) {
+      else if (isIndividual(cycFort)) {
         if (verbosity > 2)
           Log.current.println("Individual");
       }
@@ -279,9 +312,149 @@ public class ExportHtml extends OntologyExport {
       else
         createCycNartNode((CycNart) cycFort);
     }
+    serialize(htmlDocument, outputPath);
+  }
+  
+  /**
+   * Creates the vocabulary as shard pages rendered in parallel by nbrExportWorkers
+   * workers, each with its own api connection, followed by an index page which
+   * links each term to its shard page.  The selected terms are sorted, so each
+   * shard page holds a contiguous alphabetical range of the vocabulary.
+   */
+  protected void createShardedVocabularyPages() throws UnknownHostException, IOException, CycApiException {
+    final int selectedCycForts_size = selectedCycForts.size();
+    final int nbrShards = Math.max(1, Math.min(nbrExportWorkers, selectedCycForts_size));
+    final int shardSize = (selectedCycForts_size + nbrShards - 1) / nbrShards;
+    final String title = "Cyc ontology vocabulary for " + cycKbSubsetCollection.cyclify();
+    termPages = new HashMap(selectedCycForts_size);
+    final VocabularyShard[] shards = new VocabularyShard[nbrShards];
+    for (int i = 0; i < nbrShards; i++) {
+      final List terms = selectedCycForts.subList(Math.min(i * shardSize, selectedCycForts_size),
+                                                  Math.min((i + 1) * shardSize, selectedCycForts_size));
+      final String outputPath = shardOutputPath(i);
+      for (int j = 0; j < terms.size(); j++)
+        termPages.put(((CycFort) terms.get(j)).cyclify(), outputPath);
+      shards[i] = new VocabularyShard(title + " (part " + (i + 1) + " of " + nbrShards + ")",
+                                      terms,
+                                      outputPath);
+    }
+    if (verbosity > 2)
+      Log.current.println("Building HTML model for " + nbrShards + " vocabulary shard pages");
+    final long startMilliseconds = System.currentTimeMillis();
+    try {
+      for (int i = 0; i < nbrShards; i++)
+        shards[i].start();
+      for (int i = 0; i < nbrShards; i++)
+        shards[i].join();
+    }
+    catch (InterruptedException e) {
+      throw new CycApiException("Interrupted while waiting for the vocabulary shards", e);
+    }
+    for (int i = 0; i < nbrShards; i++) {
+      final Exception exception = shards[i].exception;
+      if (exception instanceof IOException)
+        throw (IOException) exception;
+      else if (exception instanceof CycApiException)
+        throw (CycApiException) exception;
+      else if (exception instanceof RuntimeException)
+        throw (RuntimeException) exception;
+    }
+    if (verbosity > 2)
+      Log.current.println("Rendered " + selectedCycForts_size + " terms on " + nbrShards + " shard pages in " +
+                          (System.currentTimeMillis() - startMilliseconds) + " milliseconds");
+    createVocabularyIndexPage(title);
+  }
+  
+  /**
+   * Returns the name of the given vocabulary shard page.
+   *
+   * @param shard the zero based shard number
+   * @return the name of the given vocabulary shard page
+   */
+  protected String shardOutputPath(int shard) {
+    String basePath = exportedVocabularyOutputPath;
+    if (basePath.endsWith(".html"))
+      basePath = basePath.substring(0, basePath.length() - 5);
+    return basePath + "-" + (shard + 1) + ".html";
+  }
+  
+  /**
+   * Returns a new ExportHtml object which renders a vocabulary shard over its own
+   * api connection, sharing the term selection and page assignments of this one.
+   * The connection is bound to the calling thread as its <tt>CycAccess.current()</tt>,
+   * so this is called by the shard's worker thread.
+   *
+   * @return a new ExportHtml object which renders a vocabulary shard
+   */
+  protected ExportHtml makeShardExport() throws UnknownHostException, IOException, CycApiException {
+    final ExportHtml shardExport = new ExportHtml(new CycAccess(cycAccess.getHostName(),
+                                                                cycAccess.getBasePort(),
+                                                                CycConnection.DEFAULT_COMMUNICATION_MODE,
+                                                                CycAccess.PERSISTENT_CONNECTION));
+    shardExport.verbosity = verbosity;
+    shardExport.exportCommand = exportCommand;
+    shardExport.includeUpwardClosure = includeUpwardClosure;
+    shardExport.includeNonAtomicTerms = includeNonAtomicTerms;
+    shardExport.cycKbSubsetCollection = cycKbSubsetCollection;
+    shardExport.cycKbSubsetFilter = cycKbSubsetFilter;
+    shardExport.rootTerm = rootTerm;
+    shardExport.upwardClosureKbSubsetCollections = upwardClosureKbSubsetCollections;
+    shardExport.upwardClosureCycForts = upwardClosureCycForts;
+    shardExport.selectedCycForts = selectedCycForts;
+    shardExport.filterFromDirectInstances = filterFromDirectInstances;
+    shardExport.print_guid = print_guid;
+    shardExport.exportedVocabularyOutputPath = exportedVocabularyOutputPath;
+    shardExport.exportedHierarchyOutputPath = exportedHierarchyOutputPath;
+    shardExport.nartNoteOutputPath = nartNoteOutputPath;
+    shardExport.termInfos = termInfos;
+    shardExport.termPages = termPages;
+    return shardExport;
+  }
+  
+  /**
+   * Creates the vocabulary index HTML page, which links each selected term to its
+   * entry on a shard page.
+   *
+   * @param title the title of the vocabulary index page
+   */
+  protected void createVocabularyIndexPage(String title) throws IOException, CycApiException {
+    if (verbosity > 2)
+      Log.current.println("Building HTML model for vocabulary index page");
+    htmlDocument = new HTMLDocumentImpl();
+    htmlDocument.setTitle(title);
+    Node htmlNode = htmlDocument.getChildNodes().item(0);
+    htmlBodyElement = htmlDocument.createElement("body");
+    htmlNode.appendChild(htmlBodyElement);
+    Element headingElement = htmlDocument.createElement("h1");
+    htmlBodyElement.appendChild(headingElement);
+    headingElement.appendChild(htmlDocument.createTextNode(title));
+    for (int i = 0; i < selectedCycForts.size(); i++) {
+      CycFort cycFort = (CycFort) selectedCycForts.get(i);
+      HTMLAnchorElement termAnchorElement = new HTMLAnchorElementImpl((HTMLDocumentImpl)htmlDocument, "a");
+      termAnchorElement.setHref(termHref(cycFort));
+      htmlBodyElement.appendChild(termAnchorElement);
+      termAnchorElement.appendChild(htmlDocument.createTextNode(cycFort.cyclify()));
+      lineBreak(htmlBodyElement);
+    }
     serialize(htmlDocument, exportedVocabularyOutputPath);
   }
   
+  /**
+   * Returns the relative hyperlink to the vocabulary entry of the given term.
+   *
+   * @param cycObject the given term
+   * @return the relative hyperlink to the vocabulary entry of the given term
+   */
+  protected String termHref(CycObject cycObject) {
+    final String cyclifiedTerm = cycObject.cyclify();
+    String page = null;
+    if (termPages != null)
+      page = (String) termPages.get(cyclifiedTerm);
+    if (page == null)
+      page = exportedVocabularyOutputPath;
+    return "./" + page + "#" + cyclifiedTerm;
+  }
+  
   /**
    * Creates a HTML node for a single Cyc Nart.
    * @param cycNart The CycNart from which the HTML node is created.
@@ -337,7 +510,7 @@ public class ExportHtml extends OntologyExport {
     if (! hasRewrite) {
       // If no rewriteOf text, then output the generated phrase.
       String generatedPhrase;
-      if (cycAccess.isCollection(cycConstant))
+      if (isCollection(cycConstant))
         generatedPhrase = cycAccess.getPluralGeneratedPhrase(cycConstant);
       else
         generatedPhrase = cycAccess.getSingularGeneratedPhrase(cycConstant);
@@ -354,13 +527,13 @@ public class ExportHtml extends OntologyExport {
     if (print_guid)
       createGuidNode(cycConstant, blockquoteElement);
     createIsaNodes(cycConstant, blockquoteElement);
-    if (cycAccess.isCollection(cycConstant))
+    if (isCollection(cycConstant))
       createCollectionNode(cycConstant, blockquoteElement);
-    else if (cycAccess.isPredicate(cycConstant))
+    else if (isPredicate(cycConstant))
       createPredicateNode(cycConstant, blockquoteElement);
-    else if (cycAccess.isFunction(cycConstant))
+    else if (isFunction(cycConstant))
       createFunctionNode(cycConstant, blockquoteElement);
-    else if (cycAccess.isIndividual(cycConstant))
+    else if (isIndividual(cycConstant))
       createIndividualNode(cycConstant, blockquoteElement);
     else {
       if (verbosity > 0)
@@ -445,7 +618,7 @@ public class ExportHtml extends OntologyExport {
       if (selectedCycForts.contains(object)) {
         HTMLAnchorElement cycConstantAnchorElement =
         new HTMLAnchorElementImpl((HTMLDocumentImpl)htmlDocument, "a");
-        cycConstantAnchorElement.setHref("./" + exportedVocabularyOutputPath + "#" + cycConstant.cyclify());
+        cycConstantAnchorElement.setHref(termHref(cycConstant));
         parentElement.appendChild(cycConstantAnchorElement);
         cycConstantAnchorElement.appendChild(htmlDocument.createTextNode(cycConstant.cyclify()));
       }
@@ -458,7 +631,7 @@ public class ExportHtml extends OntologyExport {
       if (selectedCycForts.contains(cycNart)) {
         HTMLAnchorElement cycFortAnchorElement =
         new HTMLAnchorElementImpl((HTMLDocumentImpl)htmlDocument, "a");
-        cycFortAnchorElement.setHref("./" + exportedVocabularyOutputPath + "#" + cycNart.cyclify());
+        cycFortAnchorElement.setHref(termHref(cycNart));
         parentElement.appendChild(cycFortAnchorElement);
         cycFortAnchorElement.appendChild(htmlDocument.createTextNode("( "));
       }
@@ -529,7 +702,7 @@ public class ExportHtml extends OntologyExport {
    */
   protected void createCommentNodes(CycConstant cycConstant, Element parentElement)
   throws IOException, CycApiException {
-    String comment = cycAccess.getComment(cycConstant);
+    String comment = getComment(cycConstant);
     if (comment.equals("")) {
       hasComment = false;
       return;
@@ -573,7 +746,7 @@ public class ExportHtml extends OntologyExport {
           parentElement.appendChild(commentTextNode);
           stringBuffer = new StringBuffer();
           htmlAnchorElement = new HTMLAnchorElementImpl((HTMLDocumentImpl)htmlDocument, "a");
-          htmlAnchorElement.setHref("./" + exportedVocabularyOutputPath + "#" + commentConstant.cyclify());
+          htmlAnchorElement.setHref(termHref(commentConstant));
           parentElement.appendChild(htmlAnchorElement);
           if (wordHasLeadingLeftParen)
             stringBuffer.append('(');
@@ -591,7 +764,7 @@ public class ExportHtml extends OntologyExport {
             parentElement.appendChild(commentTextNode);
             stringBuffer = new StringBuffer();
             htmlAnchorElement = new HTMLAnchorElementImpl((HTMLDocumentImpl)htmlDocument, "a");
-            htmlAnchorElement.setHref("./" + exportedVocabularyOutputPath + "#" + commentConstant.cyclify());
+            htmlAnchorElement.setHref(termHref(commentConstant));
             parentElement.appendChild(htmlAnchorElement);
             if (wordHasLeadingLeftParen)
               stringBuffer.append('(');
@@ -669,7 +842,7 @@ public class ExportHtml extends OntologyExport {
       if (verbosity > 7) {
         Log.current.println("  considering " + isa.cyclify());
         Log.current.println("    selectedCycForts.contains(" + isa.cyclify() + ") " + selectedCycForts.contains(isa));
-        Log.current.println("    cycAccess.isQuotedCollection(" + isa.cyclify() + ") " + cycAccess.isQuotedCollection(isa));
+        Log.current.println("    cycAccess.isQuotedCollection(" + isa.cyclify() + ") " + isQuotedCollection(isa));
       }
       if (! selectedCycForts.contains(isa)) {
         isa = findSelectedGenls(isa);
@@ -678,7 +851,7 @@ public class ExportHtml extends OntologyExport {
       }
       if (createdIsas.contains(isa))
         continue;
-      else if (cycAccess.isQuotedCollection(isa)) {
+      else if (isQuotedCollection(isa)) {
         if (verbosity > 2)
           Log.current.println("  omitting quoted direct-instance-of collection " + isa.cyclify());
       }
@@ -694,7 +867,7 @@ public class ExportHtml extends OntologyExport {
     for (int i = 0; i < createdIsas.size(); i++) {
       CycFort isa = (CycFort)createdIsas.get(i);
       HTMLAnchorElement isaAnchorElement = new HTMLAnchorElementImpl((HTMLDocumentImpl)htmlDocument, "a");
-      isaAnchorElement.setHref("./" + exportedVocabularyOutputPath + "#" + isa.cyclify());
+      isaAnchorElement.setHref(termHref(isa));
       parentElement.appendChild(isaAnchorElement);
       Node isaTextNode = htmlDocument.createTextNode(isa.cyclify());
       isaAnchorElement.appendChild(isaTextNode);
@@ -726,13 +899,13 @@ public class ExportHtml extends OntologyExport {
     bElement.appendChild(genlsLabelTextNode);
     for (int i = 0; i < genls.size(); i++) {
       CycFort genl = (CycFort)genls.get(i);
-      if (cycAccess.isQuotedCollection(genl)) {
+      if (isQuotedCollection(genl)) {
         if (verbosity > 2)
           Log.current.println("  omitting quoted genl collection " + genl.cyclify());
       }
       else if (selectedCycForts.contains(genl)) {
         HTMLAnchorElement genlAnchorElement = new HTMLAnchorElementImpl((HTMLDocumentImpl)htmlDocument, "a");
-        genlAnchorElement.setHref("./" + exportedVocabularyOutputPath + "#" + genl.cyclify());
+        genlAnchorElement.setHref(termHref(genl));
         parentElement.appendChild(genlAnchorElement);
         Node genlTextNode = htmlDocument.createTextNode(genl.cyclify());
         genlAnchorElement.appendChild(genlTextNode);
@@ -819,7 +992,7 @@ public class ExportHtml extends OntologyExport {
       CycConstant genlPred = (CycConstant)genlPreds.get(i);
       HTMLAnchorElement genlPredAnchorElement =
       new HTMLAnchorElementImpl((HTMLDocumentImpl)htmlDocument, "a");
-      genlPredAnchorElement.setHref("./" + exportedVocabularyOutputPath + "#" + genlPred.cyclify());
+      genlPredAnchorElement.setHref(termHref(genlPred));
       parentElement.appendChild(genlPredAnchorElement);
       Node genlPredTextNode = htmlDocument.createTextNode(genlPred.cyclify());
       genlPredAnchorElement.appendChild(genlPredTextNode);
@@ -849,7 +1022,7 @@ public class ExportHtml extends OntologyExport {
       CycConstant arg1Isa = (CycConstant)arg1Isas.get(i);
       HTMLAnchorElement arg1IsaAnchorElement =
       new HTMLAnchorElementImpl((HTMLDocumentImpl)htmlDocument, "a");
-      arg1IsaAnchorElement.setHref("./" + exportedVocabularyOutputPath + "#" + arg1Isa.cyclify());
+      arg1IsaAnchorElement.setHref(termHref(arg1Isa));
       parentElement.appendChild(arg1IsaAnchorElement);
       Node arg1IsaTextNode = htmlDocument.createTextNode(arg1Isa.cyclify());
       arg1IsaAnchorElement.appendChild(arg1IsaTextNode);
@@ -879,7 +1052,7 @@ public class ExportHtml extends OntologyExport {
       CycConstant arg2Isa = (CycConstant)arg2Isas.get(i);
       HTMLAnchorElement arg2IsaAnchorElement =
       new HTMLAnchorElementImpl((HTMLDocumentImpl)htmlDocument, "a");
-      arg2IsaAnchorElement.setHref("./" + exportedVocabularyOutputPath + "#" + arg2Isa.cyclify());
+      arg2IsaAnchorElement.setHref(termHref(arg2Isa));
       parentElement.appendChild(arg2IsaAnchorElement);
       Node arg2IsaTextNode = htmlDocument.createTextNode(arg2Isa.cyclify());
       arg2IsaAnchorElement.appendChild(arg2IsaTextNode);
@@ -909,7 +1082,7 @@ public class ExportHtml extends OntologyExport {
       CycConstant arg3Isa = (CycConstant)arg3Isas.get(i);
       HTMLAnchorElement arg3IsaAnchorElement =
       new HTMLAnchorElementImpl((HTMLDocumentImpl)htmlDocument, "a");
-      arg3IsaAnchorElement.setHref("./" + exportedVocabularyOutputPath + "#" + arg3Isa.cyclify());
+      arg3IsaAnchorElement.setHref(termHref(arg3Isa));
       parentElement.appendChild(arg3IsaAnchorElement);
       Node arg3IsaTextNode = htmlDocument.createTextNode(arg3Isa.cyclify());
       arg3IsaAnchorElement.appendChild(arg3IsaTextNode);
@@ -939,7 +1112,7 @@ public class ExportHtml extends OntologyExport {
       CycConstant arg4Isa = (CycConstant)arg4Isas.get(i);
       HTMLAnchorElement arg4IsaAnchorElement =
       new HTMLAnchorElementImpl((HTMLDocumentImpl)htmlDocument, "a");
-      arg4IsaAnchorElement.setHref("./" + exportedVocabularyOutputPath + "#" + arg4Isa.cyclify());
+      arg4IsaAnchorElement.setHref(termHref(arg4Isa));
       parentElement.appendChild(arg4IsaAnchorElement);
       Node arg4IsaTextNode = htmlDocument.createTextNode(arg4Isa.cyclify());
       arg4IsaAnchorElement.appendChild(arg4IsaTextNode);
@@ -969,7 +1142,7 @@ public class ExportHtml extends OntologyExport {
       CycConstant resultIsa = (CycConstant)resultIsas.get(i);
       HTMLAnchorElement resultIsaAnchorElement =
       new HTMLAnchorElementImpl((HTMLDocumentImpl)htmlDocument, "a");
-      resultIsaAnchorElement.setHref("./" + exportedVocabularyOutputPath + "#" + resultIsa.cyclify());
+      resultIsaAnchorElement.setHref(termHref(resultIsa));
       parentElement.appendChild(resultIsaAnchorElement);
       Node resultIsaTextNode = htmlDocument.createTextNode(resultIsa.cyclify());
       resultIsaAnchorElement.appendChild(resultIsaTextNode);
@@ -1145,15 +1318,15 @@ public class ExportHtml extends OntologyExport {
       CycFort cycFort = (CycFort) categoryTerms.get(i);
       if (verbosity > 2)
         Log.current.print(cycFort + "  ");
-      if (cycAccess.isCollection(cycFort)) {
+      if (isCollection(cycFort)) {
         if (verbosity > 2)
           Log.current.println("Collection");
       }
-      else if (cycAccess.isPredicate(cycFort)) {
+      else if (isPredicate(cycFort)) {
         if (verbosity > 2)
           Log.current.println("Predicate");
       }
-      else if (cycAccess.isIndividual(cycFort)) {
+      else if (isIndividual(cycFort)) {
         if (verbosity > 2)
           Log.current.println("Individual");
       }
@@ -1620,6 +1793,90 @@ public class ExportHtml extends OntologyExport {
     return answer;
   }
   
+  /**
+   * Renders one shard of the vocabulary on its own thread.
+   */
+  protected class VocabularyShard implements Runnable {
+    
+    /**
+     * The title of the shard page.
+     */
+    protected String title;
+    
+    /**
+     * The terms rendered on the shard page.
+     */
+    protected List terms;
+    
+    /**
+     * The file name of the shard page.
+     */
+    protected String outputPath;
+    
+    /**
+     * The ExportHtml object which renders the shard.
+     */
+    protected ExportHtml shardExport;
+    
+    /**
+     * The thread which renders the shard.
+     */
+    protected Thread thread;
+    
+    /**
+     * The exception which stopped the rendering of the shard, or null.
+     */
+    protected Exception exception = null;
+    
+    /**
+     * Constructs a new VocabularyShard object.
+     *
+     * @param title the title of the shard page
+     * @param terms the terms rendered on the shard page
+     * @param outputPath the file name of the shard page
+     */
+    protected VocabularyShard(String title, List terms, String outputPath) {
+      this.title = title;
+      this.terms = terms;
+      this.outputPath = outputPath;
+    }
+    
+    /**
+     * Starts rendering the shard on its own thread.
+     */
+    protected void start() {
+      thread = new Thread(this, "ExportHtml-" + outputPath);
+      thread.start();
+    }
+    
+    /**
+     * Opens the api connection of the shard, renders the shard page and closes the
+     * connection, all on the shard's own thread.
+     */
+    public void run() {
+      try {
+        shardExport = makeShardExport();
+        shardExport.createVocabularyPage(title, terms, outputPath);
+      }
+      catch (Exception e) {
+        exception = e;
+        Log.current.errorPrintln("Cannot render " + outputPath + ": " + e.getMessage());
+      }
+      finally {
+        if (shardExport != null)
+          shardExport.cycAccess.close();
+      }
+    }
+    
+    /**
+     * Waits until the shard page is rendered.
+     */
+    protected void join() throws InterruptedException {
+      if (thread != null)
+        thread.join();
+    }
+  }
+  
   /**
    * Provides a container for term category information used to make
    * vocabulary category HTML pages.
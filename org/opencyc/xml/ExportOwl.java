@@ -79,6 +79,12 @@ public class ExportOwl extends OntologyExport {
   public String title = "Ontology";
   
   
+  /**
+   * When true, the OWL output is written incrementally as each term is
+   * processed, rather than from a complete document at the end of the export.
+   */
+  public boolean isStreamingExport = Boolean.getBoolean("org.opencyc.xml.streamingExport");
+  
   /** restricts OWL export to either collections, predicates or individuals */
   public String exportCategory = ALL_EXPORT_CATEGORIES;
   
@@ -155,6 +161,9 @@ public class ExportOwl extends OntologyExport {
       }
       Log.current.println("");
     }
+    if (verbosity > 2)
+      Log.current.println("Prefetching term information");
+    prefetchTermInfo(selectedCycForts);
     if (verbosity > 2) {
       if (exportCommand == EXPORT_RESEARCH_CYC)
         Log.current.println("Partitioning by type.");
@@ -167,12 +176,12 @@ public class ExportOwl extends OntologyExport {
         if ((verbosity > 5) && (i % 100 == 0))
           Log.current.println("... " + cycObject.cyclify());
       }
-      if (cycAccess.isCollection(cycObject)) {
+      if (isCollection(cycObject)) {
         owlSelectedConstants.add(cycObject);
         if (exportCategory.equals(ALL_EXPORT_CATEGORIES) || exportCategory.equals(EXPORT_COLLECTION_CATEGORY))
           owlSelectedClasses.add(cycObject);
       }
-      else if (cycAccess.isUnaryPredicate(cycObject))
+      else if (isUnaryPredicate(cycObject))
         if (exportCommand == EXPORT_RESEARCH_CYC) {
           owlSelectedConstants.add(cycObject);
           if (exportCategory.equals(ALL_EXPORT_CATEGORIES) || exportCategory.equals(EXPORT_PREDICATE_CATEGORY))
@@ -181,12 +190,12 @@ public class ExportOwl extends OntologyExport {
         else
           // Do not export (for now) Cyc unary predicates, as they cannot be easily expressed in OWL.
           continue;
-      else if (cycAccess.isBinaryPredicate(cycObject)) {
+      else if (isBinaryPredicate(cycObject)) {
         owlSelectedConstants.add(cycObject);
         if (exportCategory.equals(ALL_EXPORT_CATEGORIES) || exportCategory.equals(EXPORT_PREDICATE_CATEGORY))
           owlSelectedProperties.add(cycObject);
       }
-      else if (cycAccess.isPredicate(cycObject))
+      else if (isPredicate(cycObject))
         if (exportCommand == EXPORT_RESEARCH_CYC) {
           owlSelectedConstants.add(cycObject);
           if (exportCategory.equals(ALL_EXPORT_CATEGORIES) || exportCategory.equals(EXPORT_PREDICATE_CATEGORY))
@@ -195,7 +204,7 @@ public class ExportOwl extends OntologyExport {
         else
           // Do not export Cyc (for now) arity 3+ predicates, as they cannot be easily expressed in OWL.
           continue;
-        else if (cycAccess.isIndividual(cycObject)) {
+        else if (isIndividual(cycObject)) {
           owlSelectedConstants.add(cycObject);
           if (exportCategory.equals(ALL_EXPORT_CATEGORIES) || exportCategory.equals(EXPORT_INDIVIDUAL_CATEGORY))
             owlSelectedIndividuals.add(cycObject);
@@ -297,6 +306,11 @@ public class ExportOwl extends OntologyExport {
   
   /** Serializes the OWL document to the XML file. */
   public void serializeDocument() throws IOException {
+    if (elementStreamWriter != null) {
+      elementStreamWriter.endDocument(rdf);
+      elementStreamWriter = null;
+      return;
+    }
     if (verbosity > 2)
       Log.current.println("Writing OWL output to " + outputPath);
     OutputFormat outputFormat = new OutputFormat(document, "UTF-8", true);
@@ -332,6 +346,12 @@ public class ExportOwl extends OntologyExport {
       createOwlOntologyNode();
       createCycGuidNode();
     }
+    if (isStreamingExport) {
+      if (verbosity > 2)
+        Log.current.println("Streaming OWL output to " + outputPath);
+      elementStreamWriter = new ElementStreamWriter(outputPath);
+      elementStreamWriter.startDocument(rdf);
+    }
     
     if (exportCommand == OntologyExport.EXPORT_ENTIRE_KB) {
       includeUpwardClosure = false;
@@ -398,16 +418,18 @@ public class ExportOwl extends OntologyExport {
     populateComment(cycObject);
     populateIsas(cycObject);
     populatePropertyAssertions(cycObject);
-    if (cycAccess.isCollection(cycObject))
+    if (isCollection(cycObject))
       createClassNode(cycObject);
-    else if (cycAccess.isBinaryPredicate(cycObject))
+    else if (isBinaryPredicate(cycObject))
       createPropertyNode(cycObject);
-    else if (cycAccess.isIndividual(cycObject))
+    else if (isIndividual(cycObject))
       createIndividualNode(cycObject);
     else {
       if (verbosity > 0)
         Log.current.println("Unhandled term: " + cycObject.toString());
     }
+    if (elementStreamWriter != null)
+      elementStreamWriter.writeChildren(rdf);
   }
   
   /** Creates a OWL class node for a single Cyc collection.
@@ -570,7 +592,7 @@ public class ExportOwl extends OntologyExport {
     CycList candidateIsas = new CycList();
     for (int i = 0; i < isas.size(); i++) {
       CycFort isa = (CycFort) isas.get(i);
-      if (! cycAccess.isQuotedCollection(isa) && isa instanceof CycConstant)
+      if (! isQuotedCollection(isa) && isa instanceof CycConstant)
         candidateIsas.add(isa);
     }
     if (candidateIsas.size() == 0)
@@ -650,7 +672,7 @@ public class ExportOwl extends OntologyExport {
       Element labelNode = document.createElementNS(rdfsNamespace, "rdfs:label");
       labelNode.setAttributeNS(xmlNamespace, "xml:lang", "en");
       String label = null;
-      label = cycAccess.getGeneratedPhrase(cycObject);
+      label = getGeneratedPhrase(cycObject);
       if (verbosity > 2)
         Log.current.println("  " + label);
       labelNode.appendChild(document.createTextNode(label));
@@ -709,7 +731,7 @@ public class ExportOwl extends OntologyExport {
    * @param cycObject The Cyc term for which the comment is obtained.
    */
   private void populateComment(CycObject cycObject) throws UnknownHostException, IOException, CycApiException {
-    final String tempComment = cycAccess.getComment(cycObject);
+    final String tempComment = getComment(cycObject);
     if (tempComment == null) {
       comment = null;
       return;
@@ -928,7 +950,7 @@ public class ExportOwl extends OntologyExport {
    */
   public String xmlNonAtomicTermName(final CycObject nonAtomicTerm)
     throws UnknownHostException, IOException, CycApiException {
-    String xmlName = cycAccess.getGeneratedPhrase(nonAtomicTerm);
+    String xmlName = getGeneratedPhrase(nonAtomicTerm);
     xmlName = xmlName.replace(' ', '_');
     xmlName = xmlName.replace('"', '_');
     xmlName = xmlName.replace('\'', '_');
@@ -957,6 +979,7 @@ public class ExportOwl extends OntologyExport {
   private final Document document = new DocumentImpl();
   private String documentUrl = null;
   private Element rdf = null;
+  private ElementStreamWriter elementStreamWriter = null;
   private Element owlOntology = null;
   private Element owlVersionInfo = null;
   private Element rdfsComment = null;
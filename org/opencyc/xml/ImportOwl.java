@@ -155,6 +155,8 @@ public abstract class ImportOwl implements StatementHandler {
         return;
       }
     }
+    if (isFastAssertion && nbrWriterConnections > 0 && actuallyImport)
+      assertionWriter = new OwlAssertionWriter(cycAccess, nbrWriterConnections);
     try {
       arp.load(in, url.toExternalForm());
     }
@@ -164,6 +166,9 @@ public abstract class ImportOwl implements StatementHandler {
     catch (SAXException sax) {
       System.err.println("Error: " + owlPath + ": " + ParseException.formatMessage(sax));
     }
+    finally {
+      closeAssertionWriter();
+    }
     Log.current.println("\nDone importing " + owlPath + "\n" + (System.currentTimeMillis() - startMilliseconds) + " milliseconds");
     
     
@@ -177,6 +182,7 @@ public abstract class ImportOwl implements StatementHandler {
    */
   public void statement(AResource subject, AResource predicate, AResource object) {
     try {
+      endPreviousSubject(subject);
       if (subject.isAnonymous()) {
         processRestrictionSubject(subject, predicate, object);
         return;
@@ -205,6 +211,7 @@ public abstract class ImportOwl implements StatementHandler {
    */
   public void statement(AResource subject, AResource predicate, ALiteral literal) {
     try {
+      endPreviousSubject(subject);
       if (subject.isAnonymous()) {
         processRestrictionSubject(subject, predicate, literal);
       }
@@ -349,22 +356,24 @@ public abstract class ImportOwl implements StatementHandler {
         gaf.add(cycAccess.binaryPredicate);
         final CycSymbol strength = CycObjectFactory.makeCycSymbol(":monotonic");
         final CycObject mt = cycAccess.getKnownConstantByName("UniversalVocabularyMt");
-        cycAccess.assertHLGaf(gaf, mt, strength);
+        assertHLGaf(gaf, mt, strength);
         final CycList gaf2 = new CycList();
         gaf2.add(cycAccess.getKnownConstantByName("arity"));
         gaf2.add(predicate);
         gaf2.add(new Integer(2));
-        cycAccess.assertHLGaf(gaf, importMt, strength);
+        assertHLGaf(gaf, importMt, strength);
       }
       else
-        cycAccess.assertIsaBinaryPredicate(predicate);
+        assertIsaBinaryPredicate(predicate);
     }
     CycList arg1Constraints =
-      cycAccess.getArg1Isas((CycFort) predicate, importMt);
+      getArg1Isas((CycFort) predicate, importMt);
     assertForwardArgConstraints(subject, arg1Constraints);
     CycList arg2Constraints =
-      cycAccess.getArg2Isas((CycFort) predicate, importMt);
-    
+      getArg2Isas((CycFort) predicate, importMt);
+    // The inter-argument constraints depend upon the isa gafs of the subject, which
+    // may still be queued for the assertion writer.
+    drainAssertionWriter();
     arg2Constraints.addAllNew(cycAccess.getInterArgIsa1_2_forArg2((CycFort) predicate,
                                                                   subject,
                                                                   importMt));
@@ -384,7 +393,7 @@ public abstract class ImportOwl implements StatementHandler {
       gaf.add(subject);
       gaf.add(object);
       final CycSymbol strength = CycObjectFactory.makeCycSymbol(":default");
-      cycAccess.assertHLGaf(gaf, importMt, strength);
+      assertHLGaf(gaf, importMt, strength);
     }
     else
       cycAccess.assertGaf(importMt,
@@ -416,7 +425,7 @@ public abstract class ImportOwl implements StatementHandler {
         gaf.add(subject);
         gaf.add((String) escaped(LiteralTermInfo.literal));
         final CycSymbol strength = CycObjectFactory.makeCycSymbol(":default");
-        cycAccess.assertHLGaf(gaf, importMt, strength);
+        assertHLGaf(gaf, importMt, strength);
       }
       else
         cycAccess.assertGaf(importMt,
@@ -439,7 +448,7 @@ public abstract class ImportOwl implements StatementHandler {
           gaf.add(subject);
           gaf.add((String) escaped(LiteralTermInfo.literal));
           final CycSymbol strength = CycObjectFactory.makeCycSymbol(":default");
-          cycAccess.assertHLGaf(gaf, importMt, strength);
+          assertHLGaf(gaf, importMt, strength);
         }
         else
           cycAccess.assertGaf(importMt,
@@ -454,7 +463,7 @@ public abstract class ImportOwl implements StatementHandler {
           gaf.add(subject);
           gaf.add(new Double(LiteralTermInfo.literal));
           final CycSymbol strength = CycObjectFactory.makeCycSymbol(":default");
-          cycAccess.assertHLGaf(gaf, importMt, strength);
+          assertHLGaf(gaf, importMt, strength);
         }
         else
           cycAccess.assertGaf(importMt,
@@ -469,7 +478,7 @@ public abstract class ImportOwl implements StatementHandler {
           gaf.add(subject);
           gaf.add(new Integer(LiteralTermInfo.literal));
           final CycSymbol strength = CycObjectFactory.makeCycSymbol(":default");
-          cycAccess.assertHLGaf(gaf, importMt, strength);
+          assertHLGaf(gaf, importMt, strength);
         }
         else
           cycAccess.assertGaf(importMt,
@@ -487,7 +496,7 @@ public abstract class ImportOwl implements StatementHandler {
           gaf.add(subject);
           gaf.add(date);
           final CycSymbol strength = CycObjectFactory.makeCycSymbol(":default");
-          cycAccess.assertHLGaf(gaf, importMt, strength);
+          assertHLGaf(gaf, importMt, strength);
         }
         else
           cycAccess.assertGaf(importMt,
@@ -502,7 +511,7 @@ public abstract class ImportOwl implements StatementHandler {
           gaf.add(subject);
           gaf.add(LiteralTermInfo.literal);
           final CycSymbol strength = CycObjectFactory.makeCycSymbol(":default");
-          cycAccess.assertHLGaf(gaf, importMt, strength);
+          assertHLGaf(gaf, importMt, strength);
         }
         else
           cycAccess.assertGaf(importMt,
@@ -533,6 +542,247 @@ public abstract class ImportOwl implements StatementHandler {
     return result;
   }
   
+  /** Returns true if the given term is an instance of the given collection,
+   * remembering the answer for the remainder of the import.
+   *
+   * @param term the given term
+   * @param collection the given collection
+   * @return true if the given term is an instance of the given collection
+   */
+  protected boolean isa(CycFort term, CycFort collection)
+  throws IOException, UnknownHostException, CycApiException {
+    final String key = "isa " + term.cyclify() + " " + collection.cyclify();
+    Boolean answer = (Boolean) kbQueryCache.get(key);
+    if (answer == null) {
+      answer = cycAccess.isa(term, collection) ? Boolean.TRUE : Boolean.FALSE;
+      kbQueryCache.put(key, answer);
+    }
+    return answer.booleanValue();
+  }
+  
+  /** Returns true if the given term is quoted instance of the given collection,
+   * remembering the answer for the remainder of the import.
+   *
+   * @param term the given term
+   * @param collection the given collection
+   * @return true if the given term is quoted instance of the given collection
+   */
+  protected boolean isQuotedIsa(CycFort term, CycFort collection)
+  throws IOException, UnknownHostException, CycApiException {
+    final String key = "quotedIsa " + term.cyclify() + " " + collection.cyclify();
+    Boolean answer = (Boolean) kbQueryCache.get(key);
+    if (answer == null) {
+      answer = cycAccess.isQuotedIsa(term, collection) ? Boolean.TRUE : Boolean.FALSE;
+      kbQueryCache.put(key, answer);
+    }
+    return answer.booleanValue();
+  }
+  
+  /** Returns true if the given term is a collection, remembering the answer
+   * for the remainder of the import.
+   *
+   * @param term the given term
+   * @return true if the given term is a collection
+   */
+  protected boolean isCollection(CycFort term)
+  throws IOException, UnknownHostException, CycApiException {
+    return isa(term, cycAccess.collection);
+  }
+  
+  /** Returns true if the given term is a binary predicate, remembering the answer
+   * for the remainder of the import.
+   *
+   * @param term the given term
+   * @return true if the given term is a binary predicate
+   */
+  protected boolean isBinaryPredicate(CycFort term)
+  throws IOException, UnknownHostException, CycApiException {
+    return isa(term, cycAccess.binaryPredicate);
+  }
+  
+  /** Returns a copy of the argument one type constraints of the given predicate,
+   * remembering them until an argIsa assertion on the predicate is imported.
+   *
+   * @param predicate the given predicate
+   * @param mt the microtheory in which the constraints are sought
+   * @return the list of collections which constrain argument one of the predicate
+   */
+  protected CycList getArg1Isas(CycFort predicate, CycObject mt)
+  throws IOException, UnknownHostException, CycApiException {
+    final String key = "arg1Isa " + predicate.cyclify();
+    CycList argIsas = (CycList) kbQueryCache.get(key);
+    if (argIsas == null) {
+      drainAssertionWriter();
+      argIsas = cycAccess.getArg1Isas(predicate, mt);
+      kbQueryCache.put(key, argIsas);
+    }
+    return (CycList) argIsas.clone();
+  }
+  
+  /** Returns a copy of the argument two type constraints of the given predicate,
+   * remembering them until an argIsa assertion on the predicate is imported.
+   *
+   * @param predicate the given predicate
+   * @param mt the microtheory in which the constraints are sought
+   * @return the list of collections which constrain argument two of the predicate
+   */
+  protected CycList getArg2Isas(CycFort predicate, CycObject mt)
+  throws IOException, UnknownHostException, CycApiException {
+    final String key = "arg2Isa " + predicate.cyclify();
+    CycList argIsas = (CycList) kbQueryCache.get(key);
+    if (argIsas == null) {
+      drainAssertionWriter();
+      argIsas = cycAccess.getArg2Isas(predicate, mt);
+      kbQueryCache.put(key, argIsas);
+    }
+    return (CycList) argIsas.clone();
+  }
+  
+  /** Records the effect of the given asserted gaf upon the remembered KB answers.
+   *
+   * @param gaf the asserted gaf
+   */
+  protected void rememberAssertion(CycList gaf) {
+    if (gaf.size() < 3 || ! (gaf.second() instanceof CycFort))
+      return;
+    final Object predicate = gaf.first();
+    final CycFort term = (CycFort) gaf.second();
+    if (predicate.equals(cycAccess.isa) && gaf.third() instanceof CycFort)
+      kbQueryCache.put("isa " + term.cyclify() + " " + ((CycFort) gaf.third()).cyclify(), Boolean.TRUE);
+    else if (predicate instanceof CycConstant &&
+             ((CycConstant) predicate).getName().equals("quotedIsa") &&
+             gaf.third() instanceof CycFort)
+      kbQueryCache.put("quotedIsa " + term.cyclify() + " " + ((CycFort) gaf.third()).cyclify(), Boolean.TRUE);
+    else if (predicate instanceof CycConstant &&
+             ((CycConstant) predicate).getName().equals("argIsa"))
+      forgetArgIsas(term);
+  }
+  
+  /** Forgets the remembered argument type constraints of the given predicate.
+   *
+   * @param predicate the given predicate
+   */
+  protected void forgetArgIsas(CycFort predicate) {
+    kbQueryCache.remove("arg1Isa " + predicate.cyclify());
+    kbQueryCache.remove("arg2Isa " + predicate.cyclify());
+  }
+  
+  /** Asserts the given gaf at the HL level, through the assertion writer when
+   * one is open.
+   *
+   * @param gaf the gaf in the form of a CycList
+   * @param mt the microtheory in which the assertion is made
+   * @param strength the assertion strength (e.g. :default or :monotonic)
+   */
+  protected void assertHLGaf(CycList gaf, CycObject mt, CycSymbol strength)
+  throws IOException, UnknownHostException, CycApiException {
+    rememberAssertion(gaf);
+    if (assertionWriter != null)
+      assertionWriter.add(gaf, mt, strength);
+    else
+      cycAccess.assertHLGaf(gaf, mt, strength);
+  }
+  
+  /** Asserts that the given term is a collection.
+   *
+   * @param term the given term
+   */
+  protected void assertIsaCollection(CycFort term)
+  throws IOException, UnknownHostException, CycApiException {
+    cycAccess.assertIsaCollection(term);
+    kbQueryCache.put("isa " + term.cyclify() + " " + cycAccess.collection.cyclify(), Boolean.TRUE);
+  }
+  
+  /** Asserts that the given term is a binary predicate.
+   *
+   * @param term the given term
+   */
+  protected void assertIsaBinaryPredicate(CycFort term)
+  throws IOException, UnknownHostException, CycApiException {
+    cycAccess.assertIsaBinaryPredicate(term);
+    kbQueryCache.put("isa " + term.cyclify() + " " + cycAccess.binaryPredicate.cyclify(), Boolean.TRUE);
+  }
+  
+  /** Asserts that the given term is an instance of the given collection.
+   *
+   * @param term the given term
+   * @param collection the given collection
+   */
+  protected void assertIsa(CycFort term, CycFort collection)
+  throws IOException, UnknownHostException, CycApiException {
+    cycAccess.assertIsa(term, collection);
+    kbQueryCache.put("isa " + term.cyclify() + " " + collection.cyclify(), Boolean.TRUE);
+  }
+  
+  /** Asserts that the given term is an instance of the given collection in the given microtheory.
+   *
+   * @param term the given term
+   * @param collection the given collection
+   * @param mt the microtheory in which the assertion is made
+   */
+  protected void assertIsa(CycFort term, CycFort collection, CycFort mt)
+  throws IOException, UnknownHostException, CycApiException {
+    cycAccess.assertIsa(term, collection, mt);
+    kbQueryCache.put("isa " + term.cyclify() + " " + collection.cyclify(), Boolean.TRUE);
+  }
+  
+  /** Asserts the argument type constraint on the given relation.
+   *
+   * @param relation the given relation
+   * @param argPosition the constrained argument position
+   * @param argIsa the collection which constrains the argument
+   */
+  protected void assertArgIsa(CycFort relation, int argPosition, CycFort argIsa)
+  throws IOException, UnknownHostException, CycApiException {
+    cycAccess.assertArgIsa(relation, argPosition, argIsa);
+    forgetArgIsas(relation);
+  }
+  
+  /** Ends the assertion batch of the previous subject when the given triple
+   * subject differs from it.
+   *
+   * @param subject the RDF Triple Subject
+   */
+  protected void endPreviousSubject(AResource subject) throws InterruptedException {
+    if (assertionWriter == null)
+      return;
+    final String subjectId = subject.isAnonymous() ? subject.getAnonymousID() : subject.getURI();
+    if (! subjectId.equals(previousSubjectId)) {
+      previousSubjectId = subjectId;
+      assertionWriter.endSubject();
+    }
+  }
+  
+  /** Waits until the queued HL assertions are in the KB, so that a following
+   * query observes them.
+   */
+  protected void drainAssertionWriter() throws IOException {
+    if (assertionWriter == null)
+      return;
+    try {
+      assertionWriter.drain();
+    }
+    catch (InterruptedException e) {
+      throw new IOException("interrupted while writing assertions");
+    }
+  }
+  
+  /** Writes the remaining queued HL assertions, closes the assertion writer and
+   * reports its throughput.
+   */
+  protected void closeAssertionWriter() throws IOException {
+    if (assertionWriter == null)
+      return;
+    try {
+      assertionWriter.close();
+    }
+    catch (InterruptedException e) {
+      throw new IOException("interrupted while writing assertions");
+    }
+    Log.current.println("\n" + assertionWriter.toString());
+    assertionWriter = null;
+  }
+  
   /** Asserts argument constraints on a forward referenced term used
    * in an assertion.
    *
@@ -543,17 +793,17 @@ public abstract class ImportOwl implements StatementHandler {
   throws IOException, UnknownHostException, CycApiException  {
     for (int i = 0; i < argConstraints.size(); i++) {
       CycFort argConstraint = (CycFort) argConstraints.get(i);
-      if (! cycAccess.isa(term, argConstraint)) {
+      if (! isa(term, argConstraint)) {
         if (isFastAssertion) {
           final CycList gaf = new CycList();
           gaf.add(cycAccess.isa);
           gaf.add(term);
           gaf.add(argConstraint);
           final CycSymbol strength = CycObjectFactory.makeCycSymbol(":monotonic");
-          cycAccess.assertHLGaf(gaf, importMt, strength);
+          assertHLGaf(gaf, importMt, strength);
         }
         else
-          cycAccess.assertIsa(term, argConstraint, importMt);
+          assertIsa(term, argConstraint, importMt);
         Log.current.println("*** asserting forward arg constraint " +
                             "(#$isa " + term.cyclify() + " " +
                             argConstraint.cyclify() + ")");
@@ -585,7 +835,7 @@ public abstract class ImportOwl implements StatementHandler {
         gaf.add(term);
         gaf.add(owlOntologyDefiningURL);
         final CycSymbol strength = CycObjectFactory.makeCycSymbol(":monotonic");
-        cycAccess.assertHLGaf(gaf, importMt, strength);
+        assertHLGaf(gaf, importMt, strength);
       }
       else
         cycAccess.assertGaf(importMt,
@@ -599,7 +849,7 @@ public abstract class ImportOwl implements StatementHandler {
           gaf.add(term);
           gaf.add(subjectTermInfo.uri);
           final CycSymbol strength = CycObjectFactory.makeCycSymbol(":monotonic");
-          cycAccess.assertHLGaf(gaf, importMt, strength);
+          assertHLGaf(gaf, importMt, strength);
         }
         else
           cycAccess.assertGaf(importMt,
@@ -615,7 +865,7 @@ public abstract class ImportOwl implements StatementHandler {
         gaf.add(new Integer(1));
         gaf.add(cycAccess.getKnownConstantByGuid("bd5880eb-9c29-11b1-9dad-c379636f7270"));
         final CycSymbol strength = CycObjectFactory.makeCycSymbol(":monotonic");
-        cycAccess.assertHLGaf(gaf, importMt, strength);
+        assertHLGaf(gaf, importMt, strength);
       }
       else
         cycAccess.assertArg1FormatSingleEntry(subjectTermInfo.cycFort);
@@ -624,17 +874,17 @@ public abstract class ImportOwl implements StatementHandler {
       return;
     }
     CycFort collection = importTerm(objectTermInfo, CLASS_TERM);
-    if (! cycAccess.isCollection(collection)) {
+    if (! isCollection(collection)) {
       if (isFastAssertion) {
         final CycList gaf = new CycList();
         gaf.add(cycAccess.isa);
         gaf.add(collection);
         gaf.add(cycAccess.collection);
         final CycSymbol strength = CycObjectFactory.makeCycSymbol(":monotonic");
-        cycAccess.assertHLGaf(gaf, importMt, strength);
+        assertHLGaf(gaf, importMt, strength);
       }
       else
-        cycAccess.assertIsaCollection(collection);
+        assertIsaCollection(collection);
       Log.current.println("*** forward reference to collection " + collection.cyclify());
     }
     if (isFastAssertion) {
@@ -643,10 +893,10 @@ public abstract class ImportOwl implements StatementHandler {
       gaf.add(term);
       gaf.add(collection);
       final CycSymbol strength = CycObjectFactory.makeCycSymbol(":monotonic");
-      cycAccess.assertHLGaf(gaf, importMt, strength);
+      assertHLGaf(gaf, importMt, strength);
     }
     else
-      cycAccess.assertIsa(term,
+      assertIsa(term,
                           collection);
     Log.current.println("(#$isa " +
                         term.cyclify() + " " +
@@ -661,31 +911,31 @@ public abstract class ImportOwl implements StatementHandler {
   protected void importGenls(OwlTermInfo subjectTermInfo, OwlTermInfo objectTermInfo)
   throws IOException, UnknownHostException, CycApiException  {
     CycFort term = importTerm(subjectTermInfo, CLASS_TERM);
-    if (! cycAccess.isCollection(term)) {
+    if (! isCollection(term)) {
       if (isFastAssertion) {
         final CycList gaf = new CycList();
         gaf.add(cycAccess.isa);
         gaf.add(term);
         gaf.add(cycAccess.collection);
         final CycSymbol strength = CycObjectFactory.makeCycSymbol(":monotonic");
-        cycAccess.assertHLGaf(gaf, importMt, strength);
+        assertHLGaf(gaf, importMt, strength);
       }
       else
-        cycAccess.assertIsaCollection(term);
+        assertIsaCollection(term);
       Log.current.println("*** forward reference to collection " + term.cyclify());
     }
     CycFort collection = importTerm(objectTermInfo, CLASS_TERM);
-    if (! cycAccess.isCollection(collection)) {
+    if (! isCollection(collection)) {
       if (isFastAssertion) {
         final CycList gaf = new CycList();
         gaf.add(cycAccess.isa);
         gaf.add(collection);
         gaf.add(cycAccess.collection);
         final CycSymbol strength = CycObjectFactory.makeCycSymbol(":monotonic");
-        cycAccess.assertHLGaf(gaf, importMt, strength);
+        assertHLGaf(gaf, importMt, strength);
       }
       else
-        cycAccess.assertIsaCollection(collection);
+        assertIsaCollection(collection);
       Log.current.println("*** forward reference to collection " + collection.cyclify());
     }
     if (isFastAssertion) {
@@ -694,7 +944,7 @@ public abstract class ImportOwl implements StatementHandler {
       gaf.add(term);
       gaf.add(collection);
       final CycSymbol strength = CycObjectFactory.makeCycSymbol(":monotonic");
-      cycAccess.assertHLGaf(gaf, importMt, strength);
+      assertHLGaf(gaf, importMt, strength);
     }
     else
       cycAccess.assertGenls(term,
@@ -720,7 +970,7 @@ public abstract class ImportOwl implements StatementHandler {
       gaf.add(subjectTermInfo.cycFort);
       gaf.add(objectTermInfo.cycFort);
       final CycSymbol strength = CycObjectFactory.makeCycSymbol(":monotonic");
-      cycAccess.assertHLGaf(gaf, importMt, strength);
+      assertHLGaf(gaf, importMt, strength);
     }
     else
       cycAccess.assertGenlPreds(subjectTermInfo.cycFort, objectTermInfo.cycFort);
@@ -733,7 +983,7 @@ public abstract class ImportOwl implements StatementHandler {
       gaf.add(objectTermInfo.cycFort);
       gaf.add(subjectTermInfo.cycFort);
       final CycSymbol strength = CycObjectFactory.makeCycSymbol(":monotonic");
-      cycAccess.assertHLGaf(gaf, importMt, strength);
+      assertHLGaf(gaf, importMt, strength);
     }
     else
       cycAccess.assertGenlPreds(objectTermInfo.cycFort, subjectTermInfo.cycFort);
@@ -751,17 +1001,17 @@ public abstract class ImportOwl implements StatementHandler {
   throws IOException, UnknownHostException, CycApiException  {
     CycFort term1 = importTerm(subjectTermInfo, PROPERTY_TERM);
     CycFort term2 = importTerm(objectTermInfo, CLASS_TERM);
-    if (! cycAccess.isCollection(term2)) {
+    if (! isCollection(term2)) {
       if (isFastAssertion) {
         final CycList gaf = new CycList();
         gaf.add(cycAccess.isa);
         gaf.add(term2);
         gaf.add(cycAccess.collection);
         final CycSymbol strength = CycObjectFactory.makeCycSymbol(":monotonic");
-        cycAccess.assertHLGaf(gaf, importMt, strength);
+        assertHLGaf(gaf, importMt, strength);
       }
       else
-        cycAccess.assertIsaCollection(term2);
+        assertIsaCollection(term2);
       Log.current.println("*** forward reference to collection " + term2.cyclify());
     }
     if (isFastAssertion) {
@@ -771,10 +1021,10 @@ public abstract class ImportOwl implements StatementHandler {
       gaf.add(new Integer(1));
       gaf.add(term2);
       final CycSymbol strength = CycObjectFactory.makeCycSymbol(":monotonic");
-      cycAccess.assertHLGaf(gaf, importMt, strength);
+      assertHLGaf(gaf, importMt, strength);
     }
     else
-      cycAccess.assertArgIsa(term1, 1, term2);
+      assertArgIsa(term1, 1, term2);
     Log.current.println("(#$arg1Isa " +
                         term1.cyclify() + " " +
                         term2.cyclify() + ")");
@@ -789,17 +1039,17 @@ public abstract class ImportOwl implements StatementHandler {
   throws IOException, UnknownHostException, CycApiException  {
     CycFort term1 = importTerm(subjectTermInfo, PROPERTY_TERM);
     CycFort term2 = importTerm(objectTermInfo, CLASS_TERM);
-    if (! cycAccess.isCollection(term2)) {
+    if (! isCollection(term2)) {
       if (isFastAssertion) {
         final CycList gaf = new CycList();
         gaf.add(cycAccess.isa);
         gaf.add(term2);
         gaf.add(cycAccess.collection);
         final CycSymbol strength = CycObjectFactory.makeCycSymbol(":monotonic");
-        cycAccess.assertHLGaf(gaf, importMt, strength);
+        assertHLGaf(gaf, importMt, strength);
       }
       else
-        cycAccess.assertIsaCollection(term2);
+        assertIsaCollection(term2);
       Log.current.println("*** forward reference to collection " + term2.cyclify());
     }
     if (isFastAssertion) {
@@ -809,10 +1059,10 @@ public abstract class ImportOwl implements StatementHandler {
       gaf.add(new Integer(2));
       gaf.add(term2);
       final CycSymbol strength = CycObjectFactory.makeCycSymbol(":monotonic");
-      cycAccess.assertHLGaf(gaf, importMt, strength);
+      assertHLGaf(gaf, importMt, strength);
     }
     else
-      cycAccess.assertArgIsa(term1, 2, term2);
+      assertArgIsa(term1, 2, term2);
     Log.current.println("(#$arg2Isa " +
                         term1.cyclify() + " " +
                         term2.cyclify() + ")");
@@ -833,7 +1083,7 @@ public abstract class ImportOwl implements StatementHandler {
       gaf.add(term1);
       gaf.add(term2);
       final CycSymbol strength = CycObjectFactory.makeCycSymbol(":default");
-      cycAccess.assertHLGaf(gaf, importMt, strength);
+      assertHLGaf(gaf, importMt, strength);
     }
     else
       cycAccess.assertConceptuallyRelated(term1, term2, importMt);
@@ -857,7 +1107,7 @@ public abstract class ImportOwl implements StatementHandler {
       gaf.add(term1);
       gaf.add(term2);
       final CycSymbol strength = CycObjectFactory.makeCycSymbol(":default");
-      cycAccess.assertHLGaf(gaf, importMt, strength);
+      assertHLGaf(gaf, importMt, strength);
     }
     else
       cycAccess.assertGaf(importMt,
@@ -878,7 +1128,7 @@ public abstract class ImportOwl implements StatementHandler {
   throws IOException, UnknownHostException, CycApiException  {
     CycFort specPred = importTerm(subjectTermInfo, PROPERTY_TERM);
     CycFort genlPred = importTerm(objectTermInfo, PROPERTY_TERM);
-    if (! cycAccess.isBinaryPredicate((CycFort) genlPred)) {
+    if (! isBinaryPredicate((CycFort) genlPred)) {
       // forward reference
       if (isFastAssertion) {
         final CycList gaf = new CycList();
@@ -886,15 +1136,15 @@ public abstract class ImportOwl implements StatementHandler {
         gaf.add(genlPred);
         gaf.add(cycAccess.binaryPredicate);
         final CycSymbol strength = CycObjectFactory.makeCycSymbol(":monotonic");
-        cycAccess.assertHLGaf(gaf, importMt, strength);
+        assertHLGaf(gaf, importMt, strength);
         final CycList gaf2 = new CycList();
         gaf2.add(cycAccess.getKnownConstantByName("arity"));
         gaf2.add(genlPred);
         gaf2.add(new Integer(2));
-        cycAccess.assertHLGaf(gaf, importMt, strength);
+        assertHLGaf(gaf, importMt, strength);
       }
       else
-        cycAccess.assertIsaBinaryPredicate(genlPred);
+        assertIsaBinaryPredicate(genlPred);
       Log.current.println("*** forward reference to predicate " + genlPred.cyclify());
     }
     if (isFastAssertion) {
@@ -903,7 +1153,7 @@ public abstract class ImportOwl implements StatementHandler {
       gaf.add(specPred);
       gaf.add(genlPred);
       final CycSymbol strength = CycObjectFactory.makeCycSymbol(":monotonic");
-      cycAccess.assertHLGaf(gaf, importMt, strength);
+      assertHLGaf(gaf, importMt, strength);
     }
     else
       cycAccess.assertGenlPreds(specPred, genlPred);
@@ -937,7 +1187,7 @@ public abstract class ImportOwl implements StatementHandler {
       gaf.add(term);
       gaf.add(comment);
       final CycSymbol strength = CycObjectFactory.makeCycSymbol(":monotonic");
-      cycAccess.assertHLGaf(gaf, importMt, strength);
+      assertHLGaf(gaf, importMt, strength);
     }
     else
       cycAccess.assertComment(term, comment, importMt);
@@ -961,7 +1211,7 @@ public abstract class ImportOwl implements StatementHandler {
       gaf.add(term);
       gaf.add(nameString);
       final CycSymbol strength = CycObjectFactory.makeCycSymbol(":monotonic");
-      cycAccess.assertHLGaf(gaf, importMt, strength);
+      assertHLGaf(gaf, importMt, strength);
     }
     else
       cycAccess.assertNameString(term, nameString, importMt);
@@ -993,7 +1243,7 @@ public abstract class ImportOwl implements StatementHandler {
       gaf.add(resource);
       gaf.add(term);
       final CycSymbol strength = CycObjectFactory.makeCycSymbol(":default");
-      cycAccess.assertHLGaf(gaf, importMt, strength);
+      assertHLGaf(gaf, importMt, strength);
     }
     else
       cycAccess.assertGaf(importMt,
@@ -1021,7 +1271,7 @@ public abstract class ImportOwl implements StatementHandler {
       gaf.add(version);
       gaf.add(term);
       final CycSymbol strength = CycObjectFactory.makeCycSymbol(":default");
-      cycAccess.assertHLGaf(gaf, importMt, strength);
+      assertHLGaf(gaf, importMt, strength);
     }
     else
       cycAccess.assertGaf(importMt,
@@ -1076,7 +1326,7 @@ public abstract class ImportOwl implements StatementHandler {
     }
     
     if (! cycAccess.isOpenCyc()) {
-      if (cycFort instanceof CycConstant && (! cycAccess.isQuotedIsa(cycFort, kbSubsetCollection))) {
+      if (cycFort instanceof CycConstant && (! isQuotedIsa(cycFort, kbSubsetCollection))) {
         if (verbosity > 1)
           Log.current.println("(#$quotedIsa " + cycFort.cyclify() + " " +
                               kbSubsetCollection.cyclify() + ")");
@@ -1086,7 +1336,7 @@ public abstract class ImportOwl implements StatementHandler {
         gaf.add(kbSubsetCollection);
         if (isFastAssertion) {
           final CycSymbol strength = CycObjectFactory.makeCycSymbol(":monotonic");
-          cycAccess.assertHLGaf(gaf, importMt, strength);
+          assertHLGaf(gaf, importMt, strength);
         }
         else
           cycAccess.assertGaf(gaf, importMt);
@@ -1101,10 +1351,10 @@ public abstract class ImportOwl implements StatementHandler {
         gaf.add(cycFort);
         gaf.add(cycAccess.getKnownConstantByName("OWLAnonymousClass"));
         final CycSymbol strength = CycObjectFactory.makeCycSymbol(":monotonic");
-        cycAccess.assertHLGaf(gaf, importMt, strength);
+        assertHLGaf(gaf, importMt, strength);
       }
       else
-        cycAccess.assertIsa(cycFort,
+        assertIsa(cycFort,
                             cycAccess.getKnownConstantByName("OWLAnonymousClass"),
                             importMt);
     }
@@ -1359,7 +1609,7 @@ public abstract class ImportOwl implements StatementHandler {
         if(actuallyImport)
           if (isFastAssertion) {
             final CycSymbol strength = CycObjectFactory.makeCycSymbol(":monotonic");
-            cycAccess.assertHLGaf(owlRestriction.interArgIsaConstraint, importMt, strength);
+            assertHLGaf(owlRestriction.interArgIsaConstraint, importMt, strength);
           }
           else
             cycAccess.assertGaf(owlRestriction.interArgIsaConstraint, importMt);
@@ -1369,7 +1619,7 @@ public abstract class ImportOwl implements StatementHandler {
         if(actuallyImport)
           if (isFastAssertion) {
             final CycSymbol strength = CycObjectFactory.makeCycSymbol(":monotonic");
-            cycAccess.assertHLGaf(owlRestriction.interArgFormatConstraint, importMt, strength);
+            assertHLGaf(owlRestriction.interArgFormatConstraint, importMt, strength);
           }
           else
             cycAccess.assertGaf(owlRestriction.interArgFormatConstraint, importMt);
@@ -1645,36 +1895,36 @@ public abstract class ImportOwl implements StatementHandler {
     protected void formInterArgIsaConstraint()
     throws IOException, UnknownHostException, CycApiException {
       if (toClasses.size() == 1) {
-        if (! cycAccess.isBinaryPredicate(property)) {
+        if (! isBinaryPredicate(property)) {
           if (isFastAssertion) {
             final CycList gaf = new CycList();
             gaf.add(cycAccess.isa);
             gaf.add(property);
             gaf.add(cycAccess.binaryPredicate);
             final CycSymbol strength = CycObjectFactory.makeCycSymbol(":monotonic");
-            cycAccess.assertHLGaf(gaf, importMt, strength);
+            assertHLGaf(gaf, importMt, strength);
             final CycList gaf2 = new CycList();
             gaf2.add(cycAccess.getKnownConstantByName("arity"));
             gaf2.add(property);
             gaf2.add(new Integer(2));
-            cycAccess.assertHLGaf(gaf, importMt, strength);
+            assertHLGaf(gaf, importMt, strength);
           }
           else
-            cycAccess.assertIsaBinaryPredicate(property);
+            assertIsaBinaryPredicate(property);
           Log.current.println("*** forward reference to predicate " + property.cyclify());
         }
         CycFort toClass = (CycFort) toClasses.get(0);
-        if (! cycAccess.isCollection(toClass)) {
+        if (! isCollection(toClass)) {
           if (isFastAssertion) {
             final CycList gaf = new CycList();
             gaf.add(cycAccess.isa);
             gaf.add(toClass);
             gaf.add(cycAccess.collection);
             final CycSymbol strength = CycObjectFactory.makeCycSymbol(":monotonic");
-            cycAccess.assertHLGaf(gaf, importMt, strength);
+            assertHLGaf(gaf, importMt, strength);
           }
           else
-            cycAccess.assertIsaCollection(toClass);
+            assertIsaCollection(toClass);
           Log.current.println("*** forward reference to collection " + toClass.cyclify());
         }
         String interArgIsaConstraintString =
@@ -1819,6 +2069,22 @@ public abstract class ImportOwl implements StatementHandler {
   /** indicates that fast HL asertions are used during the OWL import (no forward inference) */
   public static boolean isFastAssertion = false; 
     
+  /** the number of api connections which write HL assertions concurrently with the parse
+   * when isFastAssertion is true, zero to assert each gaf as it is imported */
+  public int nbrWriterConnections = Integer.getInteger("org.opencyc.xml.importOwlWriterConnections", 0).intValue();
+  
+  /** the writer of HL assertions over nbrWriterConnections connections, open during an import */
+  protected OwlAssertionWriter assertionWriter = null;
+  
+  /** the RDF subject of the previous triple, which delimits assertion batches */
+  protected String previousSubjectId = null;
+  
+  /** Remembered answers to the KB queries made during the import, so that the
+   * same term-existence, isa and argument constraint questions are asked once
+   * per document.  query key --> answer
+   */
+  protected HashMap kbQueryCache = new HashMap();
+  
   /** the start time milliseconds */
   private long startMilliseconds;
   
@@ -26,8 +26,10 @@ import java.net.UnknownHostException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 
 /**
  * <P>OntologyExport is designed to...
@@ -237,6 +239,38 @@ public abstract class OntologyExport {
     }
   }
     
+  /**
+   * The number of terms whose metadata is fetched by each api request of prefetchTermInfo.
+   */
+  public int termInfoChunkSize = Integer.getInteger("org.opencyc.xml.termInfoChunkSize", 500).intValue();
+  
+  /**
+   * Fetches the classification, comment and generated phrase of each of the given
+   * terms in chunked api requests and records them in the term info table, from
+   * which the exporters read them instead of asking for each term separately.
+   * Terms which are not CycForts are left to the individual requests.
+   *
+   * @param terms the list of terms to prefetch
+   */
+  public void prefetchTermInfo(final List terms) throws UnknownHostException, IOException, CycApiException {
+    //// Preconditions
+    assert terms != null : "terms cannot be null";
+    
+    final ArrayList chunk = new ArrayList(termInfoChunkSize);
+    final int terms_size = terms.size();
+    for (int i = 0; i < terms_size; i++) {
+      final Object term = terms.get(i);
+      if (term instanceof CycFort && ! termInfos.containsKey(((CycFort) term).cyclify()))
+        chunk.add(term);
+      if (chunk.size() >= termInfoChunkSize || (i == terms_size - 1 && ! chunk.isEmpty())) {
+        prefetchTermInfoChunk(chunk);
+        chunk.clear();
+      }
+    }
+    if (verbosity > 2)
+      Log.current.println("Prefetched term information for " + termInfos.size() + " terms");
+  }
+  
   //// Protected Area
   
   /**
@@ -663,8 +697,187 @@ public abstract class OntologyExport {
     assert ! selectedCycForts.isEmpty() : "selectedCycForts cannot be empty";
   }
   
+  /** Returns the prefetched term information for the given term, or null if not prefetched.
+   *
+   * @param cycObject the given term
+   * @return the prefetched term information for the given term, or null if not prefetched
+   */
+  final protected TermInfo getTermInfo(final CycObject cycObject) {
+    if (termInfos.isEmpty() || ! (cycObject instanceof CycFort))
+      return null;
+    return (TermInfo) termInfos.get(cycObject.cyclify());
+  }
+  
+  /** Returns true if the given term is a collection.
+   *
+   * @param cycObject the given term
+   * @return true if the given term is a collection
+   */
+  final protected boolean isCollection(final CycObject cycObject) throws UnknownHostException, IOException, CycApiException {
+    final TermInfo termInfo = getTermInfo(cycObject);
+    return termInfo == null ? cycAccess.isCollection(cycObject) : termInfo.isCollection;
+  }
+  
+  /** Returns true if the given term is a unary predicate.
+   *
+   * @param cycObject the given term
+   * @return true if the given term is a unary predicate
+   */
+  final protected boolean isUnaryPredicate(final CycObject cycObject) throws UnknownHostException, IOException, CycApiException {
+    final TermInfo termInfo = getTermInfo(cycObject);
+    return termInfo == null ? cycAccess.isUnaryPredicate(cycObject) : termInfo.isUnaryPredicate;
+  }
+  
+  /** Returns true if the given term is a binary predicate.
+   *
+   * @param cycObject the given term
+   * @return true if the given term is a binary predicate
+   */
+  final protected boolean isBinaryPredicate(final CycObject cycObject) throws UnknownHostException, IOException, CycApiException {
+    final TermInfo termInfo = getTermInfo(cycObject);
+    return termInfo == null ? cycAccess.isBinaryPredicate(cycObject) : termInfo.isBinaryPredicate;
+  }
+  
+  /** Returns true if the given term is a predicate.
+   *
+   * @param cycObject the given term
+   * @return true if the given term is a predicate
+   */
+  final protected boolean isPredicate(final CycObject cycObject) throws UnknownHostException, IOException, CycApiException {
+    final TermInfo termInfo = getTermInfo(cycObject);
+    return termInfo == null ? cycAccess.isPredicate(cycObject) : termInfo.isPredicate;
+  }
+  
+  /** Returns true if the given term is an individual.
+   *
+   * @param cycObject the given term
+   * @return true if the given term is an individual
+   */
+  final protected boolean isIndividual(final CycObject cycObject) throws UnknownHostException, IOException, CycApiException {
+    final TermInfo termInfo = getTermInfo(cycObject);
+    return termInfo == null ? cycAccess.isIndividual(cycObject) : termInfo.isIndividual;
+  }
+  
+  /** Returns true if the given term is a function.
+   *
+   * @param cycFort the given term
+   * @return true if the given term is a function
+   */
+  final protected boolean isFunction(final CycFort cycFort) throws UnknownHostException, IOException, CycApiException {
+    final TermInfo termInfo = getTermInfo(cycFort);
+    return termInfo == null ? cycAccess.isFunction(cycFort) : termInfo.isFunction;
+  }
+  
+  /** Returns true if the given term is a quoted collection.
+   *
+   * @param cycFort the given term
+   * @return true if the given term is a quoted collection
+   */
+  final protected boolean isQuotedCollection(final CycFort cycFort) throws UnknownHostException, IOException, CycApiException {
+    final TermInfo termInfo = getTermInfo(cycFort);
+    return termInfo == null ? cycAccess.isQuotedCollection(cycFort) : termInfo.isQuotedCollection;
+  }
+  
+  /** Returns the comment for the given term, or an empty string if it has no comment.
+   *
+   * @param cycObject the given term
+   * @return the comment for the given term
+   */
+  final protected String getComment(final CycObject cycObject) throws UnknownHostException, IOException, CycApiException {
+    final TermInfo termInfo = getTermInfo(cycObject);
+    return termInfo == null ? cycAccess.getComment(cycObject) : termInfo.comment;
+  }
+  
+  /** Returns the generated English phrase for the given term.
+   *
+   * @param cycObject the given term
+   * @return the generated English phrase for the given term
+   */
+  final protected String getGeneratedPhrase(final CycObject cycObject) throws UnknownHostException, IOException, CycApiException {
+    final TermInfo termInfo = getTermInfo(cycObject);
+    if (termInfo == null || termInfo.generatedPhrase == null)
+      return cycAccess.getGeneratedPhrase(cycObject);
+    return termInfo.generatedPhrase;
+  }
+  
+  /** Contains the prefetched metadata of a term. */
+  protected static class TermInfo {
+    
+    /** indicates that the term is a collection */
+    protected boolean isCollection;
+    
+    /** indicates that the term is a unary predicate */
+    protected boolean isUnaryPredicate;
+    
+    /** indicates that the term is a binary predicate */
+    protected boolean isBinaryPredicate;
+    
+    /** indicates that the term is a predicate */
+    protected boolean isPredicate;
+    
+    /** indicates that the term is an individual */
+    protected boolean isIndividual;
+    
+    /** indicates that the term is a function */
+    protected boolean isFunction;
+    
+    /** indicates that the term is a quoted collection */
+    protected boolean isQuotedCollection;
+    
+    /** the comment, or an empty string if none */
+    protected String comment;
+    
+    /** the generated English phrase, or null if none was generated */
+    protected String generatedPhrase;
+  }
+  
+  /** the prefetched term information, term cyclified string --> TermInfo */
+  protected HashMap termInfos = new HashMap();
+  
   //// Private Area
   
+  /** Fetches the term information for the given chunk of terms in one api request.
+   *
+   * @param chunk the list of CycForts
+   */
+  private void prefetchTermInfoChunk(final ArrayList chunk) throws UnknownHostException, IOException, CycApiException {
+    final StringBuffer command = new StringBuffer();
+    command.append("(clet ((result nil)) ");
+    command.append("(cdolist (term (list");
+    for (int i = 0; i < chunk.size(); i++) {
+      command.append(" ");
+      command.append(((CycFort) chunk.get(i)).stringApiValue());
+    }
+    command.append(")) ");
+    command.append("(cpush (list (isa-in-any-mt? term #$Collection) ");
+    command.append("(isa-in-any-mt? term #$UnaryPredicate) ");
+    command.append("(isa-in-any-mt? term #$BinaryPredicate) ");
+    command.append("(isa-in-any-mt? term #$Predicate) ");
+    command.append("(isa-in-any-mt? term #$Individual) ");
+    command.append("(isa-in-any-mt? term #$Function-Denotational) ");
+    command.append("(pif (cyc-query (list #$quotedCollection term) " + cycAccess.inferencePSC.stringApiValue() + ") t nil) ");
+    command.append("(clet ((comment-string (with-all-mts (comment term)))) ");
+    command.append("(fif comment-string (string-substitute \" \" \"\\\"\" comment-string) \"\")) ");
+    command.append("(with-precise-paraphrase-on (generate-phrase term))) ");
+    command.append("result)) ");
+    command.append("(nreverse result))");
+    final CycList response = cycAccess.converseList(command.toString());
+    for (int i = 0; i < chunk.size(); i++) {
+      final CycList answers = (CycList) response.get(i);
+      final TermInfo termInfo = new TermInfo();
+      termInfo.isCollection = ! answers.get(0).equals(CycObjectFactory.nil);
+      termInfo.isUnaryPredicate = ! answers.get(1).equals(CycObjectFactory.nil);
+      termInfo.isBinaryPredicate = ! answers.get(2).equals(CycObjectFactory.nil);
+      termInfo.isPredicate = ! answers.get(3).equals(CycObjectFactory.nil);
+      termInfo.isIndividual = ! answers.get(4).equals(CycObjectFactory.nil);
+      termInfo.isFunction = ! answers.get(5).equals(CycObjectFactory.nil);
+      termInfo.isQuotedCollection = ! answers.get(6).equals(CycObjectFactory.nil);
+      termInfo.comment = (answers.get(7) instanceof String) ? (String) answers.get(7) : "";
+      termInfo.generatedPhrase = (answers.get(8) instanceof String) ? (String) answers.get(8) : null;
+      termInfos.put(((CycFort) chunk.get(i)).cyclify(), termInfo);
+    }
+  }
+  
   //// Internal Rep
   
   //// Main
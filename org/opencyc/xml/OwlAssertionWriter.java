@@ -0,0 +1,365 @@
+package org.opencyc.xml;
+
+//// Internal Imports
+import org.opencyc.api.CycAccess;
+import org.opencyc.api.CycApiException;
+import org.opencyc.api.CycConnection;
+import org.opencyc.api.CycObjectFactory;
+import org.opencyc.cycobject.CycList;
+import org.opencyc.cycobject.CycObject;
+import org.opencyc.cycobject.CycSymbol;
+import org.opencyc.util.Log;
+
+//// External Imports
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.LinkedList;
+
+/** Writes the HL assertions of an OWL import over several api connections.<p>
+ * <p>
+ * The importing thread adds gafs with <tt>add</tt>.  The gafs are grouped into
+ * batches which are closed at subject boundaries, so that the assertions about
+ * one OWL subject travel together.  Each batch is sent as a single <tt>progn</tt>
+ * of <tt>hl-add-argument</tt> commands by whichever writer connection is free,
+ * so that throughput grows with the number of connections rather than being
+ * bounded by the round trip latency of each assertion.  Batches may be written
+ * out of order, which is harmless for HL assertions since they perform no
+ * wff-checking.  The queue of batches is bounded, so the importing thread waits
+ * when the writers fall behind.<p>
+ * <p>
+ * When a batch request fails, its gafs are asserted one at a time and the
+ * failing gafs are reported.
+ *
+ * @version $Id$
+ *
+ * <p>Copyright 2001 Cycorp, Inc., license is open source GNU LGPL.
+ * <p><a href="http://www.opencyc.org/license.txt">the license</a>
+ * <p><a href="http://www.opencyc.org">www.opencyc.org</a>
+ * <p><a href="http://www.sourceforge.net/projects/opencyc">OpenCyc at SourceForge</a>
+ * <p>
+ * THIS SOFTWARE AND KNOWLEDGE BASE CONTENT ARE PROVIDED ``AS IS'' AND
+ * ANY EXPRESSED OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO,
+ * THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE OPENCYC
+ * ORGANIZATION OR ITS CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE AND KNOWLEDGE
+ * BASE CONTENT, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+public class OwlAssertionWriter {
+
+  //// Constructors
+
+  /** Constructs a new OwlAssertionWriter object which opens the given number of
+   * persistent binary connections to the Cyc server of the given CycAccess object.
+   * Each connection is opened and closed by its own writer thread, so that the
+   * <tt>CycAccess.current()</tt> binding of the importing thread is left unchanged.
+   *
+   * @param cycAccess the CycAccess object whose server receives the assertions
+   * @param nbrConnections the number of writer connections
+   */
+  public OwlAssertionWriter(final CycAccess cycAccess, final int nbrConnections)
+  throws IOException, UnknownHostException, CycApiException {
+    if (nbrConnections < 1)
+      throw new IllegalArgumentException("nbrConnections must be positive " + nbrConnections);
+    connections = new CycAccess[nbrConnections];
+    queueCapacity = 2 * nbrConnections;
+    startMilliseconds = System.currentTimeMillis();
+    writers = new Thread[nbrConnections];
+    final String hostName = cycAccess.getHostName();
+    final int basePort = cycAccess.getBasePort();
+    for (int i = 0; i < nbrConnections; i++) {
+      final int index = i;
+      writers[i] = new Thread(new Runnable() {
+        public void run() {
+          runWriter(index, hostName, basePort);
+        }
+      }, "OwlAssertionWriter-" + i);
+      writers[i].setDaemon(true);
+      writers[i].start();
+    }
+    final Exception failure;
+    synchronized (this) {
+      try {
+        while (nbrOpenedConnections < nbrConnections && openFailure == null)
+          wait();
+      }
+      catch (InterruptedException e) {
+        openFailure = new InterruptedIOException("interrupted while opening writer connections");
+      }
+      failure = openFailure;
+      if (failure != null) {
+        isClosed = true;
+        notifyAll();
+      }
+    }
+    if (failure instanceof IOException)
+      throw (IOException) failure;
+    if (failure instanceof CycApiException)
+      throw (CycApiException) failure;
+    if (failure instanceof RuntimeException)
+      throw (RuntimeException) failure;
+    if (failure != null)
+      throw new CycApiException("Cannot open writer connection: " + failure.getMessage(), failure);
+  }
+
+  //// Public Area
+
+  /** The number of gafs after which a batch is closed at the next subject boundary. */
+  public static int batchSize = Integer.getInteger("org.opencyc.xml.owlAssertionBatchSize", 200).intValue();
+
+  /** Adds the given gaf for assertion at the HL level.
+   *
+   * @param gaf the gaf in the form of a CycList
+   * @param mt the microtheory in which the assertion is made
+   * @param strength the assertion strength (e.g. :default or :monotonic)
+   */
+  public void add(final CycList gaf, final CycObject mt, final CycSymbol strength) {
+    currentBatch.add(new Object[] {gaf, mt, strength});
+  }
+
+  /** Marks a subject boundary, queueing the current batch once it holds at
+   * least <tt>batchSize</tt> gafs.
+   */
+  public void endSubject() throws InterruptedException {
+    if (currentBatch.size() >= batchSize)
+      flush();
+  }
+
+  /** Queues the current batch, waiting while the queue is full. */
+  public void flush() throws InterruptedException {
+    if (currentBatch.isEmpty())
+      return;
+    final ArrayList batch = currentBatch;
+    currentBatch = new ArrayList();
+    synchronized (this) {
+      while (queue.size() >= queueCapacity)
+        wait();
+      queue.addLast(batch);
+      nbrBatches++;
+      notifyAll();
+    }
+  }
+
+  /** Queues the current batch and waits until every queued gaf has been written,
+   * so that subsequent KB queries observe the assertions.
+   */
+  public void drain() throws InterruptedException {
+    flush();
+    synchronized (this) {
+      while (! queue.isEmpty() || nbrBusyWriters > 0)
+        wait();
+    }
+  }
+
+  /** Writes the remaining gafs, stops the writer threads and closes their connections. */
+  public void close() throws InterruptedException {
+    drain();
+    synchronized (this) {
+      isClosed = true;
+      notifyAll();
+    }
+    for (int i = 0; i < writers.length; i++)
+      writers[i].join();
+    elapsedMilliseconds = System.currentTimeMillis() - startMilliseconds;
+  }
+
+  /** Returns the number of gafs written.
+   *
+   * @return the number of gafs written
+   */
+  public synchronized int getNbrGafs() {
+    return nbrGafs;
+  }
+
+  /** Returns the number of gafs which could not be asserted.
+   *
+   * @return the number of gafs which could not be asserted
+   */
+  public synchronized int getNbrFailed() {
+    return nbrFailed;
+  }
+
+  /** Returns a one line summary of the gafs written and the write throughput.
+   *
+   * @return a one line summary of the gafs written and the write throughput
+   */
+  public synchronized String toString() {
+    long milliseconds = elapsedMilliseconds;
+    if (milliseconds == 0)
+      milliseconds = System.currentTimeMillis() - startMilliseconds;
+    long gafsPerSecond = milliseconds > 0 ? (nbrGafs * 1000L) / milliseconds : 0;
+    return nbrGafs + " assertions in " + nbrBatches + " batches over " +
+      connections.length + " connections, " + nbrFailed + " failed, " +
+      gafsPerSecond + " assertions/sec";
+  }
+
+  //// Protected Area
+
+  /** Opens the writer connection of the calling writer thread, writes queued batches
+   * over it until this writer is closed, and then closes it.
+   *
+   * @param index the index of the writer connection
+   * @param hostName the Cyc server host name
+   * @param basePort the Cyc server base port
+   */
+  protected void runWriter(final int index, final String hostName, final int basePort) {
+    final CycAccess connection;
+    try {
+      connection = new CycAccess(hostName,
+                                 basePort,
+                                 CycConnection.DEFAULT_COMMUNICATION_MODE,
+                                 CycAccess.PERSISTENT_CONNECTION);
+    }
+    catch (Exception e) {
+      synchronized (this) {
+        if (openFailure == null)
+          openFailure = e;
+        notifyAll();
+      }
+      return;
+    }
+    synchronized (this) {
+      connections[index] = connection;
+      nbrOpenedConnections++;
+      notifyAll();
+    }
+    try {
+      writeBatches(connection);
+    }
+    finally {
+      connection.close();
+    }
+  }
+
+  /** Writes queued batches over the given connection until this writer is closed.
+   *
+   * @param connection the writer connection
+   */
+  protected void writeBatches(final CycAccess connection) {
+    while (true) {
+      ArrayList batch;
+      synchronized (this) {
+        while (queue.isEmpty() && ! isClosed) {
+          try {
+            wait();
+          }
+          catch (InterruptedException e) {
+            return;
+          }
+        }
+        if (queue.isEmpty())
+          return;
+        batch = (ArrayList) queue.removeFirst();
+        nbrBusyWriters++;
+        notifyAll();
+      }
+      int failed = 0;
+      try {
+        failed = writeBatch(connection, batch);
+      }
+      finally {
+        synchronized (this) {
+          nbrGafs += batch.size();
+          nbrFailed += failed;
+          nbrBusyWriters--;
+          notifyAll();
+        }
+      }
+    }
+  }
+
+  /** Writes the given batch in one api request, falling back to one request per
+   * gaf when the batch fails.
+   *
+   * @param connection the writer connection
+   * @param batch the list of {gaf, mt, strength} entries
+   * @return the number of gafs which could not be asserted
+   */
+  protected int writeBatch(final CycAccess connection, final ArrayList batch) {
+    try {
+      final CycList command = new CycList();
+      command.add(PROGN);
+      for (int i = 0; i < batch.size(); i++) {
+        final Object[] entry = (Object[]) batch.get(i);
+        command.add(connection.makeAssertHLGafCommand((CycList) entry[0],
+                                                      (CycObject) entry[1],
+                                                      (CycSymbol) entry[2]));
+      }
+      connection.converseVoid(command);
+      return 0;
+    }
+    catch (Exception e) {
+      Log.current.errorPrintln("Batch of " + batch.size() + " assertions failed, retrying singly: " + e.getMessage());
+    }
+    int failed = 0;
+    for (int i = 0; i < batch.size(); i++) {
+      final Object[] entry = (Object[]) batch.get(i);
+      try {
+        connection.assertHLGaf((CycList) entry[0], (CycObject) entry[1], (CycSymbol) entry[2]);
+      }
+      catch (Exception e) {
+        failed++;
+        Log.current.errorPrintln("Cannot assert " + ((CycList) entry[0]).cyclify() +
+                                 " in " + entry[1] + ": " + e.getMessage());
+      }
+    }
+    return failed;
+  }
+
+  //// Private Area
+
+  /** the progn symbol which groups the commands of a batch */
+  private static final CycSymbol PROGN = CycObjectFactory.makeCycSymbol("progn");
+
+  //// Internal Rep
+
+  /** the writer connections */
+  private final CycAccess[] connections;
+
+  /** the writer threads, one per connection */
+  private final Thread[] writers;
+
+  /** the batch being filled by the importing thread */
+  private ArrayList currentBatch = new ArrayList();
+
+  /** the batches waiting for a writer */
+  private final LinkedList queue = new LinkedList();
+
+  /** the maximum number of batches waiting for a writer */
+  private final int queueCapacity;
+
+  /** the number of writer connections opened */
+  private int nbrOpenedConnections = 0;
+
+  /** the exception which prevented a writer connection from opening */
+  private Exception openFailure = null;
+
+  /** the number of writers currently sending a batch */
+  private int nbrBusyWriters = 0;
+
+  /** indicates that no more batches will be queued */
+  private boolean isClosed = false;
+
+  /** the number of batches queued */
+  private int nbrBatches = 0;
+
+  /** the number of gafs written */
+  private int nbrGafs = 0;
+
+  /** the number of gafs which could not be asserted */
+  private int nbrFailed = 0;
+
+  /** the start time milliseconds */
+  private final long startMilliseconds;
+
+  /** the elapsed milliseconds when closed */
+  private long elapsedMilliseconds = 0;
+
+}